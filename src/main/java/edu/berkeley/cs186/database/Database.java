@@ -4,6 +4,7 @@ import edu.berkeley.cs186.database.cli.parser.ASTExecutableStatement;
 import edu.berkeley.cs186.database.cli.parser.ParseException;
 import edu.berkeley.cs186.database.cli.parser.RookieParser;
 import edu.berkeley.cs186.database.cli.visitor.ExecutableStatementVisitor;
+import edu.berkeley.cs186.database.common.Buffer;
 import edu.berkeley.cs186.database.common.ByteBuffer;
 import edu.berkeley.cs186.database.common.Pair;
 import edu.berkeley.cs186.database.common.PredicateOperator;
@@ -18,6 +19,9 @@ import edu.berkeley.cs186.database.io.DiskSpaceManagerImpl;
 import edu.berkeley.cs186.database.memory.BufferManager;
 import edu.berkeley.cs186.database.memory.ClockEvictionPolicy;
 import edu.berkeley.cs186.database.memory.EvictionPolicy;
+import edu.berkeley.cs186.database.memory.Page;
+import edu.berkeley.cs186.database.memory.WorkMemGovernor;
+import edu.berkeley.cs186.database.query.PlanCache;
 import edu.berkeley.cs186.database.query.QueryPlan;
 import edu.berkeley.cs186.database.query.SequentialScanOperator;
 import edu.berkeley.cs186.database.query.SortOperator;
@@ -34,9 +38,9 @@ import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Phaser;
+import java.util.concurrent.*;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.UnaryOperator;
 
 /**
@@ -52,7 +56,12 @@ import java.util.function.UnaryOperator;
  *  - Partition 1: used by the _metadata.tables table, which persists
  *    information about user created tables
  *  - Partition 2: used by the _metadata.indices table, which persists
- *    information about user created indices
+ *    information about user created indices, and by the _metadata.statistics
+ *    table, which persists the optimizer statistics of user created tables.
+ *    The header page of _metadata.statistics is page 1 of the partition. In
+ *    databases created before _metadata.statistics existed, where that page
+ *    may belong to _metadata.indices, it's allocated when the database is
+ *    first opened and recorded in _metadata.tables, hidden from users
  *
  * Each partition corresponds to a file in `fileDir`. The remaining partitions
  * are used for user created tables and are allocated as tables are created.
@@ -78,14 +87,33 @@ public class Database implements AutoCloseable {
     private static final String METADATA_TABLE_PREFIX = "_metadata.";
     private static final String TABLE_INFO_TABLE_NAME = METADATA_TABLE_PREFIX + "tables";
     private static final String INDEX_INFO_TABLE_NAME = METADATA_TABLE_PREFIX + "indices";
+    private static final String STATISTICS_INFO_TABLE_NAME = METADATA_TABLE_PREFIX + "statistics";
     private static final int DEFAULT_BUFFER_SIZE = 262144; // default of 1G
     // effective page size - table metadata size
     private static final int MAX_SCHEMA_SIZE = 4006;
+    // effective page size - statistics metadata size
+    private static final int MAX_COLUMN_STATISTICS_SIZE = 3974;
+    // number of buckets of the histograms built by ANALYZE
+    private static final int STATISTICS_BUCKETS = 10;
+    // number of changed records on top of the auto-analyze fraction before a
+    // table is analyzed again, so that small tables aren't analyzed constantly
+    private static final int AUTO_ANALYZE_THRESHOLD = 50;
+    // number of records sampled by automatic ANALYZE
+    private static final int AUTO_ANALYZE_SAMPLE_SIZE = 30000;
+    // maximum number of cached query plans
+    private static final int PLAN_CACHE_SIZE = 256;
+    // how often the lock manager looks for deadlocks, in milliseconds
+    private static final long DEADLOCK_DETECTION_INTERVAL_MILLIS = 100;
+    // how long a query waits for work memory before it runs with the least
+    // it can, in milliseconds
+    private static final long WORK_MEM_WAIT_TIMEOUT_MILLIS = 1000;
 
     // _metadata.tables, manages all tables in the database
     private Table tableMetadata;
     // _metadata.indices, manages all indices in the database
     private Table indexMetadata;
+    // _metadata.statistics, persists the statistics of all tables in the database
+    private Table statisticsMetadata;
     // number of transactions created
     private long numTransactions;
 
@@ -102,10 +130,34 @@ public class Database implements AutoCloseable {
     private int workMem = 1024; // default of 4M
     // number of pages of memory available total
     private int numMemoryPages;
+    // divides work memory between the queries running at once
+    private final WorkMemGovernor workMemGovernor;
     // active transactions
     private Phaser activeTransactions = new Phaser(0);
     // Statistics about the contents of the database.
     private Map<String, TableStats> stats = new ConcurrentHashMap<>();
+    // fraction of a table's records that may change before it's analyzed again
+    private double autoAnalyzeFraction = 0.1;
+    // names of tables with a pending automatic ANALYZE
+    private Set<String> pendingAnalyzes = ConcurrentHashMap.newKeySet();
+    // plans of recent queries, reused by queries that only differ in constants
+    private final PlanCache planCache = new PlanCache(PLAN_CACHE_SIZE);
+    // old versions of the records of each table, read by snapshot-isolated
+    // transactions
+    private final Map<String, VersionStore> versionStores = new ConcurrentHashMap<>();
+    // names of tables whose records are locked individually
+    private final Set<String> rowLockedTables = ConcurrentHashMap.newKeySet();
+    // commit timestamp of the transaction that committed last
+    private long lastCommitTimestamp = 0;
+    // timestamps of the snapshots read by active snapshot-isolated
+    // transactions, with the number of transactions reading each
+    private final TreeMap<Long, Integer> activeSnapshots = new TreeMap<>();
+    // runs background ANALYZE scans, one at a time
+    private ExecutorService analyzeExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "analyze");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     // Names of tables loaded for demo
     private ArrayList<String> demoTables = new ArrayList<>();
@@ -177,7 +229,10 @@ public class Database implements AutoCloseable {
 
         numTransactions = 0;
         this.numMemoryPages = numMemoryPages;
+        this.workMemGovernor = new WorkMemGovernor(Math.max(WorkMemGovernor.MIN_GRANT, numMemoryPages),
+                WORK_MEM_WAIT_TIMEOUT_MILLIS);
         this.lockManager = lockManager;
+        this.lockManager.startDeadlockDetection(DEADLOCK_DETECTION_INTERVAL_MILLIS);
 
         if (useRecoveryManager) {
             recoveryManager = new ARIESRecoveryManager(this::beginRecoveryTransaction);
@@ -207,6 +262,7 @@ public class Database implements AutoCloseable {
         if (!initialized) {
             this.initTableInfo();
             this.initIndexInfo();
+            this.initStatisticsInfo();
         } else {
             this.loadMetadataTables();
         }
@@ -253,6 +309,50 @@ public class Database implements AutoCloseable {
         indexMetadata = new Table(INDEX_INFO_TABLE_NAME, getIndexInfoSchema(), pageDirectory, indexInfoContext, stats);
     }
 
+    // create _metadata.statistics, which shares the partition of _metadata.indices
+    private void initStatisticsInfo() {
+        long statisticsInfoPage0 = DiskSpaceManager.getVirtualPageNum(2, 1);
+        diskSpaceManager.allocPage(statisticsInfoPage0);
+        loadStatisticsInfo(statisticsInfoPage0);
+    }
+
+    // create _metadata.statistics in a database created before it existed, on
+    // any free page of the partition of _metadata.indices, and record its
+    // header page in _metadata.tables
+    private void initLegacyStatisticsInfo() {
+        TableMetadata metadata = new TableMetadata(STATISTICS_INFO_TABLE_NAME);
+        metadata.partNum = 2;
+        metadata.pageNum = diskSpaceManager.allocPage(2);
+        metadata.schema = getStatisticsInfoSchema();
+        synchronized (tableMetadata) {
+            tableMetadata.addRecord(metadata.toRecord());
+        }
+        loadStatisticsInfo(metadata.pageNum);
+    }
+
+    // whether page 1 of the partition of _metadata.indices is the header page
+    // of _metadata.statistics: in databases created before
+    // _metadata.statistics existed, it's either not allocated or a data page
+    // of _metadata.indices
+    private boolean hasStatisticsInfo(PageDirectory indexInfoPageDir) {
+        long statisticsInfoPage0 = DiskSpaceManager.getVirtualPageNum(2, 1);
+        if (!diskSpaceManager.pageAllocated(statisticsInfoPage0)) return false;
+        for (Page page : indexInfoPageDir) {
+            page.unpin();
+            if (page.getPageNum() == statisticsInfoPage0) return false;
+        }
+        return true;
+    }
+
+    // load _metadata.statistics, whose header page is `statisticsInfoPage0`
+    private void loadStatisticsInfo(long statisticsInfoPage0) {
+        LockContext statisticsInfoContext = new DummyLockContext("_dummyStatisticsInfo");
+        PageDirectory pageDirectory = new PageDirectory(bufferManager, 2, statisticsInfoPage0,
+                                              (short) 0, statisticsInfoContext);
+        statisticsMetadata = new Table(STATISTICS_INFO_TABLE_NAME, getStatisticsInfoSchema(), pageDirectory,
+                                       statisticsInfoContext, stats);
+    }
+
     private void loadMetadataTables() {
         // Note: both metadata tables use DummyLockContexts. This is intentional,
         // since we manually synchronize both tables to improve concurrency.
@@ -271,6 +371,21 @@ public class Database implements AutoCloseable {
         indexMetadata = new Table(INDEX_INFO_TABLE_NAME, getIndexInfoSchema(), indexInfoPageDir,
                               indexInfoContext, stats);
         indexMetadata.setFullPageRecords();
+
+        // load _metadata.statistics, or create it if the database was created
+        // before it existed
+        if (hasStatisticsInfo(indexInfoPageDir)) {
+            loadStatisticsInfo(DiskSpaceManager.getVirtualPageNum(2, 1));
+            return;
+        }
+        for (Record record : tableMetadata) {
+            TableMetadata metadata = new TableMetadata(record);
+            if (metadata.tableName.equals(STATISTICS_INFO_TABLE_NAME)) {
+                loadStatisticsInfo(metadata.pageNum);
+                return;
+            }
+        }
+        initLegacyStatisticsInfo();
     }
 
     // wait for all transactions to finish
@@ -284,21 +399,46 @@ public class Database implements AutoCloseable {
      * Close this database.
      */
     @Override
-    public synchronized void close() {
+    public void close() {
+        // background ANALYZEs start transactions of their own, so they must
+        // finish before we lock the database
+        this.analyzeExecutor.shutdown();
+        try {
+            this.analyzeExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            closeAfterAnalyzes();
+        }
+    }
+
+    private void closeAfterAnalyzes() {
         // wait for all transactions to terminate
         this.waitAllTransactions();
 
         dropDemoTables();
 
+        // persist the record counts of every table, which change with every
+        // insert and delete
+        try (Transaction transaction = beginTransaction()) {
+            for (Pair<RecordId, TableMetadata> p : scanTableMetadata()) {
+                TableStats tableStats = stats.get(p.getSecond().tableName);
+                if (tableStats != null) persistStatistics(p.getSecond().tableName, tableStats);
+            }
+        }
+
         this.bufferManager.evictAll();
 
         this.recoveryManager.close();
 
         this.tableMetadata = null;
         this.indexMetadata = null;
+        this.statisticsMetadata = null;
 
         this.bufferManager.close();
         this.diskSpaceManager.close();
+        this.lockManager.stopDeadlockDetection();
     }
 
     public LockManager getLockManager() {
@@ -323,6 +463,64 @@ public class Database implements AutoCloseable {
         this.workMem = workMem;
     }
 
+    /**
+     * Sets the number of pages of work memory the queries running at once
+     * share (by default, the number of pages of the buffer cache). Each
+     * query gets at most getWorkMem pages of it.
+     */
+    public void setWorkMemPool(int numPages) {
+        this.workMemGovernor.setTotalPages(numPages);
+    }
+
+    public WorkMemGovernor getWorkMemGovernor() {
+        return workMemGovernor;
+    }
+
+    /**
+     * @return the cache of the plans of recent queries
+     */
+    public PlanCache getPlanCache() {
+        return planCache;
+    }
+
+    /**
+     * @return the number of old versions of records kept for
+     * snapshot-isolated transactions, across all tables
+     */
+    int getNumRecordVersions() {
+        int numVersions = 0;
+        for (VersionStore versions : versionStores.values()) numVersions += versions.size();
+        return numVersions;
+    }
+
+    /**
+     * Enables or disables row locking on the table named `tableName`:
+     * transactions that get, update or look up (through an index) records of
+     * the table lock the records instead of the pages they're on, so that
+     * transactions that access different records of a small, hot table (e.g.
+     * a table of counters) don't wait for each other. See Table for details.
+     * Only affects transactions that begin afterwards.
+     */
+    public void setRowLocking(String tableName, boolean rowLocking) {
+        if (rowLocking) rowLockedTables.add(normalize(tableName));
+        else rowLockedTables.remove(normalize(tableName));
+    }
+
+    public double getAutoAnalyzeFraction() {
+        return this.autoAnalyzeFraction;
+    }
+
+    /**
+     * Sets the fraction of the records of a table that may be inserted,
+     * deleted or updated before the table is analyzed again in the background,
+     * once the transaction that made the last of these changes commits. Only
+     * tables that were analyzed before are analyzed automatically. A negative
+     * fraction disables automatic analysis.
+     */
+    public void setAutoAnalyzeFraction(double autoAnalyzeFraction) {
+        this.autoAnalyzeFraction = autoAnalyzeFraction;
+    }
+
     /**
      * @return Schema for _metadata.tables with fields:
      *   | field name   | field type
@@ -365,6 +563,29 @@ public class Database implements AutoCloseable {
                 .add("height", Type.intType());
     }
 
+    /**
+     * @return Schema for _metadata.statistics with fields:
+     *   | field name           | field type
+     * --+----------------------+------------
+     * 0 | table_name           | string(32)
+     * 1 | col_name             | string(32)
+     * 2 | num_records          | int
+     * 3 | num_analyzed_records | int
+     * 4 | num_changes          | int
+     * 5 | column_stats         | byte array(MAX_COLUMN_STATISTICS_SIZE)
+     *
+     * Each table has one row per column.
+     */
+    public Schema getStatisticsInfoSchema() {
+        return new Schema()
+                .add("table_name", Type.stringType(32))
+                .add("col_name", Type.stringType(32))
+                .add("num_records", Type.intType())
+                .add("num_analyzed_records", Type.intType())
+                .add("num_changes", Type.intType())
+                .add("column_stats", Type.byteArrayType(MAX_COLUMN_STATISTICS_SIZE));
+    }
+
     // a single row of _metadata.tables
     private static class TableMetadata {
         String tableName;
@@ -394,12 +615,53 @@ public class Database implements AutoCloseable {
         }
     }
 
+    // a single row of _metadata.statistics
+    private static class StatisticsMetadata {
+        String tableName;
+        String colName;
+        int numRecords;
+        int numAnalyzedRecords;
+        int numChanges;
+        byte[] columnStats;
+
+        StatisticsMetadata(String tableName, String colName, TableStats stats, byte[] columnStats) {
+            this.tableName = tableName;
+            this.colName = colName;
+            this.numRecords = stats.getNumRecords();
+            this.numAnalyzedRecords = stats.getNumAnalyzedRecords();
+            this.numChanges = stats.getNumChanges();
+            this.columnStats = columnStats;
+        }
+
+        StatisticsMetadata(Record record) {
+            tableName = record.getValue(0).getString();
+            colName = record.getValue(1).getString();
+            numRecords = record.getValue(2).getInt();
+            numAnalyzedRecords = record.getValue(3).getInt();
+            numChanges = record.getValue(4).getInt();
+            columnStats = record.getValue(5).toBytes();
+        }
+
+        Record toRecord() {
+            byte[] padded = new byte[MAX_COLUMN_STATISTICS_SIZE];
+            System.arraycopy(columnStats, 0, padded, 0, columnStats.length);
+            return new Record(tableName, colName, numRecords, numAnalyzedRecords, numChanges, padded);
+        }
+    }
+
     // Trims and lowercases table and column names so that lookups are
     // case-insensitive and format-insensitive
     private String normalize(String name) {
         return name.trim().toLowerCase();
     }
 
+    // Whether `tableName` names a metadata table recorded in _metadata.tables
+    // (_metadata.statistics), which users can't see. Users can't create
+    // tables whose names contain '.'.
+    private boolean isMetadataTable(String tableName) {
+        return tableName.startsWith(METADATA_TABLE_PREFIX);
+    }
+
     /**
      * @return (rid, metadata) pairs for all of the tables currently in the
      * database. Assumes that caller has already acquired necessary locks on
@@ -411,6 +673,7 @@ public class Database implements AutoCloseable {
             for(RecordId rid: (Iterable<RecordId>) tableMetadata::ridIterator) {
                 Record record = tableMetadata.getRecord(rid);
                 TableMetadata metadata = new TableMetadata(record);
+                if (isMetadataTable(metadata.tableName)) continue;
                 result.add(new Pair<>(rid, metadata));
             }
         }
@@ -422,6 +685,7 @@ public class Database implements AutoCloseable {
         synchronized(tableMetadata) {
             for(RecordId rid: (Iterable<RecordId>) tableMetadata::ridIterator) {
                 Record record = tableMetadata.getRecord(rid);
+                if (isMetadataTable(record.getValue(0).getString())) continue;
                 result.add(record);
             }
         }
@@ -447,10 +711,124 @@ public class Database implements AutoCloseable {
     // TableMetadata -> Table object
     private Table tableFromMetadata(TableMetadata metadata) {
         String tableName = normalize(metadata.tableName);
+        if (!stats.containsKey(metadata.tableName)) {
+            TableStats persisted = loadStatistics(tableName, metadata.schema);
+            if (persisted != null) stats.putIfAbsent(metadata.tableName, persisted);
+        }
         LockContext tableContext = getTableContext(tableName);
         long page0 = DiskSpaceManager.getVirtualPageNum(metadata.partNum, 0);
         PageDirectory pd = new PageDirectory(bufferManager, metadata.partNum, page0, (short) 0, tableContext);
-        return new Table(metadata.tableName, metadata.schema, pd, tableContext, stats);
+        Table table = new Table(metadata.tableName, metadata.schema, pd, tableContext, stats);
+        table.setVersionStore(versionStores.computeIfAbsent(tableName, name -> new VersionStore()));
+        table.setRowLocking(rowLockedTables.contains(tableName));
+        return table;
+    }
+
+    /**
+     * @return the statistics of the table named `tableName` persisted in
+     * _metadata.statistics, or null if none were persisted.
+     */
+    private TableStats loadStatistics(String tableName, Schema schema) {
+        tableName = normalize(tableName);
+        StatisticsMetadata[] columns = new StatisticsMetadata[schema.size()];
+        synchronized (statisticsMetadata) {
+            for (Record record : statisticsMetadata) {
+                StatisticsMetadata column = new StatisticsMetadata(record);
+                if (!normalize(column.tableName).equals(tableName)) continue;
+                int i = schema.getFieldNames().indexOf(column.colName);
+                if (i < 0) return null;
+                columns[i] = column;
+            }
+        }
+        List<Buffer> buffers = new ArrayList<>();
+        for (StatisticsMetadata column : columns) {
+            // The statistics of every column are written together
+            if (column == null) return null;
+            buffers.add(ByteBuffer.wrap(column.columnStats));
+        }
+        int numRecordsPerPage = Table.computeNumRecordsPerPage(PageDirectory.EFFECTIVE_PAGE_SIZE, schema);
+        return TableStats.fromBytes(schema, numRecordsPerPage, columns[0].numRecords,
+                columns[0].numAnalyzedRecords, columns[0].numChanges, buffers);
+    }
+
+    /**
+     * Replaces the statistics of the table named `tableName` persisted in
+     * _metadata.statistics with `tableStats`. Nothing is persisted if the
+     * statistics of any column are too large for the catalog, in which case
+     * the table's statistics start over after a restart.
+     */
+    private void persistStatistics(String tableName, TableStats tableStats) {
+        tableName = normalize(tableName);
+        Schema schema = tableStats.getSchema();
+        List<Record> rows = new ArrayList<>();
+        for (int i = 0; i < schema.size(); i++) {
+            byte[] columnStats = tableStats.columnToBytes(i);
+            if (columnStats.length > MAX_COLUMN_STATISTICS_SIZE) {
+                rows = null;
+                break;
+            }
+            rows.add(new StatisticsMetadata(tableName, schema.getFieldName(i), tableStats, columnStats).toRecord());
+        }
+        synchronized (statisticsMetadata) {
+            deleteStatistics(tableName);
+            if (rows == null) return;
+            for (Record row : rows) statisticsMetadata.addRecord(row);
+        }
+        // Plans were chosen based on the old statistics
+        planCache.invalidate(tableName);
+    }
+
+    // Removes the rows of the table named `tableName` from _metadata.statistics
+    private void deleteStatistics(String tableName) {
+        tableName = normalize(tableName);
+        synchronized (statisticsMetadata) {
+            List<RecordId> rids = new ArrayList<>();
+            for (RecordId rid : (Iterable<RecordId>) statisticsMetadata::ridIterator) {
+                StatisticsMetadata column = new StatisticsMetadata(statisticsMetadata.getRecord(rid));
+                if (normalize(column.tableName).equals(tableName)) rids.add(rid);
+            }
+            for (RecordId rid : rids) statisticsMetadata.deleteRecord(rid);
+        }
+    }
+
+    /**
+     * Analyzes `table` in the background if enough of its records changed
+     * since it was last analyzed (see setAutoAnalyzeFraction). Called once a
+     * transaction that changed `table` committed, so that the snapshot the
+     * table is analyzed in includes the changes.
+     */
+    private void maybeAutoAnalyze(Table table) {
+        if (!table.getStats().isStale(AUTO_ANALYZE_THRESHOLD, autoAnalyzeFraction)) return;
+        String tableName = normalize(table.getName());
+        if (analyzeExecutor.isShutdown() || !pendingAnalyzes.add(tableName)) return;
+        try {
+            analyzeExecutor.submit(() -> {
+                try {
+                    analyzeAndPersist(tableName, AUTO_ANALYZE_SAMPLE_SIZE);
+                } finally {
+                    pendingAnalyzes.remove(tableName);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The database is closing
+            pendingAnalyzes.remove(tableName);
+        }
+    }
+
+    // Analyzes the table named `tableName` in a read-only transaction, which
+    // scans a snapshot of the table without acquiring locks, and persists the
+    // resulting statistics in a short transaction of their own. Runs on the
+    // analyze thread; exceptions complete the submitted future exceptionally
+    private TableStats analyzeAndPersist(String tableName, int sampleSize) {
+        TableStats analyzed;
+        try (Transaction transaction = beginTransaction(true)) {
+            Table table = transaction.getTransactionContext().getTable(tableName);
+            analyzed = table.analyze(STATISTICS_BUCKETS, sampleSize);
+        }
+        try (Transaction transaction = beginTransaction()) {
+            persistStatistics(tableName, analyzed);
+        }
+        return analyzed;
     }
 
     /**
@@ -571,18 +949,94 @@ public class Database implements AutoCloseable {
      *
      * @return the new Transaction
      */
-    public synchronized Transaction beginTransaction() {
-        TransactionImpl t = new TransactionImpl(this.numTransactions, false);
+    public Transaction beginTransaction() {
+        return beginTransaction(Transaction.IsolationLevel.SERIALIZABLE);
+    }
+
+    /**
+     * Start a new transaction with the isolation level `isolationLevel`.
+     * Snapshot-isolated transactions read the database as of the time they
+     * begin without taking locks, so that long reads and writers don't block
+     * each other. They don't use indices to read, since indices aren't
+     * versioned, and changes to the schema (creating and dropping tables and
+     * indices) aren't isolated. Optimistic transactions read like
+     * snapshot-isolated ones, and are validated when they commit (see
+     * Transaction.IsolationLevel).
+     *
+     * @return the new Transaction
+     */
+    public Transaction beginTransaction(Transaction.IsolationLevel isolationLevel) {
+        return beginTransaction(isolationLevel, false);
+    }
+
+    /**
+     * Start a new transaction, which is read-only if `readOnly`. Read-only
+     * transactions read a snapshot of the database like snapshot-isolated
+     * ones (taking no locks to read), and reject writes to tables and
+     * changes to the schema with a DatabaseException. Since they change
+     * nothing, they write no log records, not even to commit, unless the
+     * queries they run write temporary tables. The allocations of the
+     * partitions of temporary tables are logged, and an end record once the
+     * transaction has freed them, so that recovery frees them if the
+     * database crashes before the transaction ends. Their pages aren't
+     * logged. Read-only transactions can roll back without ARIES.
+     *
+     * @return the new Transaction
+     */
+    public Transaction beginTransaction(boolean readOnly) {
+        if (!readOnly) return beginTransaction();
+        return beginTransaction(Transaction.IsolationLevel.SNAPSHOT, true);
+    }
+
+    private synchronized Transaction beginTransaction(Transaction.IsolationLevel isolationLevel,
+                                                      boolean readOnly) {
+        boolean optimistic = isolationLevel == Transaction.IsolationLevel.OPTIMISTIC;
+        boolean isolated = optimistic || isolationLevel == Transaction.IsolationLevel.SNAPSHOT;
+        Snapshot snapshot = takeSnapshot(this.numTransactions, isolated, optimistic);
+        TransactionImpl t = new TransactionImpl(this.numTransactions, false, readOnly, snapshot);
         activeTransactions.register();
         if (activeTransactions.isTerminated()) {
             activeTransactions = new Phaser(1);
         }
-        this.recoveryManager.startTransaction(t);
+        if (!readOnly) this.recoveryManager.startTransaction(t);
         ++this.numTransactions;
         TransactionContext.setTransaction(t.getTransactionContext());
         return t;
     }
 
+    /**
+     * Runs `work` in a new transaction with the isolation level
+     * `isolationLevel` and commits it. While the transaction fails because of
+     * a conflict with another transaction (a deadlock, lock wait timeout,
+     * write conflict or failed validation), it's rolled back and `work` is
+     * run again in a new transaction, up to `maxAttempts` times in all. Rolling
+     * back needs ARIES. `work` must not commit or roll back the transaction.
+     *
+     * @return the result of `work` in the transaction that committed
+     * @throws RuntimeException the conflict of the last attempt, if none of
+     * them committed
+     */
+    public <T> T runTransaction(Transaction.IsolationLevel isolationLevel, int maxAttempts,
+                                Function<Transaction, T> work) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive");
+        }
+        RuntimeException conflict = null;
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            Transaction t = beginTransaction(isolationLevel);
+            try {
+                T result = work.apply(t);
+                t.commit();
+                return result;
+            } catch (DeadlockException | LockTimeoutException | WriteConflictException | ValidationException e) {
+                conflict = e;
+            } finally {
+                if (t.getStatus() == Transaction.Status.RUNNING) t.rollback();
+            }
+        }
+        throw conflict;
+    }
+
     /**
      * Start a transaction for recovery.
      *
@@ -592,7 +1046,7 @@ public class Database implements AutoCloseable {
     private synchronized Transaction beginRecoveryTransaction(Long transactionNum) {
         this.numTransactions = Math.max(this.numTransactions, transactionNum + 1);
 
-        TransactionImpl t = new TransactionImpl(transactionNum, true);
+        TransactionImpl t = new TransactionImpl(transactionNum, true, false, null);
         activeTransactions.register();
         if (activeTransactions.isTerminated()) {
             activeTransactions = new Phaser(1);
@@ -601,19 +1055,92 @@ public class Database implements AutoCloseable {
         return t;
     }
 
+    /**
+     * @return the snapshot of the database as of now of the transaction
+     * `transNum`, which reads it if `isolated`
+     */
+    private Snapshot takeSnapshot(long transNum, boolean isolated, boolean optimistic) {
+        synchronized (activeSnapshots) {
+            if (isolated) activeSnapshots.merge(lastCommitTimestamp, 1, Integer::sum);
+            return new Snapshot(transNum, lastCommitTimestamp, isolated, optimistic);
+        }
+    }
+
+    /**
+     * Validates the optimistic transaction `transNum` of `snapshot`, and
+     * commits it if it's valid. No other transaction commits in between
+     * (serial validation).
+     *
+     * @throws ValidationException if the transaction isn't valid, in which
+     * case it's still running
+     */
+    private void validateAndCommit(long transNum, Snapshot snapshot) {
+        synchronized (activeSnapshots) {
+            snapshot.validate();
+            recoveryManager.commit(transNum);
+            snapshot.commit(++lastCommitTimestamp);
+        }
+    }
+
+    /**
+     * Marks the transaction of `snapshot` committed, making its writes visible
+     * to snapshots taken from now on.
+     */
+    private void commitSnapshot(Snapshot snapshot) {
+        synchronized (activeSnapshots) {
+            snapshot.commit(++lastCommitTimestamp);
+        }
+    }
+
+    /**
+     * Ends the transaction of `snapshot` (marking it rolled back unless it
+     * committed), and drops the versions of records no active snapshot needs
+     * anymore.
+     */
+    private void releaseSnapshot(Snapshot snapshot) {
+        if (!snapshot.isCommitted()) snapshot.abort();
+        long oldestTimestamp;
+        synchronized (activeSnapshots) {
+            if (snapshot.isIsolated()) {
+                activeSnapshots.computeIfPresent(snapshot.getTimestamp(), (t, n) -> n == 1 ? null : n - 1);
+            }
+            oldestTimestamp = activeSnapshots.isEmpty() ? lastCommitTimestamp : activeSnapshots.firstKey();
+        }
+        for (VersionStore versions : versionStores.values()) {
+            if (!versions.isEmpty()) versions.collectGarbage(oldestTimestamp);
+        }
+    }
+
     private class TransactionContextImpl extends TransactionContext {
         long transNum;
         Map<String, String> aliases;
         Map<String, Table> tempTables;
         long tempTableCounter;
         boolean recoveryTransaction;
-
-        private TransactionContextImpl(long tNum, boolean recoveryTransaction) {
+        boolean readOnly;
+        Snapshot snapshot;
+        // Pages of work memory reserved for the queries of the transaction,
+        // and the number of queries using them
+        int workMemGrant = 0;
+        int workMemUsers = 0;
+        // Tables the transaction changed, whose statistics are checked for
+        // staleness once it commits
+        Map<String, Table> changedTables = new ConcurrentHashMap<>();
+        // The transaction of this context
+        TransactionImpl transaction;
+        // Whether the transaction is read-only and has logged the allocation
+        // of a partition of a temporary table, see createTempTable
+        boolean loggedTempPartitions = false;
+
+        private TransactionContextImpl(long tNum, boolean recoveryTransaction, boolean readOnly,
+                                       Snapshot snapshot) {
             this.transNum = tNum;
             this.aliases = new HashMap<>();
             this.tempTables = new HashMap<>();
             this.tempTableCounter = 0;
             this.recoveryTransaction = recoveryTransaction;
+            this.readOnly = readOnly;
+            this.snapshot = snapshot;
         }
 
         @Override
@@ -622,15 +1149,83 @@ public class Database implements AutoCloseable {
         }
 
         @Override
-        public int getWorkMemSize() {
+        public synchronized int getWorkMemSize() {
+            if (workMemUsers > 0) return workMemGrant;
             return Database.this.getWorkMem();
         }
 
+        @Override
+        public void reserveWorkMem() {
+            synchronized (this) {
+                if (workMemUsers > 0) {
+                    workMemUsers++;
+                    return;
+                }
+            }
+            // Waits without holding the monitor of the transaction
+            int granted = workMemGovernor.acquire(Database.this.getWorkMem());
+            synchronized (this) {
+                if (workMemUsers++ > 0) {
+                    // Another query of the transaction reserved memory while
+                    // this one waited
+                    workMemGovernor.release(granted);
+                    return;
+                }
+                workMemGrant = granted;
+            }
+        }
+
+        @Override
+        public synchronized void releaseWorkMem() {
+            if (workMemUsers == 0) return;
+            if (--workMemUsers == 0) {
+                workMemGovernor.release(workMemGrant);
+                workMemGrant = 0;
+            }
+        }
+
+        @Override
+        public PlanCache getPlanCache() {
+            return planCache;
+        }
+
+        @Override
+        public BufferManager getBufferManager() {
+            return bufferManager;
+        }
+
+        @Override
+        public Snapshot getSnapshot() {
+            return snapshot;
+        }
+
+        @Override
+        public boolean isReadOnly() {
+            return readOnly;
+        }
+
+        /**
+         * Throws a DatabaseException if the transaction is read-only and
+         * `tableName` isn't one of its temporary tables, which queries write
+         * to.
+         */
+        private void checkWritable(String tableName) {
+            if (!readOnly || tempTables.containsKey(aliases.getOrDefault(tableName, tableName))) return;
+            throw new DatabaseException("cannot write to `" + tableName + "` in read-only transaction " + transNum);
+        }
+
         @Override
         public String createTempTable(Schema schema) {
             String tempTableName = "tempTable" + tempTableCounter++;
             String tableName = prefixTempTableName(tempTableName);
 
+            if (readOnly && !loggedTempPartitions) {
+                // Read-only transactions only log the allocations of the
+                // partitions of their temporary tables, so the recovery
+                // manager doesn't know about them until then
+                recoveryManager.startTransaction(transaction);
+                loggedTempPartitions = true;
+            }
             int partNum = diskSpaceManager.allocPart();
             long pageNum = diskSpaceManager.allocPage(partNum);
             // We can use dummy contexts since this table will only be visible from the current transaction
@@ -663,12 +1258,14 @@ public class Database implements AutoCloseable {
 
         @Override
         public boolean indexExists(String tableName, String columnName) {
+            if (readsSnapshot()) return false;
             if (aliases.containsKey(tableName)) tableName = aliases.get(tableName);
             return getColumnIndexMetadata(tableName, columnName) != null;
         }
 
         @Override
         public void updateIndexMetadata(BPlusTreeMetadata metadata) {
+            checkWritable(metadata.getTableName());
             Record updated = metadata.toRecord();
             String tableName = normalize(metadata.getTableName());
             String columnName = normalize(metadata.getColName());
@@ -697,7 +1294,7 @@ public class Database implements AutoCloseable {
             LockUtil.ensureSufficientLockHeld(getTableContext(tableName), LockType.S);
             Pair<RecordId, BPlusTreeMetadata> pair = getColumnIndexMetadata(tableName, columnName);
 
-            if (pair != null) {
+            if (pair != null && !readsSnapshot()) {
                 BPlusTree tree = indexFromMetadata(pair.getSecond());
                 return tab.recordIterator(tree.scanAll());
             } else {
@@ -712,6 +1309,11 @@ public class Database implements AutoCloseable {
 
         @Override
         public Iterator<Record> sortedScanFrom(String tableName, String columnName, DataBox startValue) {
+            if (readsSnapshot()) {
+                int column = getSchema(tableName).findField(columnName);
+                Iterator<Record> records = sortedScan(tableName, columnName);
+                return filter(records, record -> record.getValue(column).compareTo(startValue) >= 0);
+            }
             Table tab = getTable(tableName);
             tableName = tab.getName();
             BPlusTree tree = indexFromMetadata(getColumnIndexMetadata(tableName, columnName).getSecond());
@@ -723,6 +1325,11 @@ public class Database implements AutoCloseable {
 
         @Override
         public Iterator<Record> lookupKey(String tableName, String columnName, DataBox key) {
+            if (readsSnapshot()) {
+                int column = getSchema(tableName).findField(columnName);
+                Iterator<Record> records = getRecordIterator(tableName);
+                return filter(records, record -> record.getValue(column).equals(key));
+            }
             Table tab = getTable(tableName);
             tableName = tab.getName();
             BPlusTree tree = indexFromMetadata(getColumnIndexMetadata(tableName, columnName).getSecond());
@@ -736,6 +1343,7 @@ public class Database implements AutoCloseable {
 
         @Override
         public boolean contains(String tableName, String columnName, DataBox key) {
+            if (readsSnapshot()) return lookupKey(tableName, columnName, key).hasNext();
             tableName = aliases.getOrDefault(tableName, tableName);
             BPlusTree tree = indexFromMetadata(getColumnIndexMetadata(tableName, columnName).getSecond());
             return tree.get(key).isPresent();
@@ -743,6 +1351,7 @@ public class Database implements AutoCloseable {
 
         @Override
         public RecordId addRecord(String tableName, Record record) {
+            checkWritable(tableName);
             Table tab = getTable(tableName);
             tableName = tab.getName();
             if (tab == null) {
@@ -758,11 +1367,13 @@ public class Database implements AutoCloseable {
                 DataBox key = record.getValue(colNames.indexOf(column));
                 tree.put(key, rid);
             }
+            changedTables.put(normalize(tableName), tab);
             return rid;
         }
 
         @Override
         public RecordId deleteRecord(String tableName, RecordId rid) {
+            checkWritable(tableName);
             Table tab = getTable(tableName);
             tableName = tab.getName();
             Schema s = tab.getSchema();
@@ -775,6 +1386,7 @@ public class Database implements AutoCloseable {
                 DataBox key = record.getValue(colNames.indexOf(column));
                 tree.remove(key);
             }
+            changedTables.put(normalize(tableName), tab);
             return rid;
         }
 
@@ -785,6 +1397,7 @@ public class Database implements AutoCloseable {
 
         @Override
         public RecordId updateRecord(String tableName, RecordId rid, Record updated) {
+            checkWritable(tableName);
             Table tab = getTable(tableName);
             tableName = tab.getName();
             Schema s = tab.getSchema();
@@ -800,6 +1413,7 @@ public class Database implements AutoCloseable {
                 tree.remove(oldKey);
                 tree.put(newKey, rid);
             }
+            changedTables.put(normalize(tableName), tab);
             return rid;
         }
 
@@ -808,6 +1422,7 @@ public class Database implements AutoCloseable {
         public void updateRecordWhere(String tableName, String targetColumnName,
                                       UnaryOperator<DataBox> targetValue,
                                       String predColumnName, PredicateOperator predOperator, DataBox predValue) {
+            checkWritable(tableName);
             Table tab = getTable(tableName);
             tableName = tab.getName();
             Iterator<RecordId> recordIds = tab.ridIterator();
@@ -830,6 +1445,7 @@ public class Database implements AutoCloseable {
         }
 
         public void updateRecordWhere(String tableName, String targetColumnName, Function<Record, DataBox> targetValue, Function<Record, DataBox> condition) {
+            checkWritable(tableName);
             Table tab = getTable(tableName);
             tableName = tab.getName();
             Iterator<RecordId> recordIds = tab.ridIterator();
@@ -851,6 +1467,7 @@ public class Database implements AutoCloseable {
         @Deprecated
         public void deleteRecordWhere(String tableName, String predColumnName,
                                       PredicateOperator predOperator, DataBox predValue) {
+            checkWritable(tableName);
             Table tab = getTable(tableName);
             tableName = tab.getName();
             Iterator<RecordId> recordIds = tab.ridIterator();
@@ -870,6 +1487,7 @@ public class Database implements AutoCloseable {
         }
 
         public void deleteRecordWhere(String tableName, Function<Record, DataBox> condition) {
+            checkWritable(tableName);
             Table tab = getTable(tableName);
             tableName = tab.getName();
             Iterator<RecordId> recordIds = tab.ridIterator();
@@ -933,7 +1551,7 @@ public class Database implements AutoCloseable {
                 // TODO(proj4_part2)
                 // release all the locks the transaction holds in bottom-up order
                 // this.transNum
-                TransactionContext transaction = getTransaction();
+                TransactionContext transaction = this;
                 List<Lock> locks = lockManager.getLocks(transaction);
                 for (int i = locks.size()-1; i >= 0; i--) {
                     LockContext.fromResourceName(lockManager, locks.get(i).name).release(transaction);
@@ -946,6 +1564,12 @@ public class Database implements AutoCloseable {
                 e.printStackTrace();
                 throw e;
             } finally {
+                synchronized (this) {
+                    if (workMemUsers > 0) {
+                        workMemUsers = 1;
+                        releaseWorkMem();
+                    }
+                }
                 if (!this.recoveryTransaction) TransactionContext.unsetTransaction();
             }
         }
@@ -971,6 +1595,29 @@ public class Database implements AutoCloseable {
             return tableFromMetadata(pair.getSecond());
         }
 
+        private Iterator<Record> filter(Iterator<Record> records, Predicate<Record> predicate) {
+            return new Iterator<Record>() {
+                private Record next;
+
+                @Override
+                public boolean hasNext() {
+                    while (next == null && records.hasNext()) {
+                        Record record = records.next();
+                        if (predicate.test(record)) next = record;
+                    }
+                    return next != null;
+                }
+
+                @Override
+                public Record next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    Record record = next;
+                    next = null;
+                    return record;
+                }
+            };
+        }
+
         private String prefixTempTableName(String name) {
             String prefix = "temp." + transNum + "-";
             if (name.startsWith(prefix)) {
@@ -984,16 +1631,54 @@ public class Database implements AutoCloseable {
     private class TransactionImpl extends Transaction {
         private long transNum;
         private boolean recoveryTransaction;
-        private TransactionContext transactionContext;
+        private boolean readOnly;
+        private Snapshot snapshot;
+        private TransactionContextImpl transactionContext;
 
-        private TransactionImpl(long transNum, boolean recovery) {
+        private TransactionImpl(long transNum, boolean recovery, boolean readOnly, Snapshot snapshot) {
             this.transNum = transNum;
             this.recoveryTransaction = recovery;
-            this.transactionContext = new TransactionContextImpl(transNum, recovery);
+            this.readOnly = readOnly;
+            this.snapshot = snapshot;
+            this.transactionContext = new TransactionContextImpl(transNum, recovery, readOnly, snapshot);
+            this.transactionContext.transaction = this;
+        }
+
+        /**
+         * Ends a read-only transaction whose temporary tables were freed in
+         * the log, if it logged the allocations of their partitions. It's
+         * still running, so the recovery manager doesn't roll anything back.
+         */
+        private void endReadOnly() {
+            if (transactionContext.loggedTempPartitions) recoveryManager.end(transNum);
+        }
+
+        /**
+         * Throws a DatabaseException if a lock request of the transaction
+         * was failed while it waited, since the transaction must be rolled
+         * back.
+         */
+        private void checkRunnable() {
+            if (transactionContext.isLockWaitAborted()) {
+                throw new DatabaseException("transaction " + transNum + " was aborted while waiting for a " +
+                        "lock, and must be rolled back");
+            }
+        }
+
+        /**
+         * Throws a DatabaseException if the transaction is read-only, or
+         * can't run (see checkRunnable).
+         */
+        private void checkWritable() {
+            checkRunnable();
+            if (readOnly) {
+                throw new DatabaseException("cannot change the database in read-only transaction " + transNum);
+            }
         }
 
         @Override
         public Optional<QueryPlan> execute(String statement) {
+            checkRunnable();
             RookieParser parser = new RookieParser(new ByteArrayInputStream(statement.getBytes()));
             ASTExecutableStatement stmt;
             try {
@@ -1010,13 +1695,30 @@ public class Database implements AutoCloseable {
         @Override
         protected void startCommit() {
             transactionContext.deleteAllTempTables();
-            recoveryManager.commit(transNum);
+            if (readOnly) {
+                // Nothing to make visible to other transactions
+                endReadOnly();
+                setStatus(Status.COMMITTING);
+            } else if (snapshot != null && snapshot.isOptimistic()) {
+                validateAndCommit(transNum, snapshot);
+            } else {
+                recoveryManager.commit(transNum);
+                if (snapshot != null) commitSnapshot(snapshot);
+            }
             this.cleanup();
+            for (Table table : transactionContext.changedTables.values()) maybeAutoAnalyze(table);
         }
 
         @Override
         protected void startRollback() {
-            recoveryManager.abort(transNum);
+            if (readOnly) {
+                // Nothing to undo but the temporary tables
+                transactionContext.deleteAllTempTables();
+                endReadOnly();
+                setStatus(Status.ABORTING);
+            } else {
+                recoveryManager.abort(transNum);
+            }
             this.cleanup();
         }
 
@@ -1026,9 +1728,14 @@ public class Database implements AutoCloseable {
                 return;
             }
 
-            if (!this.recoveryTransaction) {
+            if (readOnly) {
+                setStatus(Status.COMPLETE);
+            } else if (!this.recoveryTransaction) {
                 recoveryManager.end(transNum);
             }
+            // Versions of a transaction that rolled back are ignored once
+            // its changes are undone (when it ends)
+            if (snapshot != null) releaseSnapshot(snapshot);
 
             transactionContext.close();
             activeTransactions.arriveAndDeregister();
@@ -1039,8 +1746,20 @@ public class Database implements AutoCloseable {
             return transNum;
         }
 
+        @Override
+        public IsolationLevel getIsolationLevel() {
+            if (snapshot == null || !snapshot.isIsolated()) return IsolationLevel.SERIALIZABLE;
+            return snapshot.isOptimistic() ? IsolationLevel.OPTIMISTIC : IsolationLevel.SNAPSHOT;
+        }
+
+        @Override
+        public boolean isReadOnly() {
+            return readOnly;
+        }
+
         @Override
         public void createTable(Schema s, String tableName) {
+            checkWritable();
             if (tableName.contains(".") || tableName.contains(" ") || tableName.length() == 0) {
                 throw new IllegalArgumentException("name of new table may not contain '.' or ' ', or be the empty string");
             }
@@ -1060,10 +1779,12 @@ public class Database implements AutoCloseable {
             synchronized (tableMetadata) {
                 tableMetadata.addRecord(metadata.toRecord());
             }
+            planCache.invalidate(tableName);
         }
 
         @Override
         public void dropTable(String tableName) {
+            checkWritable();
             if (tableName.contains(".") || tableName.contains(" ") || tableName.length() == 0) {
                 throw new IllegalArgumentException("name of new table may not contain '.' or ' ', or be the empty string");
             }
@@ -1085,11 +1806,16 @@ public class Database implements AutoCloseable {
             synchronized(tableMetadata) {
                 metadata = new TableMetadata(tableMetadata.deleteRecord(rid));
             }
+            deleteStatistics(metadata.tableName);
+            stats.remove(metadata.tableName);
+            versionStores.remove(normalize(metadata.tableName));
+            planCache.invalidate(metadata.tableName);
             bufferManager.freePart(metadata.partNum);
         }
 
         @Override
         public void dropAllTables() {
+            checkWritable();
             // For something as drastic as dropping all tables we'll want
             // to get an exclusive lock on the entire database.
             LockUtil.ensureSufficientLockHeld(lockManager.databaseContext(), LockType.X);
@@ -1100,6 +1826,7 @@ public class Database implements AutoCloseable {
 
         @Override
         public void createIndex(String tableName, String columnName, boolean bulkLoad) {
+            checkWritable();
             if (tableName.contains(".") || tableName.contains(" ") || tableName.length() == 0) {
                 throw new IllegalArgumentException("name of new table may not contain '.' or ' ', or be the empty string");
             }
@@ -1149,10 +1876,13 @@ public class Database implements AutoCloseable {
                     tree.put(record.getValue(columnIndex), rid);
                 }
             }
+            // Cached plans of queries on the table didn't consider the index
+            planCache.invalidate(tableName);
         }
 
         @Override
         public void dropIndex(String tableName, String columnName) {
+            checkWritable();
             // We need exclusive write access on an index to drop it.
             LockUtil.ensureSufficientLockHeld(getColumnIndexMetadataContext(tableName, columnName), LockType.X);
             Pair<RecordId, BPlusTreeMetadata> pair = getColumnIndexMetadata(tableName, columnName);
@@ -1161,20 +1891,24 @@ public class Database implements AutoCloseable {
             }
             indexMetadata.deleteRecord(pair.getFirst());
             bufferManager.freePart(pair.getSecond().getPartNum());
+            planCache.invalidate(tableName);
         }
 
         @Override
         public QueryPlan query(String tableName) {
+            checkRunnable();
             return new QueryPlan(transactionContext, tableName);
         }
 
         @Override
         public QueryPlan query(String tableName, String alias) {
+            checkRunnable();
             return new QueryPlan(transactionContext, tableName, alias);
         }
 
         @Override
         public void insert(String tableName, Record values) {
+            checkRunnable();
             transactionContext.addRecord(tableName, values);
         }
 
@@ -1186,41 +1920,70 @@ public class Database implements AutoCloseable {
         @Override
         public void update(String tableName, String targetColumnName, UnaryOperator<DataBox> targetValue,
                            String predColumnName, PredicateOperator predOperator, DataBox predValue) {
+            checkRunnable();
             transactionContext.updateRecordWhere(tableName, targetColumnName, targetValue, predColumnName,
                                                     predOperator, predValue);
         }
 
         @Override
         public void update(String tableName, String targetColumnName, Function<Record, DataBox> expr, Function<Record, DataBox> cond) {
+            checkRunnable();
             transactionContext.updateRecordWhere(tableName, targetColumnName, expr, cond);
         }
 
         @Override
         public void delete(String tableName, String predColumnName, PredicateOperator predOperator,
                            DataBox predValue) {
+            checkRunnable();
             transactionContext.deleteRecordWhere(tableName, predColumnName, predOperator, predValue);
         }
 
         @Override
         public void delete(String tableName, Function<Record, DataBox> cond) {
+            checkRunnable();
             transactionContext.deleteRecordWhere(tableName, cond);
         }
 
         @Override
         public void savepoint(String savepointName) {
+            checkRunnable();
+            // Read-only transactions have nothing to roll back to a savepoint
+            if (readOnly) return;
             recoveryManager.savepoint(transNum, savepointName);
         }
 
         @Override
         public void rollbackToSavepoint(String savepointName) {
+            checkRunnable();
+            if (readOnly) return;
             recoveryManager.rollbackToSavepoint(transNum, savepointName);
         }
 
         @Override
         public void releaseSavepoint(String savepointName) {
+            checkRunnable();
+            if (readOnly) return;
             recoveryManager.releaseSavepoint(transNum, savepointName);
         }
 
+        @Override
+        public void analyze(String tableName, int sampleSize) {
+            checkWritable();
+            Table table = transactionContext.getTable(tableName);
+            persistStatistics(table.getName(), table.analyze(STATISTICS_BUCKETS, sampleSize));
+        }
+
+        @Override
+        public Future<TableStats> analyzeInBackground(String tableName, int sampleSize) {
+            checkRunnable();
+            Pair<RecordId, TableMetadata> pair = getTableMetadata(tableName);
+            if (pair == null) {
+                throw new DatabaseException("table `" + tableName + "` doesn't exist!");
+            }
+            String name = pair.getSecond().tableName;
+            return analyzeExecutor.submit(() -> analyzeAndPersist(name, sampleSize));
+        }
+
         @Override
         public Schema getSchema(String tableName) {
             return transactionContext.getSchema(tableName);
@@ -1313,7 +2076,7 @@ public class Database implements AutoCloseable {
             }
 
             // refresh histograms so that query cost estimation works
-            tb.buildStatistics(10);
+            tb.buildStatistics(STATISTICS_BUCKETS);
             return false;
     }
 }
@@ -6,13 +6,22 @@ import edu.berkeley.cs186.database.databox.DataBox;
 import edu.berkeley.cs186.database.query.QueryPlan;
 import edu.berkeley.cs186.database.table.Record;
 import edu.berkeley.cs186.database.table.Schema;
+import edu.berkeley.cs186.database.table.stats.TableStats;
 
 import java.util.Optional;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.function.UnaryOperator;
 
 /**
  * The public-facing interface of a transaction.
+ *
+ * A transaction whose lock request is failed while it waits for the lock (a
+ * deadlock victim, or a transaction that waited longer than the lock wait
+ * timeout) still holds its other locks, and can't do anything but roll back:
+ * its other operations throw a DatabaseException, commit() rolls it back and
+ * rethrows the exception the lock request failed with, and close() rolls it
+ * back.
  */
 public abstract class Transaction implements AutoCloseable {
     // Status //////////////////////////////////////////////////////////////////
@@ -32,6 +41,23 @@ public abstract class Transaction implements AutoCloseable {
         }
     }
 
+    // Isolation Level /////////////////////////////////////////////////////////
+    public enum IsolationLevel {
+        // Reads and writes take locks (strict two-phase locking)
+        SERIALIZABLE,
+        // Reads see a snapshot of the database as of the time the transaction
+        // began, and take no locks. Writes take locks, and fail if a
+        // transaction that committed after the snapshot was taken wrote the
+        // same record.
+        SNAPSHOT,
+        // Reads see a snapshot, take no locks, and are recorded. Writes take
+        // locks. Committing fails with a ValidationException if a transaction
+        // that committed after the snapshot was taken wrote anything read, so
+        // that the transaction is serializable (see Database#runTransaction
+        // to retry). Best for short transactions that mostly read.
+        OPTIMISTIC
+    }
+
     private Status status = Status.RUNNING;
 
     /**
@@ -44,6 +70,21 @@ public abstract class Transaction implements AutoCloseable {
      */
     public abstract long getTransNum();
 
+    /**
+     * @return isolation level of transaction
+     */
+    public IsolationLevel getIsolationLevel() {
+        return IsolationLevel.SERIALIZABLE;
+    }
+
+    /**
+     * @return whether the transaction is read-only (see
+     * Database#beginTransaction(boolean))
+     */
+    public boolean isReadOnly() {
+        return false;
+    }
+
     /**
      * @return current status of transaction
      */
@@ -65,12 +106,19 @@ public abstract class Transaction implements AutoCloseable {
      * Commits a transaction. Equivalent to
      *      COMMIT
      *
-     * This is the default way a transaction ends.
+     * This is the default way a transaction ends. A transaction whose lock
+     * wait was aborted is rolled back instead, and the exception its lock
+     * request failed with is thrown.
      */
     public final void commit() {
         if (status != Status.RUNNING) {
             throw new IllegalStateException("transaction not in running state, cannot commit");
         }
+        RuntimeException lockWaitFailure = getTransactionContext().getLockWaitFailure();
+        if (lockWaitFailure != null) {
+            startRollback();
+            throw lockWaitFailure;
+        }
         startCommit();
     }
 
@@ -102,11 +150,17 @@ public abstract class Transaction implements AutoCloseable {
      * ...
      * }
      *
-     * and have the transaction commit.
+     * and have the transaction commit. A transaction whose lock wait was
+     * aborted is rolled back instead.
      */
     @Override
     public final void close() {
-        if (status == Status.RUNNING) {
+        if (status != Status.RUNNING) {
+            return;
+        }
+        if (getTransactionContext().isLockWaitAborted()) {
+            startRollback();
+        } else {
             commit();
         }
     }
@@ -301,6 +355,44 @@ public abstract class Transaction implements AutoCloseable {
      */
     public abstract void releaseSavepoint(String savepointName);
 
+    // Statistics //////////////////////////////////////////////////////////////
+
+    /**
+     * Collects fresh statistics on every column of a table in a single scan.
+     * Equivalent to
+     *      ANALYZE tableName SAMPLE sampleSize
+     *
+     * The scan runs within this transaction, so the table stays locked until
+     * the transaction ends.
+     *
+     * @param tableName name of table to analyze
+     * @param sampleSize maximum number of records to build the histograms
+     *                   from, or 0 to use every record of tables with at
+     *                   most StatisticsCollector.MAX_EXACT_RECORDS records
+     */
+    public abstract void analyze(String tableName, int sampleSize);
+
+    /**
+     * Collects fresh statistics on every column of a table in the background.
+     * Equivalent to
+     *      ANALYZE tableName SAMPLE sampleSize BACKGROUND
+     *
+     * Only the existence of the table is checked within this transaction. The
+     * scan itself runs in a read-only transaction of its own, which reads a
+     * snapshot of the table without acquiring any locks, so the statistics
+     * don't include changes that other transactions commit during the scan.
+     * If the scan or persisting the statistics fails, the returned future
+     * completes exceptionally, and its get() throws an ExecutionException
+     * wrapping the failure.
+     *
+     * @param tableName name of table to analyze
+     * @param sampleSize maximum number of records to build the histograms
+     *                   from, or 0 to use every record of tables with at
+     *                   most StatisticsCollector.MAX_EXACT_RECORDS records
+     * @return a future that completes once the new statistics are in use
+     */
+    public abstract Future<TableStats> analyzeInBackground(String tableName, int sampleSize);
+
     // Schema //////////////////////////////////////////////////////////////////
 
     /**
@@ -4,9 +4,12 @@ import edu.berkeley.cs186.database.common.PredicateOperator;
 import edu.berkeley.cs186.database.common.iterator.BacktrackingIterator;
 import edu.berkeley.cs186.database.databox.DataBox;
 import edu.berkeley.cs186.database.index.BPlusTreeMetadata;
+import edu.berkeley.cs186.database.memory.BufferManager;
+import edu.berkeley.cs186.database.query.PlanCache;
 import edu.berkeley.cs186.database.table.Record;
 import edu.berkeley.cs186.database.table.RecordId;
 import edu.berkeley.cs186.database.table.Schema;
+import edu.berkeley.cs186.database.table.Snapshot;
 import edu.berkeley.cs186.database.table.Table;
 import edu.berkeley.cs186.database.table.stats.TableStats;
 
@@ -37,6 +40,11 @@ public abstract class TransactionContext implements AutoCloseable {
     private boolean startBlock = false;
     private final ReentrantLock transactionLock = new ReentrantLock();
     private final Condition unblocked = transactionLock.newCondition();
+    // Exception to throw from block() instead of returning normally, when a
+    // lock request is failed while the transaction waits for it
+    private RuntimeException blockFailure = null;
+    // The first lock request failed while the transaction waited for it
+    private volatile RuntimeException lockWaitFailure = null;
 
     /**
      * Fetches the current transaction running on this thread.
@@ -88,6 +96,59 @@ public abstract class TransactionContext implements AutoCloseable {
      */
     public abstract int getWorkMemSize();
 
+    /**
+     * Reserves work memory for a query of this transaction from the memory
+     * shared by the queries running at once, waiting if there isn't enough.
+     * Until the reservation is released, getWorkMemSize returns its size.
+     * Queries of the transaction that run at once share one reservation.
+     */
+    public void reserveWorkMem() {}
+
+    /**
+     * Releases the reservation made by reserveWorkMem, once every query
+     * that reserved it has released it. Reservations left are released when
+     * the transaction ends.
+     */
+    public void releaseWorkMem() {}
+
+    /**
+     * @return the cache of query plans shared by the transactions of the
+     * database, or null if plans aren't cached
+     */
+    public abstract PlanCache getPlanCache();
+
+    /**
+     * @return the buffer manager of the database, or null if there's none
+     */
+    public abstract BufferManager getBufferManager();
+
+    /**
+     * @return the snapshot of the transaction, which orders the versions of
+     * records it writes and, if the transaction is snapshot-isolated, which
+     * it reads records from, or null if records aren't versioned
+     */
+    public Snapshot getSnapshot() {
+        return null;
+    }
+
+    /**
+     * @return whether the transaction reads a snapshot, and so can't read
+     * through indices (which only index the latest versions of records)
+     */
+    public boolean readsSnapshot() {
+        Snapshot snapshot = getSnapshot();
+        return snapshot != null && snapshot.isIsolated();
+    }
+
+    /**
+     * @return whether the transaction is read-only. Read-only transactions
+     * have no log records: the pages of their temporary tables are allocated,
+     * written and freed without logging.
+     */
+    public boolean isReadOnly() {
+        return false;
+    }
+
     @Override
     public abstract void close();
 
@@ -251,6 +312,11 @@ public abstract class TransactionContext implements AutoCloseable {
             while (this.blocked) {
                 this.unblocked.awaitUninterruptibly();
             }
+            if (this.blockFailure != null) {
+                RuntimeException failure = this.blockFailure;
+                this.blockFailure = null;
+                throw failure;
+            }
         } finally {
             this.startBlock = false;
             this.transactionLock.unlock();
@@ -270,6 +336,40 @@ public abstract class TransactionContext implements AutoCloseable {
         }
     }
 
+    /**
+     * Unblocks the transaction, making block() throw `failure` instead of
+     * returning. Used by the lock manager to fail a lock request the
+     * transaction is waiting for (e.g. to resolve a deadlock).
+     */
+    public void abortBlock(RuntimeException failure) {
+        this.transactionLock.lock();
+        try {
+            this.blockFailure = failure;
+            if (this.lockWaitFailure == null) this.lockWaitFailure = failure;
+            this.blocked = false;
+            this.unblocked.signal();
+        } finally {
+            this.transactionLock.unlock();
+        }
+    }
+
+    /**
+     * @return whether a lock request of the transaction was failed while it
+     * waited (see abortBlock), in which case the transaction must be rolled
+     * back
+     */
+    public boolean isLockWaitAborted() {
+        return this.lockWaitFailure != null;
+    }
+
+    /**
+     * @return the exception thrown by the first lock request of the
+     * transaction that was failed while it waited, or null if there's none
+     */
+    public RuntimeException getLockWaitFailure() {
+        return this.lockWaitFailure;
+    }
+
     /**
      * @return if the transaction is blocked
      */
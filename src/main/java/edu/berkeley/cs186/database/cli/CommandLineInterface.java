@@ -8,6 +8,7 @@ import edu.berkeley.cs186.database.cli.parser.ASTSQLStatementList;
 import edu.berkeley.cs186.database.cli.parser.ParseException;
 import edu.berkeley.cs186.database.cli.parser.RookieParser;
 import edu.berkeley.cs186.database.cli.parser.TokenMgrError;
+import edu.berkeley.cs186.database.cli.visitor.PreparedStatements;
 import edu.berkeley.cs186.database.cli.visitor.StatementListVisitor;
 import edu.berkeley.cs186.database.concurrency.LockManager;
 import edu.berkeley.cs186.database.memory.ClockEvictionPolicy;
@@ -69,6 +70,7 @@ public class CommandLineInterface {
 
         // REPL
         Transaction currTransaction = null;
+        PreparedStatements preparedStatements = new PreparedStatements();
         Scanner inputScanner = new Scanner(this.in);
         String input;
         while (true) {
@@ -108,7 +110,7 @@ public class CommandLineInterface {
                 this.out.println("Parser exception: " + e.getMessage());
                 continue;
             }
-            StatementListVisitor visitor = new StatementListVisitor(db, this.out);
+            StatementListVisitor visitor = new StatementListVisitor(db, this.out, preparedStatements);
             try {
                 node.jjtAccept(visitor, null);
                 currTransaction = visitor.execute(currTransaction);
@@ -0,0 +1,124 @@
+package edu.berkeley.cs186.database.cli;
+
+import edu.berkeley.cs186.database.table.Record;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A client of the NIO server (see NioServer and Frames). Requests can be sent
+ * with send without waiting for the reply to the previous ones; replies are
+ * then read with receive, in the order the requests were sent.
+ */
+public class FrameClient implements Closeable {
+    private Socket socket;
+    private DataInputStream in;
+    private OutputStream out;
+
+    /**
+     * The reply to a request.
+     */
+    public static class Result {
+        private List<String> columnNames = Collections.emptyList();
+        private List<Record> records = new ArrayList<>();
+        private StringBuilder messages = new StringBuilder();
+        private List<String> errors = new ArrayList<>();
+
+        /**
+         * @return the columns of the last query of the request
+         */
+        public List<String> getColumnNames() {
+            return columnNames;
+        }
+
+        /**
+         * @return the records returned by the queries of the request
+         */
+        public List<Record> getRecords() {
+            return records;
+        }
+
+        /**
+         * @return what the other statements of the request printed
+         */
+        public String getMessages() {
+            return messages.toString();
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+
+    public FrameClient(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        this.socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    /**
+     * Queues the request `sql`, without waiting for its reply. Requests are
+     * sent once flush is called.
+     */
+    public void send(String sql) throws IOException {
+        ByteBuffer frame = Frames.query(sql);
+        out.write(frame.array(), 0, frame.limit());
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Reads the reply to the oldest request whose reply wasn't read yet.
+     */
+    public Result receive() throws IOException {
+        Result result = new Result();
+        while (true) {
+            int length = in.readInt();
+            if (length < 1 || length > Frames.MAX_FRAME_SIZE) {
+                throw new IOException("invalid frame length " + length);
+            }
+            byte type = in.readByte();
+            byte[] payload = new byte[length - 1];
+            in.readFully(payload);
+            switch (type) {
+                case Frames.COLUMNS:
+                    result.columnNames = Frames.readColumns(payload);
+                    break;
+                case Frames.ROWS:
+                    result.records.addAll(Frames.readRows(payload));
+                    break;
+                case Frames.MESSAGE:
+                    result.messages.append(Frames.readString(payload));
+                    break;
+                case Frames.ERROR:
+                    result.errors.add(Frames.readString(payload));
+                    break;
+                case Frames.DONE:
+                    return result;
+                default:
+                    throw new IOException("unknown frame type " + type);
+            }
+        }
+    }
+
+    /**
+     * Sends the request `sql` and waits for its reply.
+     */
+    public Result execute(String sql) throws IOException {
+        send(sql);
+        flush();
+        return receive();
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,164 @@
+package edu.berkeley.cs186.database.cli;
+
+import edu.berkeley.cs186.database.databox.*;
+import edu.berkeley.cs186.database.table.Record;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The binary protocol of the NIO server (see NioServer). Clients and the
+ * server exchange frames: a 4-byte length, followed by that many bytes, the
+ * first of which is the type of the frame and the rest its payload.
+ *
+ * Clients send QUERY frames, containing one or more SQL statements. They may
+ * send several before reading any reply (pipelining). The server replies to
+ * each QUERY frame, in the order they were sent, with:
+ * - for each query, a COLUMNS frame with the names of the columns of its
+ *   result, followed by ROWS frames with the records of the result, in
+ *   batches, as they are produced,
+ * - MESSAGE frames with the output of other statements (e.g. COMMIT), and
+ *   ERROR frames for statements that couldn't be run,
+ * - a DONE frame, once all the statements have run.
+ *
+ * Values are encoded as their type (one byte, see TypeId) followed by their
+ * value; strings and byte arrays are prefixed with their length instead of
+ * being padded to the size of their column.
+ */
+public final class Frames {
+    public static final byte QUERY = 1;
+    public static final byte COLUMNS = 2;
+    public static final byte ROWS = 3;
+    public static final byte MESSAGE = 4;
+    public static final byte ERROR = 5;
+    public static final byte DONE = 6;
+
+    // Frames longer than this are rejected
+    public static final int MAX_FRAME_SIZE = 1 << 24;
+
+    private Frames() {}
+
+    /**
+     * @return the frame of type `type` with the payload `payload`, ready to be
+     * written
+     */
+    public static ByteBuffer frame(byte type, byte[] payload) {
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + 1 + payload.length);
+        frame.putInt(1 + payload.length).put(type).put(payload);
+        frame.flip();
+        return frame;
+    }
+
+    public static ByteBuffer query(String sql) {
+        return frame(QUERY, sql.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ByteBuffer message(String message) {
+        return frame(MESSAGE, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ByteBuffer error(String message) {
+        return frame(ERROR, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ByteBuffer done() {
+        return frame(DONE, new byte[0]);
+    }
+
+    public static ByteBuffer columns(List<String> columnNames) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(payload)) {
+            out.writeShort(columnNames.size());
+            for (String columnName : columnNames) out.writeUTF(columnName);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return frame(COLUMNS, payload.toByteArray());
+    }
+
+    public static ByteBuffer rows(List<Record> records) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(payload)) {
+            out.writeInt(records.size());
+            for (Record record : records) {
+                out.writeShort(record.size());
+                for (DataBox value : record.getValues()) writeValue(out, value);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return frame(ROWS, payload.toByteArray());
+    }
+
+    public static String readString(byte[] payload) {
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    public static List<String> readColumns(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int numColumns = in.readUnsignedShort();
+            List<String> columnNames = new ArrayList<>(numColumns);
+            for (int i = 0; i < numColumns; i++) columnNames.add(in.readUTF());
+            return columnNames;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static List<Record> readRows(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int numRecords = in.readInt();
+            List<Record> records = new ArrayList<>(numRecords);
+            for (int i = 0; i < numRecords; i++) {
+                int numValues = in.readUnsignedShort();
+                List<DataBox> values = new ArrayList<>(numValues);
+                for (int j = 0; j < numValues; j++) values.add(readValue(in));
+                records.add(new Record(values));
+            }
+            return records;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, DataBox value) throws IOException {
+        out.writeByte(value.getTypeId().ordinal());
+        switch (value.getTypeId()) {
+            case BOOL: out.writeBoolean(value.getBool()); break;
+            case INT: out.writeInt(value.getInt()); break;
+            case FLOAT: out.writeFloat(value.getFloat()); break;
+            case LONG: out.writeLong(value.getLong()); break;
+            case STRING: out.writeUTF(value.getString()); break;
+            case BYTE_ARRAY: {
+                byte[] bytes = value.toBytes();
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                break;
+            }
+            default: throw new UnsupportedOperationException("unknown type " + value.getTypeId());
+        }
+    }
+
+    private static DataBox readValue(DataInputStream in) throws IOException {
+        TypeId typeId = TypeId.fromInt(in.readUnsignedByte());
+        switch (typeId) {
+            case BOOL: return new BoolDataBox(in.readBoolean());
+            case INT: return new IntDataBox(in.readInt());
+            case FLOAT: return new FloatDataBox(in.readFloat());
+            case LONG: return new LongDataBox(in.readLong());
+            case STRING: {
+                String s = in.readUTF();
+                return new StringDataBox(s, Math.max(1, s.length()));
+            }
+            case BYTE_ARRAY: {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new ByteArrayDataBox(bytes, bytes.length);
+            }
+            default: throw new UnsupportedOperationException("unknown type " + typeId);
+        }
+    }
+}
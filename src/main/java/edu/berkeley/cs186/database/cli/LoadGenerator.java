@@ -0,0 +1,171 @@
+package edu.berkeley.cs186.database.cli;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * Measures the throughput and latency of the NIO server (see NioServer).
+ * Opens a number of connections, each of which keeps a number of requests in
+ * flight (its pipeline depth) for a given duration, and reports the number of
+ * requests answered per second and percentiles of the time from sending a
+ * request to receiving its reply.
+ *
+ * To use, start the NIO server, then run the main function of this file:
+ *
+ *   LoadGenerator [host] [port] [connections] [depth] [seconds] [sql]
+ *
+ * which by default keeps 1 request in flight on each of 4 connections to
+ * localhost for 10 seconds, selecting the first table of the demo database.
+ */
+public class LoadGenerator {
+    private String host;
+    private int port;
+    private int numConnections;
+    private int pipelineDepth;
+
+    /**
+     * The outcome of a run.
+     */
+    public static class Report {
+        long numRequests;
+        long numErrors;
+        double seconds;
+        // Latency of each request, in nanoseconds, sorted
+        long[] latencies;
+
+        public long getNumRequests() {
+            return numRequests;
+        }
+
+        public long getNumErrors() {
+            return numErrors;
+        }
+
+        /**
+         * @return the number of requests answered per second
+         */
+        public double getThroughput() {
+            return numRequests / seconds;
+        }
+
+        /**
+         * @return the latency below which `p` percent of requests were
+         * answered, in milliseconds
+         */
+        public double getLatencyMillis(double p) {
+            if (latencies.length == 0) return 0;
+            int i = (int) Math.ceil(p / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(i, latencies.length - 1))] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests (%d errors) in %.1fs: %.0f req/s, " +
+                            "latency p50 %.2fms, p99 %.2fms, max %.2fms",
+                    numRequests, numErrors, seconds, getThroughput(), getLatencyMillis(50),
+                    getLatencyMillis(99), getLatencyMillis(100));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : NioServer.DEFAULT_PORT;
+        int numConnections = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int pipelineDepth = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        long seconds = args.length > 4 ? Long.parseLong(args[4]) : 10;
+        String sql = args.length > 5 ? args[5] : "SELECT * FROM Students LIMIT 10;";
+        LoadGenerator generator = new LoadGenerator(host, port, numConnections, pipelineDepth);
+        System.out.println(generator.run(sql, seconds * 1000));
+    }
+
+    public LoadGenerator(String host, int port, int numConnections, int pipelineDepth) {
+        if (numConnections <= 0 || pipelineDepth <= 0) throw new IllegalArgumentException();
+        this.host = host;
+        this.port = port;
+        this.numConnections = numConnections;
+        this.pipelineDepth = pipelineDepth;
+    }
+
+    /**
+     * Sends the request `sql` over and over for `millis` milliseconds.
+     */
+    public Report run(String sql, long millis) throws Exception {
+        List<FrameClient> clients = new ArrayList<>();
+        try {
+            for (int i = 0; i < numConnections; i++) clients.add(new FrameClient(host, port));
+
+            CyclicBarrier barrier = new CyclicBarrier(numConnections + 1);
+            long[][] latencies = new long[numConnections][];
+            long[] numErrors = new long[numConnections];
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < numConnections; i++) {
+                int connection = i;
+                threads.add(new Thread(() -> {
+                    try {
+                        barrier.await();
+                        long deadline = System.nanoTime() + millis * 1000000;
+                        List<Long> connectionLatencies = new ArrayList<>();
+                        numErrors[connection] = drive(clients.get(connection), sql, deadline,
+                                connectionLatencies);
+                        latencies[connection] = new long[connectionLatencies.size()];
+                        for (int j = 0; j < connectionLatencies.size(); j++) {
+                            latencies[connection][j] = connectionLatencies.get(j);
+                        }
+                        barrier.await();
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }));
+            }
+            for (Thread thread : threads) thread.start();
+            barrier.await();
+            long start = System.nanoTime();
+            barrier.await();
+            long nanos = System.nanoTime() - start;
+            for (Thread thread : threads) thread.join();
+
+            Report report = new Report();
+            report.seconds = nanos / 1e9;
+            report.latencies = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+            report.numRequests = report.latencies.length;
+            report.numErrors = Arrays.stream(numErrors).sum();
+            return report;
+        } finally {
+            for (FrameClient client : clients) client.close();
+        }
+    }
+
+    /**
+     * Keeps `pipelineDepth` requests in flight on `client` until `deadline`,
+     * then waits for the replies to the ones in flight.
+     *
+     * @return the number of replies with errors
+     */
+    private long drive(FrameClient client, String sql, long deadline, List<Long> latencies) {
+        try {
+            Deque<Long> sent = new ArrayDeque<>();
+            long numErrors = 0;
+            for (int i = 0; i < pipelineDepth; i++) {
+                client.send(sql);
+                sent.add(System.nanoTime());
+            }
+            client.flush();
+            while (!sent.isEmpty()) {
+                FrameClient.Result result = client.receive();
+                long now = System.nanoTime();
+                latencies.add(now - sent.poll());
+                if (!result.getErrors().isEmpty()) numErrors++;
+                if (now < deadline) {
+                    client.send(sql);
+                    client.flush();
+                    sent.add(System.nanoTime());
+                }
+            }
+            return numErrors;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package edu.berkeley.cs186.database.cli;
+
+import edu.berkeley.cs186.database.Database;
+import edu.berkeley.cs186.database.DatabaseException;
+import edu.berkeley.cs186.database.Transaction;
+import edu.berkeley.cs186.database.TransactionContext;
+import edu.berkeley.cs186.database.cli.parser.ASTSQLStatementList;
+import edu.berkeley.cs186.database.cli.parser.ParseException;
+import edu.berkeley.cs186.database.cli.parser.RookieParser;
+import edu.berkeley.cs186.database.cli.parser.TokenMgrError;
+import edu.berkeley.cs186.database.cli.visitor.PreparedStatements;
+import edu.berkeley.cs186.database.cli.visitor.StatementListVisitor;
+import edu.berkeley.cs186.database.concurrency.LockManager;
+import edu.berkeley.cs186.database.table.Record;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A front end for RookieDB that speaks the binary protocol of Frames instead
+ * of the text protocol of Server. See the warning in Server: the same applies
+ * here.
+ *
+ * A single thread accepts connections and reads and writes all of them with
+ * a Selector, so connections that are idle cost no thread. The statements of
+ * a connection run on a pool of worker threads, one request at a time and in
+ * the order they were received, so clients can pipeline requests. Records
+ * returned by queries are sent in batches as they are produced, rather than
+ * after the whole result is computed. A statement that produces records
+ * faster than the client reads them waits for the client to catch up.
+ *
+ * Transactions span requests: BEGIN in one request and COMMIT in a later one
+ * behave as they do in the command line interface. The transaction of a
+ * connection is rolled back if the connection closes while it's running.
+ *
+ * Use FrameClient to connect to the server, and LoadGenerator to measure its
+ * throughput.
+ */
+public class NioServer {
+    public static final int DEFAULT_PORT = 18601;
+    public static final int DEFAULT_MAX_CONNECTIONS = 1024;
+
+    // Records sent per ROWS frame
+    static final int ROWS_PER_BATCH = 64;
+
+    // Bytes that may be waiting to be sent to a client before the statement
+    // producing them waits for the client to read them
+    private static final long MAX_PENDING_BYTES = 1 << 20;
+
+    private static final int ACCEPT_BACKLOG = 1024;
+
+    private int port;
+    private int maxConnections;
+
+    private volatile Selector selector;
+    private volatile boolean closed = false;
+
+    // Connections with frames to send since the selector last looked
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final Set<Connection> connections = new HashSet<>();
+
+    public static void main(String[] args) {
+        Database db = new Database("demo", 25, new LockManager());
+        NioServer server = new NioServer();
+        server.listen(db);
+        db.close();
+    }
+
+    public NioServer() {
+        this(DEFAULT_PORT);
+    }
+
+    public NioServer(int port) {
+        this(port, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * @param maxConnections the number of clients that can be connected at
+     *                       once; clients that connect past that are
+     *                       disconnected right away
+     */
+    public NioServer(int port, int maxConnections) {
+        if (maxConnections <= 0) throw new IllegalArgumentException("invalid connection limit");
+        this.port = port;
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * Serves clients on the port of the server until close is called.
+     */
+    public void listen(Database db) {
+        // A statement waiting for a lock holds on to its worker. Bounding the
+        // workers could leave every worker waiting for locks held by a
+        // transaction whose COMMIT is queued behind them, so threads are only
+        // bounded by the number of connections with a request running.
+        AtomicInteger numThreads = new AtomicInteger();
+        ExecutorService workers = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "nio-worker-" + numThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (Selector selector = Selector.open();
+             ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress(this.port), ACCEPT_BACKLOG);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            this.selector = selector;
+            while (!closed) {
+                selector.select();
+                Connection pending;
+                while ((pending = pendingWrites.poll()) != null) pending.enableWrites();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept(serverChannel, db, workers);
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    if (key.isReadable()) connection.read();
+                    if (key.isValid() && key.isWritable()) connection.write();
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                System.err.println("Could not listen on port " + this.port);
+                System.exit(-1);
+            }
+        } finally {
+            for (Connection connection : new ArrayList<>(connections)) connection.close();
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Stops the server, disconnecting its clients.
+     */
+    public void close() {
+        closed = true;
+        Selector selector = this.selector;
+        if (selector != null) selector.wakeup();
+    }
+
+    private void accept(ServerSocketChannel serverChannel, Database db, ExecutorService workers)
+            throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) return;
+        if (connections.size() >= maxConnections) {
+            channel.close();
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Connection connection = new Connection(channel, db, workers);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        connections.add(connection);
+    }
+
+    /**
+     * The state of a client's connection. Only used by the selector thread,
+     * except send, closeWhenFlushed and awaitCapacity, which are called by
+     * the session of the connection.
+     */
+    private class Connection {
+        SocketChannel channel;
+        SelectionKey key;
+        Session session;
+        ByteBuffer readBuffer = ByteBuffer.allocate(4096);
+        Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<>();
+        AtomicLong pendingBytes = new AtomicLong();
+        volatile boolean open = true;
+        volatile boolean closeWhenFlushed = false;
+
+        Connection(SocketChannel channel, Database db, ExecutorService workers) {
+            this.channel = channel;
+            this.session = new Session(this, db, workers);
+        }
+
+        void read() {
+            int n;
+            try {
+                n = channel.read(readBuffer);
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            if (n == -1) {
+                // The client won't send more requests; the connection closes
+                // once the ones it sent are answered
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                session.end();
+                return;
+            }
+            readBuffer.flip();
+            while (readBuffer.remaining() >= Integer.BYTES) {
+                int length = readBuffer.getInt(readBuffer.position());
+                if (length < 1 || length > Frames.MAX_FRAME_SIZE) {
+                    close();
+                    return;
+                }
+                if (readBuffer.remaining() < Integer.BYTES + length) {
+                    if (readBuffer.capacity() < Integer.BYTES + length) {
+                        ByteBuffer larger = ByteBuffer.allocate(Integer.BYTES + length);
+                        larger.put(readBuffer);
+                        readBuffer = larger;
+                        return;
+                    }
+                    break;
+                }
+                readBuffer.getInt();
+                byte type = readBuffer.get();
+                byte[] payload = new byte[length - 1];
+                readBuffer.get(payload);
+                if (type != Frames.QUERY) {
+                    close();
+                    return;
+                }
+                session.submit(new String(payload, StandardCharsets.UTF_8));
+            }
+            readBuffer.compact();
+        }
+
+        void write() {
+            try {
+                ByteBuffer frame;
+                while ((frame = writeQueue.peek()) != null) {
+                    channel.write(frame);
+                    if (frame.hasRemaining()) break;
+                    writeQueue.poll();
+                    pendingBytes.addAndGet(-frame.limit());
+                }
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            synchronized (this) {
+                notifyAll();
+            }
+            if (writeQueue.isEmpty()) {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                if (closeWhenFlushed) close();
+            }
+        }
+
+        /**
+         * Called by the selector thread once a frame was queued by send.
+         */
+        void enableWrites() {
+            if (!open) return;
+            if (writeQueue.isEmpty()) {
+                if (closeWhenFlushed) close();
+                return;
+            }
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        }
+
+        /**
+         * Queues `frame` to be sent to the client. Frames are sent in the
+         * order they're queued.
+         */
+        void send(ByteBuffer frame) {
+            if (!open) return;
+            pendingBytes.addAndGet(frame.limit());
+            writeQueue.add(frame);
+            wakeSelector();
+        }
+
+        /**
+         * Closes the connection once the frames queued are sent.
+         */
+        void closeWhenFlushed() {
+            closeWhenFlushed = true;
+            wakeSelector();
+        }
+
+        private void wakeSelector() {
+            pendingWrites.add(this);
+            selector.wakeup();
+        }
+
+        /**
+         * Waits until the client has read enough of the frames sent to it.
+         */
+        synchronized void awaitCapacity() {
+            while (open && pendingBytes.get() > MAX_PENDING_BYTES) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        void close() {
+            if (!open) return;
+            open = false;
+            connections.remove(this);
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // The connection is gone anyway
+            }
+            synchronized (this) {
+                notifyAll();
+            }
+            session.end();
+        }
+    }
+
+    /**
+     * Runs the requests of a connection, one at a time, on the worker pool.
+     * Holds what the command line interface holds for its user: the running
+     * transaction and the prepared statements.
+     */
+    private static class Session implements Runnable, RecordPrinter {
+        Connection connection;
+        Database db;
+        ExecutorService workers;
+
+        // Requests not run yet, whether a worker is running them, and whether
+        // the client is done sending requests; guarded by this
+        Queue<String> requests = new ArrayDeque<>();
+        boolean running = false;
+        boolean ended = false;
+
+        // Only used by the worker running the session
+        Transaction currTransaction = null;
+        PreparedStatements preparedStatements = new PreparedStatements();
+        ByteArrayOutputStream messages = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(messages, true);
+
+        Session(Connection connection, Database db, ExecutorService workers) {
+            this.connection = connection;
+            this.db = db;
+            this.workers = workers;
+        }
+
+        synchronized void submit(String request) {
+            requests.add(request);
+            schedule();
+        }
+
+        /**
+         * Called once no more requests will be submitted.
+         */
+        synchronized void end() {
+            if (ended) return;
+            ended = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (running) return;
+            running = true;
+            try {
+                workers.execute(this);
+            } catch (RejectedExecutionException e) {
+                // The server is shutting down
+                running = false;
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                String request;
+                synchronized (this) {
+                    request = requests.poll();
+                    if (request == null) {
+                        running = false;
+                        if (!ended) return;
+                    }
+                }
+                if (request == null) {
+                    finish();
+                    return;
+                }
+                // Requests of a client that disconnected are dropped
+                if (connection.open) execute(request);
+            }
+        }
+
+        private void execute(String request) {
+            if (currTransaction != null) TransactionContext.setTransaction(currTransaction.getTransactionContext());
+            try {
+                RookieParser parser = new RookieParser(
+                        new ByteArrayInputStream(request.getBytes(StandardCharsets.UTF_8)));
+                ASTSQLStatementList node = parser.sql_stmt_list();
+                StatementListVisitor visitor = new StatementListVisitor(db, out, preparedStatements, this);
+                node.jjtAccept(visitor, null);
+                currTransaction = visitor.execute(currTransaction);
+            } catch (ParseException | TokenMgrError e) {
+                sendMessages();
+                connection.send(Frames.error("Parser exception: " + e.getMessage()));
+            } catch (DatabaseException e) {
+                sendMessages();
+                connection.send(Frames.error("Database exception: " + e.getMessage()));
+            } catch (RuntimeException e) {
+                sendMessages();
+                connection.send(Frames.error(e.toString()));
+            } finally {
+                // The worker may run other sessions next
+                if (TransactionContext.getTransaction() != null) TransactionContext.unsetTransaction();
+            }
+            sendMessages();
+            connection.send(Frames.done());
+        }
+
+        /**
+         * Rolls back the transaction of the session, if any, and closes the
+         * connection once the replies sent so far are sent.
+         */
+        private void finish() {
+            try {
+                if (currTransaction != null) {
+                    TransactionContext.setTransaction(currTransaction.getTransactionContext());
+                    currTransaction.rollback();
+                }
+            } finally {
+                if (TransactionContext.getTransaction() != null) TransactionContext.unsetTransaction();
+                currTransaction = null;
+                connection.closeWhenFlushed();
+            }
+        }
+
+        /**
+         * Sends what statements printed so far in a MESSAGE frame.
+         */
+        private void sendMessages() {
+            if (messages.size() == 0) return;
+            connection.send(Frames.message(new String(messages.toByteArray(), StandardCharsets.UTF_8)));
+            messages.reset();
+        }
+
+        @Override
+        public void printRecords(List<String> columnNames, Iterator<Record> records) {
+            sendMessages();
+            connection.send(Frames.columns(columnNames));
+            List<Record> batch = new ArrayList<>(ROWS_PER_BATCH);
+            while (records.hasNext() && connection.open) {
+                batch.add(records.next());
+                if (batch.size() == ROWS_PER_BATCH) {
+                    connection.send(Frames.rows(batch));
+                    batch.clear();
+                    connection.awaitCapacity();
+                }
+            }
+            if (!batch.isEmpty()) connection.send(Frames.rows(batch));
+        }
+    }
+}
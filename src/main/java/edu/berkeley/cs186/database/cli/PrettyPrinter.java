@@ -11,7 +11,7 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
-public class PrettyPrinter {
+public class PrettyPrinter implements RecordPrinter {
     PrintStream out;
 
     public PrettyPrinter() {
@@ -38,6 +38,7 @@ public class PrettyPrinter {
         printRecords(Arrays.asList("column_name", "type"), records.iterator());
     }
 
+    @Override
     public void printRecords(List<String> columnNames, Iterator<Record> records) {
         ArrayList<Integer> maxWidths = new ArrayList<>();
         for(String columnName: columnNames) {
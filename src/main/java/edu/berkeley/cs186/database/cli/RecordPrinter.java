@@ -0,0 +1,15 @@
+package edu.berkeley.cs186.database.cli;
+
+import edu.berkeley.cs186.database.table.Record;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Outputs the records returned by a query: as a table for the command line
+ * interface (see PrettyPrinter), or as they're produced for clients of the
+ * NIO server (see NioServer).
+ */
+public interface RecordPrinter {
+    void printRecords(List<String> columnNames, Iterator<Record> records);
+}
@@ -7,6 +7,8 @@ import edu.berkeley.cs186.database.memory.ClockEvictionPolicy;
 import java.io.*;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * WARNING: We provide the option to run RookieDB as a server for the sole
@@ -29,11 +31,29 @@ import java.net.Socket;
  * - `netcat localhost 18600`
  * - `nc localhost 18600` (depending on how netcat is installed)
  * - `ncat localhost 18600` (For window users. May need to download first)
+ *
+ * Each client gets a session: a thread running a CommandLineInterface over
+ * its connection. At most maxSessions sessions run at once; clients that
+ * connect while they all run wait in an admission queue of at most
+ * maxQueuedSessions clients, and clients that connect while the queue is full
+ * are told the server is busy and disconnected. This bounds the number of
+ * threads a burst of connections can create (sessions block their thread
+ * while they wait for locks).
  */
 public class Server {
     public static final int DEFAULT_PORT = 18600;
+    public static final int DEFAULT_MAX_SESSIONS = 64;
+    public static final int DEFAULT_MAX_QUEUED_SESSIONS = 256;
+
+    // Maximum number of connections the OS queues until they're accepted
+    private static final int ACCEPT_BACKLOG = 1024;
 
     private int port;
+    private int maxSessions;
+    private int maxQueuedSessions;
+
+    private volatile ServerSocket serverSocket;
+    private volatile boolean closed = false;
 
     public static void main(String[] args) {
         // Note: you'll probably want to complete Project 4 before
@@ -48,11 +68,11 @@ public class Server {
         db.close();
     }
 
-    class ClientThread extends Thread {
+    class ClientSession implements Runnable {
         Socket socket;
         Database db;
 
-        public ClientThread(Socket socket, Database db) {
+        public ClientSession(Socket socket, Database db) {
             this.socket = socket;
             this.db = db;
         }
@@ -90,17 +110,88 @@ public class Server {
     }
 
     public Server(int port) {
+        this(port, DEFAULT_MAX_SESSIONS, DEFAULT_MAX_QUEUED_SESSIONS);
+    }
+
+    /**
+     * @param maxSessions the number of sessions that can run at once
+     *                    (Integer.MAX_VALUE for a thread per client)
+     * @param maxQueuedSessions the number of clients that can wait for a
+     *                          session to finish before clients are turned
+     *                          away (0 to turn them away right away)
+     */
+    public Server(int port, int maxSessions, int maxQueuedSessions) {
+        if (maxSessions <= 0 || maxQueuedSessions < 0) {
+            throw new IllegalArgumentException("invalid session limits");
+        }
         this.port = port;
+        this.maxSessions = maxSessions;
+        this.maxQueuedSessions = maxQueuedSessions;
     }
 
+    /**
+     * Accepts clients on the port of the server until close is called, and
+     * runs a session for each of them on `db`.
+     */
     public void listen(Database db) {
-        try (ServerSocket serverSocket = new ServerSocket(this.port)) {
-            while (true) {
-                new ClientThread(serverSocket.accept(), db).start();
+        ThreadPoolExecutor sessions = newSessionPool();
+        try (ServerSocket serverSocket = new ServerSocket(this.port, ACCEPT_BACKLOG)) {
+            this.serverSocket = serverSocket;
+            while (!closed) {
+                Socket socket = serverSocket.accept();
+                try {
+                    sessions.execute(new ClientSession(socket, db));
+                } catch (RejectedExecutionException e) {
+                    reject(socket);
+                }
             }
         } catch (IOException e) {
+            // Closing the server socket interrupts accept
+            if (closed) return;
             System.err.println("Could not listen on port " + this.port);
             System.exit(-1);
+        } finally {
+            // Sessions that already started run to completion
+            sessions.shutdown();
+        }
+    }
+
+    /**
+     * Stops accepting clients. Clients that were accepted are still served.
+     */
+    public void close() {
+        closed = true;
+        ServerSocket serverSocket = this.serverSocket;
+        if (serverSocket == null) return;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ThreadPoolExecutor newSessionPool() {
+        BlockingQueue<Runnable> queue = maxQueuedSessions == 0
+                ? new SynchronousQueue<>()
+                : new LinkedBlockingQueue<>(maxQueuedSessions);
+        AtomicInteger numThreads = new AtomicInteger();
+        ThreadPoolExecutor sessions = new ThreadPoolExecutor(maxSessions, maxSessions, 60L,
+                TimeUnit.SECONDS, queue, r -> {
+                    Thread thread = new Thread(r, "session-" + numThreads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // Idle session threads exit instead of waiting for clients forever
+        sessions.allowCoreThreadTimeOut(true);
+        return sessions;
+    }
+
+    private static void reject(Socket socket) {
+        try (Socket rejected = socket) {
+            PrintStream out = new PrintStream(rejected.getOutputStream(), true);
+            out.println("Server busy: too many sessions, try again later.");
+        } catch (IOException e) {
+            // The client is turned away anyway
         }
     }
 }
@@ -0,0 +1,20 @@
+/* Generated By:JJTree: Do not edit this line. ASTAnalyzeStatement.java Version 7.0 */
+/* JavaCCOptions:MULTI=true,NODE_USES_PARSER=false,VISITOR=true,TRACK_TOKENS=false,NODE_PREFIX=AST,NODE_EXTENDS=,NODE_FACTORY=,SUPPORT_CLASS_VISIBILITY_PUBLIC=true */
+package edu.berkeley.cs186.database.cli.parser;
+
+public
+class ASTAnalyzeStatement extends SimpleNode {
+  public ASTAnalyzeStatement(int id) {
+    super(id);
+  }
+
+  public ASTAnalyzeStatement(RookieParser p, int id) {
+    super(p, id);
+  }
+
+  /** Accept the visitor. **/
+  public void jjtAccept(RookieParserVisitor visitor, Object data) {
+    visitor.visit(this, data);
+  }
+}
+/* JavaCC - OriginalChecksum=38533d9e22d67329cddeed850a3dc74b (do not edit this line) */
@@ -0,0 +1,20 @@
+/* Generated By:JJTree: Do not edit this line. ASTDeallocateStatement.java Version 7.0 */
+/* JavaCCOptions:MULTI=true,NODE_USES_PARSER=false,VISITOR=true,TRACK_TOKENS=false,NODE_PREFIX=AST,NODE_EXTENDS=,NODE_FACTORY=,SUPPORT_CLASS_VISIBILITY_PUBLIC=true */
+package edu.berkeley.cs186.database.cli.parser;
+
+public
+class ASTDeallocateStatement extends SimpleNode {
+  public ASTDeallocateStatement(int id) {
+    super(id);
+  }
+
+  public ASTDeallocateStatement(RookieParser p, int id) {
+    super(p, id);
+  }
+
+  /** Accept the visitor. **/
+  public void jjtAccept(RookieParserVisitor visitor, Object data) {
+    visitor.visit(this, data);
+  }
+}
+/* JavaCC - OriginalChecksum=e3c20072679a55273b4869ea84afa94a (do not edit this line) */
@@ -0,0 +1,20 @@
+/* Generated By:JJTree: Do not edit this line. ASTExecuteStatement.java Version 7.0 */
+/* JavaCCOptions:MULTI=true,NODE_USES_PARSER=false,VISITOR=true,TRACK_TOKENS=false,NODE_PREFIX=AST,NODE_EXTENDS=,NODE_FACTORY=,SUPPORT_CLASS_VISIBILITY_PUBLIC=true */
+package edu.berkeley.cs186.database.cli.parser;
+
+public
+class ASTExecuteStatement extends SimpleNode {
+  public ASTExecuteStatement(int id) {
+    super(id);
+  }
+
+  public ASTExecuteStatement(RookieParser p, int id) {
+    super(p, id);
+  }
+
+  /** Accept the visitor. **/
+  public void jjtAccept(RookieParserVisitor visitor, Object data) {
+    visitor.visit(this, data);
+  }
+}
+/* JavaCC - OriginalChecksum=c106c4bf755fe1c6a607785f4d6d4e15 (do not edit this line) */
@@ -0,0 +1,20 @@
+/* Generated By:JJTree: Do not edit this line. ASTParameter.java Version 7.0 */
+/* JavaCCOptions:MULTI=true,NODE_USES_PARSER=false,VISITOR=true,TRACK_TOKENS=false,NODE_PREFIX=AST,NODE_EXTENDS=,NODE_FACTORY=,SUPPORT_CLASS_VISIBILITY_PUBLIC=true */
+package edu.berkeley.cs186.database.cli.parser;
+
+public
+class ASTParameter extends SimpleNode {
+  public ASTParameter(int id) {
+    super(id);
+  }
+
+  public ASTParameter(RookieParser p, int id) {
+    super(p, id);
+  }
+
+  /** Accept the visitor. **/
+  public void jjtAccept(RookieParserVisitor visitor, Object data) {
+    visitor.visit(this, data);
+  }
+}
+/* JavaCC - OriginalChecksum=865eb387b339c3f14b25959c866ba908 (do not edit this line) */
@@ -54,7 +54,11 @@ public class RookieParser/*@bgen(jjtree)*/implements RookieParserTreeConstants,
         case K_SAVEPOINT:
         case K_ROLLBACK:
         case K_RELEASE:
-        case K_EXPLAIN:{
+        case K_EXPLAIN:
+        case K_ANALYZE:
+        case K_PREPARE:
+        case K_EXECUTE:
+        case K_DEALLOCATE:{
           ;
           break;
           }
@@ -166,6 +170,22 @@ if (jjtc000) {
               explain_stmt();
               break;
               }
+            case K_ANALYZE:{
+              analyze_stmt();
+              break;
+              }
+            case K_PREPARE:{
+              prepare_stmt();
+              break;
+              }
+            case K_EXECUTE:{
+              execute_stmt();
+              break;
+              }
+            case K_DEALLOCATE:{
+              deallocate_stmt();
+              break;
+              }
             default:
               jj_la1[6] = jj_gen;
               jj_consume_token(-1);
@@ -241,6 +261,10 @@ if (jjtc000) {
                 explain_stmt();
                 break;
                 }
+              case K_ANALYZE:{
+                analyze_stmt();
+                break;
+                }
               default:
                 jj_la1[9] = jj_gen;
                 jj_consume_token(-1);
@@ -290,6 +314,16 @@ if (jjtc000) {
   jjtree.openNodeScope(jjtn000);
     try {
       jj_consume_token(K_EXPLAIN);
+      switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
+      case K_ANALYZE:{
+        jj_consume_token(K_ANALYZE);
+jjtn000.value = true;
+        break;
+        }
+      default:
+        jj_la1[11] = jj_gen;
+        ;
+      }
       select_stmt();
     } catch (Throwable jjte000) {
 if (jjtc000) {
@@ -312,6 +346,174 @@ if (jjtc000) {
     }
 }
 
+  final public void analyze_stmt() throws ParseException {/*@bgen(jjtree) AnalyzeStatement */
+  ASTAnalyzeStatement jjtn000 = new ASTAnalyzeStatement(JJTANALYZESTATEMENT);
+  boolean jjtc000 = true;
+  jjtree.openNodeScope(jjtn000);
+    try {
+      jj_consume_token(K_ANALYZE);
+      identifier();
+      switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
+      case K_SAMPLE:{
+        jj_consume_token(K_SAMPLE);
+        integer_literal();
+        break;
+        }
+      default:
+        jj_la1[12] = jj_gen;
+        ;
+      }
+      switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
+      case K_BACKGROUND:{
+        jj_consume_token(K_BACKGROUND);
+jjtn000.value = true;
+        break;
+        }
+      default:
+        jj_la1[13] = jj_gen;
+        ;
+      }
+    } catch (Throwable jjte000) {
+if (jjtc000) {
+        jjtree.clearNodeScope(jjtn000);
+        jjtc000 = false;
+      } else {
+        jjtree.popNode();
+      }
+      if (jjte000 instanceof RuntimeException) {
+        {if (true) throw (RuntimeException)jjte000;}
+      }
+      if (jjte000 instanceof ParseException) {
+        {if (true) throw (ParseException)jjte000;}
+      }
+      {if (true) throw (Error)jjte000;}
+    } finally {
+if (jjtc000) {
+        jjtree.closeNodeScope(jjtn000, true);
+      }
+    }
+}
+
+  final public void prepare_stmt() throws ParseException {/*@bgen(jjtree) PrepareStatement */
+  ASTPrepareStatement jjtn000 = new ASTPrepareStatement(JJTPREPARESTATEMENT);
+  boolean jjtc000 = true;
+  jjtree.openNodeScope(jjtn000);
+    try {
+      jj_consume_token(K_PREPARE);
+      identifier();
+      jj_consume_token(K_AS);
+      select_stmt();
+    } catch (Throwable jjte000) {
+if (jjtc000) {
+        jjtree.clearNodeScope(jjtn000);
+        jjtc000 = false;
+      } else {
+        jjtree.popNode();
+      }
+      if (jjte000 instanceof RuntimeException) {
+        {if (true) throw (RuntimeException)jjte000;}
+      }
+      if (jjte000 instanceof ParseException) {
+        {if (true) throw (ParseException)jjte000;}
+      }
+      {if (true) throw (Error)jjte000;}
+    } finally {
+if (jjtc000) {
+        jjtree.closeNodeScope(jjtn000, true);
+      }
+    }
+}
+
+  final public void execute_stmt() throws ParseException {/*@bgen(jjtree) ExecuteStatement */
+  ASTExecuteStatement jjtn000 = new ASTExecuteStatement(JJTEXECUTESTATEMENT);
+  boolean jjtc000 = true;
+  jjtree.openNodeScope(jjtn000);
+    try {
+      jj_consume_token(K_EXECUTE);
+      identifier();
+      switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
+      case OPEN_PAR:{
+        jj_consume_token(OPEN_PAR);
+        literal();
+        label_5:
+        while (true) {
+          switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
+          case COMMA:{
+            ;
+            break;
+            }
+          default:
+            jj_la1[14] = jj_gen;
+            break label_5;
+          }
+          jj_consume_token(COMMA);
+          literal();
+        }
+        jj_consume_token(CLOSE_PAR);
+        break;
+        }
+      default:
+        jj_la1[15] = jj_gen;
+        ;
+      }
+    } catch (Throwable jjte000) {
+if (jjtc000) {
+        jjtree.clearNodeScope(jjtn000);
+        jjtc000 = false;
+      } else {
+        jjtree.popNode();
+      }
+      if (jjte000 instanceof RuntimeException) {
+        {if (true) throw (RuntimeException)jjte000;}
+      }
+      if (jjte000 instanceof ParseException) {
+        {if (true) throw (ParseException)jjte000;}
+      }
+      {if (true) throw (Error)jjte000;}
+    } finally {
+if (jjtc000) {
+        jjtree.closeNodeScope(jjtn000, true);
+      }
+    }
+}
+
+  final public void deallocate_stmt() throws ParseException {/*@bgen(jjtree) DeallocateStatement */
+  ASTDeallocateStatement jjtn000 = new ASTDeallocateStatement(JJTDEALLOCATESTATEMENT);
+  boolean jjtc000 = true;
+  jjtree.openNodeScope(jjtn000);
+    try {
+      jj_consume_token(K_DEALLOCATE);
+      switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
+      case K_PREPARE:{
+        jj_consume_token(K_PREPARE);
+        break;
+        }
+      default:
+        jj_la1[16] = jj_gen;
+        ;
+      }
+      identifier();
+    } catch (Throwable jjte000) {
+if (jjtc000) {
+        jjtree.clearNodeScope(jjtn000);
+        jjtc000 = false;
+      } else {
+        jjtree.popNode();
+      }
+      if (jjte000 instanceof RuntimeException) {
+        {if (true) throw (RuntimeException)jjte000;}
+      }
+      if (jjte000 instanceof ParseException) {
+        {if (true) throw (ParseException)jjte000;}
+      }
+      {if (true) throw (Error)jjte000;}
+    } finally {
+if (jjtc000) {
+        jjtree.closeNodeScope(jjtn000, true);
+      }
+    }
+}
+
   final public void drop_table_stmt() throws ParseException {/*@bgen(jjtree) DropTableStatement */
   ASTDropTableStatement jjtn000 = new ASTDropTableStatement(JJTDROPTABLESTATEMENT);
   boolean jjtc000 = true;
@@ -385,7 +587,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[11] = jj_gen;
+        jj_la1[17] = jj_gen;
         ;
       }
       identifier();
@@ -450,7 +652,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[12] = jj_gen;
+        jj_la1[18] = jj_gen;
         ;
       }
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
@@ -462,14 +664,14 @@ if (jjtc000) {
           break;
           }
         default:
-          jj_la1[13] = jj_gen;
+          jj_la1[19] = jj_gen;
           ;
         }
         identifier();
         break;
         }
       default:
-        jj_la1[14] = jj_gen;
+        jj_la1[20] = jj_gen;
         ;
       }
     } catch (Throwable jjte000) {
@@ -505,7 +707,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[15] = jj_gen;
+        jj_la1[21] = jj_gen;
         ;
       }
     } finally {
@@ -530,7 +732,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[16] = jj_gen;
+        jj_la1[22] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -540,7 +742,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[17] = jj_gen;
+        jj_la1[23] = jj_gen;
         ;
       }
     } finally {
@@ -560,7 +762,7 @@ if (jjtc000) {
       identifier();
       jj_consume_token(K_VALUES);
       insert_values();
-      label_5:
+      label_6:
       while (true) {
         switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
         case COMMA:{
@@ -568,8 +770,8 @@ if (jjtc000) {
           break;
           }
         default:
-          jj_la1[18] = jj_gen;
-          break label_5;
+          jj_la1[24] = jj_gen;
+          break label_6;
         }
         jj_consume_token(COMMA);
         insert_values();
@@ -602,7 +804,7 @@ if (jjtc000) {
     try {
       jj_consume_token(OPEN_PAR);
       literal();
-      label_6:
+      label_7:
       while (true) {
         switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
         case COMMA:{
@@ -610,8 +812,8 @@ if (jjtc000) {
           break;
           }
         default:
-          jj_la1[19] = jj_gen;
-          break label_6;
+          jj_la1[25] = jj_gen;
+          break label_7;
         }
         jj_consume_token(COMMA);
         literal();
@@ -656,7 +858,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[20] = jj_gen;
+        jj_la1[26] = jj_gen;
         ;
       }
     } catch (Throwable jjte000) {
@@ -689,7 +891,7 @@ if (jjtc000) {
       case K_WITH:{
         jj_consume_token(K_WITH);
         common_table_expression();
-        label_7:
+        label_8:
         while (true) {
           switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
           case COMMA:{
@@ -697,8 +899,8 @@ if (jjtc000) {
             break;
             }
           default:
-            jj_la1[21] = jj_gen;
-            break label_7;
+            jj_la1[27] = jj_gen;
+            break label_8;
           }
           jj_consume_token(COMMA);
           common_table_expression();
@@ -706,7 +908,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[22] = jj_gen;
+        jj_la1[28] = jj_gen;
         ;
       }
       select_clause();
@@ -722,13 +924,13 @@ if (jjtc000) {
           break;
           }
         default:
-          jj_la1[23] = jj_gen;
+          jj_la1[29] = jj_gen;
           ;
         }
         break;
         }
       default:
-        jj_la1[24] = jj_gen;
+        jj_la1[30] = jj_gen;
         ;
       }
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
@@ -736,7 +938,7 @@ if (jjtc000) {
         jj_consume_token(K_GROUP);
         jj_consume_token(K_BY);
         column_name();
-        label_8:
+        label_9:
         while (true) {
           switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
           case COMMA:{
@@ -744,8 +946,8 @@ if (jjtc000) {
             break;
             }
           default:
-            jj_la1[25] = jj_gen;
-            break label_8;
+            jj_la1[31] = jj_gen;
+            break label_9;
           }
           jj_consume_token(COMMA);
           column_name();
@@ -753,7 +955,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[26] = jj_gen;
+        jj_la1[32] = jj_gen;
         ;
       }
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
@@ -762,7 +964,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[27] = jj_gen;
+        jj_la1[33] = jj_gen;
         ;
       }
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
@@ -771,7 +973,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[28] = jj_gen;
+        jj_la1[34] = jj_gen;
         ;
       }
     } catch (Throwable jjte000) {
@@ -805,7 +1007,7 @@ if (jjtc000) {
       case OPEN_PAR:{
         jj_consume_token(OPEN_PAR);
         column_name();
-        label_9:
+        label_10:
         while (true) {
           switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
           case COMMA:{
@@ -813,8 +1015,8 @@ if (jjtc000) {
             break;
             }
           default:
-            jj_la1[29] = jj_gen;
-            break label_9;
+            jj_la1[35] = jj_gen;
+            break label_10;
           }
           jj_consume_token(COMMA);
           column_name();
@@ -823,7 +1025,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[30] = jj_gen;
+        jj_la1[36] = jj_gen;
         ;
       }
       jj_consume_token(K_AS);
@@ -894,7 +1096,7 @@ if (jjtc000) {
       case OPEN_PAR:{
         jj_consume_token(OPEN_PAR);
         column_def();
-        label_10:
+        label_11:
         while (true) {
           switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
           case COMMA:{
@@ -902,8 +1104,8 @@ if (jjtc000) {
             break;
             }
           default:
-            jj_la1[31] = jj_gen;
-            break label_10;
+            jj_la1[37] = jj_gen;
+            break label_11;
           }
           jj_consume_token(COMMA);
           column_def();
@@ -917,7 +1119,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[32] = jj_gen;
+        jj_la1[38] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -990,7 +1192,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[33] = jj_gen;
+        jj_la1[39] = jj_gen;
         ;
       }
 jjtree.closeNodeScope(jjtn000, true);
@@ -1024,7 +1226,7 @@ if (jjtc000) {
     try {
       jj_consume_token(K_SELECT);
       select_column();
-      label_11:
+      label_12:
       while (true) {
         switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
         case COMMA:{
@@ -1032,8 +1234,8 @@ if (jjtc000) {
           break;
           }
         default:
-          jj_la1[34] = jj_gen;
-          break label_11;
+          jj_la1[40] = jj_gen;
+          break label_12;
         }
         jj_consume_token(COMMA);
         select_column();
@@ -1097,7 +1299,7 @@ if (jjtc000) {
     try {
       jj_consume_token(K_FROM);
       aliased_table_name();
-      label_12:
+      label_13:
       while (true) {
         switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
         case K_INNER:
@@ -1106,8 +1308,8 @@ if (jjtc000) {
           break;
           }
         default:
-          jj_la1[35] = jj_gen;
-          break label_12;
+          jj_la1[41] = jj_gen;
+          break label_13;
         }
         joined_table();
       }
@@ -1175,7 +1377,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[36] = jj_gen;
+        jj_la1[42] = jj_gen;
         ;
       }
       jj_consume_token(K_JOIN);
@@ -1192,7 +1394,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[37] = jj_gen;
+        jj_la1[43] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -1232,7 +1434,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[39] = jj_gen;
+        jj_la1[45] = jj_gen;
         if (jj_2_5(3)) {
           t = jj_consume_token(IDENTIFIER);
           jj_consume_token(DOT);
@@ -1257,13 +1459,13 @@ if (jjtc000) {
               break;
               }
             default:
-              jj_la1[38] = jj_gen;
+              jj_la1[44] = jj_gen;
               ;
             }
             break;
             }
           default:
-            jj_la1[40] = jj_gen;
+            jj_la1[46] = jj_gen;
             jj_consume_token(-1);
             throw new ParseException();
           }
@@ -1318,7 +1520,7 @@ jjtn000.value = "*";
         break;
         }
       default:
-        jj_la1[44] = jj_gen;
+        jj_la1[50] = jj_gen;
         if (jj_2_6(2)) {
           t1 = jj_consume_token(IDENTIFIER);
           jj_consume_token(OPEN_PAR);
@@ -1332,7 +1534,7 @@ jjtn000.value = "*";
             break;
             }
           default:
-            jj_la1[41] = jj_gen;
+            jj_la1[47] = jj_gen;
             jj_consume_token(-1);
             throw new ParseException();
           }
@@ -1357,14 +1559,14 @@ jjtn000.value = t1.image + "(" + t2.image + ")";
                 break;
                 }
               default:
-                jj_la1[42] = jj_gen;
+                jj_la1[48] = jj_gen;
                 jj_consume_token(-1);
                 throw new ParseException();
               }
               break;
               }
             default:
-              jj_la1[43] = jj_gen;
+              jj_la1[49] = jj_gen;
               ;
             }
 jjtree.closeNodeScope(jjtn000, true);
@@ -1373,7 +1575,7 @@ jjtn000.value = t2 != null ? t1.image + "." + t2.image : t1.image;
             break;
             }
           default:
-            jj_la1[45] = jj_gen;
+            jj_la1[51] = jj_gen;
             jj_consume_token(-1);
             throw new ParseException();
           }
@@ -1401,7 +1603,7 @@ s += "." + t.image;
         break;
         }
       default:
-        jj_la1[46] = jj_gen;
+        jj_la1[52] = jj_gen;
         ;
       }
 jjtree.closeNodeScope(jjtn000, true);
@@ -1446,7 +1648,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[47] = jj_gen;
+        jj_la1[53] = jj_gen;
         ;
       }
 jjtree.closeNodeScope(jjtn000, true);
@@ -1482,7 +1684,25 @@ if (jjtc000) {
       case IDENTIFIER:{
         column_name();
         comparison_operator();
-        literal();
+        switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
+        case PLUS:
+        case MINUS:
+        case FALSE:
+        case TRUE:
+        case NUMERIC_LITERAL:
+        case STRING_LITERAL:{
+          literal();
+          break;
+          }
+        case PARAMETER:{
+          parameter();
+          break;
+          }
+        default:
+          jj_la1[54] = jj_gen;
+          jj_consume_token(-1);
+          throw new ParseException();
+        }
         break;
         }
       case PLUS:
@@ -1490,14 +1710,33 @@ if (jjtc000) {
       case FALSE:
       case TRUE:
       case NUMERIC_LITERAL:
-      case STRING_LITERAL:{
-        literal();
+      case STRING_LITERAL:
+      case PARAMETER:{
+        switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
+        case PLUS:
+        case MINUS:
+        case FALSE:
+        case TRUE:
+        case NUMERIC_LITERAL:
+        case STRING_LITERAL:{
+          literal();
+          break;
+          }
+        case PARAMETER:{
+          parameter();
+          break;
+          }
+        default:
+          jj_la1[55] = jj_gen;
+          jj_consume_token(-1);
+          throw new ParseException();
+        }
         comparison_operator();
         column_name();
         break;
         }
       default:
-        jj_la1[48] = jj_gen;
+        jj_la1[56] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -1522,6 +1761,22 @@ if (jjtc000) {
     }
 }
 
+  final public void parameter() throws ParseException {/*@bgen(jjtree) Parameter */
+ ASTParameter jjtn000 = new ASTParameter(JJTPARAMETER);
+ boolean jjtc000 = true;
+ jjtree.openNodeScope(jjtn000);Token t;
+    try {
+      t = jj_consume_token(PARAMETER);
+jjtree.closeNodeScope(jjtn000, true);
+                    jjtc000 = false;
+jjtn000.value = Integer.parseInt(t.image.substring(1));
+    } finally {
+if (jjtc000) {
+        jjtree.closeNodeScope(jjtn000, true);
+      }
+    }
+}
+
   final public String numeric_literal() throws ParseException {/*@bgen(jjtree) NumericLiteral */
  ASTNumericLiteral jjtn000 = new ASTNumericLiteral(JJTNUMERICLITERAL);
  boolean jjtc000 = true;
@@ -1541,14 +1796,14 @@ jjtn000.value += t.image;
           break;
           }
         default:
-          jj_la1[49] = jj_gen;
+          jj_la1[57] = jj_gen;
           jj_consume_token(-1);
           throw new ParseException();
         }
         break;
         }
       default:
-        jj_la1[50] = jj_gen;
+        jj_la1[58] = jj_gen;
         ;
       }
       t = jj_consume_token(NUMERIC_LITERAL);
@@ -1619,7 +1874,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[51] = jj_gen;
+        jj_la1[59] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -1689,7 +1944,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[52] = jj_gen;
+        jj_la1[60] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -1720,7 +1975,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[53] = jj_gen;
+        jj_la1[61] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -1746,7 +2001,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[54] = jj_gen;
+        jj_la1[62] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -1772,7 +2027,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[55] = jj_gen;
+        jj_la1[63] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -1802,7 +2057,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[56] = jj_gen;
+        jj_la1[64] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -1833,7 +2088,7 @@ if (jjtc000) {
         break;
         }
       default:
-        jj_la1[57] = jj_gen;
+        jj_la1[65] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -1886,7 +2141,7 @@ if (jjtc000) {
   jjtree.openNodeScope(jjtn000);
     try {
       and_expression();
-      label_13:
+      label_14:
       while (true) {
         switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
         case OR:
@@ -1895,8 +2150,8 @@ if (jjtc000) {
           break;
           }
         default:
-          jj_la1[58] = jj_gen;
-          break label_13;
+          jj_la1[66] = jj_gen;
+          break label_14;
         }
         or_operator();
         and_expression();
@@ -1928,7 +2183,7 @@ if (jjtc000) {
   jjtree.openNodeScope(jjtn000);
     try {
       not_expression();
-      label_14:
+      label_15:
       while (true) {
         switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
         case AND:
@@ -1937,8 +2192,8 @@ if (jjtc000) {
           break;
           }
         default:
-          jj_la1[59] = jj_gen;
-          break label_14;
+          jj_la1[67] = jj_gen;
+          break label_15;
         }
         and_operator();
         not_expression();
@@ -1969,7 +2224,7 @@ if (jjtc000) {
   boolean jjtc000 = true;
   jjtree.openNodeScope(jjtn000);
     try {
-      label_15:
+      label_16:
       while (true) {
         switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
         case NOT:
@@ -1978,8 +2233,8 @@ if (jjtc000) {
           break;
           }
         default:
-          jj_la1[60] = jj_gen;
-          break label_15;
+          jj_la1[68] = jj_gen;
+          break label_16;
         }
         not_operator();
       }
@@ -2011,12 +2266,12 @@ if (jjtc000) {
   jjtree.openNodeScope(jjtn000);
     try {
       additive_expression();
-      label_16:
+      label_17:
       while (true) {
         if (jj_2_7(2)) {
           ;
         } else {
-          break label_16;
+          break label_17;
         }
         comparison_operator();
         additive_expression();
@@ -2048,12 +2303,12 @@ if (jjtc000) {
   jjtree.openNodeScope(jjtn000);
     try {
       multiplicative_expression();
-      label_17:
+      label_18:
       while (true) {
         if (jj_2_8(2)) {
           ;
         } else {
-          break label_17;
+          break label_18;
         }
         additive_operator();
         multiplicative_expression();
@@ -2085,12 +2340,12 @@ if (jjtc000) {
   jjtree.openNodeScope(jjtn000);
     try {
       primary_expression();
-      label_18:
+      label_19:
       while (true) {
         if (jj_2_9(2)) {
           ;
         } else {
-          break label_18;
+          break label_19;
         }
         multiplicative_operator();
         primary_expression();
@@ -2152,7 +2407,7 @@ jjtn000.value = t.image;
         case STRING_LITERAL:
         case IDENTIFIER:{
           expression();
-          label_19:
+          label_20:
           while (true) {
             switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
             case COMMA:{
@@ -2160,8 +2415,8 @@ jjtn000.value = t.image;
               break;
               }
             default:
-              jj_la1[61] = jj_gen;
-              break label_19;
+              jj_la1[69] = jj_gen;
+              break label_20;
             }
             jj_consume_token(COMMA);
             expression();
@@ -2169,14 +2424,14 @@ jjtn000.value = t.image;
           break;
           }
         default:
-          jj_la1[62] = jj_gen;
+          jj_la1[70] = jj_gen;
           jj_consume_token(-1);
           throw new ParseException();
         }
         break;
         }
       default:
-        jj_la1[63] = jj_gen;
+        jj_la1[71] = jj_gen;
         ;
       }
       jj_consume_token(CLOSE_PAR);
@@ -2227,7 +2482,7 @@ if (jjtc000) {
           break;
           }
         default:
-          jj_la1[64] = jj_gen;
+          jj_la1[72] = jj_gen;
           jj_consume_token(-1);
           throw new ParseException();
         }
@@ -2349,34 +2604,72 @@ if (jjtc000) {
     finally { jj_save(11, xla); }
   }
 
+  private boolean jj_3R_38()
+ {
+    Token xsp;
+    xsp = jj_scanpos;
+    if (!jj_scan_token(13)) return false;
+    jj_scanpos = xsp;
+    if (jj_3R_39()) return true;
+    return false;
+  }
+
+  private boolean jj_3R_37()
+ {
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3R_38()) jj_scanpos = xsp;
+    if (jj_scan_token(NUMERIC_LITERAL)) return true;
+    return false;
+  }
+
+  private boolean jj_3_5()
+ {
+    if (jj_scan_token(IDENTIFIER)) return true;
+    if (jj_scan_token(DOT)) return true;
+    if (jj_scan_token(STAR)) return true;
+    return false;
+  }
+
+  private boolean jj_3R_36()
+ {
+    if (jj_scan_token(DOT)) return true;
+    return false;
+  }
+
   private boolean jj_3_8()
  {
-    if (jj_3R_24()) return true;
     if (jj_3R_25()) return true;
+    if (jj_3R_26()) return true;
     return false;
   }
 
   private boolean jj_3_9()
  {
-    if (jj_3R_26()) return true;
     if (jj_3R_27()) return true;
+    if (jj_3R_28()) return true;
     return false;
   }
 
-  private boolean jj_3R_21()
+  private boolean jj_3_4()
  {
-    if (jj_scan_token(K_DROP)) return true;
-    if (jj_scan_token(K_TABLE)) return true;
+    if (jj_3R_22()) return true;
     return false;
   }
 
-  private boolean jj_3R_32()
+  private boolean jj_3R_33()
  {
-    if (jj_3R_24()) return true;
+    if (jj_3R_25()) return true;
     return false;
   }
 
-  private boolean jj_3R_31()
+  private boolean jj_3_3()
+ {
+    if (jj_3R_21()) return true;
+    return false;
+  }
+
+  private boolean jj_3R_32()
  {
     if (jj_scan_token(OPEN_PAR)) return true;
     return false;
@@ -2384,17 +2677,24 @@ if (jjtc000) {
 
   private boolean jj_3_12()
  {
-    if (jj_3R_30()) return true;
+    if (jj_3R_31()) return true;
+    return false;
+  }
+
+  private boolean jj_3R_22()
+ {
+    if (jj_scan_token(K_DROP)) return true;
+    if (jj_scan_token(K_TABLE)) return true;
     return false;
   }
 
   private boolean jj_3_11()
  {
-    if (jj_3R_29()) return true;
+    if (jj_3R_30()) return true;
     return false;
   }
 
-  private boolean jj_3R_27()
+  private boolean jj_3R_28()
  {
     Token xsp;
     xsp = jj_scanpos;
@@ -2404,32 +2704,19 @@ if (jjtc000) {
     jj_scanpos = xsp;
     if (!jj_3_12()) return false;
     jj_scanpos = xsp;
-    if (!jj_3R_31()) return false;
+    if (!jj_3R_32()) return false;
     jj_scanpos = xsp;
-    if (jj_3R_32()) return true;
-    return false;
-  }
-
-  private boolean jj_3R_20()
- {
-    if (jj_scan_token(K_CREATE)) return true;
-    if (jj_scan_token(K_TABLE)) return true;
+    if (jj_3R_33()) return true;
     return false;
   }
 
   private boolean jj_3_10()
  {
-    if (jj_3R_28()) return true;
-    return false;
-  }
-
-  private boolean jj_3R_34()
- {
-    if (jj_scan_token(IDENTIFIER)) return true;
+    if (jj_3R_29()) return true;
     return false;
   }
 
-  private boolean jj_3R_22()
+  private boolean jj_3R_23()
  {
     Token xsp;
     xsp = jj_scanpos;
@@ -2453,12 +2740,12 @@ if (jjtc000) {
 
   private boolean jj_3_7()
  {
-    if (jj_3R_22()) return true;
     if (jj_3R_23()) return true;
+    if (jj_3R_24()) return true;
     return false;
   }
 
-  private boolean jj_3R_24()
+  private boolean jj_3R_25()
  {
     Token xsp;
     xsp = jj_scanpos;
@@ -2468,54 +2755,48 @@ if (jjtc000) {
     return false;
   }
 
-  private boolean jj_3R_33()
+  private boolean jj_3R_21()
  {
-    if (jj_3R_36()) return true;
+    if (jj_scan_token(K_CREATE)) return true;
+    if (jj_scan_token(K_TABLE)) return true;
     return false;
   }
 
-  private boolean jj_3R_30()
+  private boolean jj_3R_35()
  {
     if (jj_scan_token(IDENTIFIER)) return true;
-    Token xsp;
-    xsp = jj_scanpos;
-    if (jj_3R_35()) jj_scanpos = xsp;
     return false;
   }
 
-  private boolean jj_3R_29()
+  private boolean jj_3R_34()
  {
-    if (jj_3R_34()) return true;
-    if (jj_scan_token(OPEN_PAR)) return true;
+    if (jj_3R_37()) return true;
     return false;
   }
 
-  private boolean jj_3_4()
+  private boolean jj_3R_30()
  {
-    if (jj_3R_21()) return true;
+    if (jj_3R_35()) return true;
+    if (jj_scan_token(OPEN_PAR)) return true;
     return false;
   }
 
-  private boolean jj_3_3()
+  private boolean jj_3R_26()
  {
-    if (jj_3R_20()) return true;
+    if (jj_3R_28()) return true;
     return false;
   }
 
-  private boolean jj_3_6()
+  private boolean jj_3R_31()
  {
     if (jj_scan_token(IDENTIFIER)) return true;
-    if (jj_scan_token(OPEN_PAR)) return true;
-    return false;
-  }
-
-  private boolean jj_3R_25()
- {
-    if (jj_3R_27()) return true;
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3R_36()) jj_scanpos = xsp;
     return false;
   }
 
-  private boolean jj_3R_26()
+  private boolean jj_3R_27()
  {
     Token xsp;
     xsp = jj_scanpos;
@@ -2527,13 +2808,13 @@ if (jjtc000) {
     return false;
   }
 
-  private boolean jj_3R_28()
+  private boolean jj_3R_29()
  {
     Token xsp;
     xsp = jj_scanpos;
-    if (!jj_scan_token(69)) return false;
+    if (!jj_scan_token(74)) return false;
     jj_scanpos = xsp;
-    if (!jj_3R_33()) return false;
+    if (!jj_3R_34()) return false;
     jj_scanpos = xsp;
     if (!jj_scan_token(24)) return false;
     jj_scanpos = xsp;
@@ -2541,60 +2822,34 @@ if (jjtc000) {
     return false;
   }
 
-  private boolean jj_3R_38()
+  private boolean jj_3R_39()
  {
     if (jj_scan_token(MINUS)) return true;
     return false;
   }
 
-  private boolean jj_3R_23()
+  private boolean jj_3_2()
  {
-    if (jj_3R_25()) return true;
+    if (jj_3R_22()) return true;
     return false;
   }
 
-  private boolean jj_3_5()
+  private boolean jj_3_6()
  {
     if (jj_scan_token(IDENTIFIER)) return true;
-    if (jj_scan_token(DOT)) return true;
-    if (jj_scan_token(STAR)) return true;
-    return false;
-  }
-
-  private boolean jj_3R_35()
- {
-    if (jj_scan_token(DOT)) return true;
-    return false;
-  }
-
-  private boolean jj_3R_37()
- {
-    Token xsp;
-    xsp = jj_scanpos;
-    if (!jj_scan_token(13)) return false;
-    jj_scanpos = xsp;
-    if (jj_3R_38()) return true;
-    return false;
-  }
-
-  private boolean jj_3R_36()
- {
-    Token xsp;
-    xsp = jj_scanpos;
-    if (jj_3R_37()) jj_scanpos = xsp;
-    if (jj_scan_token(NUMERIC_LITERAL)) return true;
+    if (jj_scan_token(OPEN_PAR)) return true;
     return false;
   }
 
-  private boolean jj_3_2()
+  private boolean jj_3R_24()
  {
-    if (jj_3R_21()) return true;
+    if (jj_3R_26()) return true;
     return false;
   }
 
   private boolean jj_3_1()
  {
-    if (jj_3R_20()) return true;
+    if (jj_3R_21()) return true;
     return false;
   }
 
@@ -2609,7 +2864,7 @@ if (jjtc000) {
   private Token jj_scanpos, jj_lastpos;
   private int jj_la;
   private int jj_gen;
-  final private int[] jj_la1 = new int[65];
+  final private int[] jj_la1 = new int[73];
   static private int[] jj_la1_0;
   static private int[] jj_la1_1;
   static private int[] jj_la1_2;
@@ -2619,13 +2874,13 @@ if (jjtc000) {
 	   jj_la1_init_2();
 	}
 	private static void jj_la1_init_0() {
-	   jj_la1_0 = new int[] {0x20,0x20,0xd0000000,0x20,0x10000000,0x0,0xc0000000,0x10000000,0x0,0xc0000000,0x20,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x200,0x200,0x0,0x200,0x10000000,0x0,0x0,0x200,0x0,0x0,0x0,0x200,0x80,0x200,0x20000080,0x80,0x200,0x0,0x0,0x180000,0x20000000,0x400,0x3806080,0x400,0x400,0x40,0x400,0x0,0x40,0x20000000,0x1806000,0x6000,0x6000,0x1806000,0x7f8000,0x4000000,0x8000000,0x2000000,0x1c00,0x6000,0x8000000,0x4000000,0x2000000,0x200,0x3806480,0x3806480,0x6080,};
+	   jj_la1_0 = new int[] {0x20,0x20,0xd0000000,0x20,0x10000000,0x0,0xc0000000,0x10000000,0x0,0xc0000000,0x20,0x0,0x0,0x0,0x200,0x80,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x200,0x200,0x0,0x200,0x10000000,0x0,0x0,0x200,0x0,0x0,0x0,0x200,0x80,0x200,0x20000080,0x80,0x200,0x0,0x0,0x180000,0x20000000,0x400,0x3806080,0x400,0x400,0x40,0x400,0x0,0x40,0x20000000,0x1806000,0x1806000,0x1806000,0x6000,0x6000,0x1806000,0x7f8000,0x4000000,0x8000000,0x2000000,0x1c00,0x6000,0x8000000,0x4000000,0x2000000,0x200,0x3806480,0x3806480,0x6080,};
 	}
 	private static void jj_la1_init_1() {
-	   jj_la1_1 = new int[] {0x0,0x0,0x1b71800a,0x0,0x8,0x8000,0x1b710002,0x8,0x8000,0x1b610002,0x0,0x1000000,0x800000,0x1000000,0x4000000,0x800000,0x600000,0x800000,0x0,0x0,0x100,0x0,0x0,0x200,0x100,0x0,0x1000,0x0,0x4000,0x0,0x0,0x0,0x0,0x0,0x0,0x60,0x20,0x0,0x0,0x0,0x800,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x200,0x400,0x800,0x0,0x0,0x400,0x200,0x800,0x0,0x800,0x800,0x0,};
+	   jj_la1_1 = new int[] {0x0,0x0,0x9b71800a,0x0,0x8,0x8000,0x9b710002,0x8,0x8000,0x9b610002,0x0,0x80000000,0x0,0x0,0x0,0x0,0x0,0x1000000,0x800000,0x1000000,0x4000000,0x800000,0x600000,0x800000,0x0,0x0,0x100,0x0,0x0,0x200,0x100,0x0,0x1000,0x0,0x4000,0x0,0x0,0x0,0x0,0x0,0x0,0x60,0x20,0x0,0x0,0x0,0x800,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x200,0x400,0x800,0x0,0x0,0x400,0x200,0x800,0x0,0x800,0x800,0x0,};
 	}
 	private static void jj_la1_init_2() {
-	   jj_la1_2 = new int[] {0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x1,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x62,0x40,0x40,0x0,0x0,0x40,0x0,0x0,0x62,0x0,0x0,0x22,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x62,0x62,0x0,};
+	   jj_la1_2 = new int[] {0x0,0x0,0x38,0x0,0x0,0x0,0x38,0x0,0x0,0x0,0x0,0x0,0x1,0x2,0x0,0x0,0x8,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x4,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x1440,0x1000,0x1000,0x0,0x0,0x1000,0x0,0x0,0xc40,0xc40,0x1c40,0x0,0x0,0x440,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x1440,0x1440,0x0,};
 	}
   final private JJCalls[] jj_2_rtns = new JJCalls[12];
   private boolean jj_rescan = false;
@@ -2642,7 +2897,7 @@ if (jjtc000) {
 	 token = new Token();
 	 jj_ntk = -1;
 	 jj_gen = 0;
-	 for (int i = 0; i < 65; i++) jj_la1[i] = -1;
+	 for (int i = 0; i < 73; i++) jj_la1[i] = -1;
 	 for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -2658,7 +2913,7 @@ if (jjtc000) {
 	 jj_ntk = -1;
 	 jjtree.reset();
 	 jj_gen = 0;
-	 for (int i = 0; i < 65; i++) jj_la1[i] = -1;
+	 for (int i = 0; i < 73; i++) jj_la1[i] = -1;
 	 for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -2669,7 +2924,7 @@ if (jjtc000) {
 	 token = new Token();
 	 jj_ntk = -1;
 	 jj_gen = 0;
-	 for (int i = 0; i < 65; i++) jj_la1[i] = -1;
+	 for (int i = 0; i < 73; i++) jj_la1[i] = -1;
 	 for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -2689,7 +2944,7 @@ if (jjtc000) {
 	 jj_ntk = -1;
 	 jjtree.reset();
 	 jj_gen = 0;
-	 for (int i = 0; i < 65; i++) jj_la1[i] = -1;
+	 for (int i = 0; i < 73; i++) jj_la1[i] = -1;
 	 for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -2699,7 +2954,7 @@ if (jjtc000) {
 	 token = new Token();
 	 jj_ntk = -1;
 	 jj_gen = 0;
-	 for (int i = 0; i < 65; i++) jj_la1[i] = -1;
+	 for (int i = 0; i < 73; i++) jj_la1[i] = -1;
 	 for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -2710,7 +2965,7 @@ if (jjtc000) {
 	 jj_ntk = -1;
 	 jjtree.reset();
 	 jj_gen = 0;
-	 for (int i = 0; i < 65; i++) jj_la1[i] = -1;
+	 for (int i = 0; i < 73; i++) jj_la1[i] = -1;
 	 for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -2767,6 +3022,7 @@ if (jjtc000) {
 	 return false;
   }
 
+
 /** Get the next Token. */
   final public Token getNextToken() {
 	 if (token.next != null) token = token.next;
@@ -2823,6 +3079,7 @@ if (jjtc000) {
 			   isMatched = false;
 			   break;
 			 }
+
 		   }
 		   if (isMatched) {
 			 jj_expentries.add(jj_expentry);
@@ -2840,12 +3097,12 @@ if (jjtc000) {
   /** Generate ParseException. */
   public ParseException generateParseException() {
 	 jj_expentries.clear();
-	 boolean[] la1tokens = new boolean[71];
+	 boolean[] la1tokens = new boolean[77];
 	 if (jj_kind >= 0) {
 	   la1tokens[jj_kind] = true;
 	   jj_kind = -1;
 	 }
-	 for (int i = 0; i < 65; i++) {
+	 for (int i = 0; i < 73; i++) {
 	   if (jj_la1[i] == jj_gen) {
 		 for (int j = 0; j < 32; j++) {
 		   if ((jj_la1_0[i] & (1<<j)) != 0) {
@@ -2860,7 +3117,7 @@ if (jjtc000) {
 		 }
 	   }
 	 }
-	 for (int i = 0; i < 71; i++) {
+	 for (int i = 0; i < 77; i++) {
 	   if (la1tokens[i]) {
 		 jj_expentry = new int[1];
 		 jj_expentry[0] = i;
@@ -2918,6 +3175,7 @@ if (jjtc000) {
 		   }
 		   p = p.next;
 		 } while (p != null);
+
 		 } catch(LookaheadSuccess ls) { }
 	 }
 	 jj_rescan = false;
@@ -1,11 +1,13 @@
 /* Generated By:JJTree&JavaCC: Do not edit this line. RookieParserConstants.java */
 package edu.berkeley.cs186.database.cli.parser;
 
+
 /**
  * Token literal values and constants.
  * Generated by org.javacc.parser.OtherFilesGen#start()
  */
 public interface RookieParserConstants {
+
   /** End of File. */
   int EOF = 0;
   /** RegularExpression Id. */
@@ -127,19 +129,31 @@ public interface RookieParserConstants {
   /** RegularExpression Id. */
   int K_ANALYZE = 63;
   /** RegularExpression Id. */
-  int K_ORDER = 64;
+  int K_SAMPLE = 64;
+  /** RegularExpression Id. */
+  int K_BACKGROUND = 65;
+  /** RegularExpression Id. */
+  int K_ORDER = 66;
+  /** RegularExpression Id. */
+  int K_PREPARE = 67;
+  /** RegularExpression Id. */
+  int K_EXECUTE = 68;
+  /** RegularExpression Id. */
+  int K_DEALLOCATE = 69;
+  /** RegularExpression Id. */
+  int NUMERIC_LITERAL = 70;
   /** RegularExpression Id. */
-  int NUMERIC_LITERAL = 65;
+  int DIGITS = 71;
   /** RegularExpression Id. */
-  int DIGITS = 66;
+  int DIGIT = 72;
   /** RegularExpression Id. */
-  int DIGIT = 67;
+  int SIGN = 73;
   /** RegularExpression Id. */
-  int SIGN = 68;
+  int STRING_LITERAL = 74;
   /** RegularExpression Id. */
-  int STRING_LITERAL = 69;
+  int PARAMETER = 75;
   /** RegularExpression Id. */
-  int IDENTIFIER = 70;
+  int IDENTIFIER = 76;
 
   /** Lexical state. */
   int DEFAULT = 0;
@@ -210,12 +224,18 @@ public interface RookieParserConstants {
     "\"query\"",
     "\"plan\"",
     "\"analyze\"",
+    "\"sample\"",
+    "\"background\"",
     "\"order\"",
+    "\"prepare\"",
+    "\"execute\"",
+    "\"deallocate\"",
     "<NUMERIC_LITERAL>",
     "<DIGITS>",
     "<DIGIT>",
     "<SIGN>",
     "<STRING_LITERAL>",
+    "<PARAMETER>",
     "<IDENTIFIER>",
   };
 
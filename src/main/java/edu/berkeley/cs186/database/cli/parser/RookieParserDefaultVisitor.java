@@ -18,6 +18,18 @@ public class RookieParserDefaultVisitor implements RookieParserVisitor{
   public void visit(ASTExplainStatement node, Object data){
     defaultVisit(node, data);
   }
+  public void visit(ASTAnalyzeStatement node, Object data){
+    defaultVisit(node, data);
+  }
+  public void visit(ASTPrepareStatement node, Object data){
+    defaultVisit(node, data);
+  }
+  public void visit(ASTExecuteStatement node, Object data){
+    defaultVisit(node, data);
+  }
+  public void visit(ASTDeallocateStatement node, Object data){
+    defaultVisit(node, data);
+  }
   public void visit(ASTDropTableStatement node, Object data){
     defaultVisit(node, data);
   }
@@ -99,6 +111,9 @@ public class RookieParserDefaultVisitor implements RookieParserVisitor{
   public void visit(ASTColumnValueComparison node, Object data){
     defaultVisit(node, data);
   }
+  public void visit(ASTParameter node, Object data){
+    defaultVisit(node, data);
+  }
   public void visit(ASTNumericLiteral node, Object data){
     defaultVisit(node, data);
   }
@@ -154,4 +169,4 @@ public class RookieParserDefaultVisitor implements RookieParserVisitor{
     defaultVisit(node, data);
   }
 }
-/* JavaCC - OriginalChecksum=bfc1abc56c56149d14ed9654715639ba (do not edit this line) */
+/* JavaCC - OriginalChecksum=bc6fb1889e1ad0afc9c5d66d163e9b0c (do not edit this line) */
@@ -4,6 +4,7 @@ package edu.berkeley.cs186.database.cli.parser;
 
 /** Token Manager. */
 public class RookieParserTokenManager implements RookieParserConstants {
+
   /** Debug output. */
   public  java.io.PrintStream debugStream = System.out;
   /** Set debug output. */
@@ -12,104 +13,106 @@ private final int jjStopStringLiteralDfa_0(int pos, long active0, long active1){
    switch (pos)
    {
       case 0:
-         if ((active0 & 0xfffffffff1800000L) != 0L || (active1 & 0x1L) != 0L)
+         if ((active0 & 0xfffffffff1800000L) != 0L || (active1 & 0x3fL) != 0L)
          {
-            jjmatchedKind = 70;
-            return 11;
+            jjmatchedKind = 76;
+            return 13;
          }
          if ((active0 & 0x40L) != 0L)
             return 1;
          return -1;
       case 1:
-         if ((active0 & 0x400248020000000L) != 0L || (active1 & 0x1L) != 0L)
-            return 11;
-         if ((active0 & 0xfbffdb7fd1800000L) != 0L)
+         if ((active0 & 0x400248020000000L) != 0L || (active1 & 0x4L) != 0L)
+            return 13;
+         if ((active0 & 0xfbffdb7fd1800000L) != 0L || (active1 & 0x3bL) != 0L)
          {
             if (jjmatchedPos != 1)
             {
-               jjmatchedKind = 70;
+               jjmatchedKind = 76;
                jjmatchedPos = 1;
             }
-            return 11;
+            return 13;
          }
          return -1;
       case 2:
-         if ((active0 & 0xfbdfd17bd1800000L) != 0L || (active1 & 0x1L) != 0L)
+         if ((active0 & 0xfbdfd17bd1800000L) != 0L || (active1 & 0x3fL) != 0L)
          {
-            jjmatchedKind = 70;
+            jjmatchedKind = 76;
             jjmatchedPos = 2;
-            return 11;
+            return 13;
          }
          if ((active0 & 0x200a0400000000L) != 0L)
-            return 11;
+            return 13;
          return -1;
       case 3:
-         if ((active0 & 0x4001005111000000L) != 0L)
-            return 11;
-         if ((active0 & 0xbbded12ac0800000L) != 0L || (active1 & 0x1L) != 0L)
+         if ((active0 & 0xbbded12ac0800000L) != 0L || (active1 & 0x3fL) != 0L)
          {
-            jjmatchedKind = 70;
+            jjmatchedKind = 76;
             jjmatchedPos = 3;
-            return 11;
+            return 13;
          }
+         if ((active0 & 0x4001005111000000L) != 0L)
+            return 13;
          return -1;
       case 4:
-         if ((active0 & 0x201a512000800000L) != 0L || (active1 & 0x1L) != 0L)
-            return 11;
-         if ((active0 & 0x9bc4800ac0000000L) != 0L)
+         if ((active0 & 0x201a512000800000L) != 0L || (active1 & 0x4L) != 0L)
+            return 13;
+         if ((active0 & 0x9bc4800ac0000000L) != 0L || (active1 & 0x3bL) != 0L)
          {
-            jjmatchedKind = 70;
+            jjmatchedKind = 76;
             jjmatchedPos = 4;
-            return 11;
+            return 13;
          }
          return -1;
       case 5:
-         if ((active0 & 0x9b80000000000000L) != 0L)
+         if ((active0 & 0x9b80000000000000L) != 0L || (active1 & 0x3aL) != 0L)
          {
-            jjmatchedKind = 70;
+            jjmatchedKind = 76;
             jjmatchedPos = 5;
-            return 11;
+            return 13;
          }
-         if ((active0 & 0x44800ac0000000L) != 0L)
-            return 11;
+         if ((active0 & 0x44800ac0000000L) != 0L || (active1 & 0x1L) != 0L)
+            return 13;
          return -1;
       case 6:
-         if ((active0 & 0x380000000000000L) != 0L)
+         if ((active0 & 0x380000000000000L) != 0L || (active1 & 0x22L) != 0L)
          {
-            jjmatchedKind = 70;
+            jjmatchedKind = 76;
             jjmatchedPos = 6;
-            return 11;
+            return 13;
          }
-         if ((active0 & 0x9800000000000000L) != 0L)
-            return 11;
+         if ((active0 & 0x9800000000000000L) != 0L || (active1 & 0x18L) != 0L)
+            return 13;
          return -1;
       case 7:
-         if ((active0 & 0x200000000000000L) != 0L)
-            return 11;
-         if ((active0 & 0x180000000000000L) != 0L)
+         if ((active0 & 0x180000000000000L) != 0L || (active1 & 0x22L) != 0L)
          {
-            jjmatchedKind = 70;
+            jjmatchedKind = 76;
             jjmatchedPos = 7;
-            return 11;
+            return 13;
          }
+         if ((active0 & 0x200000000000000L) != 0L)
+            return 13;
          return -1;
       case 8:
-         if ((active0 & 0x80000000000000L) != 0L)
+         if ((active0 & 0x100000000000000L) != 0L)
+            return 13;
+         if ((active0 & 0x80000000000000L) != 0L || (active1 & 0x22L) != 0L)
          {
-            jjmatchedKind = 70;
+            jjmatchedKind = 76;
             jjmatchedPos = 8;
-            return 11;
+            return 13;
          }
-         if ((active0 & 0x100000000000000L) != 0L)
-            return 11;
          return -1;
       case 9:
          if ((active0 & 0x80000000000000L) != 0L)
          {
-            jjmatchedKind = 70;
+            jjmatchedKind = 76;
             jjmatchedPos = 9;
-            return 11;
+            return 13;
          }
+         if ((active1 & 0x22L) != 0L)
+            return 13;
          return -1;
       default :
          return -1;
@@ -166,16 +169,16 @@ private int jjMoveStringLiteralDfa0_0(){
          return jjMoveStringLiteralDfa1_0(0x8000020020000000L, 0x0L);
       case 66:
       case 98:
-         return jjMoveStringLiteralDfa1_0(0x10200000000000L, 0x0L);
+         return jjMoveStringLiteralDfa1_0(0x10200000000000L, 0x2L);
       case 67:
       case 99:
          return jjMoveStringLiteralDfa1_0(0x40800000000000L, 0x0L);
       case 68:
       case 100:
-         return jjMoveStringLiteralDfa1_0(0x1000040000000L, 0x0L);
+         return jjMoveStringLiteralDfa1_0(0x1000040000000L, 0x20L);
       case 69:
       case 101:
-         return jjMoveStringLiteralDfa1_0(0x1020000000000000L, 0x0L);
+         return jjMoveStringLiteralDfa1_0(0x1020000000000000L, 0x10L);
       case 70:
       case 102:
          return jjMoveStringLiteralDfa1_0(0x1000800000L, 0x0L);
@@ -196,10 +199,10 @@ private int jjMoveStringLiteralDfa0_0(){
          return jjMoveStringLiteralDfa1_0(0x80000000000L, 0x0L);
       case 79:
       case 111:
-         return jjMoveStringLiteralDfa1_0(0x48000000000L, 0x1L);
+         return jjMoveStringLiteralDfa1_0(0x48000000000L, 0x4L);
       case 80:
       case 112:
-         return jjMoveStringLiteralDfa1_0(0x4000000000000000L, 0x0L);
+         return jjMoveStringLiteralDfa1_0(0x4000000000000000L, 0x8L);
       case 81:
       case 113:
          return jjMoveStringLiteralDfa1_0(0x2000000000000000L, 0x0L);
@@ -208,7 +211,7 @@ private int jjMoveStringLiteralDfa0_0(){
          return jjMoveStringLiteralDfa1_0(0xa00000000000000L, 0x0L);
       case 83:
       case 115:
-         return jjMoveStringLiteralDfa1_0(0x100000c00000000L, 0x0L);
+         return jjMoveStringLiteralDfa1_0(0x100000c00000000L, 0x1L);
       case 84:
       case 116:
          return jjMoveStringLiteralDfa1_0(0x482000001000000L, 0x0L);
@@ -255,10 +258,10 @@ private int jjMoveStringLiteralDfa1_0(long active0, long active1){
          break;
       case 65:
       case 97:
-         return jjMoveStringLiteralDfa2_0(active0, 0x106000000800000L, active1, 0L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x106000000800000L, active1, 0x3L);
       case 69:
       case 101:
-         return jjMoveStringLiteralDfa2_0(active0, 0x810000c40000000L, active1, 0L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x810000c40000000L, active1, 0x20L);
       case 72:
       case 104:
          return jjMoveStringLiteralDfa2_0(active0, 0x10000000000L, active1, 0L);
@@ -271,12 +274,12 @@ private int jjMoveStringLiteralDfa1_0(long active0, long active1){
       case 78:
       case 110:
          if ((active0 & 0x8000000000L) != 0L)
-            return jjStartNfaWithStates_0(1, 39, 11);
+            return jjStartNfaWithStates_0(1, 39, 13);
          return jjMoveStringLiteralDfa2_0(active0, 0x8028022180000000L, active1, 0L);
       case 79:
       case 111:
          if ((active0 & 0x400000000000000L) != 0L)
-            return jjStartNfaWithStates_0(1, 58, 11);
+            return jjStartNfaWithStates_0(1, 58, 13);
          return jjMoveStringLiteralDfa2_0(active0, 0x240084000000000L, active1, 0L);
       case 80:
       case 112:
@@ -288,22 +291,22 @@ private int jjMoveStringLiteralDfa1_0(long active0, long active1){
             jjmatchedKind = 42;
             jjmatchedPos = 1;
          }
-         return jjMoveStringLiteralDfa2_0(active0, 0x81901001000000L, active1, 0x1L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x81901001000000L, active1, 0xcL);
       case 83:
       case 115:
          if ((active0 & 0x20000000L) != 0L)
-            return jjStartNfaWithStates_0(1, 29, 11);
+            return jjStartNfaWithStates_0(1, 29, 13);
          break;
       case 85:
       case 117:
          return jjMoveStringLiteralDfa2_0(active0, 0x2000000000000000L, active1, 0L);
       case 88:
       case 120:
-         return jjMoveStringLiteralDfa2_0(active0, 0x1000000000000000L, active1, 0L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x1000000000000000L, active1, 0x10L);
       case 89:
       case 121:
          if ((active0 & 0x200000000000L) != 0L)
-            return jjStartNfaWithStates_0(1, 45, 11);
+            return jjStartNfaWithStates_0(1, 45, 13);
          break;
       case 124:
          if ((active0 & 0x8000000L) != 0L)
@@ -326,20 +329,23 @@ private int jjMoveStringLiteralDfa2_0(long old0, long active0, long old1, long a
    {
       case 65:
       case 97:
-         return jjMoveStringLiteralDfa3_0(active0, 0xc080000000000000L, active1, 0L);
+         return jjMoveStringLiteralDfa3_0(active0, 0xc080000000000000L, active1, 0x20L);
       case 66:
       case 98:
          return jjMoveStringLiteralDfa3_0(active0, 0x2000000000000L, active1, 0L);
+      case 67:
+      case 99:
+         return jjMoveStringLiteralDfa3_0(active0, 0L, active1, 0x2L);
       case 68:
       case 100:
          if ((active0 & 0x20000000000L) != 0L)
-            return jjStartNfaWithStates_0(2, 41, 11);
+            return jjStartNfaWithStates_0(2, 41, 13);
          else if ((active0 & 0x20000000000000L) != 0L)
-            return jjStartNfaWithStates_0(2, 53, 11);
-         return jjMoveStringLiteralDfa3_0(active0, 0x8000200000000L, active1, 0x1L);
+            return jjStartNfaWithStates_0(2, 53, 13);
+         return jjMoveStringLiteralDfa3_0(active0, 0x8000200000000L, active1, 0x4L);
       case 69:
       case 101:
-         return jjMoveStringLiteralDfa3_0(active0, 0x2000810000000000L, active1, 0L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x2000810000000000L, active1, 0x18L);
       case 71:
       case 103:
          return jjMoveStringLiteralDfa3_0(active0, 0x10000000000000L, active1, 0L);
@@ -351,7 +357,7 @@ private int jjMoveStringLiteralDfa2_0(long old0, long active0, long old1, long a
          return jjMoveStringLiteralDfa3_0(active0, 0xa04000840800000L, active1, 0L);
       case 77:
       case 109:
-         return jjMoveStringLiteralDfa3_0(active0, 0x40400000000000L, active1, 0L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x40400000000000L, active1, 0x1L);
       case 78:
       case 110:
          return jjMoveStringLiteralDfa3_0(active0, 0x2000000000L, active1, 0L);
@@ -367,9 +373,9 @@ private int jjMoveStringLiteralDfa2_0(long old0, long active0, long old1, long a
       case 84:
       case 116:
          if ((active0 & 0x400000000L) != 0L)
-            return jjStartNfaWithStates_0(2, 34, 11);
+            return jjStartNfaWithStates_0(2, 34, 13);
          else if ((active0 & 0x80000000000L) != 0L)
-            return jjStartNfaWithStates_0(2, 43, 11);
+            return jjStartNfaWithStates_0(2, 43, 13);
          return jjMoveStringLiteralDfa3_0(active0, 0x110000000L, active1, 0L);
       case 85:
       case 117:
@@ -395,44 +401,50 @@ private int jjMoveStringLiteralDfa3_0(long old0, long active0, long old1, long a
       case 65:
       case 97:
          return jjMoveStringLiteralDfa4_0(active0, 0x800200000000L, active1, 0L);
+      case 67:
+      case 99:
+         return jjMoveStringLiteralDfa4_0(active0, 0L, active1, 0x10L);
       case 69:
       case 101:
          if ((active0 & 0x1000000L) != 0L)
-            return jjStartNfaWithStates_0(3, 24, 11);
-         return jjMoveStringLiteralDfa4_0(active0, 0x9080028c0000000L, active1, 0x1L);
+            return jjStartNfaWithStates_0(3, 24, 13);
+         return jjMoveStringLiteralDfa4_0(active0, 0x9080028c0000000L, active1, 0x4L);
       case 72:
       case 104:
          if ((active0 & 0x10000000L) != 0L)
-            return jjStartNfaWithStates_0(3, 28, 11);
+            return jjStartNfaWithStates_0(3, 28, 13);
          break;
       case 73:
       case 105:
          return jjMoveStringLiteralDfa4_0(active0, 0x10400000000000L, active1, 0L);
+      case 75:
+      case 107:
+         return jjMoveStringLiteralDfa4_0(active0, 0L, active1, 0x2L);
       case 76:
       case 108:
-         return jjMoveStringLiteralDfa4_0(active0, 0x9202000000000000L, active1, 0L);
+         return jjMoveStringLiteralDfa4_0(active0, 0x9202000000000000L, active1, 0x20L);
       case 77:
       case 109:
          if ((active0 & 0x1000000000L) != 0L)
-            return jjStartNfaWithStates_0(3, 36, 11);
+            return jjStartNfaWithStates_0(3, 36, 13);
          return jjMoveStringLiteralDfa4_0(active0, 0x40000000000000L, active1, 0L);
       case 78:
       case 110:
          if ((active0 & 0x4000000000L) != 0L)
-            return jjStartNfaWithStates_0(3, 38, 11);
+            return jjStartNfaWithStates_0(3, 38, 13);
          else if ((active0 & 0x4000000000000000L) != 0L)
-            return jjStartNfaWithStates_0(3, 62, 11);
+            return jjStartNfaWithStates_0(3, 62, 13);
          return jjMoveStringLiteralDfa4_0(active0, 0x80000000000000L, active1, 0L);
       case 79:
       case 111:
          if ((active0 & 0x100000000L) != 0L)
-            return jjStartNfaWithStates_0(3, 32, 11);
+            return jjStartNfaWithStates_0(3, 32, 13);
          break;
       case 80:
       case 112:
          if ((active0 & 0x1000000000000L) != 0L)
-            return jjStartNfaWithStates_0(3, 48, 11);
-         break;
+            return jjStartNfaWithStates_0(3, 48, 13);
+         return jjMoveStringLiteralDfa4_0(active0, 0L, active1, 0x9L);
       case 82:
       case 114:
          return jjMoveStringLiteralDfa4_0(active0, 0x2000010000000000L, active1, 0L);
@@ -459,7 +471,7 @@ private int jjMoveStringLiteralDfa4_0(long old0, long active0, long old1, long a
    {
       case 65:
       case 97:
-         return jjMoveStringLiteralDfa5_0(active0, 0x1800000000000000L, active1, 0L);
+         return jjMoveStringLiteralDfa5_0(active0, 0x1800000000000000L, active1, 0x8L);
       case 66:
       case 98:
          return jjMoveStringLiteralDfa5_0(active0, 0x200000000000000L, active1, 0L);
@@ -469,31 +481,37 @@ private int jjMoveStringLiteralDfa4_0(long old0, long active0, long old1, long a
       case 69:
       case 101:
          if ((active0 & 0x800000L) != 0L)
-            return jjStartNfaWithStates_0(4, 23, 11);
+            return jjStartNfaWithStates_0(4, 23, 13);
          else if ((active0 & 0x10000000000L) != 0L)
-            return jjStartNfaWithStates_0(4, 40, 11);
+            return jjStartNfaWithStates_0(4, 40, 13);
          else if ((active0 & 0x2000000000000L) != 0L)
-            return jjStartNfaWithStates_0(4, 49, 11);
+            return jjStartNfaWithStates_0(4, 49, 13);
          return jjMoveStringLiteralDfa5_0(active0, 0x4000000000000L, active1, 0L);
+      case 71:
+      case 103:
+         return jjMoveStringLiteralDfa5_0(active0, 0L, active1, 0x2L);
       case 73:
       case 105:
          return jjMoveStringLiteralDfa5_0(active0, 0x40000000000000L, active1, 0L);
+      case 76:
+      case 108:
+         return jjMoveStringLiteralDfa5_0(active0, 0L, active1, 0x21L);
       case 78:
       case 110:
          if ((active0 & 0x10000000000000L) != 0L)
-            return jjStartNfaWithStates_0(4, 52, 11);
+            return jjStartNfaWithStates_0(4, 52, 13);
          break;
       case 80:
       case 112:
          if ((active0 & 0x100000000000L) != 0L)
-            return jjStartNfaWithStates_0(4, 44, 11);
+            return jjStartNfaWithStates_0(4, 44, 13);
          return jjMoveStringLiteralDfa5_0(active0, 0x100000000000000L, active1, 0L);
       case 82:
       case 114:
          if ((active0 & 0x2000000000L) != 0L)
-            return jjStartNfaWithStates_0(4, 37, 11);
-         else if ((active1 & 0x1L) != 0L)
-            return jjStartNfaWithStates_0(4, 64, 11);
+            return jjStartNfaWithStates_0(4, 37, 13);
+         else if ((active1 & 0x4L) != 0L)
+            return jjStartNfaWithStates_0(4, 66, 13);
          return jjMoveStringLiteralDfa5_0(active0, 0x80000000L, active1, 0L);
       case 83:
       case 115:
@@ -501,17 +519,20 @@ private int jjMoveStringLiteralDfa4_0(long old0, long active0, long old1, long a
       case 84:
       case 116:
          if ((active0 & 0x400000000000L) != 0L)
-            return jjStartNfaWithStates_0(4, 46, 11);
+            return jjStartNfaWithStates_0(4, 46, 13);
          return jjMoveStringLiteralDfa5_0(active0, 0x800240000000L, active1, 0L);
+      case 85:
+      case 117:
+         return jjMoveStringLiteralDfa5_0(active0, 0L, active1, 0x10L);
       case 88:
       case 120:
          if ((active0 & 0x8000000000000L) != 0L)
-            return jjStartNfaWithStates_0(4, 51, 11);
+            return jjStartNfaWithStates_0(4, 51, 13);
          break;
       case 89:
       case 121:
          if ((active0 & 0x2000000000000000L) != 0L)
-            return jjStartNfaWithStates_0(4, 61, 11);
+            return jjStartNfaWithStates_0(4, 61, 13);
          return jjMoveStringLiteralDfa5_0(active0, 0x8000000000000000L, active1, 0L);
       default :
          break;
@@ -523,154 +544,185 @@ private int jjMoveStringLiteralDfa5_0(long old0, long active0, long old1, long a
       return jjStartNfa_0(3, old0, old1);
    try { curChar = input_stream.readChar(); }
    catch(java.io.IOException e) {
-      jjStopStringLiteralDfa_0(4, active0, 0L);
+      jjStopStringLiteralDfa_0(4, active0, active1);
       return 5;
    }
    switch(curChar)
    {
       case 65:
       case 97:
-         return jjMoveStringLiteralDfa6_0(active0, 0x280000000000000L);
+         return jjMoveStringLiteralDfa6_0(active0, 0x280000000000000L, active1, 0L);
       case 69:
       case 101:
          if ((active0 & 0x40000000L) != 0L)
-            return jjStartNfaWithStates_0(5, 30, 11);
+            return jjStartNfaWithStates_0(5, 30, 13);
          else if ((active0 & 0x200000000L) != 0L)
-            return jjStartNfaWithStates_0(5, 33, 11);
+            return jjStartNfaWithStates_0(5, 33, 13);
          else if ((active0 & 0x800000000000L) != 0L)
-            return jjStartNfaWithStates_0(5, 47, 11);
+            return jjStartNfaWithStates_0(5, 47, 13);
+         else if ((active1 & 0x1L) != 0L)
+            return jjStartNfaWithStates_0(5, 64, 13);
          break;
       case 73:
       case 105:
-         return jjMoveStringLiteralDfa6_0(active0, 0x1000000000000000L);
+         return jjMoveStringLiteralDfa6_0(active0, 0x1000000000000000L, active1, 0L);
       case 79:
       case 111:
-         return jjMoveStringLiteralDfa6_0(active0, 0x100000000000000L);
+         return jjMoveStringLiteralDfa6_0(active0, 0x100000000000000L, active1, 0x20L);
+      case 82:
+      case 114:
+         return jjMoveStringLiteralDfa6_0(active0, 0L, active1, 0xaL);
       case 83:
       case 115:
          if ((active0 & 0x4000000000000L) != 0L)
-            return jjStartNfaWithStates_0(5, 50, 11);
-         return jjMoveStringLiteralDfa6_0(active0, 0x800000000000000L);
+            return jjStartNfaWithStates_0(5, 50, 13);
+         return jjMoveStringLiteralDfa6_0(active0, 0x800000000000000L, active1, 0L);
       case 84:
       case 116:
          if ((active0 & 0x80000000L) != 0L)
-            return jjStartNfaWithStates_0(5, 31, 11);
+            return jjStartNfaWithStates_0(5, 31, 13);
          else if ((active0 & 0x800000000L) != 0L)
-            return jjStartNfaWithStates_0(5, 35, 11);
+            return jjStartNfaWithStates_0(5, 35, 13);
          else if ((active0 & 0x40000000000000L) != 0L)
-            return jjStartNfaWithStates_0(5, 54, 11);
-         break;
+            return jjStartNfaWithStates_0(5, 54, 13);
+         return jjMoveStringLiteralDfa6_0(active0, 0L, active1, 0x10L);
       case 90:
       case 122:
-         return jjMoveStringLiteralDfa6_0(active0, 0x8000000000000000L);
+         return jjMoveStringLiteralDfa6_0(active0, 0x8000000000000000L, active1, 0L);
       default :
          break;
    }
-   return jjStartNfa_0(4, active0, 0L);
+   return jjStartNfa_0(4, active0, active1);
 }
-private int jjMoveStringLiteralDfa6_0(long old0, long active0){
-   if (((active0 &= old0)) == 0L)
-      return jjStartNfa_0(4, old0, 0L);
+private int jjMoveStringLiteralDfa6_0(long old0, long active0, long old1, long active1){
+   if (((active0 &= old0) | (active1 &= old1)) == 0L)
+      return jjStartNfa_0(4, old0, old1);
    try { curChar = input_stream.readChar(); }
    catch(java.io.IOException e) {
-      jjStopStringLiteralDfa_0(5, active0, 0L);
+      jjStopStringLiteralDfa_0(5, active0, active1);
       return 6;
    }
    switch(curChar)
    {
       case 67:
       case 99:
-         return jjMoveStringLiteralDfa7_0(active0, 0x280000000000000L);
+         return jjMoveStringLiteralDfa7_0(active0, 0x280000000000000L, active1, 0x20L);
       case 69:
       case 101:
          if ((active0 & 0x800000000000000L) != 0L)
-            return jjStartNfaWithStates_0(6, 59, 11);
+            return jjStartNfaWithStates_0(6, 59, 13);
          else if ((active0 & 0x8000000000000000L) != 0L)
-            return jjStartNfaWithStates_0(6, 63, 11);
+            return jjStartNfaWithStates_0(6, 63, 13);
+         else if ((active1 & 0x8L) != 0L)
+            return jjStartNfaWithStates_0(6, 67, 13);
+         else if ((active1 & 0x10L) != 0L)
+            return jjStartNfaWithStates_0(6, 68, 13);
          break;
       case 73:
       case 105:
-         return jjMoveStringLiteralDfa7_0(active0, 0x100000000000000L);
+         return jjMoveStringLiteralDfa7_0(active0, 0x100000000000000L, active1, 0L);
       case 78:
       case 110:
          if ((active0 & 0x1000000000000000L) != 0L)
-            return jjStartNfaWithStates_0(6, 60, 11);
+            return jjStartNfaWithStates_0(6, 60, 13);
          break;
+      case 79:
+      case 111:
+         return jjMoveStringLiteralDfa7_0(active0, 0L, active1, 0x2L);
       default :
          break;
    }
-   return jjStartNfa_0(5, active0, 0L);
+   return jjStartNfa_0(5, active0, active1);
 }
-private int jjMoveStringLiteralDfa7_0(long old0, long active0){
-   if (((active0 &= old0)) == 0L)
-      return jjStartNfa_0(5, old0, 0L);
+private int jjMoveStringLiteralDfa7_0(long old0, long active0, long old1, long active1){
+   if (((active0 &= old0) | (active1 &= old1)) == 0L)
+      return jjStartNfa_0(5, old0, old1);
    try { curChar = input_stream.readChar(); }
    catch(java.io.IOException e) {
-      jjStopStringLiteralDfa_0(6, active0, 0L);
+      jjStopStringLiteralDfa_0(6, active0, active1);
       return 7;
    }
    switch(curChar)
    {
+      case 65:
+      case 97:
+         return jjMoveStringLiteralDfa8_0(active0, 0L, active1, 0x20L);
       case 75:
       case 107:
          if ((active0 & 0x200000000000000L) != 0L)
-            return jjStartNfaWithStates_0(7, 57, 11);
+            return jjStartNfaWithStates_0(7, 57, 13);
          break;
       case 78:
       case 110:
-         return jjMoveStringLiteralDfa8_0(active0, 0x100000000000000L);
+         return jjMoveStringLiteralDfa8_0(active0, 0x100000000000000L, active1, 0L);
       case 84:
       case 116:
-         return jjMoveStringLiteralDfa8_0(active0, 0x80000000000000L);
+         return jjMoveStringLiteralDfa8_0(active0, 0x80000000000000L, active1, 0L);
+      case 85:
+      case 117:
+         return jjMoveStringLiteralDfa8_0(active0, 0L, active1, 0x2L);
       default :
          break;
    }
-   return jjStartNfa_0(6, active0, 0L);
+   return jjStartNfa_0(6, active0, active1);
 }
-private int jjMoveStringLiteralDfa8_0(long old0, long active0){
-   if (((active0 &= old0)) == 0L)
-      return jjStartNfa_0(6, old0, 0L);
+private int jjMoveStringLiteralDfa8_0(long old0, long active0, long old1, long active1){
+   if (((active0 &= old0) | (active1 &= old1)) == 0L)
+      return jjStartNfa_0(6, old0, old1);
    try { curChar = input_stream.readChar(); }
    catch(java.io.IOException e) {
-      jjStopStringLiteralDfa_0(7, active0, 0L);
+      jjStopStringLiteralDfa_0(7, active0, active1);
       return 8;
    }
    switch(curChar)
    {
       case 73:
       case 105:
-         return jjMoveStringLiteralDfa9_0(active0, 0x80000000000000L);
+         return jjMoveStringLiteralDfa9_0(active0, 0x80000000000000L, active1, 0L);
+      case 78:
+      case 110:
+         return jjMoveStringLiteralDfa9_0(active0, 0L, active1, 0x2L);
       case 84:
       case 116:
          if ((active0 & 0x100000000000000L) != 0L)
-            return jjStartNfaWithStates_0(8, 56, 11);
-         break;
+            return jjStartNfaWithStates_0(8, 56, 13);
+         return jjMoveStringLiteralDfa9_0(active0, 0L, active1, 0x20L);
       default :
          break;
    }
-   return jjStartNfa_0(7, active0, 0L);
+   return jjStartNfa_0(7, active0, active1);
 }
-private int jjMoveStringLiteralDfa9_0(long old0, long active0){
-   if (((active0 &= old0)) == 0L)
-      return jjStartNfa_0(7, old0, 0L);
+private int jjMoveStringLiteralDfa9_0(long old0, long active0, long old1, long active1){
+   if (((active0 &= old0) | (active1 &= old1)) == 0L)
+      return jjStartNfa_0(7, old0, old1);
    try { curChar = input_stream.readChar(); }
    catch(java.io.IOException e) {
-      jjStopStringLiteralDfa_0(8, active0, 0L);
+      jjStopStringLiteralDfa_0(8, active0, active1);
       return 9;
    }
    switch(curChar)
    {
+      case 68:
+      case 100:
+         if ((active1 & 0x2L) != 0L)
+            return jjStartNfaWithStates_0(9, 65, 13);
+         break;
+      case 69:
+      case 101:
+         if ((active1 & 0x20L) != 0L)
+            return jjStartNfaWithStates_0(9, 69, 13);
+         break;
       case 79:
       case 111:
-         return jjMoveStringLiteralDfa10_0(active0, 0x80000000000000L);
+         return jjMoveStringLiteralDfa10_0(active0, 0x80000000000000L, active1, 0L);
       default :
          break;
    }
-   return jjStartNfa_0(8, active0, 0L);
+   return jjStartNfa_0(8, active0, active1);
 }
-private int jjMoveStringLiteralDfa10_0(long old0, long active0){
-   if (((active0 &= old0)) == 0L)
-      return jjStartNfa_0(8, old0, 0L);
+private int jjMoveStringLiteralDfa10_0(long old0, long active0, long old1, long active1){
+   if (((active0 &= old0) | (active1 &= old1)) == 0L)
+      return jjStartNfa_0(8, old0, old1);
    try { curChar = input_stream.readChar(); }
    catch(java.io.IOException e) {
       jjStopStringLiteralDfa_0(9, active0, 0L);
@@ -681,7 +733,7 @@ private int jjMoveStringLiteralDfa10_0(long old0, long active0){
       case 78:
       case 110:
          if ((active0 & 0x80000000000000L) != 0L)
-            return jjStartNfaWithStates_0(10, 55, 11);
+            return jjStartNfaWithStates_0(10, 55, 13);
          break;
       default :
          break;
@@ -702,7 +754,7 @@ static final long[] jjbitVec0 = {
 private int jjMoveNfa_0(int startState, int curPos)
 {
    int startsAt = 0;
-   jjnewStateCnt = 33;
+   jjnewStateCnt = 35;
    int i = 1;
    jjstateSet[0] = startState;
    int kind = 0x7fffffff;
@@ -720,12 +772,14 @@ private int jjMoveNfa_0(int startState, int curPos)
                case 0:
                   if ((0x3ff000000000000L & l) != 0L)
                   {
-                     if (kind > 65)
-                        kind = 65;
+                     if (kind > 70)
+                        kind = 70;
                      { jjCheckNAddStates(0, 3); }
                   }
                   else if (curChar == 34)
-                     { jjCheckNAddTwoStates(13, 15); }
+                     { jjCheckNAddTwoStates(15, 17); }
+                  else if (curChar == 36)
+                     { jjCheckNAdd(11); }
                   else if (curChar == 39)
                      { jjCheckNAddStates(4, 6); }
                   else if (curChar == 46)
@@ -734,8 +788,8 @@ private int jjMoveNfa_0(int startState, int curPos)
                case 1:
                   if ((0x3ff000000000000L & l) == 0L)
                      break;
-                  if (kind > 65)
-                     kind = 65;
+                  if (kind > 70)
+                     kind = 70;
                   { jjCheckNAddTwoStates(1, 2); }
                   break;
                case 3:
@@ -745,8 +799,8 @@ private int jjMoveNfa_0(int startState, int curPos)
                case 4:
                   if ((0x3ff000000000000L & l) == 0L)
                      break;
-                  if (kind > 65)
-                     kind = 65;
+                  if (kind > 70)
+                     kind = 70;
                   { jjCheckNAdd(4); }
                   break;
                case 5:
@@ -763,89 +817,100 @@ private int jjMoveNfa_0(int startState, int curPos)
                      jjstateSet[jjnewStateCnt++] = 7;
                   break;
                case 9:
-                  if (curChar == 39 && kind > 69)
-                     kind = 69;
+                  if (curChar == 39 && kind > 74)
+                     kind = 74;
+                  break;
+               case 10:
+                  if (curChar == 36)
+                     { jjCheckNAdd(11); }
                   break;
                case 11:
                   if ((0x3ff000000000000L & l) == 0L)
                      break;
-                  if (kind > 70)
-                     kind = 70;
-                  jjstateSet[jjnewStateCnt++] = 11;
+                  if (kind > 75)
+                     kind = 75;
+                  { jjCheckNAdd(11); }
                   break;
-               case 12:
+               case 13:
+                  if ((0x3ff000000000000L & l) == 0L)
+                     break;
+                  if (kind > 76)
+                     kind = 76;
+                  jjstateSet[jjnewStateCnt++] = 13;
+                  break;
+               case 14:
                   if (curChar == 34)
-                     { jjCheckNAddTwoStates(13, 15); }
+                     { jjCheckNAddTwoStates(15, 17); }
                   break;
-               case 13:
+               case 15:
                   if ((0xfffffffbffffdbffL & l) != 0L)
                      { jjCheckNAddStates(7, 9); }
                   break;
-               case 14:
+               case 16:
                   if (curChar == 34)
                      { jjCheckNAddStates(7, 9); }
                   break;
-               case 15:
+               case 17:
                   if (curChar == 34)
-                     jjstateSet[jjnewStateCnt++] = 14;
-                  break;
-               case 16:
-                  if (curChar == 34 && kind > 70)
-                     kind = 70;
+                     jjstateSet[jjnewStateCnt++] = 16;
                   break;
                case 18:
+                  if (curChar == 34 && kind > 76)
+                     kind = 76;
+                  break;
+               case 20:
                   if ((0xffffffffffffdbffL & l) != 0L)
                      { jjAddStates(10, 12); }
                   break;
-               case 23:
+               case 25:
                   if ((0xffffffffffffdbffL & l) != 0L)
                      { jjAddStates(13, 14); }
                   break;
-               case 25:
+               case 27:
                   if ((0x3ff000000000000L & l) == 0L)
                      break;
-                  if (kind > 65)
-                     kind = 65;
+                  if (kind > 70)
+                     kind = 70;
                   { jjCheckNAddStates(0, 3); }
                   break;
-               case 26:
+               case 28:
                   if ((0x3ff000000000000L & l) == 0L)
                      break;
-                  if (kind > 65)
-                     kind = 65;
+                  if (kind > 70)
+                     kind = 70;
                   { jjCheckNAddStates(15, 17); }
                   break;
-               case 27:
+               case 29:
                   if (curChar != 46)
                      break;
-                  if (kind > 65)
-                     kind = 65;
-                  { jjCheckNAddTwoStates(28, 29); }
+                  if (kind > 70)
+                     kind = 70;
+                  { jjCheckNAddTwoStates(30, 31); }
                   break;
-               case 28:
+               case 30:
                   if ((0x3ff000000000000L & l) == 0L)
                      break;
-                  if (kind > 65)
-                     kind = 65;
-                  { jjCheckNAddTwoStates(28, 29); }
+                  if (kind > 70)
+                     kind = 70;
+                  { jjCheckNAddTwoStates(30, 31); }
                   break;
-               case 30:
+               case 32:
                   if ((0x280000000000L & l) != 0L)
-                     { jjCheckNAdd(31); }
+                     { jjCheckNAdd(33); }
                   break;
-               case 31:
+               case 33:
                   if ((0x3ff000000000000L & l) == 0L)
                      break;
-                  if (kind > 65)
-                     kind = 65;
-                  { jjCheckNAdd(31); }
+                  if (kind > 70)
+                     kind = 70;
+                  { jjCheckNAdd(33); }
                   break;
-               case 32:
+               case 34:
                   if ((0x3ff000000000000L & l) == 0L)
                      break;
-                  if (kind > 66)
-                     kind = 66;
-                  { jjCheckNAdd(32); }
+                  if (kind > 71)
+                     kind = 71;
+                  { jjCheckNAdd(34); }
                   break;
                default : break;
             }
@@ -861,14 +926,14 @@ private int jjMoveNfa_0(int startState, int curPos)
                case 0:
                   if ((0x7fffffe87fffffeL & l) != 0L)
                   {
-                     if (kind > 70)
-                        kind = 70;
-                     { jjCheckNAdd(11); }
+                     if (kind > 76)
+                        kind = 76;
+                     { jjCheckNAdd(13); }
                   }
                   else if (curChar == 91)
-                     { jjCheckNAdd(23); }
+                     { jjCheckNAdd(25); }
                   else if (curChar == 96)
-                     { jjCheckNAddTwoStates(18, 20); }
+                     { jjCheckNAddTwoStates(20, 22); }
                   break;
                case 2:
                   if ((0x2000000020L & l) != 0L)
@@ -877,50 +942,50 @@ private int jjMoveNfa_0(int startState, int curPos)
                case 6:
                   { jjAddStates(4, 6); }
                   break;
-               case 10:
-               case 11:
+               case 12:
+               case 13:
                   if ((0x7fffffe87fffffeL & l) == 0L)
                      break;
-                  if (kind > 70)
-                     kind = 70;
-                  { jjCheckNAdd(11); }
+                  if (kind > 76)
+                     kind = 76;
+                  { jjCheckNAdd(13); }
                   break;
-               case 13:
+               case 15:
                   { jjAddStates(7, 9); }
                   break;
-               case 17:
+               case 19:
                   if (curChar == 96)
-                     { jjCheckNAddTwoStates(18, 20); }
+                     { jjCheckNAddTwoStates(20, 22); }
                   break;
-               case 18:
+               case 20:
                   if ((0xfffffffeffffffffL & l) != 0L)
                      { jjCheckNAddStates(10, 12); }
                   break;
-               case 19:
+               case 21:
                   if (curChar == 96)
                      { jjCheckNAddStates(10, 12); }
                   break;
-               case 20:
+               case 22:
                   if (curChar == 96)
-                     jjstateSet[jjnewStateCnt++] = 19;
+                     jjstateSet[jjnewStateCnt++] = 21;
                   break;
-               case 21:
-                  if (curChar == 96 && kind > 70)
-                     kind = 70;
+               case 23:
+                  if (curChar == 96 && kind > 76)
+                     kind = 76;
                   break;
-               case 22:
+               case 24:
                   if (curChar == 91)
-                     { jjCheckNAdd(23); }
+                     { jjCheckNAdd(25); }
                   break;
-               case 23:
+               case 25:
                   if ((0xffffffffdfffffffL & l) != 0L)
-                     { jjCheckNAddTwoStates(23, 24); }
+                     { jjCheckNAddTwoStates(25, 26); }
                   break;
-               case 24:
-                  if (curChar == 93 && kind > 70)
-                     kind = 70;
+               case 26:
+                  if (curChar == 93 && kind > 76)
+                     kind = 76;
                   break;
-               case 29:
+               case 31:
                   if ((0x2000000020L & l) != 0L)
                      { jjAddStates(20, 21); }
                   break;
@@ -940,15 +1005,15 @@ private int jjMoveNfa_0(int startState, int curPos)
                   if ((jjbitVec0[i2] & l2) != 0L)
                      { jjAddStates(4, 6); }
                   break;
-               case 13:
+               case 15:
                   if ((jjbitVec0[i2] & l2) != 0L)
                      { jjAddStates(7, 9); }
                   break;
-               case 18:
+               case 20:
                   if ((jjbitVec0[i2] & l2) != 0L)
                      { jjAddStates(10, 12); }
                   break;
-               case 23:
+               case 25:
                   if ((jjbitVec0[i2] & l2) != 0L)
                      { jjAddStates(13, 14); }
                   break;
@@ -963,7 +1028,7 @@ private int jjMoveNfa_0(int startState, int curPos)
          kind = 0x7fffffff;
       }
       ++curPos;
-      if ((i = jjnewStateCnt) == (startsAt = 33 - (jjnewStateCnt = startsAt)))
+      if ((i = jjnewStateCnt) == (startsAt = 35 - (jjnewStateCnt = startsAt)))
          return curPos;
       try { curChar = input_stream.readChar(); }
       catch(java.io.IOException e) { return curPos; }
@@ -977,7 +1042,8 @@ public static final String[] jjstrLiteralImages = {
 "\74\76", null, null, "\41", "\46\46", "\174\174", null, null, null, null, null, null, 
 null, null, null, null, null, null, null, null, null, null, null, null, null, null, 
 null, null, null, null, null, null, null, null, null, null, null, null, null, null, 
-null, null, null, null, null, null, null, null, null, };
+null, null, null, null, null, null, null, null, null, null, null, null, null, null, 
+null, };
 protected Token jjFillToken()
 {
    final Token t;
@@ -992,9 +1058,7 @@ protected Token jjFillToken()
    beginColumn = input_stream.getBeginColumn();
    endLine = input_stream.getEndLine();
    endColumn = input_stream.getEndColumn();
-   t = Token.newToken(jjmatchedKind);
-   t.kind = jjmatchedKind;
-   t.image = curTokenImage;
+   t = Token.newToken(jjmatchedKind, curTokenImage);
 
    t.beginLine = beginLine;
    t.endLine = endLine;
@@ -1004,8 +1068,8 @@ protected Token jjFillToken()
    return t;
 }
 static final int[] jjnextStates = {
-   26, 27, 29, 32, 6, 8, 9, 13, 15, 16, 18, 20, 21, 23, 24, 26, 
-   27, 29, 3, 4, 30, 31, 
+   28, 29, 31, 34, 6, 8, 9, 15, 17, 18, 20, 22, 23, 25, 26, 28, 
+   29, 31, 3, 4, 32, 33, 
 };
 
 int curLexState = 0;
@@ -1135,6 +1199,7 @@ private void jjCheckNAddStates(int start, int end)
 
     /** Constructor. */
     public RookieParserTokenManager(SimpleCharStream stream){
+
       if (SimpleCharStream.staticFlag)
             throw new Error("ERROR: Cannot use a static CharStream class with a non-static lexical analyzer.");
 
@@ -1151,6 +1216,8 @@ private void jjCheckNAddStates(int start, int end)
   
   public void ReInit(SimpleCharStream stream)
   {
+
+
     jjmatchedPos =
     jjnewStateCnt =
     0;
@@ -1163,7 +1230,7 @@ private void jjCheckNAddStates(int start, int end)
   {
     int i;
     jjround = 0x80000001;
-    for (i = 33; i-- > 0;)
+    for (i = 35; i-- > 0;)
       jjrounds[i] = 0x80000000;
   }
 
@@ -1184,6 +1251,7 @@ private void jjCheckNAddStates(int start, int end)
       curLexState = lexState;
   }
 
+
 /** Lexer state names. */
 public static final String[] lexStateNames = {
    "DEFAULT",
@@ -1193,10 +1261,11 @@ public static final String[] lexStateNames = {
 public static final int[] jjnewLexState = {
    -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 
    -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 
-   -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 
+   -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 
+   -1, -1, 
 };
 static final long[] jjtoToken = {
-   0xffffffffffffffe1L, 0x67L, 
+   0xffffffffffffffe1L, 0x1cffL, 
 };
 static final long[] jjtoSkip = {
    0x1eL, 0x0L, 
@@ -1209,8 +1278,8 @@ static final long[] jjtoMore = {
 };
     protected SimpleCharStream  input_stream;
 
-    private final int[] jjrounds = new int[33];
-    private final int[] jjstateSet = new int[2 * 33];
+    private final int[] jjrounds = new int[35];
+    private final int[] jjstateSet = new int[2 * 35];
     private final StringBuilder jjimage = new StringBuilder();
     private StringBuilder image = jjimage;
     private int jjimageLen;
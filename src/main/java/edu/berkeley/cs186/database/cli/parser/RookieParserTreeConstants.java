@@ -7,57 +7,67 @@ public interface RookieParserTreeConstants
   public int JJTVOID = 1;
   public int JJTEXECUTABLESTATEMENT = 2;
   public int JJTEXPLAINSTATEMENT = 3;
-  public int JJTDROPTABLESTATEMENT = 4;
-  public int JJTDROPINDEXSTATEMENT = 5;
-  public int JJTRELEASESTATEMENT = 6;
-  public int JJTSAVEPOINTSTATEMENT = 7;
-  public int JJTROLLBACKSTATEMENT = 8;
-  public int JJTBEGINSTATEMENT = 9;
-  public int JJTCOMMITSTATEMENT = 10;
-  public int JJTINSERTSTATEMENT = 11;
-  public int JJTINSERTVALUES = 12;
-  public int JJTUPDATESTATEMENT = 13;
-  public int JJTSELECTSTATEMENT = 14;
-  public int JJTCOMMONTABLEEXPRESSION = 15;
-  public int JJTDELETESTATEMENT = 16;
-  public int JJTCREATETABLESTATEMENT = 17;
-  public int JJTCREATEINDEXSTATEMENT = 18;
-  public int JJTCOLUMNDEF = 19;
-  public int JJTSELECTCLAUSE = 20;
-  public int JJTLIMITCLAUSE = 21;
-  public int JJTFROMCLAUSE = 22;
-  public int JJTORDERCLAUSE = 23;
-  public int JJTJOINEDTABLE = 24;
-  public int JJTSELECTCOLUMN = 25;
-  public int JJTRESULTCOLUMNNAME = 26;
-  public int JJTCOLUMNNAME = 27;
-  public int JJTIDENTIFIER = 28;
-  public int JJTALIASEDTABLENAME = 29;
-  public int JJTCOLUMNVALUECOMPARISON = 30;
-  public int JJTNUMERICLITERAL = 31;
-  public int JJTINTEGERLITERAL = 32;
-  public int JJTLITERAL = 33;
-  public int JJTCOMPARISONOPERATOR = 34;
-  public int JJTOROPERATOR = 35;
-  public int JJTANDOPERATOR = 36;
-  public int JJTNOTOPERATOR = 37;
-  public int JJTMULTIPLICATIVEOPERATOR = 38;
-  public int JJTADDITIVEOPERATOR = 39;
-  public int JJTEXPRESSION = 40;
-  public int JJTOREXPRESSION = 41;
-  public int JJTANDEXPRESSION = 42;
-  public int JJTNOTEXPRESSION = 43;
-  public int JJTCOMPARISONEXPRESSION = 44;
-  public int JJTADDITIVEEXPRESSION = 45;
-  public int JJTMULTIPLICATIVEEXPRESSION = 46;
-  public int JJTFUNCTIONCALLEXPRESSION = 47;
-  public int JJTPRIMARYEXPRESSION = 48;
+  public int JJTANALYZESTATEMENT = 4;
+  public int JJTPREPARESTATEMENT = 5;
+  public int JJTEXECUTESTATEMENT = 6;
+  public int JJTDEALLOCATESTATEMENT = 7;
+  public int JJTDROPTABLESTATEMENT = 8;
+  public int JJTDROPINDEXSTATEMENT = 9;
+  public int JJTRELEASESTATEMENT = 10;
+  public int JJTSAVEPOINTSTATEMENT = 11;
+  public int JJTROLLBACKSTATEMENT = 12;
+  public int JJTBEGINSTATEMENT = 13;
+  public int JJTCOMMITSTATEMENT = 14;
+  public int JJTINSERTSTATEMENT = 15;
+  public int JJTINSERTVALUES = 16;
+  public int JJTUPDATESTATEMENT = 17;
+  public int JJTSELECTSTATEMENT = 18;
+  public int JJTCOMMONTABLEEXPRESSION = 19;
+  public int JJTDELETESTATEMENT = 20;
+  public int JJTCREATETABLESTATEMENT = 21;
+  public int JJTCREATEINDEXSTATEMENT = 22;
+  public int JJTCOLUMNDEF = 23;
+  public int JJTSELECTCLAUSE = 24;
+  public int JJTLIMITCLAUSE = 25;
+  public int JJTFROMCLAUSE = 26;
+  public int JJTORDERCLAUSE = 27;
+  public int JJTJOINEDTABLE = 28;
+  public int JJTSELECTCOLUMN = 29;
+  public int JJTRESULTCOLUMNNAME = 30;
+  public int JJTCOLUMNNAME = 31;
+  public int JJTIDENTIFIER = 32;
+  public int JJTALIASEDTABLENAME = 33;
+  public int JJTCOLUMNVALUECOMPARISON = 34;
+  public int JJTPARAMETER = 35;
+  public int JJTNUMERICLITERAL = 36;
+  public int JJTINTEGERLITERAL = 37;
+  public int JJTLITERAL = 38;
+  public int JJTCOMPARISONOPERATOR = 39;
+  public int JJTOROPERATOR = 40;
+  public int JJTANDOPERATOR = 41;
+  public int JJTNOTOPERATOR = 42;
+  public int JJTMULTIPLICATIVEOPERATOR = 43;
+  public int JJTADDITIVEOPERATOR = 44;
+  public int JJTEXPRESSION = 45;
+  public int JJTOREXPRESSION = 46;
+  public int JJTANDEXPRESSION = 47;
+  public int JJTNOTEXPRESSION = 48;
+  public int JJTCOMPARISONEXPRESSION = 49;
+  public int JJTADDITIVEEXPRESSION = 50;
+  public int JJTMULTIPLICATIVEEXPRESSION = 51;
+  public int JJTFUNCTIONCALLEXPRESSION = 52;
+  public int JJTPRIMARYEXPRESSION = 53;
+
 
   public String[] jjtNodeName = {
     "SQLStatementList",
     "void",
     "ExecutableStatement",
     "ExplainStatement",
+    "AnalyzeStatement",
+    "PrepareStatement",
+    "ExecuteStatement",
+    "DeallocateStatement",
     "DropTableStatement",
     "DropIndexStatement",
     "ReleaseStatement",
@@ -85,6 +95,7 @@ public interface RookieParserTreeConstants
     "Identifier",
     "AliasedTableName",
     "ColumnValueComparison",
+    "Parameter",
     "NumericLiteral",
     "IntegerLiteral",
     "Literal",
@@ -105,4 +116,4 @@ public interface RookieParserTreeConstants
     "PrimaryExpression",
   };
 }
-/* JavaCC - OriginalChecksum=7454a2bc0c1d9ffa919482951677c36d (do not edit this line) */
+/* JavaCC - OriginalChecksum=c8040d8428ab1b6cbfd5753b7dad9527 (do not edit this line) */
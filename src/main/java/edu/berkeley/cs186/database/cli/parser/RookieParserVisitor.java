@@ -7,6 +7,10 @@ public interface RookieParserVisitor
   public void visit(ASTSQLStatementList node, Object data);
   public void visit(ASTExecutableStatement node, Object data);
   public void visit(ASTExplainStatement node, Object data);
+  public void visit(ASTAnalyzeStatement node, Object data);
+  public void visit(ASTPrepareStatement node, Object data);
+  public void visit(ASTExecuteStatement node, Object data);
+  public void visit(ASTDeallocateStatement node, Object data);
   public void visit(ASTDropTableStatement node, Object data);
   public void visit(ASTDropIndexStatement node, Object data);
   public void visit(ASTReleaseStatement node, Object data);
@@ -34,6 +38,7 @@ public interface RookieParserVisitor
   public void visit(ASTIdentifier node, Object data);
   public void visit(ASTAliasedTableName node, Object data);
   public void visit(ASTColumnValueComparison node, Object data);
+  public void visit(ASTParameter node, Object data);
   public void visit(ASTNumericLiteral node, Object data);
   public void visit(ASTIntegerLiteral node, Object data);
   public void visit(ASTLiteral node, Object data);
@@ -53,4 +58,4 @@ public interface RookieParserVisitor
   public void visit(ASTFunctionCallExpression node, Object data);
   public void visit(ASTPrimaryExpression node, Object data);
 }
-/* JavaCC - OriginalChecksum=b2a80acec93a79482d81c9c81b82256e (do not edit this line) */
+/* JavaCC - OriginalChecksum=9e71c34c125173ba0a23359e5583bcba (do not edit this line) */
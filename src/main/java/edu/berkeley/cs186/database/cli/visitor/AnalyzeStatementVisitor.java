@@ -0,0 +1,51 @@
+package edu.berkeley.cs186.database.cli.visitor;
+
+import edu.berkeley.cs186.database.Transaction;
+import edu.berkeley.cs186.database.cli.parser.ASTAnalyzeStatement;
+import edu.berkeley.cs186.database.cli.parser.ASTIdentifier;
+import edu.berkeley.cs186.database.cli.parser.ASTIntegerLiteral;
+
+import java.io.PrintStream;
+
+class AnalyzeStatementVisitor extends StatementVisitor {
+    public String tableName;
+    public int sampleSize = 0;
+    public boolean background = false;
+
+    @Override
+    public void visit(ASTAnalyzeStatement node, Object data) {
+        this.background = node.jjtGetValue() != null;
+        node.childrenAccept(this, data);
+    }
+
+    @Override
+    public void visit(ASTIdentifier node, Object data) {
+        this.tableName = (String) node.jjtGetValue();
+    }
+
+    @Override
+    public void visit(ASTIntegerLiteral node, Object data) {
+        this.sampleSize = (int) node.jjtGetValue();
+    }
+
+    @Override
+    public void execute(Transaction transaction, PrintStream out) {
+        try {
+            if (this.background) {
+                transaction.analyzeInBackground(this.tableName, this.sampleSize);
+                out.println("ANALYZE " + this.tableName + " started in the background;");
+            } else {
+                transaction.analyze(this.tableName, this.sampleSize);
+                out.println("ANALYZE " + this.tableName + ";");
+            }
+        } catch (Exception e) {
+            out.println(e.getMessage());
+            out.println("Failed to execute ANALYZE.");
+        }
+    }
+
+    @Override
+    public StatementType getType() {
+        return StatementType.ANALYZE;
+    }
+}
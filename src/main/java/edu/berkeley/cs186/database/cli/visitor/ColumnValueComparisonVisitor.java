@@ -4,6 +4,7 @@ import edu.berkeley.cs186.database.cli.PrettyPrinter;
 import edu.berkeley.cs186.database.cli.parser.ASTColumnName;
 import edu.berkeley.cs186.database.cli.parser.ASTComparisonOperator;
 import edu.berkeley.cs186.database.cli.parser.ASTLiteral;
+import edu.berkeley.cs186.database.cli.parser.ASTParameter;
 import edu.berkeley.cs186.database.cli.parser.RookieParserDefaultVisitor;
 import edu.berkeley.cs186.database.common.PredicateOperator;
 import edu.berkeley.cs186.database.databox.DataBox;
@@ -12,12 +13,20 @@ class ColumnValueComparisonVisitor extends RookieParserDefaultVisitor {
     PredicateOperator op;
     String columnName;
     DataBox value;
+    // The number of the parameter that's compared against instead of a
+    // literal, e.g. 1 for $1
+    Integer parameter;
 
     @Override
     public void visit(ASTLiteral node, Object data) {
         this.value = PrettyPrinter.parseLiteral((String) node.jjtGetValue());
     }
 
+    @Override
+    public void visit(ASTParameter node, Object data) {
+        this.parameter = (Integer) node.jjtGetValue();
+    }
+
     @Override
     public void visit(ASTColumnName node, Object data) {
         this.columnName = (String) node.jjtGetValue();
@@ -25,9 +25,12 @@ class CommonTableExpressionVisitor extends RookieParserDefaultVisitor {
         this.visitor = new SelectStatementVisitor();
         this.visitor.setContext(new ArrayList<>(outerContext));
         this.child.jjtAccept(this.visitor, null);
-        QueryPlan p = this.visitor.getQueryPlan(transaction).get();
-        p.execute();
-        Schema schema = p.getFinalOperator().getSchema();
+        Schema schema;
+        // Only planned for its schema
+        try (QueryPlan p = this.visitor.getQueryPlan(transaction).get()) {
+            p.execute();
+            schema = p.getFinalOperator().getSchema();
+        }
         if (this.columns.size() != 0) {
             if (schema.size() != this.columns.size()) {
                 throw new UnsupportedOperationException("Number of columns in WITH statement doesn't match number of columns in subquery.");
@@ -44,9 +47,11 @@ class CommonTableExpressionVisitor extends RookieParserDefaultVisitor {
     }
 
     public void populateTable(Transaction transaction) {
-        Iterator<Record> records = this.visitor.getQueryPlan(transaction).get().execute();
-        while (records.hasNext()) {
-            transaction.insert(this.alias, records.next());
+        try (QueryPlan p = this.visitor.getQueryPlan(transaction).get()) {
+            Iterator<Record> records = p.execute();
+            while (records.hasNext()) {
+                transaction.insert(this.alias, records.next());
+            }
         }
     }
 
@@ -6,7 +6,6 @@ import edu.berkeley.cs186.database.cli.parser.ASTIdentifier;
 import edu.berkeley.cs186.database.cli.parser.ASTSelectStatement;
 import edu.berkeley.cs186.database.cli.parser.Token;
 import edu.berkeley.cs186.database.databox.Type;
-import edu.berkeley.cs186.database.query.QueryOperator;
 import edu.berkeley.cs186.database.query.QueryPlan;
 import edu.berkeley.cs186.database.table.Record;
 import edu.berkeley.cs186.database.table.Schema;
@@ -87,20 +86,19 @@ class CreateTableStatementVisitor extends StatementVisitor {
             out.println("Failed to execute CREATE TABLE.");
         } else {
             if (selectStatementVisitor != null) {
-                QueryPlan p = selectStatementVisitor.getQueryPlan(transaction).get();
-                p.execute();
-                QueryOperator op = p.getFinalOperator();
-                Schema s = op.getSchema();
-                for (int i = 0; i < s.size(); i++) {
-                    if (s.getFieldName(i).contains(".")) {
-                        throw new UnsupportedOperationException("Cannot have `.` in table field name.");
+                try (QueryPlan p = selectStatementVisitor.getQueryPlan(transaction).get()) {
+                    Iterator<Record> records = p.execute();
+                    Schema s = p.getFinalOperator().getSchema();
+                    for (int i = 0; i < s.size(); i++) {
+                        if (s.getFieldName(i).contains(".")) {
+                            throw new UnsupportedOperationException("Cannot have `.` in table field name.");
+                        }
+                    }
+                    transaction.createTable(s, this.tableName);
+                    while (records.hasNext()) {
+                        Record r = records.next();
+                        transaction.insert(this.tableName, r);
                     }
-                }
-                transaction.createTable(s, this.tableName);
-                Iterator<Record> records = op.iterator();
-                while (records.hasNext()) {
-                    Record r = records.next();
-                    transaction.insert(this.tableName, r);
                 }
             } else {
                 transaction.createTable(this.schema, this.tableName);
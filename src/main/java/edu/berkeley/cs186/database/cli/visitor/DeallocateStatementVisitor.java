@@ -0,0 +1,39 @@
+package edu.berkeley.cs186.database.cli.visitor;
+
+import edu.berkeley.cs186.database.Transaction;
+import edu.berkeley.cs186.database.cli.parser.ASTIdentifier;
+
+import java.io.PrintStream;
+
+class DeallocateStatementVisitor extends StatementVisitor {
+    public String name;
+    private PreparedStatements preparedStatements;
+
+    DeallocateStatementVisitor(PreparedStatements preparedStatements) {
+        this.preparedStatements = preparedStatements;
+    }
+
+    @Override
+    public void visit(ASTIdentifier node, Object data) {
+        this.name = (String) node.jjtGetValue();
+    }
+
+    /**
+     * Prepared statements belong to the session rather than to a
+     * transaction, so `transaction` may be null.
+     */
+    @Override
+    public void execute(Transaction transaction, PrintStream out) {
+        if (this.preparedStatements.remove(this.name)) {
+            out.println("DEALLOCATE " + this.name);
+        } else {
+            out.println("No prepared statement named `" + this.name + "`.");
+            out.println("Failed to execute DEALLOCATE.");
+        }
+    }
+
+    @Override
+    public StatementType getType() {
+        return StatementType.DEALLOCATE;
+    }
+}
@@ -3,6 +3,7 @@ package edu.berkeley.cs186.database.cli.visitor;
 import edu.berkeley.cs186.database.Transaction;
 import edu.berkeley.cs186.database.cli.parser.ASTExpression;
 import edu.berkeley.cs186.database.cli.parser.ASTIdentifier;
+import edu.berkeley.cs186.database.query.expr.CompiledExpression;
 import edu.berkeley.cs186.database.query.expr.Expression;
 import edu.berkeley.cs186.database.query.expr.ExpressionVisitor;
 import edu.berkeley.cs186.database.table.Schema;
@@ -30,7 +31,7 @@ class DeleteStatementVisitor extends StatementVisitor {
         try {
             Schema schema = transaction.getSchema(tableName);
             this.cond.setSchema(schema);
-            transaction.delete(tableName, cond::evaluate);
+            transaction.delete(tableName, CompiledExpression.compile(cond)::evaluate);
             out.println("DELETE");
         } catch (Exception e) {
             out.println(e.getMessage());
@@ -131,6 +131,15 @@ public class ExecutableStatementVisitor extends RookieParserDefaultVisitor {
     @Override
     public void visit(ASTExplainStatement node, Object data) {
         this.visitor = new ExplainStatementVisitor();
-        node.childrenAccept(visitor, null);
+        node.jjtAccept(visitor, null);
+    }
+
+    /**
+     * ANALYZE
+     */
+    @Override
+    public void visit(ASTAnalyzeStatement node, Object data) {
+        this.visitor = new AnalyzeStatementVisitor();
+        node.jjtAccept(visitor, null);
     }
 }
@@ -0,0 +1,60 @@
+package edu.berkeley.cs186.database.cli.visitor;
+
+import edu.berkeley.cs186.database.Transaction;
+import edu.berkeley.cs186.database.cli.PrettyPrinter;
+import edu.berkeley.cs186.database.cli.RecordPrinter;
+import edu.berkeley.cs186.database.cli.parser.ASTIdentifier;
+import edu.berkeley.cs186.database.cli.parser.ASTLiteral;
+import edu.berkeley.cs186.database.databox.DataBox;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+class ExecuteStatementVisitor extends StatementVisitor {
+    public String name;
+    public List<DataBox> arguments = new ArrayList<>();
+    private PreparedStatements preparedStatements;
+
+    ExecuteStatementVisitor(PreparedStatements preparedStatements) {
+        this.preparedStatements = preparedStatements;
+    }
+
+    @Override
+    public void visit(ASTIdentifier node, Object data) {
+        this.name = (String) node.jjtGetValue();
+    }
+
+    @Override
+    public void visit(ASTLiteral node, Object data) {
+        this.arguments.add(PrettyPrinter.parseLiteral((String) node.jjtGetValue()));
+    }
+
+    @Override
+    public void execute(Transaction transaction, PrintStream out) {
+        execute(transaction, out, new PrettyPrinter(out));
+    }
+
+    @Override
+    public void execute(Transaction transaction, PrintStream out, RecordPrinter printer) {
+        SelectStatementVisitor statement = this.preparedStatements.get(this.name);
+        if (statement == null) {
+            out.println("No prepared statement named `" + this.name + "`.");
+            out.println("Failed to execute EXECUTE.");
+            return;
+        }
+        int numParameters = statement.getNumParameters();
+        if (this.arguments.size() != numParameters) {
+            out.printf("Prepared statement `%s` takes %d parameter(s), but %d were given.\n",
+                    this.name, numParameters, this.arguments.size());
+            out.println("Failed to execute EXECUTE.");
+            return;
+        }
+        statement.execute(transaction, printer, this.arguments);
+    }
+
+    @Override
+    public StatementType getType() {
+        return StatementType.EXECUTE;
+    }
+}
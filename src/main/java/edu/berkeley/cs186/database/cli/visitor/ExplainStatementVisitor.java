@@ -1,13 +1,24 @@
 package edu.berkeley.cs186.database.cli.visitor;
 
 import edu.berkeley.cs186.database.Transaction;
+import edu.berkeley.cs186.database.cli.parser.ASTExplainStatement;
 import edu.berkeley.cs186.database.cli.parser.ASTSelectStatement;
 import edu.berkeley.cs186.database.query.QueryPlan;
+import edu.berkeley.cs186.database.table.Record;
 
 import java.io.PrintStream;
+import java.util.Iterator;
 
 class ExplainStatementVisitor extends StatementVisitor {
     StatementVisitor visitor;
+    // Whether to run the query and print the runtime metrics of its operators
+    boolean analyze = false;
+
+    @Override
+    public void visit(ASTExplainStatement node, Object data) {
+        this.analyze = node.jjtGetValue() != null;
+        node.childrenAccept(this, data);
+    }
 
     @Override
     public void visit(ASTSelectStatement node, Object data) {
@@ -18,9 +29,21 @@ class ExplainStatementVisitor extends StatementVisitor {
 
     @Override
     public void execute(Transaction transaction, PrintStream out) {
-        QueryPlan query = this.visitor.getQueryPlan(transaction).get();
-        query.execute();
-        out.println(query.getFinalOperator());
+        // Without ANALYZE the records of the query aren't read, so the query
+        // is closed to release its work memory
+        try (QueryPlan query = this.visitor.getQueryPlan(transaction).get()) {
+            // Planning may already do work, e.g. materialize the inner inputs
+            // of nested loop joins, so the total time starts before it
+            long start = System.nanoTime();
+            Iterator<Record> records = query.execute(this.analyze);
+            if (this.analyze) {
+                while (records.hasNext()) records.next();
+                out.println(query.getFinalOperator());
+                out.printf("Total time: %.3f ms%n", (System.nanoTime() - start) / 1e6);
+                return;
+            }
+            out.println(query.getFinalOperator());
+        }
     }
 
     @Override
@@ -28,4 +51,4 @@ class ExplainStatementVisitor extends StatementVisitor {
         return StatementType.EXPLAIN;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,47 @@
+package edu.berkeley.cs186.database.cli.visitor;
+
+import edu.berkeley.cs186.database.Transaction;
+import edu.berkeley.cs186.database.cli.parser.ASTIdentifier;
+import edu.berkeley.cs186.database.cli.parser.ASTSelectStatement;
+
+import java.io.PrintStream;
+
+class PrepareStatementVisitor extends StatementVisitor {
+    public String name;
+    public SelectStatementVisitor statement;
+    private PreparedStatements preparedStatements;
+
+    PrepareStatementVisitor(PreparedStatements preparedStatements) {
+        this.preparedStatements = preparedStatements;
+    }
+
+    @Override
+    public void visit(ASTIdentifier node, Object data) {
+        this.name = (String) node.jjtGetValue();
+    }
+
+    @Override
+    public void visit(ASTSelectStatement node, Object data) {
+        this.statement = new SelectStatementVisitor();
+        node.jjtAccept(this.statement, data);
+    }
+
+    /**
+     * Prepared statements belong to the session rather than to a
+     * transaction, so `transaction` may be null.
+     */
+    @Override
+    public void execute(Transaction transaction, PrintStream out) {
+        if (this.preparedStatements.add(this.name, this.statement)) {
+            out.println("PREPARE " + this.name);
+        } else {
+            out.println("Prepared statement `" + this.name + "` already exists.");
+            out.println("Failed to execute PREPARE.");
+        }
+    }
+
+    @Override
+    public StatementType getType() {
+        return StatementType.PREPARE;
+    }
+}
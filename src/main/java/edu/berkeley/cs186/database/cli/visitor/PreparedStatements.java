@@ -0,0 +1,47 @@
+package edu.berkeley.cs186.database.cli.visitor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The statements prepared with PREPARE over the course of a session, by name.
+ * A prepared statement is kept parsed, so that EXECUTE only has to bind its
+ * parameters before running it. Its plan comes from the plan cache of the
+ * database (see QueryPlan.execute), so that executions with parameters of the
+ * same types skip planning as well.
+ *
+ * Prepared statements belong to a session (e.g. one client of the server),
+ * and aren't shared between sessions.
+ */
+public class PreparedStatements {
+    private Map<String, SelectStatementVisitor> statements = new HashMap<>();
+
+    SelectStatementVisitor get(String name) {
+        return this.statements.get(normalize(name));
+    }
+
+    /**
+     * @return false if there's already a statement named `name`
+     */
+    boolean add(String name, SelectStatementVisitor statement) {
+        return this.statements.putIfAbsent(normalize(name), statement) == null;
+    }
+
+    /**
+     * @return false if there's no statement named `name`
+     */
+    boolean remove(String name) {
+        return this.statements.remove(normalize(name)) != null;
+    }
+
+    /**
+     * @return the number of prepared statements
+     */
+    public int size() {
+        return this.statements.size();
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase();
+    }
+}
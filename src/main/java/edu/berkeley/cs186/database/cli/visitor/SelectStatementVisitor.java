@@ -1,7 +1,9 @@
 package edu.berkeley.cs186.database.cli.visitor;
 
+import edu.berkeley.cs186.database.DatabaseException;
 import edu.berkeley.cs186.database.Transaction;
 import edu.berkeley.cs186.database.cli.PrettyPrinter;
+import edu.berkeley.cs186.database.cli.RecordPrinter;
 import edu.berkeley.cs186.database.cli.parser.*;
 import edu.berkeley.cs186.database.common.Pair;
 import edu.berkeley.cs186.database.common.PredicateOperator;
@@ -14,6 +16,7 @@ import edu.berkeley.cs186.database.table.Schema;
 
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
@@ -29,6 +32,9 @@ class SelectStatementVisitor extends StatementVisitor {
     List<PredicateOperator> predicateOperators = new ArrayList<>();
     List<String> predicateColumns = new ArrayList<>();
     List<DataBox> predicateValues = new ArrayList<>();
+    // The parameter each predicate compares against, or null if it compares
+    // against the literal in predicateValues
+    List<Integer> predicateParameters = new ArrayList<>();
     List<String> groupByColumns = new ArrayList<>();
     List<Pair<String, String>> contextAliases = new ArrayList<>();
     List<CommonTableExpressionVisitor> withExpressions = new ArrayList<>();
@@ -38,13 +44,33 @@ class SelectStatementVisitor extends StatementVisitor {
 
     @Override
     public void execute(Transaction transaction, PrintStream out) {
-        QueryPlan query = getQueryPlan(transaction).get();
-        Iterator<Record> records = query.execute();
-        new PrettyPrinter(out).printRecords(selectColumns, records);
+        execute(transaction, out, new PrettyPrinter(out));
+    }
+
+    @Override
+    public void execute(Transaction transaction, PrintStream out, RecordPrinter printer) {
+        execute(transaction, printer, Collections.emptyList());
+    }
+
+    /**
+     * Executes the statement with `parameters` bound to its parameters, i.e.
+     * the i-th value of `parameters` is used wherever $i appears.
+     */
+    public void execute(Transaction transaction, RecordPrinter printer, List<DataBox> parameters) {
+        // The printer may stop before the last record, e.g. if the client of
+        // the NIO server disconnects
+        try (QueryPlan query = getQueryPlan(transaction, parameters).get()) {
+            Iterator<Record> records = query.execute();
+            printer.printRecords(selectColumns, records);
+        }
     }
 
     @Override
     public Optional<QueryPlan> getQueryPlan(Transaction transaction) {
+        return getQueryPlan(transaction, Collections.emptyList());
+    }
+
+    public Optional<QueryPlan> getQueryPlan(Transaction transaction, List<DataBox> parameters) {
         List<Pair<String, String>> currentAliases = new ArrayList<>(contextAliases);
         for (CommonTableExpressionVisitor visitor: this.withExpressions) {
             String tempTableName = visitor.createTable(transaction, currentAliases);
@@ -64,10 +90,18 @@ class SelectStatementVisitor extends StatementVisitor {
             );
         }
         for(int i = 0; i < predicateColumns.size(); i++) {
+            DataBox value = predicateValues.get(i);
+            Integer parameter = predicateParameters.get(i);
+            if (parameter != null) {
+                if (parameter < 1 || parameter > parameters.size()) {
+                    throw new DatabaseException("No value bound to parameter $" + parameter);
+                }
+                value = parameters.get(parameter - 1);
+            }
             query.select(
                 predicateColumns.get(i),
                 predicateOperators.get(i),
-                predicateValues.get(i)
+                value
             );
         }
         ArrayList<String> expandedColumns = new ArrayList<>();
@@ -129,6 +163,18 @@ class SelectStatementVisitor extends StatementVisitor {
         return Optional.of(query);
     }
 
+    /**
+     * @return the number of parameters of the statement, i.e. the largest n
+     * such that $n appears in it
+     */
+    public int getNumParameters() {
+        int numParameters = 0;
+        for (Integer parameter : predicateParameters) {
+            if (parameter != null) numParameters = Math.max(numParameters, parameter);
+        }
+        return numParameters;
+    }
+
     public void setContext(List<Pair<String, String>> context) {
         this.contextAliases = context;
     }
@@ -195,6 +241,7 @@ class SelectStatementVisitor extends StatementVisitor {
         predicateColumns.add(visitor.columnName);
         predicateOperators.add(visitor.op);
         predicateValues.add(visitor.value);
+        predicateParameters.add(visitor.parameter);
     }
 
     @Override
@@ -2,6 +2,8 @@ package edu.berkeley.cs186.database.cli.visitor;
 
 import edu.berkeley.cs186.database.Database;
 import edu.berkeley.cs186.database.Transaction;
+import edu.berkeley.cs186.database.cli.PrettyPrinter;
+import edu.berkeley.cs186.database.cli.RecordPrinter;
 import edu.berkeley.cs186.database.cli.parser.*;
 
 import java.io.PrintStream;
@@ -12,11 +14,32 @@ import java.util.Optional;
 public class StatementListVisitor extends RookieParserDefaultVisitor {
     private Database database;
     private PrintStream out;
+    private PreparedStatements preparedStatements;
+    private RecordPrinter printer;
     public List<StatementVisitor> statementVisitors;
 
     public StatementListVisitor(Database database, PrintStream out) {
+        this(database, out, new PreparedStatements());
+    }
+
+    /**
+     * @param preparedStatements the statements prepared so far in the session
+     *                           the statements are run in
+     */
+    public StatementListVisitor(Database database, PrintStream out, PreparedStatements preparedStatements) {
+        this(database, out, preparedStatements, new PrettyPrinter(out));
+    }
+
+    /**
+     * @param printer outputs the records returned by queries, which are
+     *                otherwise printed as tables to `out`
+     */
+    public StatementListVisitor(Database database, PrintStream out, PreparedStatements preparedStatements,
+                                RecordPrinter printer) {
         this.database = database;
         this.out = out;
+        this.preparedStatements = preparedStatements;
+        this.printer = printer;
         this.statementVisitors = new ArrayList<>();
     }
 
@@ -60,22 +83,40 @@ public class StatementListVisitor extends RookieParserDefaultVisitor {
                     }
                     this.out.println("ROLLBACK");
                     break;
+                case PREPARE:
+                case DEALLOCATE:
+                    // Prepared statements outlive transactions
+                    visitor.execute(currTransaction, this.out);
+                    break;
                 default:
                     if (currTransaction == null) {
                         try (Transaction tmp = database.beginTransaction()) {
-                            visitor.execute(tmp, out);
-                            tmp.commit();
+                            visitor.execute(tmp, out, printer);
+                            if (tmp.getTransactionContext().isLockWaitAborted()) {
+                                tmp.rollback();
+                                this.out.println("ROLLBACK (transaction aborted while waiting for a lock)");
+                            } else {
+                                tmp.commit();
+                            }
                         } catch (Exception e) {
                             e.printStackTrace(this.out);
                             this.out.println("Operation failed.");
                         }
                     } else {
                         try {
-                            visitor.execute(currTransaction, out);
+                            visitor.execute(currTransaction, out, printer);
                         } catch (Exception e) {
                             e.printStackTrace(this.out);
                             this.out.println("Operation failed.");
                         }
+                        // A deadlock victim (or a transaction that timed out
+                        // waiting for a lock) holds on to locks others wait
+                        // for, and must be rolled back
+                        if (currTransaction.getTransactionContext().isLockWaitAborted()) {
+                            currTransaction.rollback();
+                            currTransaction = null;
+                            this.out.println("ROLLBACK (transaction aborted while waiting for a lock)");
+                        }
                     }
                 break;
             }
@@ -223,6 +264,46 @@ public class StatementListVisitor extends RookieParserDefaultVisitor {
     @Override
     public void visit(ASTExplainStatement node, Object data) {
         ExplainStatementVisitor visitor = new ExplainStatementVisitor();
+        node.jjtAccept(visitor, null);
+        this.statementVisitors.add(visitor);
+    }
+
+    /**
+     * ANALYZE
+     */
+    @Override
+    public void visit(ASTAnalyzeStatement node, Object data) {
+        AnalyzeStatementVisitor visitor = new AnalyzeStatementVisitor();
+        node.jjtAccept(visitor, null);
+        this.statementVisitors.add(visitor);
+    }
+
+    /**
+     * PREPARE
+     */
+    @Override
+    public void visit(ASTPrepareStatement node, Object data) {
+        PrepareStatementVisitor visitor = new PrepareStatementVisitor(this.preparedStatements);
+        node.childrenAccept(visitor, null);
+        this.statementVisitors.add(visitor);
+    }
+
+    /**
+     * EXECUTE
+     */
+    @Override
+    public void visit(ASTExecuteStatement node, Object data) {
+        ExecuteStatementVisitor visitor = new ExecuteStatementVisitor(this.preparedStatements);
+        node.childrenAccept(visitor, null);
+        this.statementVisitors.add(visitor);
+    }
+
+    /**
+     * DEALLOCATE
+     */
+    @Override
+    public void visit(ASTDeallocateStatement node, Object data) {
+        DeallocateStatementVisitor visitor = new DeallocateStatementVisitor(this.preparedStatements);
         node.childrenAccept(visitor, null);
         this.statementVisitors.add(visitor);
     }
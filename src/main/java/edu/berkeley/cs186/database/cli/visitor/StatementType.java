@@ -14,5 +14,9 @@ enum StatementType{
     ROLLBACK,
     SAVEPOINT,
     RELEASE_SAVEPOINT,
-    EXPLAIN
+    EXPLAIN,
+    ANALYZE,
+    PREPARE,
+    EXECUTE,
+    DEALLOCATE
 }
\ No newline at end of file
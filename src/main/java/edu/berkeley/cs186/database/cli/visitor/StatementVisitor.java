@@ -1,6 +1,7 @@
 package edu.berkeley.cs186.database.cli.visitor;
 
 import edu.berkeley.cs186.database.Transaction;
+import edu.berkeley.cs186.database.cli.RecordPrinter;
 import edu.berkeley.cs186.database.cli.parser.RookieParserDefaultVisitor;
 import edu.berkeley.cs186.database.query.QueryPlan;
 
@@ -12,6 +13,14 @@ abstract class StatementVisitor extends RookieParserDefaultVisitor {
         throw new UnsupportedOperationException("Statement is not executable.");
     }
 
+    /**
+     * Executes the statement, outputting the records it returns (if any) with
+     * `printer` instead of printing them as a table to `out`.
+     */
+    public void execute(Transaction transaction, PrintStream out, RecordPrinter printer) {
+        execute(transaction, out);
+    }
+
     public Optional<String> getSavepointName() {
         return Optional.empty();
     }
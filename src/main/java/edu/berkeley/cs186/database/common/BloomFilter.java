@@ -0,0 +1,92 @@
+package edu.berkeley.cs186.database.common;
+
+import edu.berkeley.cs186.database.databox.DataBox;
+
+/**
+ * A Bloom filter is a compact, probabilistic representation of a set of data
+ * boxes. mightContain never returns false for a value that has been added to
+ * the filter, but may return true for a value that hasn't been (a false
+ * positive). The filter is sized so that the false positive rate stays around
+ * the requested rate as long as at most expectedItems values are added.
+ *
+ * Bit positions are computed with double hashing: two seeded hashes h1 and h2
+ * of the value are combined into h1 + i * h2 for each of the k hash functions.
+ */
+public class BloomFilter {
+    // Seeds for the two base hash functions. These are kept well away from the
+    // small pass numbers used for partitioning so that a filter built over a
+    // partition doesn't correlate with the partitioning hash function.
+    private static final long SEED_1 = 0x5bd1e995L;
+    private static final long SEED_2 = 0x1b873593L;
+    // Upper bound on the size of a filter, 2^30 bits (128 MiB)
+    private static final int MAX_BITS = 1 << 30;
+
+    private long[] bits;
+    private int numBits;
+    private int numHashFunctions;
+    private long numItems;
+
+    /**
+     * @param expectedItems the number of distinct values expected to be added
+     * @param falsePositiveRate the desired false positive rate, between 0 and 1
+     *                          (exclusive)
+     */
+    public BloomFilter(long expectedItems, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1.");
+        }
+        long n = Math.max(1, expectedItems);
+        // m = -n ln(p) / (ln 2)^2 bits, and k = (m / n) ln 2 hash functions
+        double m = -n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.numBits = (int) Math.min(MAX_BITS, Math.max(64, Math.ceil(m)));
+        this.numHashFunctions = (int) Math.max(1, Math.round((double) this.numBits / n * Math.log(2)));
+        this.bits = new long[(this.numBits + 63) / 64];
+        this.numItems = 0;
+    }
+
+    /**
+     * Adds value to this filter.
+     */
+    public void add(DataBox value) {
+        byte[] bytes = value.hashBytes();
+        int h1 = HashFunc.hashBytes(bytes, SEED_1);
+        int h2 = HashFunc.hashBytes(bytes, SEED_2);
+        for (int i = 0; i < this.numHashFunctions; i++) {
+            int bit = Math.floorMod(h1 + i * h2, this.numBits);
+            this.bits[bit >>> 6] |= 1L << (bit & 63);
+        }
+        this.numItems++;
+    }
+
+    /**
+     * @return false if value was definitely never added to this filter, true
+     * if it might have been
+     */
+    public boolean mightContain(DataBox value) {
+        byte[] bytes = value.hashBytes();
+        int h1 = HashFunc.hashBytes(bytes, SEED_1);
+        int h2 = HashFunc.hashBytes(bytes, SEED_2);
+        for (int i = 0; i < this.numHashFunctions; i++) {
+            int bit = Math.floorMod(h1 + i * h2, this.numBits);
+            if ((this.bits[bit >>> 6] & (1L << (bit & 63))) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the expected false positive rate given the number of values
+     * added so far, (1 - e^(-kn/m))^k
+     */
+    public double expectedFalsePositiveRate() {
+        double exponent = -(double) this.numHashFunctions * this.numItems / this.numBits;
+        return Math.pow(1 - Math.exp(exponent), this.numHashFunctions);
+    }
+
+    public int getNumBits() {
+        return this.numBits;
+    }
+
+    public int getNumHashFunctions() {
+        return this.numHashFunctions;
+    }
+}
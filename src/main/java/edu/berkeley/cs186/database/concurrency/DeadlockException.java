@@ -0,0 +1,14 @@
+package edu.berkeley.cs186.database.concurrency;
+
+/**
+ * Thrown to a transaction waiting for a lock when the deadlock detector picks
+ * it as the victim of a deadlock. The lock was not granted, and the
+ * transaction must be rolled back to release the locks that other
+ * transactions are waiting for.
+ */
+@SuppressWarnings("serial")
+public class DeadlockException extends RuntimeException {
+    DeadlockException(String message) {
+        super(message);
+    }
+}
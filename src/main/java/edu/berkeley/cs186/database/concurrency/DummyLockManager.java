@@ -24,6 +24,9 @@ public class DummyLockManager extends LockManager {
         return new DummyLockContext("database");
     }
 
+    @Override
+    public void startDeadlockDetection(long intervalMillis) { }
+
     @Override
     public void acquireAndRelease(TransactionContext transaction, ResourceName name,
                                   LockType lockType, List<ResourceName> releaseNames)
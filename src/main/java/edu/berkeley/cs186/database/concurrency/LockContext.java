@@ -41,6 +41,10 @@ public class LockContext {
     // Whether or not any new child LockContexts should be marked readonly.
     protected boolean childLocksDisabled;
 
+    // The number of children of the resource (e.g. the number of pages of a
+    // table), or 0 if unknown.
+    protected volatile int capacity = 0;
+
     public LockContext(LockManager lockman, LockContext parent, String name) {
         this(lockman, parent, name, false);
     }
@@ -380,6 +384,21 @@ public class LockContext {
         return childContext(Long.toString(name));
     }
 
+    /**
+     * Sets the number of children of the resource, for lock escalation (see
+     * LockUtil).
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the number of children of the resource, or 0 if unknown.
+     */
+    public int capacity() {
+        return this.capacity;
+    }
+
     /**
      * Gets the number of locks held on children a single transaction.
      */
@@ -3,6 +3,12 @@ package edu.berkeley.cs186.database.concurrency;
 import edu.berkeley.cs186.database.TransactionContext;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * LockManager maintains the bookkeeping for what transactions have what locks
@@ -29,28 +35,82 @@ import java.util.*;
  *    queue: S(A) X(A) S(A)
  * only the first request should be removed from the queue when the queue is
  * processed.
+ *
+ * Deadlocks are resolved by a background detector (see
+ * startDeadlockDetection), which periodically builds the waits-for graph of
+ * the transactions waiting in queues and aborts the lock request of a victim
+ * in each cycle, failing it with a DeadlockException. The detector also fails
+ * requests that waited for longer than the lock wait timeout, if one is set,
+ * with a LockTimeoutException.
  */
 public class LockManager {
+    // Default number of stripes the lock table is partitioned into.
+    public static final int DEFAULT_NUM_STRIPES = 64;
+
+    /**
+     * How the deadlock detector picks the transaction to abort in a cycle of
+     * the waits-for graph.
+     */
+    public enum VictimPolicy {
+        // The transaction that started last (with the highest number), which
+        // has likely done the least work
+        YOUNGEST,
+        // The transaction holding the fewest locks, which frees the fewest
+        // resources but has likely done the least work, the youngest among
+        // those holding as few locks
+        FEWEST_LOCKS
+    }
+
     // transactionLocks is a mapping from transaction number to a list of lock
-    // objects held by that transaction.
-    private Map<Long, List<Lock>> transactionLocks = new HashMap<>();
+    // objects held by that transaction. Each list is synchronized on itself,
+    // since locks of a transaction on resources of different stripes may be
+    // granted or released concurrently.
+    private Map<Long, List<Lock>> transactionLocks = new ConcurrentHashMap<>();
 
     // resourceEntries is a mapping from resource names to a ResourceEntry
     // object, which contains a list of Locks on the object, as well as a
-    // queue for requests on that resource.
-    private Map<ResourceName, ResourceEntry> resourceEntries = new HashMap<>();
+    // queue for requests on that resource. An entry may only be created,
+    // modified or removed while holding the latch of its resource's stripe,
+    // but may be read at any time.
+    private Map<ResourceName, ResourceEntry> resourceEntries = new ConcurrentHashMap<>();
+
+    // Latches of the stripes of the lock table. Resources are assigned to
+    // stripes by hash, and operations on resources of different stripes
+    // don't contend with each other.
+    private final ReentrantLock[] latches;
+
+    // Transaction to abort in each deadlock found
+    private volatile VictimPolicy victimPolicy = VictimPolicy.YOUNGEST;
+    // Time after which a lock request is failed, in nanoseconds, or 0 to wait
+    // for as long as it takes
+    private volatile long lockWaitTimeoutNanos = 0;
+    // Runs deadlock detection periodically, or null if it isn't running
+    private ScheduledExecutorService detector = null;
+
+    // Default number of locks a transaction may hold on children of a
+    // resource before they're escalated to a lock on the resource.
+    public static final int DEFAULT_ESCALATION_THRESHOLD = 1000;
+    // Default fraction of the children of a resource a transaction may lock
+    // before the locks are escalated to a lock on the resource.
+    public static final double DEFAULT_ESCALATION_FRACTION = 0.2;
+    // Resources with fewer children aren't escalated by fraction, so that
+    // e.g. the first lock on a page of a small table doesn't lock the table.
+    static final int MIN_ESCALATION_CAPACITY = 10;
+
+    // Escalation policy, see setEscalationPolicy
+    private volatile int escalationThreshold = DEFAULT_ESCALATION_THRESHOLD;
+    private volatile double escalationFraction = DEFAULT_ESCALATION_FRACTION;
 
     // A ResourceEntry contains the list of locks on a resource, as well as
     // the queue for requests for locks on the resource.
     private class ResourceEntry {
-        // List of currently granted locks on the resource.
-        List<Lock> locks = new ArrayList<>();
+        // List of currently granted locks on the resource. Locks in this list
+        // are never modified, but replaced, so that the list can be read
+        // without holding the latch.
+        List<Lock> locks = new CopyOnWriteArrayList<>();
         // Queue for yet-to-be-satisfied lock requests on this resource.
         Deque<LockRequest> waitingQueue = new ArrayDeque<>();
 
-        // Below are a list of helper methods we suggest you implement.
-        // You're free to modify their type signatures, delete, or ignore them.
-
         /**
          * Check if `lockType` is compatible with preexisting locks. Allows
          * conflicts for locks held by transaction with id `except`, which is
@@ -58,7 +118,6 @@ public class LockManager {
          * the resource.
          */
         public boolean checkCompatible(LockType lockType, long except) {
-            // TODO(proj4_part1): implement
             for (Lock lock: this.locks) {
                 if (lock.transactionNum == except)
                     continue;
@@ -74,10 +133,9 @@ public class LockManager {
          * lock.
          */
         public void grantOrUpdateLock(Lock lock) {
-            // TODO(proj4_part1): implement
-            for (Lock curLock: this.locks) {
-                if (Objects.equals(curLock.transactionNum, lock.transactionNum)) {
-                    curLock.lockType = lock.lockType;
+            for (int i = 0; i < this.locks.size(); i++) {
+                if (Objects.equals(this.locks.get(i).transactionNum, lock.transactionNum)) {
+                    this.locks.set(i, lock);
                     updateLockForTransaction(lock);
                     return;
                 }
@@ -87,14 +145,13 @@ public class LockManager {
         }
 
         /**
-         * Releases the lock `lock` and processes the queue. Assumes that the
-         * lock has been granted before.
+         * Releases the lock `lock` and processes the queue (see
+         * processQueue). Assumes that the lock has been granted before.
          */
-        public void releaseLock(Lock lock) {
-            // TODO(proj4_part1): implement
+        public void releaseLock(Lock lock, List<LockRequest> granted, List<LockRequest> deferred) {
             this.locks.remove(lock);
             removeLockForTransaction(lock);
-            this.processQueue();
+            this.processQueue(granted, deferred);
         }
 
         /**
@@ -102,7 +159,6 @@ public class LockManager {
          * the end otherwise.
          */
         public void addToQueue(LockRequest request, boolean addFront) {
-            // TODO(proj4_part1): implement
             if (addFront)
                 this.waitingQueue.addFirst(request);
             else this.waitingQueue.add(request);
@@ -110,28 +166,38 @@ public class LockManager {
 
         /**
          * Grant locks to requests from front to back of the queue, stopping
-         * when the next lock cannot be granted. Once a request is completely
-         * granted, the transaction that made the request can be unblocked.
+         * when the next lock cannot be granted. The locks a request gives up
+         * are released along with the grant, which requires the latches of
+         * their stripes: if the caller doesn't hold them, the request is
+         * added to `deferred` instead, and processing stops. Requests granted
+         * are added to `granted`. Unblocking their transactions, and granting
+         * the deferred requests, is left to the caller, once it no longer
+         * holds any latch (see finishRequests).
          */
-        private void processQueue() {
-            Iterator<LockRequest> requests = waitingQueue.iterator();
-
-            // TODO(proj4_part1): implement
-            while (requests.hasNext()) {
-                LockRequest request = requests.next();
-                if (checkCompatible(request.lock.lockType, request.transaction.getTransNum())) {
-                    // remove the request from the waiting queue
-                    waitingQueue.removeFirst();
-                    // grant lock
-                    grantOrUpdateLock(request.lock);
-                    // release locks the request stated should be released
-                    for (Lock lock: request.releasedLocks) {
-                        release(request.transaction, lock.name);
-                    }
-                    // unblock the transaction
-                    request.transaction.unblock();
-                } else
+        private void processQueue(List<LockRequest> granted, List<LockRequest> deferred) {
+            LockRequest request;
+            // The queue may change while locks given up are released
+            while ((request = waitingQueue.peekFirst()) != null) {
+                long transNum = request.transaction.getTransNum();
+                if (!checkCompatible(request.lock.lockType, transNum))
+                    break;
+                if (!holdsLatches(request.releasedLocks)) {
+                    deferred.add(request);
                     break;
+                }
+                // remove the request from the waiting queue
+                waitingQueue.pollFirst();
+                // grant lock
+                grantOrUpdateLock(request.lock);
+                for (Lock lock : request.releasedLocks) {
+                    ResourceEntry released = getResourceEntry(lock.name);
+                    LockType lockType = released.getTransactionLockType(transNum);
+                    if (lockType != LockType.NL) {
+                        released.releaseLock(new Lock(lock.name, lockType, transNum), granted, deferred);
+                    }
+                    removeIfEmpty(lock.name, released);
+                }
+                granted.add(request);
             }
         }
 
@@ -139,7 +205,6 @@ public class LockManager {
          * Gets the type of lock `transaction` has on this resource.
          */
         public LockType getTransactionLockType(long transaction) {
-            // TODO(proj4_part1): implement
             for (Lock lock: this.locks) {
                 if (lock.transactionNum == transaction)
                     return lock.lockType;
@@ -147,27 +212,32 @@ public class LockManager {
             return LockType.NL;
         }
 
+        private boolean isEmpty() {
+            return this.locks.isEmpty() && this.waitingQueue.isEmpty();
+        }
+
         private void addLockForTransaction(Lock lock) {
-            Long transNum = lock.transactionNum;
-            if (!transactionLocks.containsKey(transNum))
-                transactionLocks.put(transNum, new ArrayList<>());
-            transactionLocks.get(transNum).add(lock);
+            List<Lock> locks = transactionLocks.computeIfAbsent(lock.transactionNum,
+                    transNum -> Collections.synchronizedList(new ArrayList<>()));
+            locks.add(lock);
         }
 
         private void updateLockForTransaction(Lock lock) {
-            Long transNum = lock.transactionNum;
-            for (Lock curLock: transactionLocks.get(transNum)) {
-                if (curLock.name.equals(lock.name)) {
-                    curLock.lockType = lock.lockType;
+            List<Lock> locks = transactionLocks.get(lock.transactionNum);
+            synchronized (locks) {
+                for (int i = 0; i < locks.size(); i++) {
+                    if (locks.get(i).name.equals(lock.name)) {
+                        locks.set(i, lock);
+                    }
                 }
             }
         }
 
         private void removeLockForTransaction(Lock lock) {
-            Long transNum = lock.transactionNum;
-            if (!transactionLocks.containsKey(transNum))
+            List<Lock> locks = transactionLocks.get(lock.transactionNum);
+            if (locks == null)
                 return;
-            transactionLocks.get(transNum).remove(lock);
+            locks.remove(lock);
         }
 
         @Override
@@ -177,16 +247,115 @@ public class LockManager {
         }
     }
 
-    // You should not modify or use this directly.
-    private Map<String, LockContext> contexts = new HashMap<>();
+    public LockManager() {
+        this(DEFAULT_NUM_STRIPES);
+    }
+
+    /**
+     * Creates a lock manager whose lock table is partitioned into
+     * `numStripes` stripes.
+     */
+    public LockManager(int numStripes) {
+        if (numStripes <= 0) {
+            throw new IllegalArgumentException("The lock table needs at least one stripe.");
+        }
+        this.latches = new ReentrantLock[numStripes];
+        for (int i = 0; i < numStripes; i++) {
+            this.latches[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Returns the stripe of the lock table that `name` belongs to.
+     */
+    private int stripe(ResourceName name) {
+        int h = name.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), this.latches.length);
+    }
+
+    /**
+     * Acquires the latches of the stripes of `names`, in order of stripe so
+     * that concurrent operations on several stripes can't deadlock.
+     *
+     * @return the stripes latched, to pass to unlatch
+     */
+    private int[] latch(Collection<ResourceName> names) {
+        SortedSet<Integer> stripes = new TreeSet<>();
+        for (ResourceName name : names) {
+            stripes.add(stripe(name));
+        }
+        int[] latched = new int[stripes.size()];
+        int i = 0;
+        for (int stripe : stripes) {
+            this.latches[stripe].lock();
+            latched[i++] = stripe;
+        }
+        return latched;
+    }
+
+    private void unlatch(int[] latched) {
+        for (int i = latched.length - 1; i >= 0; i--) {
+            this.latches[latched[i]].unlock();
+        }
+    }
+
+    /**
+     * @return whether the current thread holds the latches of the stripes of
+     * every lock of `locks`
+     */
+    private boolean holdsLatches(List<Lock> locks) {
+        for (Lock lock : locks) {
+            if (!this.latches[stripe(lock.name)].isHeldByCurrentThread()) return false;
+        }
+        return true;
+    }
 
     /**
      * Helper method to fetch the resourceEntry corresponding to `name`.
      * Inserts a new (empty) resourceEntry into the map if no entry exists yet.
+     * The latch of the stripe of `name` must be held.
      */
     private ResourceEntry getResourceEntry(ResourceName name) {
-        resourceEntries.putIfAbsent(name, new ResourceEntry());
-        return resourceEntries.get(name);
+        return resourceEntries.computeIfAbsent(name, n -> new ResourceEntry());
+    }
+
+    /**
+     * Removes the entry of `name` if no lock is held or requested on it
+     * anymore. The latch of the stripe of `name` must be held.
+     */
+    private void removeIfEmpty(ResourceName name, ResourceEntry entry) {
+        if (entry.isEmpty()) {
+            resourceEntries.remove(name, entry);
+        }
+    }
+
+    /**
+     * Completes the processing of queues: grants the requests deferred by
+     * processQueue, with the latches of the stripes of the request and of
+     * the locks it gives up, and then unblocks the transactions of the
+     * requests granted. Must be called without holding any latch.
+     */
+    private void finishRequests(List<LockRequest> granted, List<LockRequest> deferred) {
+        while (!deferred.isEmpty()) {
+            LockRequest request = deferred.remove(deferred.size() - 1);
+            List<ResourceName> names = new ArrayList<>();
+            names.add(request.lock.name);
+            for (Lock lock : request.releasedLocks) names.add(lock.name);
+            int[] latched = latch(names);
+            try {
+                // Unless another thread granted or failed it in the meantime
+                ResourceEntry entry = resourceEntries.get(request.lock.name);
+                if (entry != null && entry.waitingQueue.peekFirst() == request) {
+                    entry.processQueue(granted, deferred);
+                    removeIfEmpty(request.lock.name, entry);
+                }
+            } finally {
+                unlatch(latched);
+            }
+        }
+        for (LockRequest request : granted) {
+            request.transaction.unblock();
+        }
     }
 
     /**
@@ -215,14 +384,19 @@ public class LockManager {
     public void acquireAndRelease(TransactionContext transaction, ResourceName name,
                                   LockType lockType, List<ResourceName> releaseNames)
             throws DuplicateLockRequestException, NoLockHeldException {
-        // TODO(proj4_part1): implement
-        // You may modify any part of this method. You are not required to keep
-        // all your code within the given synchronized block and are allowed to
-        // move the synchronized block elsewhere if you wish.
         boolean shouldBlock = false;
-        synchronized (this) {
+        List<LockRequest> granted = new ArrayList<>();
+        List<LockRequest> deferred = new ArrayList<>();
+        List<ResourceName> names = new ArrayList<>(releaseNames);
+        names.add(name);
+        int[] latched = latch(names);
+        try {
             if (getLockType(transaction, name) != LockType.NL && !releaseNames.contains(name))
                 throw new DuplicateLockRequestException("A lock on the resource `" + name +"` is already held by transaction `" + transaction + "` and is not being released.");
+            for (ResourceName releaseName: releaseNames) {
+                if (getLockType(transaction, releaseName) == LockType.NL)
+                    throw new NoLockHeldException("No lock on resource `"+ releaseName +"` is held by transaction " + transaction + ".");
+            }
 
             long transNum = transaction.getTransNum();
             ResourceEntry resource = getResourceEntry(name);
@@ -233,9 +407,12 @@ public class LockManager {
                 resource.grantOrUpdateLock(lock);
                 // release locks held by the transaction on releaseNames
                 for (ResourceName releaseName: releaseNames) {
-                    if (releaseName == name)
+                    if (releaseName.equals(name))
                         continue;
-                    release(transaction, releaseName);
+                    ResourceEntry released = getResourceEntry(releaseName);
+                    released.releaseLock(new Lock(releaseName,
+                            released.getTransactionLockType(transNum), transNum), granted, deferred);
+                    removeIfEmpty(releaseName, released);
                 }
             } else {
                 // block the transaction
@@ -244,14 +421,19 @@ public class LockManager {
                 // construct a list of locks to be released
                 List<Lock> releaseLocks = new ArrayList<>();
                 for (ResourceName releaseName: releaseNames) {
+                    if (releaseName.equals(name))
+                        continue;
                     LockType locktype = getResourceEntry(releaseName).getTransactionLockType(transNum);
-                    releaseLocks.add(new Lock(name, locktype, transNum));
+                    releaseLocks.add(new Lock(releaseName, locktype, transNum));
                 }
                 // place the request at the front of the resource's waiting queue
                 LockRequest request = new LockRequest(transaction, lock, releaseLocks);
                 resource.addToQueue(request, true);
             }
+        } finally {
+            unlatch(latched);
         }
+        finishRequests(granted, deferred);
         if (shouldBlock) {
             transaction.block();
         }
@@ -270,12 +452,10 @@ public class LockManager {
      */
     public void acquire(TransactionContext transaction, ResourceName name,
                         LockType lockType) throws DuplicateLockRequestException {
-        // TODO(proj4_part1): implement
-        // You may modify any part of this method. You are not required to keep all your
-        // code within the given synchronized block and are allowed to move the
-        // synchronized block elsewhere if you wish.
         boolean shouldBlock = false;
-        synchronized (this) {
+        ReentrantLock latch = this.latches[stripe(name)];
+        latch.lock();
+        try {
             if (getLockType(transaction, name) != LockType.NL)
                 throw new DuplicateLockRequestException("A lock on the resource `" + name +"` is already held by transaction `" + transaction + "`.");
 
@@ -299,6 +479,8 @@ public class LockManager {
                 LockRequest request = new LockRequest(transaction, lock);
                 resource.addToQueue(request, false);
             }
+        } finally {
+            latch.unlock();
         }
         if (shouldBlock) {
             transaction.block();
@@ -317,9 +499,11 @@ public class LockManager {
      */
     public void release(TransactionContext transaction, ResourceName name)
             throws NoLockHeldException {
-        // TODO(proj4_part1): implement
-        // You may modify any part of this method.
-        synchronized (this) {
+        List<LockRequest> granted = new ArrayList<>();
+        List<LockRequest> deferred = new ArrayList<>();
+        ReentrantLock latch = this.latches[stripe(name)];
+        latch.lock();
+        try {
             LockType lockType = getLockType(transaction, name);
             if (lockType == LockType.NL)
                 throw new NoLockHeldException("No lock on resource `"+ name +"` is held by transaction " + transaction + ".");
@@ -327,8 +511,12 @@ public class LockManager {
             long transNum = transaction.getTransNum();
             ResourceEntry resource = getResourceEntry(name);
             Lock lock = new Lock(name, lockType, transNum);
-            resource.releaseLock(lock);
+            resource.releaseLock(lock, granted, deferred);
+            removeIfEmpty(name, resource);
+        } finally {
+            latch.unlock();
         }
+        finishRequests(granted, deferred);
     }
 
     /**
@@ -355,10 +543,10 @@ public class LockManager {
     public void promote(TransactionContext transaction, ResourceName name,
                         LockType newLockType)
             throws DuplicateLockRequestException, NoLockHeldException, InvalidLockException {
-        // TODO(proj4_part1): implement
-        // You may modify any part of this method.
         boolean shouldBlock = false;
-        synchronized (this) {
+        ReentrantLock latch = this.latches[stripe(name)];
+        latch.lock();
+        try {
             LockType lockType = getLockType(transaction, name);
             if (lockType == LockType.NL)
                 throw new NoLockHeldException("The transaction has no lock on the resource.");
@@ -382,7 +570,8 @@ public class LockManager {
                 LockRequest request = new LockRequest(transaction, lock);
                 resource.addToQueue(request, true);
             }
-
+        } finally {
+            latch.unlock();
         }
         if (shouldBlock) {
             transaction.block();
@@ -391,34 +580,322 @@ public class LockManager {
 
     /**
      * Return the type of lock `transaction` has on `name` or NL if no lock is
-     * held.
+     * held. Doesn't take any latch.
      */
-    public synchronized LockType getLockType(TransactionContext transaction, ResourceName name) {
-        // TODO(proj4_part1): implement
-        ResourceEntry resource = getResourceEntry(name);
-        Long transNum = transaction.getTransNum();
-        for (Lock lock: resource.locks) {
-            if (Objects.equals(lock.transactionNum, transNum))
-                return lock.lockType;
-        }
-        return LockType.NL;
+    public LockType getLockType(TransactionContext transaction, ResourceName name) {
+        ResourceEntry resource = resourceEntries.get(name);
+        if (resource == null)
+            return LockType.NL;
+        return resource.getTransactionLockType(transaction.getTransNum());
     }
 
     /**
      * Returns the list of locks held on `name`, in order of acquisition.
+     * Doesn't take any latch.
      */
-    public synchronized List<Lock> getLocks(ResourceName name) {
-        return new ArrayList<>(resourceEntries.getOrDefault(name, new ResourceEntry()).locks);
+    public List<Lock> getLocks(ResourceName name) {
+        ResourceEntry resource = resourceEntries.get(name);
+        if (resource == null)
+            return new ArrayList<>();
+        return new ArrayList<>(resource.locks);
     }
 
     /**
      * Returns the list of locks held by `transaction`, in order of acquisition.
+     * Doesn't take any latch.
+     */
+    public List<Lock> getLocks(TransactionContext transaction) {
+        List<Lock> locks = transactionLocks.get(transaction.getTransNum());
+        if (locks == null)
+            return new ArrayList<>();
+        synchronized (locks) {
+            return new ArrayList<>(locks);
+        }
+    }
+
+    // Lock escalation /////////////////////////////////////////////////////////
+
+    /**
+     * Sets when LockUtil escalates the locks a transaction holds on children
+     * of a table to a lock on the table: once it holds `threshold` of them,
+     * or once it holds `fraction` of the pages of a table with at least
+     * MIN_ESCALATION_CAPACITY pages. A threshold or fraction of 0 disables
+     * the corresponding rule.
+     */
+    public void setEscalationPolicy(int threshold, double fraction) {
+        this.escalationThreshold = threshold;
+        this.escalationFraction = fraction;
+    }
+
+    /**
+     * @return whether a transaction holding `numChildLocks` locks on children
+     * of a resource with `capacity` children (0 if unknown) should escalate
+     * them before locking another child
+     */
+    boolean shouldEscalate(int numChildLocks, int capacity) {
+        int threshold = this.escalationThreshold;
+        if (threshold > 0 && numChildLocks >= threshold) return true;
+        double fraction = this.escalationFraction;
+        return fraction > 0 && capacity >= MIN_ESCALATION_CAPACITY &&
+                numChildLocks >= fraction * capacity;
+    }
+
+    // Deadlock detection //////////////////////////////////////////////////////
+
+    /**
+     * Starts detecting deadlocks (and lock wait timeouts) in the background,
+     * every `intervalMillis` milliseconds. Does nothing if detection is
+     * already running.
+     */
+    public synchronized void startDeadlockDetection(long intervalMillis) {
+        if (this.detector != null) return;
+        this.detector = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "deadlock-detector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.detector.scheduleWithFixedDelay(this::detectDeadlocks, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops detecting deadlocks in the background.
+     */
+    public synchronized void stopDeadlockDetection() {
+        if (this.detector == null) return;
+        this.detector.shutdownNow();
+        this.detector = null;
+    }
+
+    public void setVictimPolicy(VictimPolicy victimPolicy) {
+        this.victimPolicy = victimPolicy;
+    }
+
+    /**
+     * Sets the time after which a request that's still waiting for a lock is
+     * failed, or 0 to wait for as long as it takes. Timeouts are checked along
+     * with deadlocks, so they're only enforced while deadlock detection is
+     * running, and to within its interval.
+     */
+    public void setLockWaitTimeout(long timeoutMillis) {
+        this.lockWaitTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(timeoutMillis, 0));
+    }
+
+    /**
+     * Fails the requests that have waited for longer than the lock wait
+     * timeout, and then finds the cycles in the waits-for graph of the
+     * remaining requests and fails the request of one victim (see
+     * VictimPolicy) in each. Failed requests are removed from their queues,
+     * and the transactions that made them are unblocked with a
+     * LockTimeoutException or a DeadlockException.
+     *
+     * The graph is built from the queues of one stripe at a time, holding
+     * only that stripe's latch, so it may be out of date by the time a cycle
+     * is found in it. Each cycle is checked again before its victim is
+     * failed, holding only the latches of the resources its transactions
+     * wait on: deadlocked transactions can't make progress, so a cycle that
+     * still exists then is a real deadlock.
+     *
+     * @return the numbers of the transactions whose requests were failed
+     */
+    public List<Long> detectDeadlocks() {
+        List<LockRequest> granted = new ArrayList<>();
+        List<LockRequest> deferred = new ArrayList<>();
+        Map<LockRequest, RuntimeException> failed = new LinkedHashMap<>();
+
+        // The request each transaction is waiting on, its resource, and the
+        // transactions it waits on
+        Map<Long, LockRequest> requests = new HashMap<>();
+        Map<Long, ResourceName> waitingOn = new HashMap<>();
+        Map<Long, Set<Long>> waitsFor = new HashMap<>();
+        Map<Integer, List<ResourceName>> stripes = new TreeMap<>();
+        for (ResourceName name : resourceEntries.keySet()) {
+            stripes.computeIfAbsent(stripe(name), i -> new ArrayList<>()).add(name);
+        }
+        long timeout = this.lockWaitTimeoutNanos;
+        for (Map.Entry<Integer, List<ResourceName>> stripe : stripes.entrySet()) {
+            ReentrantLock latch = this.latches[stripe.getKey()];
+            latch.lock();
+            try {
+                long now = System.nanoTime();
+                for (ResourceName name : stripe.getValue()) {
+                    ResourceEntry entry = resourceEntries.get(name);
+                    if (entry == null) continue;
+                    if (timeout > 0) {
+                        for (LockRequest request : new ArrayList<>(entry.waitingQueue)) {
+                            if (now - request.waitStart < timeout) continue;
+                            failRequest(name, request, granted, deferred);
+                            failed.put(request, new LockTimeoutException("Transaction " +
+                                    request.transaction.getTransNum() + " timed out waiting for " +
+                                    request.lock + "."));
+                        }
+                    }
+                    for (LockRequest request : entry.waitingQueue) {
+                        long transNum = request.transaction.getTransNum();
+                        requests.put(transNum, request);
+                        waitingOn.put(transNum, name);
+                        waitsFor.put(transNum, waitsOn(entry, request));
+                    }
+                }
+            } finally {
+                latch.unlock();
+            }
+        }
+
+        List<Long> cycle;
+        while ((cycle = findCycle(waitsFor)) != null) {
+            List<ResourceName> names = new ArrayList<>();
+            for (long transNum : cycle) names.add(waitingOn.get(transNum));
+            int[] latched = latch(names);
+            try {
+                int broken = findBrokenEdge(cycle, requests, waitingOn);
+                if (broken >= 0) {
+                    // Not a deadlock (anymore)
+                    long transNum = cycle.get(broken);
+                    waitsFor.get(transNum).remove(cycle.get((broken + 1) % cycle.size()));
+                    continue;
+                }
+                long victim = pickVictim(cycle);
+                LockRequest request = requests.remove(victim);
+                failRequest(waitingOn.get(victim), request, granted, deferred);
+                failed.put(request, new DeadlockException("Transaction " + victim +
+                        " was aborted to resolve a deadlock while waiting for " + request.lock + "."));
+                waitsFor.remove(victim);
+                for (Set<Long> edges : waitsFor.values()) {
+                    edges.remove(victim);
+                }
+            } finally {
+                unlatch(latched);
+            }
+        }
+        finishRequests(granted, deferred);
+        List<Long> victims = new ArrayList<>();
+        for (Map.Entry<LockRequest, RuntimeException> e : failed.entrySet()) {
+            victims.add(e.getKey().transaction.getTransNum());
+            e.getKey().transaction.abortBlock(e.getValue());
+        }
+        return victims;
+    }
+
+    /**
+     * Removes `request` from the queue of `name`, and grants the requests
+     * behind it that it was holding up. The latch of the stripe of `name`
+     * must be held.
+     */
+    private void failRequest(ResourceName name, LockRequest request, List<LockRequest> granted,
+                             List<LockRequest> deferred) {
+        ResourceEntry entry = resourceEntries.get(name);
+        entry.waitingQueue.remove(request);
+        entry.processQueue(granted, deferred);
+        removeIfEmpty(name, entry);
+    }
+
+    /**
+     * Returns the transactions that `request`, in the queue of `entry`, waits
+     * on: the transactions holding incompatible locks on its resource, and
+     * the transactions with requests ahead of it in the queue, which are
+     * granted first. The latch of the stripe of the resource must be held.
+     */
+    private static Set<Long> waitsOn(ResourceEntry entry, LockRequest request) {
+        long waiter = request.transaction.getTransNum();
+        Set<Long> edges = new HashSet<>();
+        for (Lock lock : entry.locks) {
+            if (lock.transactionNum != waiter &&
+                    !LockType.compatible(lock.lockType, request.lock.lockType)) {
+                edges.add(lock.transactionNum);
+            }
+        }
+        for (LockRequest other : entry.waitingQueue) {
+            if (other == request) break;
+            if (other.transaction.getTransNum() != waiter) edges.add(other.transaction.getTransNum());
+        }
+        return edges;
+    }
+
+    /**
+     * Checks that each transaction of `cycle` still waits on the next one,
+     * with the request it made when the graph was built. The latches of the
+     * stripes of the resources the transactions wait on must be held.
+     *
+     * @return the index in `cycle` of a transaction that doesn't, or -1 if
+     * the cycle still exists
+     */
+    private int findBrokenEdge(List<Long> cycle, Map<Long, LockRequest> requests,
+                               Map<Long, ResourceName> waitingOn) {
+        for (int i = 0; i < cycle.size(); i++) {
+            long transNum = cycle.get(i);
+            LockRequest request = requests.get(transNum);
+            ResourceEntry entry = resourceEntries.get(waitingOn.get(transNum));
+            boolean queued = false;
+            if (entry != null) {
+                for (LockRequest other : entry.waitingQueue) {
+                    if (other == request) queued = true;
+                }
+            }
+            if (!queued || !waitsOn(entry, request).contains(cycle.get((i + 1) % cycle.size()))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the transactions of a cycle in `waitsFor`, or null if there is
+     * no cycle
      */
-    public synchronized List<Lock> getLocks(TransactionContext transaction) {
-        return new ArrayList<>(transactionLocks.getOrDefault(transaction.getTransNum(),
-                Collections.emptyList()));
+    private static List<Long> findCycle(Map<Long, Set<Long>> waitsFor) {
+        Set<Long> done = new HashSet<>();
+        for (long start : waitsFor.keySet()) {
+            if (done.contains(start)) continue;
+            List<Long> path = new ArrayList<>();
+            List<Long> cycle = findCycle(waitsFor, start, path, new HashSet<>(), done);
+            if (cycle != null) return cycle;
+        }
+        return null;
+    }
+
+    private static List<Long> findCycle(Map<Long, Set<Long>> waitsFor, long node, List<Long> path,
+                                        Set<Long> onPath, Set<Long> done) {
+        path.add(node);
+        onPath.add(node);
+        for (long next : waitsFor.getOrDefault(node, Collections.emptySet())) {
+            if (onPath.contains(next)) {
+                return new ArrayList<>(path.subList(path.indexOf(next), path.size()));
+            }
+            if (done.contains(next)) continue;
+            List<Long> cycle = findCycle(waitsFor, next, path, onPath, done);
+            if (cycle != null) return cycle;
+        }
+        path.remove(path.size() - 1);
+        onPath.remove(node);
+        done.add(node);
+        return null;
+    }
+
+    private long pickVictim(List<Long> cycle) {
+        long victim = cycle.get(0);
+        for (long transNum : cycle) {
+            if (this.victimPolicy == VictimPolicy.FEWEST_LOCKS) {
+                int locks = numLocks(transNum);
+                int victimLocks = numLocks(victim);
+                if (locks < victimLocks || (locks == victimLocks && transNum > victim)) {
+                    victim = transNum;
+                }
+            } else if (transNum > victim) {
+                victim = transNum;
+            }
+        }
+        return victim;
     }
 
+    private int numLocks(long transNum) {
+        List<Lock> locks = transactionLocks.get(transNum);
+        return locks == null ? 0 : locks.size();
+    }
+
+    // You should not modify or use this directly.
+    private Map<String, LockContext> contexts = new HashMap<>();
+
     /**
      * Creates a lock context. See comments at the top of this file and the top
      * of LockContext.java for more information.
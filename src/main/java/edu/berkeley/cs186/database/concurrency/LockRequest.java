@@ -15,6 +15,8 @@ class LockRequest {
     TransactionContext transaction;
     Lock lock;
     List<Lock> releasedLocks;
+    // When the request was made, for lock wait timeouts (see System.nanoTime)
+    long waitStart = System.nanoTime();
 
     // Lock request for `lock`, that is not releasing anything.
     LockRequest(TransactionContext transaction, Lock lock) {
@@ -0,0 +1,13 @@
+package edu.berkeley.cs186.database.concurrency;
+
+/**
+ * Thrown to a transaction that waited for a lock for longer than the lock
+ * manager's lock wait timeout. The lock was not granted, and the transaction
+ * must be rolled back.
+ */
+@SuppressWarnings("serial")
+public class LockTimeoutException extends RuntimeException {
+    LockTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -1,6 +1,7 @@
 package edu.berkeley.cs186.database.concurrency;
 
 import edu.berkeley.cs186.database.TransactionContext;
+import edu.berkeley.cs186.database.table.Snapshot;
 
 /**
  * LockUtil is a declarative layer which simplifies multigranularity lock
@@ -36,11 +37,22 @@ public class LockUtil {
         TransactionContext transaction = TransactionContext.getTransaction();
         if (transaction == null || lockContext == null) return;
 
+        // Snapshot-isolated (and optimistic) transactions read old versions
+        // of records instead of locking out writers
+        Snapshot snapshot = transaction.getSnapshot();
+        if (requestType == LockType.S && snapshot != null && snapshot.isIsolated()) return;
+
         // You may find these variables useful
         LockContext parentContext = lockContext.parentContext();
         LockType effectiveLockType = lockContext.getEffectiveLockType(transaction);
         LockType explicitLockType = lockContext.getExplicitLockType(transaction);
 
+        if (requestType != LockType.NL && parentContext != null &&
+                parentContext.parentContext() != null) {
+            maybeEscalate(parentContext, requestType, transaction);
+            effectiveLockType = lockContext.getEffectiveLockType(transaction);
+        }
+
         ensureSufficientLockHeldByAncestors(lockContext, requestType, transaction);
 
         // TODO(proj4_part2): implement
@@ -77,17 +89,47 @@ public class LockUtil {
     }
 
     // TODO(proj4_part2) add any helper methods you want
+
+    /**
+     * Escalates the locks `transaction` holds on children of `context` (e.g.
+     * on pages of a table, or records of a page with row locking) to a lock
+     * on `context` that's sufficient for `requestType`, if the lock manager's
+     * escalation policy says it holds too many of them already. Not applied
+     * to the database, whose children are whole tables.
+     */
+    private static void maybeEscalate(LockContext context, LockType requestType, TransactionContext transaction) {
+        if (context.readonly) return;
+        LockType explicitLockType = context.getExplicitLockType(transaction);
+        if (!explicitLockType.isIntent()) return;
+        if (!context.lockman.shouldEscalate(context.getNumChildren(transaction), context.capacity())) return;
+
+        context.escalate(transaction);
+        if (requestType == LockType.X && context.getExplicitLockType(transaction) == LockType.S) {
+            // Every lock below S is a read lock, but this one is for a write:
+            // an X on a child would need IX, which can't be acquired
+            // alongside S, so lock the whole resource for writing instead
+            ensureSufficientLockHeldByAncestors(context, LockType.X, transaction);
+            context.promote(transaction, LockType.X);
+        }
+    }
     private static void ensureSufficientLockHeldByAncestors(LockContext lockContext, LockType requestType, TransactionContext transaction) {
         LockContext parent = lockContext.parentContext();
         if (parent != null) {
+            // e.g. after escalation, a lock on an ancestor covers the request
+            if (LockType.substitutable(parent.getEffectiveLockType(transaction), requestType))
+                return;
             ensureSufficientLockHeldByAncestors(parent, requestType, transaction);
 
             LockType parentType = parent.getEffectiveLockType(transaction);
             if (LockType.canBeParentLock(parentType, requestType))
                 return;
-            if (parent.getEffectiveLockType(transaction) == LockType.NL)
-                parent.acquire(transaction, LockType.parentLock(requestType));
-            else parent.promote(transaction, LockType.parentLock(requestType));
+            LockType parentLock = LockType.parentLock(requestType);
+            if (parentType == LockType.NL)
+                parent.acquire(transaction, parentLock);
+            // e.g. a write to a page of a table that was scanned under S
+            else if (parentType == LockType.S && parentLock == LockType.IX)
+                parent.promote(transaction, LockType.SIX);
+            else parent.promote(transaction, parentLock);
         }
     }
 }
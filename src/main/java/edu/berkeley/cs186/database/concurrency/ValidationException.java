@@ -0,0 +1,13 @@
+package edu.berkeley.cs186.database.concurrency;
+
+/**
+ * Thrown when an optimistic transaction commits, if a transaction that
+ * committed after it began wrote a record it read. The transaction did not
+ * commit, and must be rolled back and retried.
+ */
+@SuppressWarnings("serial")
+public class ValidationException extends RuntimeException {
+    public ValidationException(String message) {
+        super(message);
+    }
+}
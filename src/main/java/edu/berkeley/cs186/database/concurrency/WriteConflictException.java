@@ -0,0 +1,14 @@
+package edu.berkeley.cs186.database.concurrency;
+
+/**
+ * Thrown to a snapshot-isolated transaction that writes a record that a
+ * transaction it can't see (one that committed after its snapshot was taken)
+ * also wrote. The write was not done, and the transaction must be rolled back
+ * and retried.
+ */
+@SuppressWarnings("serial")
+public class WriteConflictException extends RuntimeException {
+    public WriteConflictException(String message) {
+        super(message);
+    }
+}
@@ -148,6 +148,9 @@ public class DiskSpaceManagerImpl implements DiskSpaceManager {
             // We must open partition only after logging, but we need to release the
             // manager lock first, in case the log manager is currently in the process
             // of allocating a new log page (for another txn's records).
+            // Read-only transactions log the allocations of the partitions of
+            // their temporary tables too, so that recovery frees them if the
+            // database crashes before the transaction ends
             TransactionContext transaction = TransactionContext.getTransaction();
             if (transaction != null) {
                 recoveryManager.logAllocPart(transaction.getTransNum(), partNum);
@@ -183,7 +186,7 @@ public class DiskSpaceManagerImpl implements DiskSpaceManager {
             }
 
             TransactionContext transaction = TransactionContext.getTransaction();
-            if (transaction != null) {
+            if (transaction != null && !transaction.isReadOnly()) {
                 recoveryManager.logFreePart(transaction.getTransNum(), partNum);
             }
 
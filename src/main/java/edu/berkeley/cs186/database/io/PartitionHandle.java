@@ -174,7 +174,7 @@ class PartitionHandle implements AutoCloseable {
 
         TransactionContext transaction = TransactionContext.getTransaction();
         long vpn = DiskSpaceManager.getVirtualPageNum(partNum, pageNum);
-        if (transaction != null) {
+        if (transaction != null && !transaction.isReadOnly()) {
             recoveryManager.logAllocPage(transaction.getTransNum(), vpn);
         }
         recoveryManager.diskIOHook(vpn);
@@ -203,7 +203,7 @@ class PartitionHandle implements AutoCloseable {
 
         TransactionContext transaction = TransactionContext.getTransaction();
         long vpn = DiskSpaceManager.getVirtualPageNum(partNum, pageNum);
-        if (transaction != null) {
+        if (transaction != null && !transaction.isReadOnly()) {
             byte[] contents = new byte[PAGE_SIZE];
             readPage(pageNum, contents);
             int halfway = BufferManager.RESERVED_SPACE + BufferManager.EFFECTIVE_PAGE_SIZE / 2;
@@ -53,6 +53,9 @@ public class BufferManager implements AutoCloseable {
     // Count of number of I/Os
     private long numIOs = 0;
 
+    // Counts of the activity of each thread
+    private final ThreadLocal<IOCounters> threadCounters = ThreadLocal.withInitial(IOCounters::new);
+
     /**
      * Buffer frame, containing information about the loaded page, wrapped around the
      * underlying byte array. Free frames use the index field to create a (singly) linked
@@ -101,6 +104,31 @@ public class BufferManager implements AutoCloseable {
             super.pin();
         }
 
+        /**
+         * Pins the buffer frame, unless another thread has it pinned.
+         *
+         * @return whether the frame was pinned
+         */
+        private boolean tryPin() {
+            if (!this.frameLock.tryLock()) {
+                return false;
+            }
+            try {
+                this.pin();
+            } finally {
+                this.frameLock.unlock();
+            }
+            return true;
+        }
+
+        /**
+         * Waits until no other thread has the buffer frame pinned.
+         */
+        private void awaitUnpinned() {
+            this.frameLock.lock();
+            this.frameLock.unlock();
+        }
+
         /**
          * Unpin buffer frame.
          */
@@ -184,6 +212,7 @@ public class BufferManager implements AutoCloseable {
                 }
                 BufferManager.this.diskSpaceManager.writePage(pageNum, contents);
                 BufferManager.this.incrementIOs();
+                BufferManager.this.threadCounters.get().numPagesWritten++;
                 this.dirty = false;
             } finally {
                 super.unpin();
@@ -226,7 +255,7 @@ public class BufferManager implements AutoCloseable {
                 }
                 int offset = position + dataOffset();
                 TransactionContext transaction = TransactionContext.getTransaction();
-                if (transaction != null && !logPage) {
+                if (transaction != null && !transaction.isReadOnly() && !logPage) {
                     List<Pair<Integer, Integer>> changedRanges = getChangedBytes(offset, num, buf);
                     for (Pair<Integer, Integer> range : changedRanges) {
                         int start = range.getFirst();
@@ -395,57 +424,73 @@ public class BufferManager implements AutoCloseable {
      * @return buffer frame with specified page loaded
      */
     Frame fetchPageFrame(long pageNum) {
-        this.managerLock.lock();
-        Frame newFrame;
-        Frame evictedFrame;
-        // figure out what frame to load data to, and update manager state
-        try {
-            if (!this.diskSpaceManager.pageAllocated(pageNum)) {
-                throw new PageException("page " + pageNum + " not allocated");
+        while (true) {
+            Frame cachedFrame = null;
+            Frame newFrame = null;
+            Frame evictedFrame = null;
+            this.managerLock.lock();
+            // figure out what frame to load data to, and update manager state
+            try {
+                if (!this.diskSpaceManager.pageAllocated(pageNum)) {
+                    throw new PageException("page " + pageNum + " not allocated");
+                }
+                if (this.pageToFrame.containsKey(pageNum)) {
+                    cachedFrame = this.frames[this.pageToFrame.get(pageNum)];
+                    if (cachedFrame.tryPin()) {
+                        this.threadCounters.get().numHits++;
+                        return cachedFrame;
+                    }
+                } else {
+                    // prioritize free frames over eviction
+                    if (this.firstFreeIndex < this.frames.length) {
+                        evictedFrame = this.frames[this.firstFreeIndex];
+                        evictedFrame.setUsed();
+                    } else {
+                        evictedFrame = (Frame) evictionPolicy.evict(frames);
+                        this.pageToFrame.remove(evictedFrame.pageNum, evictedFrame.index);
+                        evictionPolicy.cleanup(evictedFrame);
+                    }
+                    int frameIndex = evictedFrame.index;
+                    newFrame = this.frames[frameIndex] = new Frame(evictedFrame.contents, frameIndex, pageNum);
+                    evictionPolicy.init(newFrame);
+
+                    evictedFrame.frameLock.lock();
+                    newFrame.frameLock.lock();
+
+                    this.pageToFrame.put(pageNum, frameIndex);
+                }
+            } finally {
+                this.managerLock.unlock();
+            }
+            if (cachedFrame != null) {
+                // Another thread has the frame pinned. Wait for it without
+                // holding managerLock, since that thread may be waiting for
+                // managerLock (e.g. to append to the log while writing to
+                // the page), and try again.
+                cachedFrame.awaitUnpinned();
+                continue;
+            }
+            // flush evicted frame
+            try {
+                evictedFrame.invalidate();
+            } finally {
+                evictedFrame.frameLock.unlock();
             }
-            if (this.pageToFrame.containsKey(pageNum)) {
-                newFrame = this.frames[this.pageToFrame.get(pageNum)];
+            // read new page into frame
+            try {
+                newFrame.pageNum = pageNum;
                 newFrame.pin();
+                this.threadCounters.get().numMisses++;
+                BufferManager.this.diskSpaceManager.readPage(pageNum, newFrame.contents);
+                this.incrementIOs();
+                this.threadCounters.get().numPagesRead++;
                 return newFrame;
+            } catch (PageException e) {
+                newFrame.unpin();
+                throw e;
+            } finally {
+                newFrame.frameLock.unlock();
             }
-            // prioritize free frames over eviction
-            if (this.firstFreeIndex < this.frames.length) {
-                evictedFrame = this.frames[this.firstFreeIndex];
-                evictedFrame.setUsed();
-            } else {
-                evictedFrame = (Frame) evictionPolicy.evict(frames);
-                this.pageToFrame.remove(evictedFrame.pageNum, evictedFrame.index);
-                evictionPolicy.cleanup(evictedFrame);
-            }
-            int frameIndex = evictedFrame.index;
-            newFrame = this.frames[frameIndex] = new Frame(evictedFrame.contents, frameIndex, pageNum);
-            evictionPolicy.init(newFrame);
-
-            evictedFrame.frameLock.lock();
-            newFrame.frameLock.lock();
-
-            this.pageToFrame.put(pageNum, frameIndex);
-        } finally {
-            this.managerLock.unlock();
-        }
-        // flush evicted frame
-        try {
-            evictedFrame.invalidate();
-        } finally {
-            evictedFrame.frameLock.unlock();
-        }
-        // read new page into frame
-        try {
-            newFrame.pageNum = pageNum;
-            newFrame.pin();
-            BufferManager.this.diskSpaceManager.readPage(pageNum, newFrame.contents);
-            this.incrementIOs();
-            return newFrame;
-        } catch (PageException e) {
-            newFrame.unpin();
-            throw e;
-        } finally {
-            newFrame.frameLock.unlock();
         }
     }
 
@@ -468,6 +513,7 @@ public class BufferManager implements AutoCloseable {
      */
     Frame fetchNewPageFrame(int partNum) {
         long pageNum = this.diskSpaceManager.allocPage(partNum);
+        this.threadCounters.get().numPagesAllocated++;
         this.managerLock.lock();
         try {
             return fetchPageFrame(pageNum);
@@ -614,6 +660,14 @@ public class BufferManager implements AutoCloseable {
         return numIOs;
     }
 
+    /**
+     * @return a snapshot of the counts of this buffer manager's activity on
+     * behalf of the current thread
+     */
+    public IOCounters getThreadIOCounters() {
+        return this.threadCounters.get().copy();
+    }
+
     public static boolean logIOs;
     private void incrementIOs() {
         if (logIOs) {
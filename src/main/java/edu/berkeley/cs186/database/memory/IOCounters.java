@@ -0,0 +1,50 @@
+package edu.berkeley.cs186.database.memory;
+
+/**
+ * Counts of the buffer manager's activity on behalf of a single thread (see
+ * BufferManager.getThreadIOCounters). Counters only ever grow, so the activity
+ * of some piece of work is the difference of the counters taken before and
+ * after it.
+ */
+public class IOCounters {
+    // Number of pages fetched that were already in a buffer frame
+    long numHits;
+    // Number of pages fetched that had to be loaded into a buffer frame
+    long numMisses;
+    // Number of pages read from disk
+    long numPagesRead;
+    // Number of pages written to disk
+    long numPagesWritten;
+    // Number of new pages allocated
+    long numPagesAllocated;
+
+    IOCounters copy() {
+        IOCounters copy = new IOCounters();
+        copy.numHits = this.numHits;
+        copy.numMisses = this.numMisses;
+        copy.numPagesRead = this.numPagesRead;
+        copy.numPagesWritten = this.numPagesWritten;
+        copy.numPagesAllocated = this.numPagesAllocated;
+        return copy;
+    }
+
+    public long getNumHits() {
+        return this.numHits;
+    }
+
+    public long getNumMisses() {
+        return this.numMisses;
+    }
+
+    public long getNumPagesRead() {
+        return this.numPagesRead;
+    }
+
+    public long getNumPagesWritten() {
+        return this.numPagesWritten;
+    }
+
+    public long getNumPagesAllocated() {
+        return this.numPagesAllocated;
+    }
+}
@@ -0,0 +1,133 @@
+package edu.berkeley.cs186.database.memory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Divides a pool of work memory, the pages query operators such as sorts,
+ * hash joins and group bys use for their buffers, between the queries that
+ * run at once.
+ *
+ * Each query acquires a grant before it's planned, and its operators size
+ * their buffers (and estimate their costs) with it. A grant is at most the
+ * amount the query requests, and at most an equal share of the pool between
+ * the queries holding grants and the new one, so that later queries still get
+ * some memory. Queries that arrive when fewer than MIN_GRANT pages are free
+ * queue, in the order they arrived, until enough is released.
+ *
+ * A query that has queued for longer than the wait timeout gets MIN_GRANT
+ * pages regardless, overcommitting the pool until grants are released: a
+ * query waiting for memory may hold locks the queries holding memory wait for.
+ */
+public class WorkMemGovernor {
+    // The least memory an operator can work with: sorts and block nested loop
+    // joins need two input buffers and an output buffer
+    public static final int MIN_GRANT = 3;
+
+    private int totalPages;
+    private int freePages;
+    private int numGrants = 0;
+    private long waitTimeoutMillis;
+
+    // Threads waiting for a grant, in the order they arrived
+    private final Deque<Thread> waiters = new ArrayDeque<>();
+
+    /**
+     * @param totalPages the number of pages of work memory to divide
+     * @param waitTimeoutMillis how long a query waits for memory before it
+     *                          runs with MIN_GRANT pages anyway
+     */
+    public WorkMemGovernor(int totalPages, long waitTimeoutMillis) {
+        if (totalPages < MIN_GRANT) {
+            throw new IllegalArgumentException("work memory pool must have at least " + MIN_GRANT + " pages");
+        }
+        this.totalPages = totalPages;
+        this.freePages = totalPages;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+    }
+
+    /**
+     * Grants up to `requested` pages of work memory, waiting if fewer than
+     * MIN_GRANT pages are free (or other queries are waiting already).
+     *
+     * @return the number of pages granted, to be released with release
+     */
+    public synchronized int acquire(int requested) {
+        Thread current = Thread.currentThread();
+        waiters.addLast(current);
+        long deadline = System.currentTimeMillis() + waitTimeoutMillis;
+        boolean interrupted = false;
+        try {
+            while (waiters.peekFirst() != current || freePages < MIN_GRANT) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    // Overcommit rather than wait forever
+                    return grant(Math.min(requested, MIN_GRANT));
+                }
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            int share = Math.max(MIN_GRANT, totalPages / (numGrants + 1));
+            return grant(Math.min(requested, Math.min(share, freePages)));
+        } finally {
+            waiters.remove(current);
+            // The next waiter may be able to go now
+            notifyAll();
+            if (interrupted) current.interrupt();
+        }
+    }
+
+    private int grant(int pages) {
+        freePages -= pages;
+        numGrants++;
+        return pages;
+    }
+
+    /**
+     * Returns `pages` pages granted by acquire to the pool.
+     */
+    public synchronized void release(int pages) {
+        freePages += pages;
+        numGrants--;
+        notifyAll();
+    }
+
+    /**
+     * Resizes the pool. Grants already made are unaffected; the pool is
+     * overcommitted until they're released if it shrinks below them.
+     */
+    public synchronized void setTotalPages(int totalPages) {
+        if (totalPages < MIN_GRANT) {
+            throw new IllegalArgumentException("work memory pool must have at least " + MIN_GRANT + " pages");
+        }
+        this.freePages += totalPages - this.totalPages;
+        this.totalPages = totalPages;
+        notifyAll();
+    }
+
+    public synchronized void setWaitTimeout(long waitTimeoutMillis) {
+        this.waitTimeoutMillis = waitTimeoutMillis;
+    }
+
+    public synchronized int getTotalPages() {
+        return totalPages;
+    }
+
+    /**
+     * @return the number of pages not granted, negative if the pool is
+     * overcommitted
+     */
+    public synchronized int getFreePages() {
+        return freePages;
+    }
+
+    /**
+     * @return the number of queries waiting for a grant
+     */
+    public synchronized int getNumWaiting() {
+        return waiters.size();
+    }
+}
@@ -0,0 +1,149 @@
+package edu.berkeley.cs186.database.query;
+
+import edu.berkeley.cs186.database.common.PredicateOperator;
+import edu.berkeley.cs186.database.common.iterator.BacktrackingIterator;
+import edu.berkeley.cs186.database.databox.DataBox;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.Schema;
+import edu.berkeley.cs186.database.table.stats.TableStats;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Stands in for another operator as the input of its parent, and records the
+ * work done on behalf of the wrapped operator in its metrics whenever the
+ * parent iterates over its records. Every other call is forwarded to the
+ * wrapped operator, which also prints the plan.
+ */
+class InstrumentedOperator extends QueryOperator {
+    private QueryOperator operator;
+
+    InstrumentedOperator(QueryOperator operator) {
+        super(operator.getType());
+        this.operator = operator;
+        this.setOutputSchema(operator.getSchema());
+        this.stats = operator.stats;
+    }
+
+    private OperatorMetrics metrics() {
+        return this.operator.getMetrics();
+    }
+
+    @Override
+    protected Schema computeSchema() {
+        return this.operator.getSchema();
+    }
+
+    @Override
+    public Iterator<Record> iterator() {
+        this.metrics().start();
+        try {
+            this.metrics().addLoop();
+            return new InstrumentedIterator(this.operator.iterator());
+        } finally {
+            this.metrics().stop();
+        }
+    }
+
+    @Override
+    public BacktrackingIterator<Record> backtrackingIterator() {
+        this.metrics().start();
+        try {
+            this.metrics().addLoop();
+            return new InstrumentedIterator(this.operator.backtrackingIterator());
+        } finally {
+            this.metrics().stop();
+        }
+    }
+
+    @Override
+    public boolean materialized() {
+        return this.operator.materialized();
+    }
+
+    @Override
+    public List<String> sortedBy() {
+        return this.operator.sortedBy();
+    }
+
+    @Override
+    public boolean pushDownRuntimeFilter(RuntimeFilter filter) {
+        return this.operator.pushDownRuntimeFilter(filter);
+    }
+
+    @Override
+    public boolean pushDownPredicate(String columnName, PredicateOperator operator, DataBox value) {
+        return this.operator.pushDownPredicate(columnName, operator, value);
+    }
+
+    @Override
+    public String str() {
+        return this.operator.str();
+    }
+
+    @Override
+    public String toString() {
+        return this.operator.toString();
+    }
+
+    @Override
+    public TableStats estimateStats() {
+        return this.operator.estimateStats();
+    }
+
+    @Override
+    public int estimateIOCost() {
+        return this.operator.estimateIOCost();
+    }
+
+    /**
+     * Measures the calls to an iterator over the records of the wrapped
+     * operator. Backtracking calls are only forwarded to iterators that
+     * support them.
+     */
+    private class InstrumentedIterator implements BacktrackingIterator<Record> {
+        private Iterator<Record> iterator;
+
+        private InstrumentedIterator(Iterator<Record> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            metrics().start();
+            try {
+                return this.iterator.hasNext();
+            } finally {
+                metrics().stop();
+            }
+        }
+
+        @Override
+        public Record next() {
+            metrics().start();
+            try {
+                Record record = this.iterator.next();
+                metrics().addRecord();
+                return record;
+            } finally {
+                metrics().stop();
+            }
+        }
+
+        @Override
+        public void markPrev() {
+            ((BacktrackingIterator<Record>) this.iterator).markPrev();
+        }
+
+        @Override
+        public void markNext() {
+            ((BacktrackingIterator<Record>) this.iterator).markNext();
+        }
+
+        @Override
+        public void reset() {
+            ((BacktrackingIterator<Record>) this.iterator).reset();
+        }
+    }
+}
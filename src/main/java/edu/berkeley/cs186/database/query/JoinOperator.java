@@ -2,8 +2,11 @@ package edu.berkeley.cs186.database.query;
 
 import edu.berkeley.cs186.database.TransactionContext;
 import edu.berkeley.cs186.database.databox.DataBox;
+import edu.berkeley.cs186.database.memory.BufferManager;
+import edu.berkeley.cs186.database.table.PageDirectory;
 import edu.berkeley.cs186.database.table.Record;
 import edu.berkeley.cs186.database.table.Schema;
+import edu.berkeley.cs186.database.table.Table;
 import edu.berkeley.cs186.database.table.stats.TableStats;
 
 public abstract class JoinOperator extends QueryOperator {
@@ -13,7 +16,10 @@ public abstract class JoinOperator extends QueryOperator {
         BNLJ,
         SORTMERGE,
         SHJ,
-        GHJ
+        GHJ,
+        PHJ,
+        HHJ,
+        INLJ
     }
     protected JoinType joinType;
 
@@ -79,14 +85,20 @@ public abstract class JoinOperator extends QueryOperator {
 
     @Override
     public String str() {
-        return String.format("%s on %s=%s (cost=%d)",
+        return String.format("%s on %s=%s (cost=%d%s)",
                 this.joinType, this.leftColumnName, this.rightColumnName,
-                this.estimateIOCost());
+                this.estimateIOCost(), this.computedStr());
+    }
+
+    @Override
+    void instrumentSources(BufferManager bufferManager) {
+        this.leftSource = instrumented(this.leftSource, bufferManager);
+        this.rightSource = instrumented(this.rightSource, bufferManager);
     }
 
     @Override
     public String toString() {
-        String r = this.str();
+        String r = this.strWithMetrics();
         if (this.leftSource != null) {
             r += ("\n-> " + this.leftSource.toString()).replaceAll("\n", "\n\t");
         }
@@ -124,6 +136,13 @@ public abstract class JoinOperator extends QueryOperator {
         return this.rightSource;
     }
 
+    /**
+     * @return the join algorithm used by this operator
+     */
+    public JoinType getJoinType() {
+        return this.joinType;
+    }
+
     /**
      * @return the transaction context this operator is being executed within
      */
@@ -176,4 +195,47 @@ public abstract class JoinOperator extends QueryOperator {
         DataBox rightRecordValue = rightRecord.getValue(this.rightColumnIndex);
         return leftRecordValue.compareTo(rightRecordValue);
     }
+
+    /**
+     * Creates a runtime filter over the join values of the build input and
+     * offers it to the probe input. The caller should add the join value of
+     * every build record to the filter and call finishBuild() on it once the
+     * build input has been consumed. If the probe input didn't accept the
+     * filter, the caller may test probe records against it itself before
+     * partitioning or spilling them.
+     *
+     * @param buildLeft true if the left input is the build input
+     * @return the new runtime filter
+     */
+    protected RuntimeFilter createRuntimeFilter(boolean buildLeft) {
+        QueryOperator buildSource = buildLeft ? this.leftSource : this.rightSource;
+        QueryOperator probeSource = buildLeft ? this.rightSource : this.leftSource;
+        int buildColumnIndex = buildLeft ? this.leftColumnIndex : this.rightColumnIndex;
+        int probeColumnIndex = buildLeft ? this.rightColumnIndex : this.leftColumnIndex;
+        TableStats buildStats = buildSource.estimateStats();
+        TableStats probeStats = probeSource.estimateStats();
+
+        // Size the filter for at least as many records as fit in memory, since
+        // estimates for intermediate results are often too low
+        int recordsPerPage = Table.computeNumRecordsPerPage(
+                PageDirectory.EFFECTIVE_PAGE_SIZE, buildSource.getSchema());
+        long expectedItems = Math.max(buildStats.getNumRecords(),
+                (long) recordsPerPage * Math.max(1, this.transaction.getWorkMemSize() - 2));
+
+        // Assuming containment of value sets, a probe value finds a match with
+        // probability buildDistinct / probeDistinct. The rest pass only as
+        // false positives.
+        double selectivity = 1.0;
+        int buildDistinct = buildStats.getHistograms().get(buildColumnIndex).getNumDistinct();
+        int probeDistinct = probeStats.getHistograms().get(probeColumnIndex).getNumDistinct();
+        if (probeDistinct > 0) {
+            double matching = Math.min(1.0, buildDistinct / (double) probeDistinct);
+            selectivity = matching + (1 - matching) * RuntimeFilter.FALSE_POSITIVE_RATE;
+        }
+
+        String probeColumnName = probeSource.getSchema().getFieldName(probeColumnIndex);
+        RuntimeFilter filter = new RuntimeFilter(probeColumnName, expectedItems, selectivity);
+        if (probeSource.pushDownRuntimeFilter(filter)) filter.markPushedDown();
+        return filter;
+    }
 }
@@ -1,11 +1,19 @@
 package edu.berkeley.cs186.database.query;
 
 import edu.berkeley.cs186.database.TransactionContext;
+import edu.berkeley.cs186.database.memory.BufferManager;
 import edu.berkeley.cs186.database.table.Record;
 
 import java.util.List;
 
 public class MaterializeOperator extends SequentialScanOperator {
+    // The number of records the source was estimated to yield
+    private int estimatedRecords;
+    // The number of records the source actually yielded
+    private int numRecords;
+    // The work done to materialize the source
+    private OperatorMetrics buildMetrics;
+
     /**
      * Operator that materializes the source operator into a temporary table immediately,
      * and then acts as a sequential scan operator over the temporary table.
@@ -14,22 +22,54 @@ public class MaterializeOperator extends SequentialScanOperator {
      */
     public MaterializeOperator(QueryOperator source,
                         TransactionContext transaction) {
-        super(OperatorType.MATERIALIZE, transaction, materializeToTable(source, transaction));
+        super(OperatorType.MATERIALIZE, transaction, transaction.createTempTable(source.getSchema()));
         setSource(source);
         setOutputSchema(source.getSchema());
+        this.estimatedRecords = source.estimateStats().getNumRecords();
+        this.buildMetrics = new OperatorMetrics(transaction.getBufferManager());
+        this.buildMetrics.start();
+        try {
+            for (Record record : source) {
+                transaction.addRecord(getTableName(), record);
+                this.numRecords++;
+            }
+        } finally {
+            this.buildMetrics.stop();
+        }
+        this.stats = this.estimateStats();
     }
 
-    private static String materializeToTable(QueryOperator source, TransactionContext transaction) {
-        String materializedTableName = transaction.createTempTable(source.getSchema());
-        for (Record record : source) {
-            transaction.addRecord(materializedTableName, record);
-        }
-        return materializedTableName;
+    /**
+     * @return the number of records the source was estimated to yield before
+     * it was materialized
+     */
+    @Override
+    public int getEstimatedNumRecords() {
+        return this.estimatedRecords;
     }
 
+    /**
+     * @return the number of records the source actually yielded
+     */
+    public int getNumRecords() {
+        return this.numRecords;
+    }
+
+    @Override
+    void instrument(BufferManager bufferManager) {
+        super.instrument(bufferManager);
+        // The source was consumed when this operator was created, before the
+        // plan could be instrumented, so its work is counted here instead
+        getMetrics().addWork(this.buildMetrics);
+    }
+
+    @Override
+    void instrumentSources(BufferManager bufferManager) {}
+
     @Override
     public String str() {
-        return "Materialize (cost: " + this.estimateIOCost() + ")";
+        return "Materialize (cost: " + this.estimateIOCost() + ", estimated rows: " + this.estimatedRecords +
+               ", actual rows: " + this.numRecords + ")" + this.filterStr();
     }
 
     @Override
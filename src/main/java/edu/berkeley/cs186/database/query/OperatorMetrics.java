@@ -0,0 +1,131 @@
+package edu.berkeley.cs186.database.query;
+
+import edu.berkeley.cs186.database.memory.BufferManager;
+import edu.berkeley.cs186.database.memory.IOCounters;
+
+/**
+ * Runtime metrics of a query operator, collected while its records are
+ * consumed (see EXPLAIN ANALYZE). As in other databases, the time and buffer
+ * activity of an operator include those of its inputs, since an operator pulls
+ * records from its inputs while yielding its own. Buffer activity is counted
+ * for the thread running the query only, so concurrent queries don't skew it.
+ */
+public class OperatorMetrics {
+    // The buffer manager to count the activity of, or null if there's none
+    private final BufferManager bufferManager;
+
+    // Number of records yielded
+    private long numRecords;
+    // Number of times the records of the operator were iterated over
+    private long numLoops;
+    // Time spent yielding records, in nanoseconds
+    private long nanos;
+    // Buffer manager activity while yielding records
+    private long numHits;
+    private long numMisses;
+    private long numPagesRead;
+    private long numPagesWritten;
+    // Number of pages allocated for temporary tables (sorted runs, hash
+    // partitions, materialized inputs)
+    private long numPagesSpilled;
+
+    // Number of measurements in progress. Operators may call into themselves
+    // (e.g. by creating an iterator while yielding a record), and only the
+    // outermost measurement counts.
+    private int depth;
+    private long startNanos;
+    private IOCounters startCounters;
+
+    OperatorMetrics(BufferManager bufferManager) {
+        this.bufferManager = bufferManager;
+    }
+
+    /**
+     * Starts measuring work done on behalf of the operator. Every call must be
+     * matched by a call to stop().
+     */
+    void start() {
+        if (this.depth++ > 0) return;
+        this.startNanos = System.nanoTime();
+        if (this.bufferManager != null) {
+            this.startCounters = this.bufferManager.getThreadIOCounters();
+        }
+    }
+
+    /**
+     * Stops measuring work started by the matching call to start().
+     */
+    void stop() {
+        if (--this.depth > 0) return;
+        this.nanos += System.nanoTime() - this.startNanos;
+        if (this.bufferManager != null) {
+            IOCounters counters = this.bufferManager.getThreadIOCounters();
+            this.numHits += counters.getNumHits() - this.startCounters.getNumHits();
+            this.numMisses += counters.getNumMisses() - this.startCounters.getNumMisses();
+            this.numPagesRead += counters.getNumPagesRead() - this.startCounters.getNumPagesRead();
+            this.numPagesWritten += counters.getNumPagesWritten() - this.startCounters.getNumPagesWritten();
+            this.numPagesSpilled += counters.getNumPagesAllocated() - this.startCounters.getNumPagesAllocated();
+        }
+    }
+
+    void addRecord() {
+        this.numRecords++;
+    }
+
+    void addLoop() {
+        this.numLoops++;
+    }
+
+    /**
+     * Adds the time and buffer activity of `other` to these metrics, e.g. to
+     * account for work an operator did before it was instrumented.
+     */
+    void addWork(OperatorMetrics other) {
+        this.nanos += other.nanos;
+        this.numHits += other.numHits;
+        this.numMisses += other.numMisses;
+        this.numPagesRead += other.numPagesRead;
+        this.numPagesWritten += other.numPagesWritten;
+        this.numPagesSpilled += other.numPagesSpilled;
+    }
+
+    public long getNumRecords() {
+        return this.numRecords;
+    }
+
+    public long getNumLoops() {
+        return this.numLoops;
+    }
+
+    public double getTimeMillis() {
+        return this.nanos / 1e6;
+    }
+
+    public long getNumHits() {
+        return this.numHits;
+    }
+
+    public long getNumMisses() {
+        return this.numMisses;
+    }
+
+    public long getNumPagesRead() {
+        return this.numPagesRead;
+    }
+
+    public long getNumPagesWritten() {
+        return this.numPagesWritten;
+    }
+
+    public long getNumPagesSpilled() {
+        return this.numPagesSpilled;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("(actual rows=%d, loops=%d, time=%.3f ms, buffer hits=%d, misses=%d, " +
+                             "pages read=%d, written=%d, spilled=%d)",
+                this.numRecords, this.numLoops, this.getTimeMillis(), this.numHits, this.numMisses,
+                this.numPagesRead, this.numPagesWritten, this.numPagesSpilled);
+    }
+}
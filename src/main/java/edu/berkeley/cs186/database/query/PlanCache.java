@@ -0,0 +1,114 @@
+package edu.berkeley.cs186.database.query;
+
+import java.util.*;
+
+/**
+ * A bounded cache of the plans chosen by the optimizer, shared by all of the
+ * transactions of a database. Plans are keyed by the text of their query with
+ * the values of its selections left out (see QueryPlan.planCacheKey), so
+ * queries that only differ in their constants reuse the same access paths,
+ * join order and join algorithms instead of enumerating joins again. Once the
+ * cache is full, the least recently used plan is evicted.
+ *
+ * A cached plan is only a recipe to build operators: every query still builds
+ * its own operators within its own transaction, with its own constants. Plans
+ * have to be invalidated when a table they read changes in a way that matters
+ * to the optimizer, i.e. on DDL and when the table is analyzed again.
+ */
+public class PlanCache {
+    // The maximum number of cached plans
+    private final int capacity;
+    // Cached plans by key, from least to most recently used
+    private final LinkedHashMap<String, CachedPlan> plans;
+    private long numHits;
+    private long numMisses;
+
+    /**
+     * @param capacity the maximum number of cached plans. Nothing is cached
+     *                 if it's 0.
+     */
+    public PlanCache(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("Plan cache capacity may not be negative.");
+        this.capacity = capacity;
+        this.plans = new LinkedHashMap<String, CachedPlan>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPlan> eldest) {
+                return size() > PlanCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * @return the cached plan for `key`, or null if there's none
+     */
+    synchronized QueryPlan.PlanRecipe get(String key) {
+        CachedPlan plan = this.plans.get(key);
+        if (plan == null) {
+            this.numMisses++;
+            return null;
+        }
+        this.numHits++;
+        return plan.recipe;
+    }
+
+    /**
+     * Caches `recipe` as the plan for `key`.
+     *
+     * @param tableNames the names of the tables the plan reads
+     */
+    synchronized void put(String key, QueryPlan.PlanRecipe recipe, Collection<String> tableNames) {
+        Set<String> names = new HashSet<>();
+        for (String tableName : tableNames) names.add(tableName.trim().toLowerCase());
+        this.plans.put(key, new CachedPlan(recipe, names));
+    }
+
+    /**
+     * Evicts every cached plan that reads the table named `tableName`.
+     */
+    public synchronized void invalidate(String tableName) {
+        String name = tableName.trim().toLowerCase();
+        this.plans.values().removeIf(plan -> plan.tableNames.contains(name));
+    }
+
+    /**
+     * Evicts every cached plan.
+     */
+    public synchronized void clear() {
+        this.plans.clear();
+    }
+
+    /**
+     * @return the number of cached plans
+     */
+    public synchronized int size() {
+        return this.plans.size();
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * @return the number of lookups that found a cached plan
+     */
+    public synchronized long getNumHits() {
+        return this.numHits;
+    }
+
+    /**
+     * @return the number of lookups that didn't find a cached plan
+     */
+    public synchronized long getNumMisses() {
+        return this.numMisses;
+    }
+
+    private static class CachedPlan {
+        QueryPlan.PlanRecipe recipe;
+        Set<String> tableNames;
+
+        CachedPlan(QueryPlan.PlanRecipe recipe, Set<String> tableNames) {
+            this.recipe = recipe;
+            this.tableNames = tableNames;
+        }
+    }
+}
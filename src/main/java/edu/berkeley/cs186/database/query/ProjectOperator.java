@@ -1,6 +1,7 @@
 package edu.berkeley.cs186.database.query;
 
 import edu.berkeley.cs186.database.databox.DataBox;
+import edu.berkeley.cs186.database.query.expr.CompiledExpression;
 import edu.berkeley.cs186.database.query.expr.Expression;
 import edu.berkeley.cs186.database.table.Record;
 import edu.berkeley.cs186.database.table.Schema;
@@ -22,6 +23,10 @@ public class ProjectOperator extends QueryOperator {
     // expression corresponds to one of the column names in outputColumns.
     private List<Expression> expressions;
 
+    // The expressions compiled, to evaluate them for each record when the
+    // query doesn't aggregate records.
+    private List<CompiledExpression> compiledExpressions;
+
     /**
      * Creates a new ProjectOperator that reads tuples from source and filters
      * out columns. Optionally computes an aggregate if it is specified.
@@ -57,6 +62,10 @@ public class ProjectOperator extends QueryOperator {
             schema.add(columns.get(i), expressions.get(i).getType());
         }
         this.outputSchema = schema;
+        this.compiledExpressions = new ArrayList<>();
+        for (Expression expression : expressions) {
+            this.compiledExpressions.add(CompiledExpression.compile(expression));
+        }
 
         Set<Integer> groupByIndices = new HashSet<>();
         for (String colName: groupByColumns) {
@@ -138,7 +147,7 @@ public class ProjectOperator extends QueryOperator {
             Record curr = this.sourceIterator.next();
             if (!this.hasAgg && groupByColumns.size() == 0 ) {
                 List<DataBox> newValues = new ArrayList<>();
-                for (Expression f: expressions) {
+                for (CompiledExpression f: compiledExpressions) {
                     newValues.add(f.evaluate(curr));
                 }
                 return new Record(newValues);
@@ -1,12 +1,16 @@
 package edu.berkeley.cs186.database.query;
 
 import edu.berkeley.cs186.database.TransactionContext;
+import edu.berkeley.cs186.database.common.PredicateOperator;
 import edu.berkeley.cs186.database.common.iterator.ArrayBacktrackingIterator;
 import edu.berkeley.cs186.database.common.iterator.BacktrackingIterator;
+import edu.berkeley.cs186.database.databox.DataBox;
+import edu.berkeley.cs186.database.memory.BufferManager;
 import edu.berkeley.cs186.database.table.PageDirectory;
 import edu.berkeley.cs186.database.table.Record;
 import edu.berkeley.cs186.database.table.Schema;
 import edu.berkeley.cs186.database.table.Table;
+import edu.berkeley.cs186.database.table.stats.StatisticsCollector;
 import edu.berkeley.cs186.database.table.stats.TableStats;
 
 import java.util.ArrayList;
@@ -15,9 +19,22 @@ import java.util.Iterator;
 import java.util.List;
 
 public abstract class QueryOperator implements Iterable<Record> {
+    // The number of buckets of the histograms of statistics collected on the
+    // records of operators computed ahead of time, as for ANALYZE
+    private static final int STATISTICS_BUCKETS = 10;
+
     protected QueryOperator source;
     protected Schema outputSchema;
     protected TableStats stats;
+    // Runtime metrics, or null if this operator isn't instrumented
+    private OperatorMetrics metrics;
+    // If this operator was computed ahead of time (see computeAhead), the
+    // number of records it was estimated to yield, statistics on the records
+    // it actually yields and the work done to compute them. Otherwise -1 and
+    // null.
+    private int estimatedRecords = -1;
+    private TableStats computedStats;
+    private OperatorMetrics computeMetrics;
 
     public enum OperatorType {
         PROJECT,
@@ -27,6 +44,7 @@ public abstract class QueryOperator implements Iterable<Record> {
         SELECT,
         GROUP_BY,
         SORT,
+        TOP_N,
         LIMIT,
         MATERIALIZE
     }
@@ -109,6 +127,23 @@ public abstract class QueryOperator implements Iterable<Record> {
         return Collections.emptyList();
     }
 
+    /**
+     * @param column a column of this operator's schema, qualified or not
+     * @return true if the records of this operator are sorted on `column`
+     */
+    public boolean isSortedBy(String column) {
+        Schema schema = this.getSchema();
+        try {
+            column = schema.matchFieldName(column);
+            for (String sortColumn : this.sortedBy()) {
+                if (schema.matchFieldName(sortColumn).equals(column)) return true;
+            }
+        } catch (RuntimeException e) {
+            // The column is ambiguous or isn't part of this schema
+        }
+        return false;
+    }
+
     /**
      * @return the source operator from which this operator draws records from
      */
@@ -171,6 +206,100 @@ public abstract class QueryOperator implements Iterable<Record> {
         );
     }
 
+    /**
+     * Computes all of the records of this operator right away rather than
+     * when the first one is read, collecting statistics on them as they're
+     * computed. Only operators that compute all of their records into a
+     * table of their own before yielding any of them can do this, and it
+     * costs them no extra I/O. From then on, the estimates of this operator
+     * and of the operators above it are based on the statistics of its
+     * actual records.
+     *
+     * @param bufferManager the buffer manager to count the work done by, or
+     *                      null to only count records and time
+     * @return statistics on the records of this operator
+     * @throws UnsupportedOperationException if this operator doesn't compute
+     * its records ahead of reading them
+     */
+    public TableStats computeAhead(BufferManager bufferManager) {
+        if (this.computedStats != null) return this.computedStats;
+        this.estimatedRecords = this.estimateStats().getNumRecords();
+        StatisticsCollector collector = new StatisticsCollector(getSchema(), STATISTICS_BUCKETS,
+                StatisticsCollector.NO_SAMPLING);
+        this.computeMetrics = new OperatorMetrics(bufferManager);
+        this.computeMetrics.start();
+        try {
+            this.computeRecords(collector);
+        } finally {
+            this.computeMetrics.stop();
+        }
+        this.computedStats = collector.build(Table.computeNumRecordsPerPage(
+                PageDirectory.EFFECTIVE_PAGE_SIZE, getSchema()));
+        this.stats = this.computedStats;
+        return this.computedStats;
+    }
+
+    /**
+     * Computes all of the records of this operator, adding each of them to
+     * `collector`, and keeps them for the iterators of this operator. See
+     * computeAhead.
+     */
+    protected void computeRecords(StatisticsCollector collector) {
+        throw new UnsupportedOperationException("This operator can't be computed ahead of time.");
+    }
+
+    /**
+     * @return statistics on the records of this operator if it was computed
+     * ahead of time, or null
+     */
+    public TableStats getComputedStats() {
+        return this.computedStats;
+    }
+
+    /**
+     * @return the number of records this operator was estimated to yield
+     * before it was computed ahead of time, or -1 if it wasn't
+     */
+    public int getEstimatedNumRecords() {
+        return this.estimatedRecords;
+    }
+
+    /**
+     * @return the estimated and actual number of records of this operator,
+     * to add to str() if it was computed ahead of time, or an empty string
+     */
+    protected String computedStr() {
+        if (this.computedStats == null) return "";
+        return ", estimated rows: " + this.estimatedRecords +
+               ", actual rows: " + this.computedStats.getNumRecords();
+    }
+
+    /**
+     * Offers a runtime join filter to this operator. An operator that accepts
+     * the filter promises to drop the records it yields whose value in the
+     * filter's column doesn't pass the filter. Operators that are simple
+     * pass-throughs for their source's records may forward the filter to it.
+     *
+     * @param filter the runtime filter to push down
+     * @return true if the filter was accepted, false otherwise
+     */
+    public boolean pushDownRuntimeFilter(RuntimeFilter filter) {
+        return false;
+    }
+
+    /**
+     * Offers a selection on the records of this operator. An operator that
+     * accepts it promises to only yield records whose value in `columnName`
+     * satisfies the predicate, so that the selection doesn't need to evaluate
+     * it again. Like runtime filters, selections may be forwarded by operators
+     * that pass the records of their source through unchanged.
+     *
+     * @return true if the selection was accepted, false otherwise
+     */
+    public boolean pushDownPredicate(String columnName, PredicateOperator operator, DataBox value) {
+        return false;
+    }
+
     /**
      * @param records an iterator of records
      * @param schema the schema of the records yielded from `records`
@@ -203,10 +332,62 @@ public abstract class QueryOperator implements Iterable<Record> {
         return operator;
     }
 
+    /**
+     * Instruments this operator and the operators below it to collect their
+     * runtime metrics while the plan is executed (see EXPLAIN ANALYZE).
+     *
+     * @param bufferManager the buffer manager to count the activity of, or
+     *                      null to only count records and time
+     */
+    void instrument(BufferManager bufferManager) {
+        this.metrics = new OperatorMetrics(bufferManager);
+        if (this.computeMetrics != null) {
+            // The sources were consumed before the plan could be
+            // instrumented, so their work is counted here instead
+            this.metrics.addWork(this.computeMetrics);
+            return;
+        }
+        this.instrumentSources(bufferManager);
+    }
+
+    /**
+     * Instruments the inputs of this operator and puts an InstrumentedOperator
+     * between this operator and each of them, so that the work done on behalf
+     * of each input is counted in its metrics.
+     */
+    void instrumentSources(BufferManager bufferManager) {
+        if (this.source != null) this.source = instrumented(this.source, bufferManager);
+    }
+
+    static QueryOperator instrumented(QueryOperator operator, BufferManager bufferManager) {
+        operator.instrument(bufferManager);
+        return new InstrumentedOperator(operator);
+    }
+
+    /**
+     * @return the runtime metrics of this operator, or null if it wasn't
+     * instrumented
+     */
+    public OperatorMetrics getMetrics() {
+        return this.metrics;
+    }
+
     public abstract String str();
 
+    /**
+     * @return str(), with the runtime metrics of this operator at the end of
+     * its first line if it was instrumented
+     */
+    protected String strWithMetrics() {
+        String str = this.str();
+        if (this.metrics == null) return str;
+        int end = str.indexOf('\n');
+        if (end < 0) end = str.length();
+        return str.substring(0, end) + " " + this.metrics + str.substring(end);
+    }
+
     public String toString() {
-        String r = this.str();
+        String r = this.strWithMetrics();
         if (this.source != null) {
             r += ("\n-> " + this.source.toString()).replaceAll("\n", "\n\t");
         }
@@ -3,9 +3,16 @@ package edu.berkeley.cs186.database.query;
 import edu.berkeley.cs186.database.TransactionContext;
 import edu.berkeley.cs186.database.common.PredicateOperator;
 import edu.berkeley.cs186.database.databox.DataBox;
+import edu.berkeley.cs186.database.query.JoinOperator.JoinType;
 import edu.berkeley.cs186.database.query.expr.Expression;
 import edu.berkeley.cs186.database.query.join.BNLJOperator;
+import edu.berkeley.cs186.database.query.join.GHJOperator;
+import edu.berkeley.cs186.database.query.join.HHJOperator;
+import edu.berkeley.cs186.database.query.join.INLJOperator;
+import edu.berkeley.cs186.database.query.join.PHJOperator;
+import edu.berkeley.cs186.database.query.join.PNLJOperator;
 import edu.berkeley.cs186.database.query.join.SNLJOperator;
+import edu.berkeley.cs186.database.query.join.SortMergeOperator;
 import edu.berkeley.cs186.database.table.Record;
 import edu.berkeley.cs186.database.table.Schema;
 
@@ -15,8 +22,23 @@ import java.util.*;
  * QueryPlan provides a set of functions to generate simple queries. Calling the
  * methods corresponding to SQL syntax stores the information in the QueryPlan,
  * and calling execute generates and executes a QueryPlan DAG.
+ *
+ * A query holds work memory from execute until its records are consumed or
+ * it's closed, so callers that may stop reading the records early should
+ * close it.
  */
-public class QueryPlan {
+public class QueryPlan implements AutoCloseable {
+    // Key of the cheapest plan for a set of tables, regardless of its order
+    private static final String NO_ORDER = "";
+    // The join algorithms considered by minCostJoinType, in the order ties
+    // between them are broken
+    private static final List<JoinType> JOIN_TYPES = Arrays.asList(
+            JoinType.SNLJ, JoinType.PNLJ, JoinType.BNLJ, JoinType.SORTMERGE,
+            JoinType.GHJ, JoinType.PHJ, JoinType.HHJ);
+    // How far off the estimated number of records of a checkpoint may be
+    // before the joins above it are planned again, see reoptimize
+    private static final int REOPTIMIZE_RATIO = 2;
+
     // The transaction this query will be executed within
     private TransactionContext transaction;
     // A query operator representing the final query plan
@@ -43,6 +65,10 @@ public class QueryPlan {
     private int limit;
     // An offset to the records yielded (OFFSET clause)
     private int offset;
+    // How to rebuild each operator considered by the optimizer, see PlanRecipe
+    private Map<QueryOperator, PlanRecipe> recipes;
+    // Results of execute that still hold work memory
+    private List<WorkMemIterator> openResults;
 
     /**
      * Creates a new QueryPlan within `transaction` with base table
@@ -85,6 +111,8 @@ public class QueryPlan {
         this.groupByColumns = new ArrayList<>();
         this.limit = -1;
         this.offset = 0;
+        this.recipes = new IdentityHashMap<>();
+        this.openResults = new ArrayList<>();
 
         // This will be set after calling execute()
         this.finalOperator = null;
@@ -310,13 +338,26 @@ public class QueryPlan {
 
     /**
      * Sets the final operator to a sort operator if a sort was specified and
-     * the final operator isn't already sorted.
+     * the final operator isn't already sorted. If a limit was specified and
+     * the first limit + offset records fit in memory, a top-N operator is
+     * used instead so that the records never have to be fully sorted.
      */
     private void addSort() {
         if (this.sortColumn == null) return;
-        if (this.finalOperator.sortedBy().contains(sortColumn.toLowerCase())) {
+        if (this.finalOperator.isSortedBy(this.sortColumn)) {
             return; // already sorted
         }
+        long n = (long) this.limit + this.offset;
+        if (this.limit >= 0 && TopNOperator.fitsInMemory(
+                this.transaction, this.finalOperator.getSchema(), n)) {
+            // The limit operator added afterwards still applies the offset
+            this.finalOperator = new TopNOperator(
+                    this.finalOperator,
+                    this.sortColumn,
+                    n
+            );
+            return;
+        }
         this.finalOperator = new SortOperator(
                 this.transaction,
                 this.finalOperator,
@@ -574,21 +615,127 @@ public class QueryPlan {
      * minimum cost operator can be broken arbitrarily.
      */
     public QueryOperator minCostSingleAccess(String table) {
-        QueryOperator minOp = new SequentialScanOperator(this.transaction, table);
+        return singleAccessPlans(table).get(NO_ORDER);
+    }
 
-        // TODO(proj3_part2): implement
-        return minOp;
+    /**
+     * Finds the lowest cost ways to access the given table, as in
+     * minCostSingleAccess. Besides the overall cheapest access, the cheapest
+     * index scan yielding records in an interesting order is kept as well.
+     *
+     * @return a map from each interesting order (see interestingOrders) to the
+     * lowest cost operator accessing the table in that order, and from NO_ORDER
+     * to the lowest cost operator overall
+     */
+    private Map<String, QueryOperator> singleAccessPlans(String table) {
+        Map<String, QueryOperator> plans = new HashMap<>();
+        addPlan(plans, build(plan -> plan.sequentialScan(table)));
+        for (int i : getEligibleIndexColumns(table)) {
+            addPlan(plans, build(plan -> plan.indexScan(table, i)));
+        }
+        return plans;
+    }
+
+    /**
+     * @return a sequential scan over `table` followed by its selections
+     */
+    private QueryOperator sequentialScan(String table) {
+        return addEligibleSelections(new SequentialScanOperator(this.transaction, table), -1);
+    }
+
+    /**
+     * @return an index scan over `table` for the select predicate at index
+     * `predicateIndex` in this.selectPredicates, followed by the table's other
+     * selections
+     */
+    private QueryOperator indexScan(String table, int predicateIndex) {
+        SelectPredicate predicate = this.selectPredicates.get(predicateIndex);
+        QueryOperator indexScan = new IndexScanOperator(this.transaction, table,
+                predicate.column, predicate.operator, predicate.value);
+        return addEligibleSelections(indexScan, predicateIndex);
+    }
+
+    /**
+     * Applies the select predicates of `table` to `source`.
+     */
+    private QueryOperator addTableSelections(QueryOperator source, String table) {
+        for (SelectPredicate predicate : this.selectPredicates) {
+            if (!predicate.tableName.equals(table)) continue;
+            source = new SelectOperator(source, predicate.tableName + "." + predicate.column,
+                    predicate.operator, predicate.value);
+        }
+        return source;
+    }
+
+    // Interesting Orders //////////////////////////////////////////////////////
+
+    /**
+     * @return the columns whose sort order may make a later operator cheaper:
+     * the join columns, which sort merge joins can use without sorting again,
+     * and the ORDER BY column
+     */
+    private List<String> interestingOrders() {
+        List<String> orders = new ArrayList<>();
+        for (JoinPredicate predicate : this.joinPredicates) {
+            orders.add(predicate.leftColumn);
+            orders.add(predicate.rightColumn);
+        }
+        if (this.sortColumn != null) orders.add(this.sortColumn);
+        return orders;
+    }
+
+    /**
+     * Adds `op` to the plans of a set of tables if it's the cheapest plan
+     * overall, or the cheapest plan sorted on one of the interesting orders.
+     */
+    private void addPlan(Map<String, QueryOperator> plans, QueryOperator op) {
+        if (isBetterPlan(op, plans.get(NO_ORDER))) plans.put(NO_ORDER, op);
+        for (String column : interestingOrders()) {
+            if (op.isSortedBy(column) && isBetterPlan(op, plans.get(column))) plans.put(column, op);
+        }
+    }
+
+    /**
+     * @return true if `op` costs less than `current`, or if both are joins of
+     * the same cost and `op` uses a simpler algorithm (one that comes first in
+     * JoinOperator.JoinType). Ties between otherwise equivalent plans go to
+     * `current`.
+     */
+    private static boolean isBetterPlan(QueryOperator op, QueryOperator current) {
+        if (current == null) return true;
+        int cost = op.estimateIOCost();
+        int currentCost = current.estimateIOCost();
+        if (cost != currentCost) return cost < currentCost;
+        if (!(op instanceof JoinOperator) || !(current instanceof JoinOperator)) return false;
+        return ((JoinOperator) op).getJoinType().compareTo(((JoinOperator) current).getJoinType()) < 0;
+    }
+
+    /**
+     * @return the distinct operators of `plans`, starting with the cheapest
+     * one overall so that ties are broken the same way on every run
+     */
+    private List<QueryOperator> distinctPlans(Map<String, QueryOperator> plans) {
+        List<String> orders = new ArrayList<>(plans.keySet());
+        Collections.sort(orders);
+        List<QueryOperator> result = new ArrayList<>();
+        for (String order : orders) {
+            QueryOperator op = plans.get(order);
+            boolean seen = false;
+            for (QueryOperator other : result) seen |= other == op;
+            if (!seen) result.add(op);
+        }
+        return result;
     }
 
     // Task 6: Join Selection //////////////////////////////////////////////////
 
     /**
      * Given a join predicate between left and right operators, finds the lowest
-     * cost join operator out of join types in JoinOperator.JoinType. By default
-     * only considers SNLJ and BNLJ to prevent dependencies on GHJ, Sort and SMJ.
+     * cost join operator out of join types in JoinOperator.JoinType. Considers
+     * SNLJ, PNLJ, BNLJ, sort merge, GHJ, PHJ and HHJ. Index nested loop joins
+     * need a base table on the right and are considered in minCostJoins.
      *
-     * Reminder: Your implementation does not need to consider cartesian products
-     * and does not need to keep track of interesting orders.
+     * Cartesian products are not considered.
      *
      * @return lowest cost join QueryOperator between the input operators
      */
@@ -598,10 +745,7 @@ public class QueryPlan {
                                           String rightColumn) {
         QueryOperator bestOperator = null;
         int minimumCost = Integer.MAX_VALUE;
-        List<QueryOperator> allJoins = new ArrayList<>();
-        allJoins.add(new SNLJOperator(leftOp, rightOp, leftColumn, rightColumn, this.transaction));
-        allJoins.add(new BNLJOperator(leftOp, rightOp, leftColumn, rightColumn, this.transaction));
-        for (QueryOperator join : allJoins) {
+        for (QueryOperator join : allJoinTypes(leftOp, rightOp, leftColumn, rightColumn)) {
             int joinCost = join.estimateIOCost();
             if (joinCost < minimumCost) {
                 bestOperator = join;
@@ -611,6 +755,85 @@ public class QueryPlan {
         return bestOperator;
     }
 
+    /**
+     * @return a join operator of every type in minCostJoinType between the
+     * input operators, in the order ties between them are broken
+     */
+    private List<QueryOperator> allJoinTypes(QueryOperator leftOp,
+                                             QueryOperator rightOp,
+                                             String leftColumn,
+                                             String rightColumn) {
+        PlanRecipe leftRecipe = this.recipes.get(leftOp);
+        PlanRecipe rightRecipe = this.recipes.get(rightOp);
+        List<QueryOperator> allJoins = new ArrayList<>();
+        for (JoinType joinType : JOIN_TYPES) {
+            QueryOperator join = createJoin(joinType, leftOp, rightOp, leftColumn, rightColumn);
+            if (leftRecipe != null && rightRecipe != null) {
+                this.recipes.put(join, plan -> plan.createJoin(joinType, leftRecipe.build(plan),
+                        rightRecipe.build(plan), leftColumn, rightColumn));
+            }
+            allJoins.add(join);
+        }
+        return allJoins;
+    }
+
+    /**
+     * @return a join operator of type `joinType` between the input operators
+     */
+    private QueryOperator createJoin(JoinType joinType,
+                                     QueryOperator leftOp,
+                                     QueryOperator rightOp,
+                                     String leftColumn,
+                                     String rightColumn) {
+        switch (joinType) {
+            case SNLJ:
+                return new SNLJOperator(leftOp, rightOp, leftColumn, rightColumn, this.transaction);
+            case PNLJ:
+                return new PNLJOperator(leftOp, rightOp, leftColumn, rightColumn, this.transaction);
+            case BNLJ:
+                return new BNLJOperator(leftOp, rightOp, leftColumn, rightColumn, this.transaction);
+            case SORTMERGE:
+                return new SortMergeOperator(leftOp, rightOp, leftColumn, rightColumn, this.transaction);
+            case GHJ:
+                return new GHJOperator(leftOp, rightOp, leftColumn, rightColumn, this.transaction);
+            case PHJ:
+                return new PHJOperator(leftOp, rightOp, leftColumn, rightColumn, this.transaction);
+            case HHJ:
+                return new HHJOperator(leftOp, rightOp, leftColumn, rightColumn, this.transaction);
+            default:
+                throw new UnsupportedOperationException("Unsupported join type " + joinType);
+        }
+    }
+
+    /**
+     * @return an index nested loop join of `leftOp` with the base table
+     * `rightTable`, followed by the selections on `rightTable`, or null if
+     * there's no usable index on the right join column
+     */
+    private QueryOperator indexNestedLoopJoin(QueryOperator leftOp,
+                                              String rightTable,
+                                              String leftColumn,
+                                              String rightColumn) {
+        String indexColumn = rightColumn.substring(rightColumn.indexOf('.') + 1);
+        if (!this.transaction.indexExists(rightTable, indexColumn)) return null;
+        Schema leftSchema = leftOp.getSchema();
+        Schema rightSchema = this.transaction.getFullyQualifiedSchema(rightTable);
+        if (!leftSchema.getFieldType(leftSchema.findField(leftColumn)).equals(
+                rightSchema.getFieldType(rightSchema.findField(rightColumn)))) {
+            // Index lookups need keys of the same type as the index
+            return null;
+        }
+        QueryOperator join = new INLJOperator(leftOp, rightTable, leftColumn, rightColumn,
+                this.transaction);
+        join = addTableSelections(join, rightTable);
+        PlanRecipe leftRecipe = this.recipes.get(leftOp);
+        if (leftRecipe != null) {
+            this.recipes.put(join, plan -> plan.indexNestedLoopJoin(leftRecipe.build(plan),
+                    rightTable, leftColumn, rightColumn));
+        }
+        return join;
+    }
+
     /**
      * Iterate through all table sets in the previous pass of the search. For
      * each table set, check each join predicate to see if there is a valid join
@@ -630,22 +853,75 @@ public class QueryPlan {
             Map<Set<String>, QueryOperator> prevMap,
             Map<Set<String>, QueryOperator> pass1Map) {
         Map<Set<String>, QueryOperator> result = new HashMap<>();
-        // TODO(proj3_part2): implement
-        // We provide a basic description of the logic you have to implement:
-        // For each set of tables in prevMap
-        //   For each join predicate listed in this.joinPredicates
-        //      Get the left side and the right side of the predicate (table name and column)
-        //
-        //      Case 1: The set contains left table but not right, use pass1Map
-        //              to fetch an operator to access the rightTable
-        //      Case 2: The set contains right table but not left, use pass1Map
-        //              to fetch an operator to access the leftTable.
-        //      Case 3: Otherwise, skip this join predicate and continue the loop.
-        //
-        //      Using the operator from Case 1 or 2, use minCostJoinType to
-        //      calculate the cheapest join with the new table (the one you
-        //      fetched an operator for from pass1Map) and the previously joined
-        //      tables. Then, update the result map if needed.
+        Map<Set<String>, Map<String, QueryOperator>> plans = minCostJoinsByOrder(
+                withoutOrders(prevMap), withoutOrders(pass1Map));
+        for (Set<String> tables : plans.keySet()) {
+            result.put(tables, plans.get(tables).get(NO_ORDER));
+        }
+        return result;
+    }
+
+    /**
+     * Same as minCostJoins, but keeps the lowest cost plan for every
+     * interesting order of each set of tables (System R's interesting orders)
+     * and not only the lowest cost plan overall. Every plan of a set from
+     * prevMap is joined with every plan of the new table, so that a sort
+     * merge join can for instance use an index scan's order instead of
+     * sorting again.
+     *
+     * @param prevMap  maps a set of tables to its plans, keyed by order
+     * @param pass1Map maps each single table to its access plans, keyed by
+     *                 order
+     * @return a mapping of table names to their plans, keyed by order
+     */
+    private Map<Set<String>, Map<String, QueryOperator>> minCostJoinsByOrder(
+            Map<Set<String>, Map<String, QueryOperator>> prevMap,
+            Map<Set<String>, Map<String, QueryOperator>> pass1Map) {
+        Map<Set<String>, Map<String, QueryOperator>> result = new HashMap<>();
+        for (Set<String> tables : prevMap.keySet()) {
+            for (JoinPredicate predicate : this.joinPredicates) {
+                // The columns on the side of the tables joined so far and on
+                // the side of the new table
+                String newTable, prevColumn, newColumn;
+                if (tables.contains(predicate.leftTable) && !tables.contains(predicate.rightTable)) {
+                    newTable = predicate.rightTable;
+                    prevColumn = predicate.leftColumn;
+                    newColumn = predicate.rightColumn;
+                } else if (tables.contains(predicate.rightTable) && !tables.contains(predicate.leftTable)) {
+                    newTable = predicate.leftTable;
+                    prevColumn = predicate.rightColumn;
+                    newColumn = predicate.leftColumn;
+                } else continue;
+
+                Set<String> joined = new HashSet<>(tables);
+                joined.add(newTable);
+                Map<String, QueryOperator> plans = result.computeIfAbsent(joined, k -> new HashMap<>());
+                List<QueryOperator> newOps = distinctPlans(pass1Map.get(Collections.singleton(newTable)));
+                for (QueryOperator prevOp : distinctPlans(prevMap.get(tables))) {
+                    for (QueryOperator newOp : newOps) {
+                        for (QueryOperator join : allJoinTypes(prevOp, newOp, prevColumn, newColumn)) {
+                            addPlan(plans, join);
+                        }
+                    }
+                    QueryOperator indexJoin = indexNestedLoopJoin(prevOp, newTable, prevColumn, newColumn);
+                    if (indexJoin != null) addPlan(plans, indexJoin);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return `map` with each operator as the only plan of its set of tables
+     */
+    private static Map<Set<String>, Map<String, QueryOperator>> withoutOrders(
+            Map<Set<String>, QueryOperator> map) {
+        Map<Set<String>, Map<String, QueryOperator>> result = new HashMap<>();
+        for (Set<String> tables : map.keySet()) {
+            Map<String, QueryOperator> plans = new HashMap<>();
+            plans.put(NO_ORDER, map.get(tables));
+            result.put(tables, plans);
+        }
         return result;
     }
 
@@ -682,20 +958,363 @@ public class QueryPlan {
      * @return an iterator of records that is the result of this query
      */
     public Iterator<Record> execute() {
+        return this.execute(false);
+    }
+
+    /**
+     * Like execute(), but can also instrument every operator of the chosen
+     * plan, so that once the records of the query are consumed the final
+     * operator prints each operator's actual row count, time and buffer
+     * activity next to its estimates (see QueryOperator.getMetrics).
+     *
+     * @param analyze whether to collect the runtime metrics of the operators
+     * @return an iterator of records that is the result of this query
+     */
+    public Iterator<Record> execute(boolean analyze) {
+        // The operators of the plan size their buffers (and estimate their
+        // costs) with the work memory granted to the query, which is held
+        // until its records are consumed or the query is closed
+        this.transaction.reserveWorkMem();
+        try {
+            WorkMemIterator records = new WorkMemIterator(plan(analyze));
+            this.openResults.add(records);
+            return records;
+        } catch (RuntimeException e) {
+            this.transaction.releaseWorkMem();
+            throw e;
+        }
+    }
+
+    private Iterator<Record> plan(boolean analyze) {
         this.transaction.setAliasMap(this.aliases);
-        // TODO(proj3_part2): implement
-        // Pass 1: For each table, find the lowest cost QueryOperator to access
-        // the table. Construct a mapping of each table name to its lowest cost
-        // operator.
-        //
+        // Queries of the same shape as a previous one reuse its plan
+        PlanCache planCache = this.transaction.getPlanCache();
+        String key = planCache == null ? null : planCacheKey();
+        PlanRecipe cached = key == null ? null : planCache.get(key);
+        if (cached != null) {
+            this.finalOperator = cached.build(this);
+        } else {
+            this.finalOperator = optimize();
+            PlanRecipe recipe = this.recipes.get(this.finalOperator);
+            if (key != null && recipe != null) {
+                List<String> baseTables = new ArrayList<>();
+                for (String table : this.tableNames) baseTables.add(this.aliases.get(table));
+                planCache.put(key, recipe, baseTables);
+            }
+        }
+        this.recipes.clear();
+        QueryOperator joins = this.finalOperator;
+        this.addOperatorsAbove();
+        if (findCheckpoint(joins) == null) return this.records(analyze);
+
+        // Checkpoints are computed when the records of the query are first
+        // read, so that EXPLAIN without ANALYZE doesn't compute them
+        return new Iterator<Record>() {
+            private Iterator<Record> records = null;
+
+            @Override
+            public boolean hasNext() {
+                if (this.records == null) {
+                    transaction.setAliasMap(aliases);
+                    finalOperator = reoptimize(joins);
+                    addOperatorsAbove();
+                    this.records = records(analyze);
+                }
+                return this.records.hasNext();
+            }
+
+            @Override
+            public Record next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return this.records.next();
+            }
+        };
+    }
+
+    /**
+     * Adds group by, project, sort and limit operators on top of the joins
+     * in finalOperator.
+     */
+    private void addOperatorsAbove() {
+        this.addGroupBy();
+        this.addProject();
+        this.addSort();
+        this.addLimit();
+    }
+
+    /**
+     * @return an iterator over the records of finalOperator, which
+     * instruments the plan first if `analyze`
+     */
+    private Iterator<Record> records(boolean analyze) {
+        if (analyze) {
+            return QueryOperator.instrumented(this.finalOperator, this.transaction.getBufferManager()).iterator();
+        }
+        return this.finalOperator.iterator();
+    }
+
+    /**
+     * Releases the work memory held by the results of execute whose records
+     * weren't all consumed. Their iterators have no more records afterwards.
+     * Closing a query more than once has no effect.
+     */
+    @Override
+    public void close() {
+        for (WorkMemIterator records : new ArrayList<>(this.openResults)) {
+            records.release();
+        }
+    }
+
+    /**
+     * Releases the work memory of the query once its records are consumed,
+     * or once the query is closed.
+     */
+    private class WorkMemIterator implements Iterator<Record> {
+        private Iterator<Record> records;
+        private boolean released = false;
+
+        private WorkMemIterator(Iterator<Record> records) {
+            this.records = records;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (released) return false;
+            boolean hasNext = records.hasNext();
+            if (!hasNext) release();
+            return hasNext;
+        }
+
+        private void release() {
+            if (released) return;
+            released = true;
+            openResults.remove(this);
+            transaction.releaseWorkMem();
+        }
+
+        @Override
+        public Record next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return records.next();
+        }
+    }
+
+    /**
+     * Enumerates the plans of this query with the System R algorithm.
+     *
+     * @return the lowest cost plan
+     */
+    private QueryOperator optimize() {
+        // Pass 1: For each table, find the lowest cost ways to access the
+        // table, overall and in each interesting order.
+        Map<Set<String>, Map<String, QueryOperator>> pass1Map = new HashMap<>();
+        for (String table : this.tableNames) {
+            pass1Map.put(Collections.singleton(table), singleAccessPlans(table));
+        }
+
         // Pass i: On each pass, use the results from the previous pass to find
         // the lowest cost joins with each table from pass 1. Repeat until all
         // tables have been joined.
-        //
-        // Set the final operator to the lowest cost operator from the last
-        // pass, add group by, project, sort and limit operators, and return an
-        // iterator over the final operator.
-        return this.executeNaive(); // TODO(proj3_part2): Replace this!
+        Map<Set<String>, Map<String, QueryOperator>> prevMap = pass1Map;
+        for (int i = 1; i < this.tableNames.size(); i++) {
+            prevMap = minCostJoinsByOrder(prevMap, pass1Map);
+        }
+
+        // Pick the lowest cost operator from the last pass, counting the cost
+        // of sorting its output when there's an ORDER BY
+        return minCostFinalOperator(prevMap);
+    }
+
+    /**
+     * Plans the joins of the tables that `source` doesn't cover yet on top of
+     * it, the same way optimize plans the joins of the whole query.
+     *
+     * @param source an operator over the tables in `joined`
+     * @return the lowest cost plan joining `source` with the other tables
+     */
+    private QueryOperator optimizeFrom(QueryOperator source, Set<String> joined) {
+        Map<Set<String>, Map<String, QueryOperator>> pass1Map = new HashMap<>();
+        for (String table : this.tableNames) {
+            if (joined.contains(table)) continue;
+            pass1Map.put(Collections.singleton(table), singleAccessPlans(table));
+        }
+        Map<String, QueryOperator> sourcePlans = new HashMap<>();
+        addPlan(sourcePlans, source);
+        Map<Set<String>, Map<String, QueryOperator>> prevMap = new HashMap<>();
+        prevMap.put(joined, sourcePlans);
+        for (int i = 0; i < pass1Map.size(); i++) {
+            prevMap = minCostJoinsByOrder(prevMap, pass1Map);
+        }
+        return minCostFinalOperator(prevMap);
+    }
+
+    /**
+     * Picks the plan to execute out of the plans of the last pass. This is the
+     * lowest cost plan overall, unless the query is sorted and a plan in the
+     * right order costs less than sorting the output of the cheapest plan.
+     */
+    private QueryOperator minCostFinalOperator(Map<Set<String>, Map<String, QueryOperator>> plans) {
+        Map<Set<String>, QueryOperator> cheapest = new HashMap<>();
+        for (Set<String> tables : plans.keySet()) cheapest.put(tables, plans.get(tables).get(NO_ORDER));
+        QueryOperator minOp = minCostOperator(cheapest);
+        if (this.sortColumn == null || !this.groupByColumns.isEmpty() ||
+                minOp.isSortedBy(this.sortColumn)) {
+            return minOp;
+        }
+        int sortedCost;
+        try {
+            sortedCost = new SortOperator(this.transaction, minOp, this.sortColumn).estimateIOCost();
+        } catch (RuntimeException e) {
+            // The sort column doesn't belong to the joined tables, for
+            // instance because it's an alias of a projected expression
+            return minOp;
+        }
+        for (Map<String, QueryOperator> tablePlans : plans.values()) {
+            if (!tablePlans.containsValue(minOp)) continue;
+            QueryOperator sortedOp = tablePlans.get(this.sortColumn);
+            if (sortedOp != null && sortedOp.estimateIOCost() < sortedCost) return sortedOp;
+        }
+        return minOp;
+    }
+
+    // Adaptive Execution ////////////////////////////////////////////////////
+
+    /**
+     * Cardinality estimates compound over joins, so the join order chosen for
+     * the tables higher up in a plan is only as good as the estimates of the
+     * joins below them. Some operators compute all of their records into a
+     * table of their own before they yield any: sorts, and grace hash joins.
+     * The first of these to run whose records come out of a join is a
+     * checkpoint: it's computed ahead of time, collecting statistics on its
+     * records as it writes them (see QueryOperator.computeAhead). If it yields
+     * more than REOPTIMIZE_RATIO times as many records as estimated, or fewer
+     * than 1 / REOPTIMIZE_RATIO times as many, the remaining joins are
+     * planned again on top of it with the actual sizes. This is repeated for
+     * the checkpoints of the plan until there are none left.
+     *
+     * No records are written that the plan wouldn't have written anyway.
+     * Checkpoints show the estimated and actual number of their records when
+     * the plan is printed.
+     *
+     * @return the plan to execute in place of `plan`
+     */
+    private QueryOperator reoptimize(QueryOperator plan) {
+        QueryOperator checkpoint = findCheckpoint(plan);
+        while (checkpoint != null) {
+            int estimated = checkpoint.estimateStats().getNumRecords();
+            int actual = checkpoint.computeAhead(this.transaction.getBufferManager()).getNumRecords();
+            if (Math.max(estimated, actual) > REOPTIMIZE_RATIO * Math.max(1, Math.min(estimated, actual))) {
+                plan = optimizeFrom(checkpoint, tablesOf(checkpoint));
+            }
+            checkpoint = findCheckpoint(plan);
+        }
+        return plan;
+    }
+
+    /**
+     * Plans are left deep, so only the operators along the leftmost path of
+     * `plan` may have joins below them.
+     *
+     * @return the deepest sort or grace hash join along the leftmost path of
+     * `plan` that yields the records of a join to another join, and that
+     * hasn't been computed yet, or null if there is none
+     */
+    private static QueryOperator findCheckpoint(QueryOperator plan) {
+        QueryOperator checkpoint = null;
+        // Whether there's a join above `op`
+        boolean joinAbove = false;
+        QueryOperator op = plan;
+        while (op != null && op.getComputedStats() == null) {
+            boolean computesAll = op.getType() == QueryOperator.OperatorType.SORT ||
+                    (op.isJoin() && ((JoinOperator) op).getJoinType() == JoinType.GHJ);
+            if (joinAbove && computesAll && containsJoin(op)) checkpoint = op;
+            if (op.isJoin()) {
+                joinAbove = true;
+                op = ((JoinOperator) op).getLeftSource();
+            } else {
+                op = op.getSource();
+            }
+        }
+        return checkpoint;
+    }
+
+    /**
+     * @return true if `op` joins records that haven't been computed yet
+     */
+    private static boolean containsJoin(QueryOperator op) {
+        while (op != null && op.getComputedStats() == null) {
+            if (op.isJoin()) return true;
+            op = op.getSource();
+        }
+        return false;
+    }
+
+    /**
+     * @return the tables of this query whose columns `op` yields
+     */
+    private Set<String> tablesOf(QueryOperator op) {
+        Set<String> tables = new HashSet<>();
+        for (String field : op.getSchema().getFieldNames()) {
+            String prefix = field.substring(0, Math.max(0, field.indexOf('.')));
+            for (String table : this.tableNames) {
+                if (table.equalsIgnoreCase(prefix)) tables.add(table);
+            }
+        }
+        return tables;
+    }
+
+    // Plan Caching //////////////////////////////////////////////////////////
+
+    /**
+     * Rebuilds an operator chosen by the optimizer for another QueryPlan of
+     * the same shape (see planCacheKey), within that plan's transaction and
+     * with the values of that plan's selections. Recipes must not hold on to
+     * anything specific to the plan they were created by.
+     */
+    interface PlanRecipe {
+        QueryOperator build(QueryPlan plan);
+    }
+
+    /**
+     * @return the operator built by `recipe` for this plan, remembering the
+     * recipe so that the operator can be rebuilt later
+     */
+    private QueryOperator build(PlanRecipe recipe) {
+        QueryOperator op = recipe.build(this);
+        this.recipes.put(op, recipe);
+        return op;
+    }
+
+    /**
+     * Queries with the same key have the same tables, joins, selected columns
+     * and predicates, and ORDER BY column, so the plan chosen for one of them
+     * can be used for the others. Only the values of the selections may
+     * differ. Transactions that read a snapshot can't use indices, so their
+     * plans are cached under keys of their own.
+     *
+     * @return the text of this query with the values of its selections
+     * replaced by their types, or null if the plan of this query can't be
+     * cached because it reads temporary tables from a WITH clause, whose
+     * names are different every time
+     */
+    String planCacheKey() {
+        if (!this.cteAliases.isEmpty()) return null;
+        StringBuilder key = new StringBuilder("FROM");
+        for (String table : this.tableNames) {
+            key.append(' ').append(this.aliases.get(table)).append(" AS ").append(table);
+        }
+        for (JoinPredicate predicate : this.joinPredicates) {
+            key.append(" ON ").append(predicate.leftColumn).append(" = ").append(predicate.rightColumn);
+        }
+        for (SelectPredicate predicate : this.selectPredicates) {
+            key.append(" WHERE ").append(predicate.tableName).append('.').append(predicate.column)
+               .append(' ').append(predicate.operator.toSymbol()).append(" ?")
+               .append(predicate.value.getTypeId());
+        }
+        if (!this.groupByColumns.isEmpty()) key.append(" GROUP BY");
+        if (this.sortColumn != null) key.append(" ORDER BY ").append(this.sortColumn);
+        if (this.transaction.readsSnapshot()) key.append(" SNAPSHOT");
+        return key.toString();
     }
 
     // EXECUTE NAIVE ///////////////////////////////////////////////////////////
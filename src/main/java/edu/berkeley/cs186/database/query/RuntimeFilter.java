@@ -0,0 +1,121 @@
+package edu.berkeley.cs186.database.query;
+
+import edu.berkeley.cs186.database.common.BloomFilter;
+import edu.berkeley.cs186.database.databox.DataBox;
+
+/**
+ * A runtime join filter. While a hash join builds its hash table, it adds the
+ * join value of every build record to a Bloom filter. The filter is pushed
+ * down into the probe input (see QueryOperator#pushDownRuntimeFilter) so that
+ * probe records which can't possibly find a match are dropped before they are
+ * partitioned, sorted or spilled by the operators above the scan.
+ *
+ * A filter lets every record through until the build phase is finished, so
+ * it is always safe to evaluate. Since the filter may yield false positives,
+ * the join still has to compare join values itself.
+ */
+public class RuntimeFilter {
+    // Target false positive rate of the underlying Bloom filter
+    static final double FALSE_POSITIVE_RATE = 0.01;
+
+    // The name of the probe column this filter applies to
+    private String columnName;
+    // Join values of the build input
+    private BloomFilter bloomFilter;
+    // true once every build value has been added
+    private boolean built;
+    // true if an operator on the probe side of the join evaluates this filter
+    private boolean pushedDown;
+    // Estimated fraction of probe records that pass the filter
+    private double estimatedSelectivity;
+    // Number of probe records tested and passed once the filter was built
+    private long numTested;
+    private long numPassed;
+
+    /**
+     * @param columnName the name of the probe column to filter on
+     * @param expectedItems the expected number of build records
+     * @param estimatedSelectivity estimated fraction of probe records that
+     *                             will pass the filter
+     */
+    public RuntimeFilter(String columnName, long expectedItems, double estimatedSelectivity) {
+        this.columnName = columnName;
+        this.bloomFilter = new BloomFilter(expectedItems, FALSE_POSITIVE_RATE);
+        this.built = false;
+        this.pushedDown = false;
+        this.estimatedSelectivity = estimatedSelectivity;
+        this.numTested = 0;
+        this.numPassed = 0;
+    }
+
+    public String getColumnName() {
+        return this.columnName;
+    }
+
+    /**
+     * @return true if an operator on the probe side of the join accepted
+     * this filter, in which case the join doesn't need to evaluate it
+     */
+    public boolean isPushedDown() {
+        return this.pushedDown;
+    }
+
+    void markPushedDown() {
+        this.pushedDown = true;
+    }
+
+    /**
+     * Adds the join value of a build record to this filter.
+     */
+    public void add(DataBox value) {
+        if (this.built) throw new IllegalStateException("Runtime filter has already been built.");
+        this.bloomFilter.add(value);
+    }
+
+    /**
+     * Marks the end of the build phase. Records are only filtered out after
+     * this has been called.
+     */
+    public void finishBuild() {
+        this.built = true;
+    }
+
+    /**
+     * @return false if no build record has the join value value, true if
+     * one might
+     */
+    public boolean test(DataBox value) {
+        if (!this.built) return true;
+        this.numTested++;
+        if (!this.bloomFilter.mightContain(value)) return false;
+        this.numPassed++;
+        return true;
+    }
+
+    public long getNumTested() {
+        return this.numTested;
+    }
+
+    public long getNumPassed() {
+        return this.numPassed;
+    }
+
+    /**
+     * @return the observed fraction of probe records that passed this filter,
+     * or the estimated fraction if no records have been tested yet
+     */
+    public double getSelectivity() {
+        if (this.numTested == 0) return this.estimatedSelectivity;
+        return (double) this.numPassed / this.numTested;
+    }
+
+    @Override
+    public String toString() {
+        if (this.numTested == 0) {
+            return String.format("Bloom Filter on %s (est. selectivity=%.2f)",
+                    this.columnName, this.estimatedSelectivity);
+        }
+        return String.format("Bloom Filter on %s (selectivity=%.2f, passed=%d/%d)",
+                this.columnName, getSelectivity(), this.numPassed, this.numTested);
+    }
+}
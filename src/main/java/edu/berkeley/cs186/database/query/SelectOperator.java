@@ -14,6 +14,9 @@ public class SelectOperator extends QueryOperator {
     private String columnName;
     private PredicateOperator operator;
     private DataBox value;
+    // Whether the source accepted this selection, in which case its records
+    // already satisfy it
+    private boolean pushedDown;
 
     /**
      * Creates a new SelectOperator that pulls from source and only returns tuples for which the
@@ -34,6 +37,7 @@ public class SelectOperator extends QueryOperator {
 
         this.columnIndex = this.getSchema().findField(columnName);
         this.columnName = this.getSchema().getFieldName(columnIndex);
+        this.pushedDown = source.pushDownPredicate(this.columnName, operator, value);
 
         this.stats = this.estimateStats();
     }
@@ -72,8 +76,52 @@ public class SelectOperator extends QueryOperator {
         return this.getSource().estimateIOCost();
     }
 
+    /**
+     * Selections don't change the values of the records that pass them, so
+     * runtime filters can be evaluated below them instead.
+     */
     @Override
-    public Iterator<Record> iterator() { return new SelectIterator(); }
+    public boolean pushDownRuntimeFilter(RuntimeFilter filter) {
+        return this.getSource().pushDownRuntimeFilter(filter);
+    }
+
+    /**
+     * Selections don't change the values of the records that pass them, so
+     * other selections can be evaluated below them as well.
+     */
+    @Override
+    public boolean pushDownPredicate(String columnName, PredicateOperator operator, DataBox value) {
+        return this.getSource().pushDownPredicate(columnName, operator, value);
+    }
+
+    @Override
+    public Iterator<Record> iterator() {
+        if (this.pushedDown) return this.getSource().iterator();
+        return new SelectIterator();
+    }
+
+    /**
+     * @return true if `recordValue` satisfies the predicate `operator` against
+     * `value`
+     */
+    static boolean matches(DataBox recordValue, PredicateOperator operator, DataBox value) {
+        switch (operator) {
+        case EQUALS:
+            return recordValue.equals(value);
+        case NOT_EQUALS:
+            return !recordValue.equals(value);
+        case LESS_THAN:
+            return recordValue.compareTo(value) < 0;
+        case LESS_THAN_EQUALS:
+            return recordValue.compareTo(value) <= 0;
+        case GREATER_THAN:
+            return recordValue.compareTo(value) > 0;
+        case GREATER_THAN_EQUALS:
+            return recordValue.compareTo(value) >= 0;
+        default:
+            return false;
+        }
+    }
 
     /**
      * An implementation of Iterator that provides an iterator interface for this operator.
@@ -99,51 +147,9 @@ public class SelectOperator extends QueryOperator {
             }
             while (this.sourceIterator.hasNext()) {
                 Record r = this.sourceIterator.next();
-                switch (SelectOperator.this.operator) {
-                case EQUALS:
-                    if (r.getValue(SelectOperator.this.columnIndex).equals(value)) {
-                        this.nextRecord = r;
-                        return true;
-                    }
-                    break;
-                case NOT_EQUALS:
-                    if (!r.getValue(SelectOperator.this.columnIndex).equals(value)) {
-                        this.nextRecord = r;
-                        return true;
-                    }
-                    break;
-                case LESS_THAN:
-                    if (r.getValue(SelectOperator.this.columnIndex).compareTo(value) < 0) {
-                        this.nextRecord = r;
-                        return true;
-                    }
-                    break;
-                case LESS_THAN_EQUALS:
-                    if (r.getValue(SelectOperator.this.columnIndex).compareTo(value) < 0) {
-                        this.nextRecord = r;
-                        return true;
-                    } else if (r.getValue(SelectOperator.this.columnIndex).compareTo(value) == 0) {
-                        this.nextRecord = r;
-                        return true;
-                    }
-                    break;
-                case GREATER_THAN:
-                    if (r.getValue(SelectOperator.this.columnIndex).compareTo(value) > 0) {
-                        this.nextRecord = r;
-                        return true;
-                    }
-                    break;
-                case GREATER_THAN_EQUALS:
-                    if (r.getValue(SelectOperator.this.columnIndex).compareTo(value) > 0) {
-                        this.nextRecord = r;
-                        return true;
-                    } else if (r.getValue(SelectOperator.this.columnIndex).compareTo(value) == 0) {
-                        this.nextRecord = r;
-                        return true;
-                    }
-                    break;
-                default:
-                    break;
+                if (matches(r.getValue(SelectOperator.this.columnIndex), SelectOperator.this.operator, value)) {
+                    this.nextRecord = r;
+                    return true;
                 }
             }
             return false;
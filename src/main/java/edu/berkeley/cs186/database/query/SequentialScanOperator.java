@@ -1,16 +1,30 @@
 package edu.berkeley.cs186.database.query;
 
 import edu.berkeley.cs186.database.TransactionContext;
+import edu.berkeley.cs186.database.common.PredicateOperator;
 import edu.berkeley.cs186.database.common.iterator.BacktrackingIterator;
+import edu.berkeley.cs186.database.databox.DataBox;
 import edu.berkeley.cs186.database.table.Record;
 import edu.berkeley.cs186.database.table.Schema;
 import edu.berkeley.cs186.database.table.stats.TableStats;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
 
 public class SequentialScanOperator extends QueryOperator {
     private TransactionContext transaction;
     private String tableName;
+    // Runtime join filter pushed down by a hash join, or null if none
+    private RuntimeFilter runtimeFilter;
+    private int runtimeFilterColumnIndex;
+    // Selections pushed down into this scan. Their columns are decoded and
+    // checked before the rest of each record, so records that don't pass
+    // are never fully decoded.
+    private List<Integer> predicateColumns = new ArrayList<>();
+    private List<Predicate<DataBox>> predicates = new ArrayList<>();
+    private List<String> predicateStrs = new ArrayList<>();
 
     /**
      * Creates a new SequentialScanOperator that provides an iterator on all
@@ -49,7 +63,67 @@ public class SequentialScanOperator extends QueryOperator {
 
     @Override
     public Iterator<Record> iterator() {
-        return this.backtrackingIterator();
+        if (this.runtimeFilter == null && this.predicates.isEmpty()) return this.backtrackingIterator();
+        // The runtime filter goes first, so that it sees every record of the
+        // table
+        List<Integer> columns = new ArrayList<>();
+        List<Predicate<DataBox>> predicates = new ArrayList<>();
+        if (this.runtimeFilter != null) {
+            columns.add(this.runtimeFilterColumnIndex);
+            predicates.add(this.runtimeFilter::test);
+        }
+        columns.addAll(this.predicateColumns);
+        predicates.addAll(this.predicates);
+        int[] columnIndices = new int[columns.size()];
+        for (int i = 0; i < columnIndices.length; i++) columnIndices[i] = columns.get(i);
+        return this.transaction.getTable(this.tableName).iterator(columnIndices, predicates);
+    }
+
+    /**
+     * Accepts the selection if its column is in this scan's schema. Like
+     * runtime filters, selections only apply to records yielded by
+     * iterator().
+     */
+    @Override
+    public boolean pushDownPredicate(String columnName, PredicateOperator operator, DataBox value) {
+        int columnIndex;
+        try {
+            columnIndex = this.getSchema().findField(columnName);
+        } catch (RuntimeException err) {
+            return false;
+        }
+        this.predicateColumns.add(columnIndex);
+        this.predicates.add(recordValue -> SelectOperator.matches(recordValue, operator, value));
+        this.predicateStrs.add(this.getSchema().getFieldName(columnIndex) + operator.toSymbol() + value);
+        return true;
+    }
+
+    /**
+     * Accepts the filter if its column is in this scan's schema. The filter
+     * replaces any filter previously pushed down into this scan, and only
+     * applies to records yielded by iterator(). backtrackingIterator() always
+     * yields every record in the table.
+     */
+    @Override
+    public boolean pushDownRuntimeFilter(RuntimeFilter filter) {
+        try {
+            this.runtimeFilterColumnIndex = this.getSchema().findField(filter.getColumnName());
+        } catch (RuntimeException err) {
+            return false;
+        }
+        this.runtimeFilter = filter;
+        return true;
+    }
+
+    /**
+     * @return a description of the selections and runtime filter applied by
+     * this scan, or the empty string if there are none
+     */
+    protected String filterStr() {
+        String str = "";
+        if (!this.predicateStrs.isEmpty()) str += " filtering on " + String.join(" and ", this.predicateStrs);
+        if (this.runtimeFilter != null) str += " with " + this.runtimeFilter;
+        return str;
     }
 
     @Override
@@ -67,7 +141,8 @@ public class SequentialScanOperator extends QueryOperator {
 
     @Override
     public String str() {
-        return "Seq Scan on " + this.tableName + " (cost=" + this.estimateIOCost() + ")";
+        return "Seq Scan on " + this.tableName + " (cost=" + this.estimateIOCost() + ")" +
+               this.filterStr();
     }
 
     @Override
@@ -79,5 +154,4 @@ public class SequentialScanOperator extends QueryOperator {
     public int estimateIOCost() {
         return this.transaction.getNumDataPages(this.tableName);
     }
-
 }
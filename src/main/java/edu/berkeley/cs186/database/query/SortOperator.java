@@ -1,11 +1,14 @@
 package edu.berkeley.cs186.database.query;
 
 import edu.berkeley.cs186.database.TransactionContext;
-import edu.berkeley.cs186.database.common.Pair;
 import edu.berkeley.cs186.database.common.iterator.BacktrackingIterator;
+import edu.berkeley.cs186.database.databox.DataBox;
 import edu.berkeley.cs186.database.query.disk.Run;
+import edu.berkeley.cs186.database.table.PageDirectory;
 import edu.berkeley.cs186.database.table.Record;
 import edu.berkeley.cs186.database.table.Schema;
+import edu.berkeley.cs186.database.table.Table;
+import edu.berkeley.cs186.database.table.stats.StatisticsCollector;
 import edu.berkeley.cs186.database.table.stats.TableStats;
 
 import java.util.*;
@@ -37,6 +40,7 @@ public class SortOperator extends QueryOperator {
 
     @Override
     public TableStats estimateStats() {
+        if (getComputedStats() != null) return getComputedStats();
         return getSource().estimateStats();
     }
 
@@ -48,14 +52,15 @@ public class SortOperator extends QueryOperator {
     @Override
     public int estimateIOCost() {
         int N = getSource().estimateStats().getNumPages();
-        double pass0Runs = Math.ceil(N / (double)numBuffers);
+        // Replacement selection produces runs twice the size of memory on average
+        double pass0Runs = Math.ceil(N / (2.0 * numBuffers));
         double numPasses = 1 + Math.ceil(Math.log(pass0Runs) / Math.log(numBuffers - 1));
         return (int) (2 * N * numPasses) + getSource().estimateIOCost();
     }
 
     @Override
     public String str() {
-        return "Sort (cost=" + estimateIOCost() + ")";
+        return "Sort (cost=" + estimateIOCost() + computedStr() + ")";
     }
 
     @Override
@@ -77,6 +82,39 @@ public class SortOperator extends QueryOperator {
         return backtrackingIterator();
     }
 
+    /**
+     * Sorts the records of the source right away, adding each of them to
+     * `collector` as it's read from the source.
+     */
+    @Override
+    protected void computeRecords(StatisticsCollector collector) {
+        Iterator<Record> sourceIterator = getSource().iterator();
+        this.sortedRecords = sort(new Iterator<Record>() {
+            @Override
+            public boolean hasNext() {
+                return sourceIterator.hasNext();
+            }
+
+            @Override
+            public Record next() {
+                Record record = sourceIterator.next();
+                collector.add(record);
+                return record;
+            }
+        });
+    }
+
+    /**
+     * Forwards the filter to the source so that filtered out records are
+     * never sorted. Once the sorted run has been created the filter can no
+     * longer be applied.
+     */
+    @Override
+    public boolean pushDownRuntimeFilter(RuntimeFilter filter) {
+        if (this.sortedRecords != null) return false;
+        return getSource().pushDownRuntimeFilter(filter);
+    }
+
     /**
      * Returns a Run containing records from the input iterator in sorted order.
      * You're free to use an in memory sort over all the records using one of
@@ -97,56 +135,78 @@ public class SortOperator extends QueryOperator {
 
     /**
      * Given a list of sorted runs, returns a new run that is the result of
-     * merging the input runs. You should use a Priority Queue (java.util.PriorityQueue)
-     * to determine which record should be added to the output run next.
-     *
-     * You are NOT allowed to have more than runs.size() records in your
-     * priority queue at a given moment. It is recommended that your Priority
-     * Queue hold Pair<Record, Integer> objects where a Pair (r, i) is the
-     * Record r with the smallest value you are sorting on currently unmerged
-     * from run i. `i` can be useful to locate which record to add to the queue
-     * next after the smallest element is removed.
+     * merging the input runs. The runs are merged with a loser tree holding
+     * the smallest unmerged record of each run, so at most runs.size()
+     * records are held in memory at a given moment and each record output
+     * costs about log2(runs.size()) comparisons. Records with equal sort
+     * values are output in the order of the runs they came from.
      *
      * @return a single sorted run obtained by merging the input runs
      */
     public Run mergeSortedRuns(List<Run> runs) {
         assert (runs.size() <= this.numBuffers - 1);
-        // TODO(proj3_part1): implement
-        PriorityQueue<Pair<Record, Integer>> queue = new PriorityQueue<>(new RecordPairComparator());
-        List<BacktrackingIterator<Record>> iterators = new ArrayList<>();
         Run output = this.makeRun();
+        if (runs.isEmpty()) return output;
 
-        for(Run run: runs) {
-            iterators.add(run.iterator());
-        }
-
-        for(int i = 0; i < runs.size(); i++) {
-            if(iterators.get(i).hasNext())
-                queue.add(new Pair<>(iterators.get(i).next(), i));
+        List<BacktrackingIterator<Record>> iterators = new ArrayList<>();
+        SortEntry[] heads = new SortEntry[runs.size()];
+        for (int i = 0; i < runs.size(); i++) {
+            iterators.add(runs.get(i).iterator());
+            heads[i] = nextEntry(iterators.get(i), 0);
         }
 
-        while(!queue.isEmpty()) {
-            Pair<Record, Integer> pair = queue.poll();
-            Record r = pair.getFirst();
-            Integer i = pair.getSecond();
-            output.add(r);
-            if(iterators.get(i).hasNext())
-                queue.add(new Pair<>(iterators.get(i).next(), i));
+        LoserTree tree = new LoserTree(heads);
+        while (tree.winner() != null) {
+            int i = tree.winnerIndex();
+            output.add(tree.winner().record);
+            tree.replaceWinner(nextEntry(iterators.get(i), 0));
         }
-
         return output;
     }
 
     /**
-     * Compares the two (record, integer) pairs based only on the record
-     * component using the default comparator. You may find this useful for
-     * implementing mergeSortedRuns.
+     * Generates the initial sorted runs of an external sort using replacement
+     * selection. Memory holds numBuffers pages worth of records in a loser
+     * tree. The smallest record that can still extend the current run is
+     * repeatedly written out and replaced with the next input record. If the
+     * new record is smaller than the record just written out, it is held back
+     * for the next run. On random input runs average about twice the size of
+     * memory. Input that is already sorted produces a single run.
+     *
+     * @return a list of sorted runs containing all the records from the input
+     * iterator
      */
-    private class RecordPairComparator implements Comparator<Pair<Record, Integer>> {
-        @Override
-        public int compare(Pair<Record, Integer> o1, Pair<Record, Integer> o2) {
-            return SortOperator.this.comparator.compare(o1.getFirst(), o2.getFirst());
+    public List<Run> generateRuns(Iterator<Record> records) {
+        int recordsPerPage = Table.computeNumRecordsPerPage(
+                PageDirectory.EFFECTIVE_PAGE_SIZE, getSchema());
+        int capacity = Math.max(1, recordsPerPage * this.numBuffers);
+
+        // Fill up memory with the first records of the input. Everything
+        // starts out in run 0.
+        List<SortEntry> initial = new ArrayList<>();
+        while (initial.size() < capacity && records.hasNext()) {
+            initial.add(nextEntry(records, 0));
+        }
+        List<Run> runs = new ArrayList<>();
+        if (initial.isEmpty()) return runs;
+
+        LoserTree tree = new LoserTree(initial.toArray(new SortEntry[0]));
+        Run current = null;
+        int currentRun = -1;
+        while (tree.winner() != null) {
+            SortEntry winner = tree.winner();
+            if (winner.run != currentRun) {
+                // Nothing left in memory can extend the current run
+                current = this.makeRun();
+                runs.add(current);
+                currentRun = winner.run;
+            }
+            current.add(winner.record);
+            SortEntry next = nextEntry(records, currentRun);
+            if (next != null && compareKeys(next, winner) < 0) next.run = currentRun + 1;
+            tree.replaceWinner(next);
         }
+        return runs;
     }
 
     /**
@@ -179,15 +239,13 @@ public class SortOperator extends QueryOperator {
      */
     public Run sort() {
         // Iterator over the records of the relation we want to sort
-        Iterator<Record> sourceIterator = getSource().iterator();
+        return sort(getSource().iterator());
+    }
 
-        // TODO(proj3_part1): implement
-        // 1. get sorted runs: sort B pages into a single sorted run
-        List<Run> sortedRuns = new ArrayList<>();
-        while(sourceIterator.hasNext()) {
-            BacktrackingIterator<Record> bPageIter = getBlockIterator(sourceIterator, this.getSchema(), this.numBuffers);
-            sortedRuns.add(this.sortRun(bPageIter));
-        }
+    private Run sort(Iterator<Record> sourceIterator) {
+        // 1. get sorted runs: replacement selection over B pages of memory
+        List<Run> sortedRuns = this.generateRuns(sourceIterator);
+        if (sortedRuns.isEmpty()) return this.makeRun();
 
         // 2. merge runs: merge B-1 sorted runs at a time
         List<Run> mergedRuns = new ArrayList<>(sortedRuns);
@@ -195,7 +253,7 @@ public class SortOperator extends QueryOperator {
             mergedRuns = this.mergePass(mergedRuns);
         }
 
-        return mergedRuns.get(0); // TODO(proj3_part1): replace this!
+        return mergedRuns.get(0);
     }
 
     /**
@@ -214,5 +272,151 @@ public class SortOperator extends QueryOperator {
         run.addAll(records);
         return run;
     }
-}
 
+    // Sort Keys ///////////////////////////////////////////////////////////////
+
+    /**
+     * A record waiting to be output by a loser tree, along with the run it
+     * belongs to and the normalized prefix of its sort value.
+     */
+    private static class SortEntry {
+        private Record record;
+        private long prefix;
+        private int run;
+
+        private SortEntry(Record record, long prefix, int run) {
+            this.record = record;
+            this.prefix = prefix;
+            this.run = run;
+        }
+    }
+
+    /**
+     * @return an entry for the next record of records in the given run, or
+     * null if records has no more records
+     */
+    private SortEntry nextEntry(Iterator<Record> records, int run) {
+        if (!records.hasNext()) return null;
+        Record record = records.next();
+        return new SortEntry(record, keyPrefix(record), run);
+    }
+
+    /**
+     * Computes a normalized prefix of the sort value of a record: a long such
+     * that whenever the prefixes of two records differ, comparing the
+     * prefixes gives the same result as comparing the records. Only records
+     * with equal prefixes have to be compared with the comparator. If a
+     * custom comparator is in use, every record gets the same prefix.
+     */
+    private long keyPrefix(Record record) {
+        if (!(this.comparator instanceof RecordComparator)) return 0;
+        DataBox value = record.getValue(this.sortColumnIndex);
+        switch (value.getTypeId()) {
+            case BOOL: return value.getBool() ? 1 : 0;
+            case INT: return value.getInt();
+            case LONG: return value.getLong();
+            case FLOAT: {
+                // Flip the bits of negative floats so that the signed
+                // integer order matches Float.compare
+                int bits = Float.floatToIntBits(value.getFloat());
+                return bits < 0 ? bits ^ Integer.MAX_VALUE : bits;
+            }
+            case STRING: {
+                // The first four characters, compared as an unsigned number
+                String s = value.getString();
+                long prefix = 0;
+                for (int i = 0; i < 4; i++) {
+                    prefix = (prefix << 16) | (i < s.length() ? s.charAt(i) : 0);
+                }
+                return prefix ^ Long.MIN_VALUE;
+            }
+            default: return 0;
+        }
+    }
+
+    /**
+     * Compares the sort values of two entries, ignoring their runs.
+     */
+    private int compareKeys(SortEntry e1, SortEntry e2) {
+        if (e1.prefix != e2.prefix) return e1.prefix < e2.prefix ? -1 : 1;
+        return this.comparator.compare(e1.record, e2.record);
+    }
+
+    /**
+     * A tournament tree over k entries that keeps track of the smallest one,
+     * ordering entries by run and then by sort value. Each internal node
+     * stores the loser of the match played at it, so replacing the winner
+     * only replays the matches on the path from its leaf to the root: about
+     * log2(k) comparisons, against log2(k) sift-down steps with two
+     * comparisons each for a binary heap. A null entry is larger than
+     * everything else, and marks an exhausted input.
+     */
+    private class LoserTree {
+        private SortEntry[] entries;
+        // tree[0] is the index of the overall winner, tree[1..k-1] hold the
+        // index of the loser of the match at that node. The leaf for entry i
+        // is node k + i.
+        private int[] tree;
+
+        private LoserTree(SortEntry[] entries) {
+            int k = entries.length;
+            this.entries = entries;
+            this.tree = new int[k];
+            int[] winners = new int[2 * k];
+            for (int i = 0; i < k; i++) winners[k + i] = i;
+            for (int node = k - 1; node >= 1; node--) {
+                int a = winners[2 * node];
+                int b = winners[2 * node + 1];
+                if (less(b, a)) {
+                    winners[node] = b;
+                    this.tree[node] = a;
+                } else {
+                    winners[node] = a;
+                    this.tree[node] = b;
+                }
+            }
+            this.tree[0] = k > 1 ? winners[1] : 0;
+        }
+
+        /**
+         * @return true if the entry at index a should be output before the
+         * entry at index b
+         */
+        private boolean less(int a, int b) {
+            SortEntry e1 = this.entries[a];
+            SortEntry e2 = this.entries[b];
+            if (e1 == null || e2 == null) return e2 == null && (e1 != null || a < b);
+            if (e1.run != e2.run) return e1.run < e2.run;
+            int cmp = compareKeys(e1, e2);
+            if (cmp != 0) return cmp < 0;
+            return a < b;
+        }
+
+        private int winnerIndex() {
+            return this.tree[0];
+        }
+
+        /**
+         * @return the smallest entry, or null if every input is exhausted
+         */
+        private SortEntry winner() {
+            return this.entries[this.tree[0]];
+        }
+
+        /**
+         * Replaces the current winner with entry and finds the new winner.
+         */
+        private void replaceWinner(SortEntry entry) {
+            int winner = this.tree[0];
+            this.entries[winner] = entry;
+            for (int node = (winner + this.entries.length) / 2; node >= 1; node /= 2) {
+                if (less(this.tree[node], winner)) {
+                    int loser = winner;
+                    winner = this.tree[node];
+                    this.tree[node] = loser;
+                }
+            }
+            this.tree[0] = winner;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package edu.berkeley.cs186.database.query;
+
+import edu.berkeley.cs186.database.TransactionContext;
+import edu.berkeley.cs186.database.table.PageDirectory;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.Schema;
+import edu.berkeley.cs186.database.table.Table;
+import edu.berkeley.cs186.database.table.stats.TableStats;
+
+import java.util.*;
+
+/**
+ * Yields the first n records of the source in sorted order on a single column,
+ * as if the source was sorted by a SortOperator and cut off by a LimitOperator.
+ *
+ * Instead of an external sort, a single pass is made over the source while the
+ * n smallest records seen so far are kept in a bounded max-heap: a new record
+ * only enters the heap if it is smaller than the largest record currently in
+ * it, which is then evicted. Nothing is ever written out to disk, so n records
+ * must fit in memory. Records with equal sort values are yielded in the order
+ * they were read from the source.
+ */
+public class TopNOperator extends QueryOperator {
+    private int sortColumnIndex;
+    private String sortColumnName;
+    private long n;
+
+    /**
+     * @param source the source of this operator
+     * @param columnName the column to sort on
+     * @param n the number of records to yield
+     */
+    public TopNOperator(QueryOperator source, String columnName, long n) {
+        super(OperatorType.TOP_N, source);
+        if (n < 0) throw new IllegalArgumentException("Top-N requires a non-negative N.");
+        this.sortColumnIndex = getSchema().findField(columnName);
+        this.sortColumnName = getSchema().getFieldName(this.sortColumnIndex);
+        this.n = n;
+        this.stats = this.estimateStats();
+    }
+
+    /**
+     * @return true if n records of the given schema fit in the work memory
+     * available to transaction, in which case a TopNOperator may be used
+     */
+    public static boolean fitsInMemory(TransactionContext transaction, Schema schema, long n) {
+        int recordsPerPage = Table.computeNumRecordsPerPage(
+                PageDirectory.EFFECTIVE_PAGE_SIZE, schema);
+        return n <= (long) recordsPerPage * transaction.getWorkMemSize();
+    }
+
+    @Override
+    public Schema computeSchema() {
+        return getSource().getSchema();
+    }
+
+    @Override
+    public String str() {
+        return "Top-N Sort (n=" + this.n + ", cost=" + this.estimateIOCost() + ")";
+    }
+
+    @Override
+    public List<String> sortedBy() {
+        return Collections.singletonList(this.sortColumnName);
+    }
+
+    @Override
+    public TableStats estimateStats() {
+        return getSource().estimateStats().copyWithLimit(this.n);
+    }
+
+    /**
+     * The source is read exactly once and nothing is spilled.
+     */
+    @Override
+    public int estimateIOCost() {
+        return getSource().estimateIOCost();
+    }
+
+    @Override
+    public Iterator<Record> iterator() {
+        if (this.n == 0) return Collections.emptyIterator();
+        // Max-heap on (sort value, arrival order), so that the root is the
+        // record that should be evicted first
+        PriorityQueue<SequencedRecord> heap = new PriorityQueue<>(
+                (int) Math.min(this.n, 1024), Collections.reverseOrder());
+        long sequence = 0;
+        for (Record record : getSource()) {
+            SequencedRecord entry = new SequencedRecord(record, sequence++);
+            if (heap.size() < this.n) {
+                heap.add(entry);
+            } else if (entry.compareTo(heap.peek()) < 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        Record[] sorted = new Record[heap.size()];
+        for (int i = sorted.length - 1; i >= 0; i--) sorted[i] = heap.poll().record;
+        return Arrays.asList(sorted).iterator();
+    }
+
+    /**
+     * A record paired with the position it was read from the source in. Later
+     * records compare greater than earlier records with the same sort value.
+     */
+    private class SequencedRecord implements Comparable<SequencedRecord> {
+        private Record record;
+        private long sequence;
+
+        private SequencedRecord(Record record, long sequence) {
+            this.record = record;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(SequencedRecord other) {
+            int cmp = this.record.getValue(sortColumnIndex).compareTo(
+                    other.record.getValue(sortColumnIndex));
+            if (cmp != 0) return cmp;
+            return Long.compare(this.sequence, other.sequence);
+        }
+    }
+}
@@ -21,6 +21,13 @@ class Column extends Expression {
         this.col = schema.findField(this.columnName);
     }
 
+    /**
+     * @return the index of the column in the schema of the expression
+     */
+    int getColumnIndex() {
+        return this.col;
+    }
+
     @Override
     public Type getType() {
         return schema.getFieldType(this.col);
@@ -0,0 +1,420 @@
+package edu.berkeley.cs186.database.query.expr;
+
+import edu.berkeley.cs186.database.databox.*;
+import edu.berkeley.cs186.database.table.Record;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * An expression compiled into a tree of closures specialized on the types of
+ * its subexpressions. Where Expression.evaluate walks the expression tree and
+ * boxes the value of every node in a new DataBox, the closures of a compiled
+ * expression pass ints, longs, floats and booleans to each other directly, so
+ * evaluating `a * 2 + b < 100 AND NOT c` reads the values of the columns out of
+ * the record and allocates nothing, or only the DataBox of the final value when
+ * it's needed (see evaluate).
+ *
+ * Operators, comparisons and columns and literals of numeric or boolean types
+ * are compiled. Any other subexpression (strings, named functions) is
+ * evaluated by the interpreter, and its value unboxed for the compiled code
+ * around it. Expressions containing aggregates keep state between records, so
+ * they are always interpreted.
+ *
+ * The expression's schema must be set before it's compiled.
+ */
+public class CompiledExpression {
+    interface BoolEvaluator {
+        boolean evaluate(Record record);
+    }
+
+    interface IntEvaluator {
+        int evaluate(Record record);
+    }
+
+    interface LongEvaluator {
+        long evaluate(Record record);
+    }
+
+    interface FloatEvaluator {
+        float evaluate(Record record);
+    }
+
+    private Expression expression;
+    // Computes the value of the expression
+    private Function<Record, DataBox> evaluator;
+    // Computes the truthiness of the value of the expression
+    private BoolEvaluator predicate;
+    // Whether any subexpression had to be left to the interpreter
+    private boolean interpreted = false;
+
+    private CompiledExpression(Expression expression) {
+        this.expression = expression;
+        if (expression.hasAgg()) {
+            this.interpreted = true;
+            this.evaluator = expression::evaluate;
+            this.predicate = record -> Expression.toBool(expression.evaluate(record));
+        } else {
+            this.evaluator = compileBoxed(expression);
+            this.predicate = compileBool(expression);
+        }
+    }
+
+    /**
+     * @param expression an expression whose schema has been set
+     * @return the compiled expression
+     */
+    public static CompiledExpression compile(Expression expression) {
+        return new CompiledExpression(expression);
+    }
+
+    /**
+     * @return the value of the expression for `record`, as
+     * Expression.evaluate would compute it
+     */
+    public DataBox evaluate(Record record) {
+        return this.evaluator.apply(record);
+    }
+
+    /**
+     * @return whether the value of the expression for `record` is true (see
+     * Expression.toBool)
+     */
+    public boolean test(Record record) {
+        return this.predicate.evaluate(record);
+    }
+
+    /**
+     * @return true if the whole expression was compiled, false if some of it
+     * is evaluated by the interpreter
+     */
+    public boolean isFullyCompiled() {
+        return !this.interpreted;
+    }
+
+    public Type getType() {
+        return this.expression.getType();
+    }
+
+    @Override
+    public String toString() {
+        return this.expression.toString();
+    }
+
+    // Compilation /////////////////////////////////////////////////////////////
+
+    private Function<Record, DataBox> compileBoxed(Expression e) {
+        if (e instanceof Column) {
+            int col = ((Column) e).getColumnIndex();
+            return record -> record.getValue(col);
+        }
+        if (e instanceof Literal) {
+            DataBox value = ((Literal) e).getValue();
+            return record -> value;
+        }
+        switch (e.getType().getTypeId()) {
+            case BOOL: {
+                BoolEvaluator f = compileBool(e);
+                return record -> new BoolDataBox(f.evaluate(record));
+            }
+            case INT: {
+                IntEvaluator f = compileInt(e);
+                return record -> new IntDataBox(f.evaluate(record));
+            }
+            case LONG: {
+                LongEvaluator f = compileLong(e);
+                return record -> new LongDataBox(f.evaluate(record));
+            }
+            case FLOAT: {
+                FloatEvaluator f = compileFloat(e);
+                return record -> new FloatDataBox(f.evaluate(record));
+            }
+            default:
+                this.interpreted = true;
+                return e::evaluate;
+        }
+    }
+
+    /**
+     * Compiles the truthiness of `e` (see Expression.toBool).
+     */
+    private BoolEvaluator compileBool(Expression e) {
+        if (e instanceof Expression.AndExpression) {
+            BoolEvaluator[] children = compileBoolChildren(e.children);
+            return record -> {
+                for (BoolEvaluator child : children) {
+                    if (!child.evaluate(record)) return false;
+                }
+                return true;
+            };
+        }
+        if (e instanceof Expression.OrExpression) {
+            BoolEvaluator[] children = compileBoolChildren(e.children);
+            return record -> {
+                for (BoolEvaluator child : children) {
+                    if (child.evaluate(record)) return true;
+                }
+                return false;
+            };
+        }
+        if (e instanceof Expression.NotExpression) {
+            BoolEvaluator child = compileBool(e.children.get(0));
+            return record -> !child.evaluate(record);
+        }
+        if (e instanceof Expression.LessThanExpression) {
+            IntEvaluator c = compileComparison(e.children.get(0), e.children.get(1));
+            return record -> c.evaluate(record) < 0;
+        }
+        if (e instanceof Expression.LessThanEqualExpression) {
+            IntEvaluator c = compileComparison(e.children.get(0), e.children.get(1));
+            return record -> c.evaluate(record) <= 0;
+        }
+        if (e instanceof Expression.GreaterThanExpression) {
+            IntEvaluator c = compileComparison(e.children.get(0), e.children.get(1));
+            return record -> c.evaluate(record) > 0;
+        }
+        if (e instanceof Expression.GreaterThanEqualExpression) {
+            IntEvaluator c = compileComparison(e.children.get(0), e.children.get(1));
+            return record -> c.evaluate(record) >= 0;
+        }
+        if (e instanceof Expression.EqualExpression) {
+            IntEvaluator c = compileComparison(e.children.get(0), e.children.get(1));
+            return record -> c.evaluate(record) == 0;
+        }
+        if (e instanceof Expression.UnequalExpression) {
+            IntEvaluator c = compileComparison(e.children.get(0), e.children.get(1));
+            return record -> c.evaluate(record) != 0;
+        }
+        switch (e.getType().getTypeId()) {
+            case BOOL: {
+                if (e instanceof Column) {
+                    int col = ((Column) e).getColumnIndex();
+                    return record -> record.getValue(col).getBool();
+                }
+                if (e instanceof Literal) {
+                    boolean value = ((Literal) e).getValue().getBool();
+                    return record -> value;
+                }
+                break;
+            }
+            case INT: {
+                IntEvaluator f = compileInt(e);
+                return record -> f.evaluate(record) != 0;
+            }
+            case LONG: {
+                LongEvaluator f = compileLong(e);
+                return record -> f.evaluate(record) != 0;
+            }
+            case FLOAT: {
+                FloatEvaluator f = compileFloat(e);
+                return record -> f.evaluate(record) != 0.0;
+            }
+            default:
+                break;
+        }
+        this.interpreted = true;
+        return record -> Expression.toBool(e.evaluate(record));
+    }
+
+    private BoolEvaluator[] compileBoolChildren(List<Expression> children) {
+        BoolEvaluator[] evaluators = new BoolEvaluator[children.size()];
+        for (int i = 0; i < evaluators.length; i++) evaluators[i] = compileBool(children.get(i));
+        return evaluators;
+    }
+
+    /**
+     * Compiles the comparison of the values of `a` and `b`, following the
+     * rules of DataBox.compareTo for the types of their values: ints and
+     * longs are compared as longs, any other mix of numeric types as floats
+     * (with NaN smaller than anything), and values of the same type with the
+     * compare method of their boxed type.
+     */
+    private IntEvaluator compileComparison(Expression a, Expression b) {
+        TypeId typeA = a.getType().getTypeId();
+        TypeId typeB = b.getType().getTypeId();
+        if (typeA == TypeId.INT && typeB == TypeId.INT) {
+            IntEvaluator fa = compileInt(a);
+            IntEvaluator fb = compileInt(b);
+            return record -> Integer.compare(fa.evaluate(record), fb.evaluate(record));
+        }
+        if (typeA == TypeId.FLOAT && typeB == TypeId.FLOAT) {
+            FloatEvaluator fa = compileFloat(a);
+            FloatEvaluator fb = compileFloat(b);
+            return record -> Float.compare(fa.evaluate(record), fb.evaluate(record));
+        }
+        if (typeA == TypeId.BOOL && typeB == TypeId.BOOL) {
+            BoolEvaluator fa = compileBool(a);
+            BoolEvaluator fb = compileBool(b);
+            return record -> Boolean.compare(fa.evaluate(record), fb.evaluate(record));
+        }
+        if (isInteger(typeA) && isInteger(typeB)) {
+            LongEvaluator fa = compileLong(a);
+            LongEvaluator fb = compileLong(b);
+            return record -> Long.compare(fa.evaluate(record), fb.evaluate(record));
+        }
+        if (isNumeric(typeA) && isNumeric(typeB)) {
+            FloatEvaluator fa = compileFloat(a);
+            FloatEvaluator fb = compileFloat(b);
+            return record -> {
+                float x = fa.evaluate(record);
+                float y = fb.evaluate(record);
+                if (x == y) return 0;
+                return x > y ? 1 : -1;
+            };
+        }
+        // Strings, or types that can't be compared (which the interpreter
+        // reports when the comparison is evaluated)
+        Function<Record, DataBox> fa = compileBoxed(a);
+        Function<Record, DataBox> fb = compileBoxed(b);
+        return record -> fa.apply(record).compareTo(fb.apply(record));
+    }
+
+    private static boolean isInteger(TypeId type) {
+        return type == TypeId.INT || type == TypeId.LONG;
+    }
+
+    private static boolean isNumeric(TypeId type) {
+        return isInteger(type) || type == TypeId.FLOAT;
+    }
+
+    /**
+     * Compiles the value of `e` cast to an int (see Expression.toInt).
+     */
+    private IntEvaluator compileInt(Expression e) {
+        TypeId type = e.getType().getTypeId();
+        if (type == TypeId.BOOL) {
+            BoolEvaluator f = compileBool(e);
+            return record -> f.evaluate(record) ? 1 : 0;
+        }
+        if (type == TypeId.INT) {
+            if (e instanceof Column) {
+                int col = ((Column) e).getColumnIndex();
+                return record -> record.getValue(col).getInt();
+            }
+            if (e instanceof Literal) {
+                int value = ((Literal) e).getValue().getInt();
+                return record -> value;
+            }
+            if (e instanceof Expression.ArithmeticExpression) {
+                char[] ops = ((Expression.ArithmeticExpression) e).getOps();
+                IntEvaluator[] children = new IntEvaluator[e.children.size()];
+                for (int i = 0; i < children.length; i++) children[i] = compileInt(e.children.get(i));
+                return record -> {
+                    int result = children[0].evaluate(record);
+                    for (int i = 1; i < children.length; i++) {
+                        int curr = children[i].evaluate(record);
+                        switch (ops[i - 1]) {
+                            case '+': result += curr; break;
+                            case '-': result -= curr; break;
+                            case '*': result *= curr; break;
+                            case '/': result /= curr; break;
+                            case '%': result %= curr; break;
+                            default: throw new RuntimeException("Unexpected operator: " + ops[i - 1]);
+                        }
+                    }
+                    return result;
+                };
+            }
+            if (e instanceof Expression.NegateExpression) {
+                IntEvaluator child = compileInt(e.children.get(0));
+                return record -> -child.evaluate(record);
+            }
+        }
+        this.interpreted = true;
+        return record -> Expression.toInt(e.evaluate(record));
+    }
+
+    /**
+     * Compiles the value of `e` cast to a long (see Expression.toLong).
+     */
+    private LongEvaluator compileLong(Expression e) {
+        TypeId type = e.getType().getTypeId();
+        if (type == TypeId.BOOL || type == TypeId.INT) {
+            IntEvaluator f = compileInt(e);
+            return f::evaluate;
+        }
+        if (type == TypeId.LONG) {
+            if (e instanceof Column) {
+                int col = ((Column) e).getColumnIndex();
+                return record -> record.getValue(col).getLong();
+            }
+            if (e instanceof Literal) {
+                long value = ((Literal) e).getValue().getLong();
+                return record -> value;
+            }
+            if (e instanceof Expression.ArithmeticExpression) {
+                char[] ops = ((Expression.ArithmeticExpression) e).getOps();
+                LongEvaluator[] children = new LongEvaluator[e.children.size()];
+                for (int i = 0; i < children.length; i++) children[i] = compileLong(e.children.get(i));
+                return record -> {
+                    long result = children[0].evaluate(record);
+                    for (int i = 1; i < children.length; i++) {
+                        long curr = children[i].evaluate(record);
+                        switch (ops[i - 1]) {
+                            case '+': result += curr; break;
+                            case '-': result -= curr; break;
+                            case '*': result *= curr; break;
+                            case '/': result /= curr; break;
+                            case '%': result %= curr; break;
+                            default: throw new RuntimeException("Unexpected operator: " + ops[i - 1]);
+                        }
+                    }
+                    return result;
+                };
+            }
+            if (e instanceof Expression.NegateExpression) {
+                LongEvaluator child = compileLong(e.children.get(0));
+                return record -> -child.evaluate(record);
+            }
+        }
+        this.interpreted = true;
+        return record -> Expression.toLong(e.evaluate(record));
+    }
+
+    /**
+     * Compiles the value of `e` cast to a float (see Expression.toFloat).
+     */
+    private FloatEvaluator compileFloat(Expression e) {
+        TypeId type = e.getType().getTypeId();
+        if (type == TypeId.BOOL || type == TypeId.INT || type == TypeId.LONG) {
+            LongEvaluator f = compileLong(e);
+            return f::evaluate;
+        }
+        if (type == TypeId.FLOAT) {
+            if (e instanceof Column) {
+                int col = ((Column) e).getColumnIndex();
+                return record -> record.getValue(col).getFloat();
+            }
+            if (e instanceof Literal) {
+                float value = ((Literal) e).getValue().getFloat();
+                return record -> value;
+            }
+            if (e instanceof Expression.ArithmeticExpression) {
+                char[] ops = ((Expression.ArithmeticExpression) e).getOps();
+                FloatEvaluator[] children = new FloatEvaluator[e.children.size()];
+                for (int i = 0; i < children.length; i++) children[i] = compileFloat(e.children.get(i));
+                return record -> {
+                    float result = children[0].evaluate(record);
+                    for (int i = 1; i < children.length; i++) {
+                        float curr = children[i].evaluate(record);
+                        switch (ops[i - 1]) {
+                            case '+': result += curr; break;
+                            case '-': result -= curr; break;
+                            case '*': result *= curr; break;
+                            case '/': result /= curr; break;
+                            case '%': result %= curr; break;
+                            default: throw new RuntimeException("Unexpected operator: " + ops[i - 1]);
+                        }
+                    }
+                    return result;
+                };
+            }
+            if (e instanceof Expression.NegateExpression) {
+                FloatEvaluator child = compileFloat(e.children.get(0));
+                return record -> -child.evaluate(record);
+            }
+        }
+        this.interpreted = true;
+        return record -> Expression.toFloat(e.evaluate(record));
+    }
+}
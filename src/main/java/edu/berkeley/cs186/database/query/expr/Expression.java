@@ -718,6 +718,16 @@ public abstract class Expression {
             char op = ops.get(0);
         }
 
+        /**
+         * @return the operators applied between consecutive children, from
+         * left to right
+         */
+        char[] getOps() {
+            char[] result = new char[this.ops.size()];
+            for (int i = 0; i < result.length; i++) result[i] = this.ops.get(i);
+            return result;
+        }
+
         @Override
         public void setSchema(Schema s) {
             super.setSchema(s);
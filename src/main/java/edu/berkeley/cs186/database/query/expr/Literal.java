@@ -12,6 +12,10 @@ class Literal extends Expression {
         this.data = data;
     }
 
+    DataBox getValue() {
+        return data;
+    }
+
     @Override
     public Type getType() {
         return data.type();
@@ -7,16 +7,25 @@ import edu.berkeley.cs186.database.common.iterator.BacktrackingIterator;
 import edu.berkeley.cs186.database.databox.DataBox;
 import edu.berkeley.cs186.database.query.JoinOperator;
 import edu.berkeley.cs186.database.query.QueryOperator;
+import edu.berkeley.cs186.database.query.RuntimeFilter;
 import edu.berkeley.cs186.database.query.disk.Partition;
 import edu.berkeley.cs186.database.query.disk.Run;
 import edu.berkeley.cs186.database.table.Record;
 import edu.berkeley.cs186.database.table.Schema;
+import edu.berkeley.cs186.database.table.stats.StatisticsCollector;
+import edu.berkeley.cs186.database.table.stats.TableStats;
 
 import java.util.*;
 
 public class GHJOperator extends JoinOperator {
+    // Partitioning passes after which partitions too large to build and
+    // probe are joined with a block nested loop join instead
+    static final int MAX_PASSES = 5;
+
     private int numBuffers;
     private Run joinedRecords;
+    // Statistics to add the joined records to as they're computed, or null
+    private StatisticsCollector collector;
 
     public GHJOperator(QueryOperator leftSource,
                        QueryOperator rightSource,
@@ -31,9 +40,15 @@ public class GHJOperator extends JoinOperator {
 
     @Override
     public int estimateIOCost() {
-        // Since this has a chance of failing on certain inputs we give it the
-        // maximum possible cost to encourage the optimizer to avoid it
-        return Integer.MAX_VALUE;
+        // Assumes a single partitioning pass: both inputs are read once,
+        // written out as partitions, and read back in to build and probe.
+        // Partitions that partitioning can't shrink (e.g. a join value that
+        // fills more than B-2 pages) are joined with BNLJ instead, at a cost
+        // this doesn't account for
+        int numLeftPages = getLeftSource().estimateStats().getNumPages();
+        int numRightPages = getRightSource().estimateStats().getNumPages();
+        return getLeftSource().estimateIOCost() + getRightSource().estimateIOCost() +
+               2 * (numLeftPages + numRightPages);
     }
 
     @Override
@@ -56,6 +71,30 @@ public class GHJOperator extends JoinOperator {
         return backtrackingIterator();
     }
 
+    @Override
+    protected void computeRecords(StatisticsCollector collector) {
+        this.collector = collector;
+        try {
+            this.backtrackingIterator();
+        } finally {
+            this.collector = null;
+        }
+    }
+
+    @Override
+    public TableStats estimateStats() {
+        if (getComputedStats() != null) return getComputedStats();
+        return super.estimateStats();
+    }
+
+    /**
+     * Adds a joined record to this.joinedRecords.
+     */
+    private void addJoined(Record record) {
+        this.joinedRecords.add(record);
+        if (this.collector != null) this.collector.add(record);
+    }
+
     /**
      * For every record in the given iterator, hashes the value
      * at the column we're joining on and adds it to the correct partition in
@@ -65,8 +104,11 @@ public class GHJOperator extends JoinOperator {
      * @param records iterable of records we want to partition
      * @param left true if records are from the left relation, otherwise false
      * @param pass the current pass (used to pick a hash function)
+     * @param filter a runtime filter to add the left join values to, or to
+     *               test the right join values against, or null if none
      */
-    private void partition(Partition[] partitions, Iterable<Record> records, boolean left, int pass) {
+    private void partition(Partition[] partitions, Iterable<Record> records, boolean left, int pass,
+                           RuntimeFilter filter) {
         // TODO(proj3_part1): implement the partitioning logic
         // You may find the implementation in SHJOperator.java to be a good
         // starting point. You can use the static method HashFunc.hashDataBox
@@ -76,6 +118,11 @@ public class GHJOperator extends JoinOperator {
             if(left) columnValue = record.getValue(getLeftColumnIndex());
             else columnValue = record.getValue(getRightColumnIndex());
 
+            if (filter != null) {
+                if (left) filter.add(columnValue);
+                else if (!filter.isPushedDown() && !filter.test(columnValue)) continue;
+            }
+
             int hash = HashFunc.hashDataBox(columnValue, pass);
             // modulo to get which partition to use
             int partitionNum = hash % partitions.length;
@@ -139,8 +186,10 @@ public class GHJOperator extends JoinOperator {
             DataBox probeJoinValue = probeRecord.getValue(probeColumnIndex);
             if (!hashTable.containsKey(probeJoinValue)) continue;
             for (Record buildRecord : hashTable.get(probeJoinValue)) {
-                Record joinedRecord = buildRecord.concat(probeRecord);
-                this.joinedRecords.add(joinedRecord);
+                // Joined records always have the left record's values first
+                Record joinedRecord = probeFirst ? probeRecord.concat(buildRecord)
+                                                 : buildRecord.concat(probeRecord);
+                this.addJoined(joinedRecord);
             }
         }
     }
@@ -152,35 +201,63 @@ public class GHJOperator extends JoinOperator {
      * grace hash join algorithm recursively to break up the partitions further.
      */
     private void run(Iterable<Record> leftRecords, Iterable<Record> rightRecords, int pass) {
-        assert pass >= 1;
-        if (pass > 5) throw new IllegalStateException("Reached the max number of passes");
-
-//        System.out.println(pass);
+        assert pass >= 1 && pass <= MAX_PASSES;
 
         // Create empty partitions
         Partition[] leftPartitions = createPartitions(true);
         Partition[] rightPartitions = createPartitions(false);
 
+        // During the first pass, the left join values are collected into a
+        // runtime filter so that right records without a match are dropped
+        // before they're written out to a partition
+        RuntimeFilter filter = pass == 1 ? createRuntimeFilter(true) : null;
+
         // Partition records into left and right
-        this.partition(leftPartitions, leftRecords, true, pass);
-        this.partition(rightPartitions, rightRecords, false, pass);
+        this.partition(leftPartitions, leftRecords, true, pass, filter);
+        if (filter != null) filter.finishBuild();
+        this.partition(rightPartitions, rightRecords, false, pass, filter);
 
         for (int i = 0; i < leftPartitions.length; i++) {
             // TODO(proj3_part1): implement the rest of grace hash join
             // If you meet the conditions to run the build and probe you should
             // do so immediately. Otherwise you should make a recursive call.
+            // Only records in partitions with the same number can match.
             Partition leftPartition = leftPartitions[i];
-            for (int j = 0; j < rightPartitions.length; j++) {
-                Partition rightPartition = rightPartitions[j];
-                if (leftPartition.getNumPages() <= this.numBuffers - 2 || rightPartition.getNumPages() <= this.numBuffers - 2) {
-                    this.buildAndProbe(leftPartition, rightPartition);
-                } else {
-                    run(leftPartition, rightPartition, pass+1);
-                }
+            Partition rightPartition = rightPartitions[i];
+            if (leftPartition.getNumPages() <= this.numBuffers - 2 || rightPartition.getNumPages() <= this.numBuffers - 2) {
+                this.buildAndProbe(leftPartition, rightPartition);
+            } else if (pass < MAX_PASSES && (shrank(leftPartition, leftRecords) ||
+                                             shrank(rightPartition, rightRecords))) {
+                run(leftPartition, rightPartition, pass + 1);
+            } else {
+                this.nestedLoopJoin(leftPartition, rightPartition);
             }
         }
     }
 
+    /**
+     * @return whether `partition`, one of the partitions `records` were
+     * split into, is smaller than `records`. Partitioning again can't split
+     * a partition that didn't shrink (e.g. if all of its records have the same
+     * join value).
+     */
+    private static boolean shrank(Partition partition, Iterable<Record> records) {
+        if (!(records instanceof Partition)) return true;
+        return partition.getNumPages() < ((Partition) records).getNumPages();
+    }
+
+    /**
+     * Joins a pair of partitions that are both too large to build and probe
+     * with a block nested loop join, adding the joined records to
+     * this.joinedRecords.
+     */
+    private void nestedLoopJoin(Partition leftPartition, Partition rightPartition) {
+        BNLJOperator bnlj = new BNLJOperator(leftPartition.getScanOperator(),
+                rightPartition.getScanOperator(), getLeftColumnName(), getRightColumnName(),
+                getTransaction());
+        for (Record record : (Iterable<Record>) bnlj::iterator) this.addJoined(record);
+    }
+
     // Provided Helpers ////////////////////////////////////////////////////////
 
     /**
@@ -262,7 +339,8 @@ public class GHJOperator extends JoinOperator {
      * This method is called in testGHJBreak.
      *
      * Come up with two lists of records for leftRecords and rightRecords such
-     * that GHJ will error (in our case hit the maximum number of passes).
+     * that partitioning can't split them into partitions that fit in memory
+     * (GHJ then joins them with a block nested loop join).
      * createRecord(int val) takes in an integer value and returns a record
      * with that value in the column being joined on.
      *
@@ -283,7 +361,7 @@ public class GHJOperator extends JoinOperator {
         // let all the records be the same
         // so that there is always only one partition after hashing
         // since the records cannot fit into the buffer
-        // the partition has to continue until the max pass is exceeded and GHJ fails
+        // partitioning them again never helps
         for (int i = 0; i < pagePerPartition * recordsPerPage + 1; i++) {
             Record record = createRecord(0);
             leftRecords.add(record);
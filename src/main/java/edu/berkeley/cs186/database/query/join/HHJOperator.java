@@ -0,0 +1,346 @@
+package edu.berkeley.cs186.database.query.join;
+
+import edu.berkeley.cs186.database.TransactionContext;
+import edu.berkeley.cs186.database.common.HashFunc;
+import edu.berkeley.cs186.database.databox.DataBox;
+import edu.berkeley.cs186.database.query.JoinOperator;
+import edu.berkeley.cs186.database.query.QueryOperator;
+import edu.berkeley.cs186.database.query.RuntimeFilter;
+import edu.berkeley.cs186.database.query.disk.Partition;
+import edu.berkeley.cs186.database.table.PageDirectory;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.Schema;
+import edu.berkeley.cs186.database.table.Table;
+
+import java.util.*;
+
+/**
+ * Performs an equijoin between two relations on leftColumnName and
+ * rightColumnName respectively using a (dynamic) hybrid hash join.
+ *
+ * Like grace hash join, the build input is split into B-1 partitions. Unlike
+ * grace hash join, every partition starts out resident in memory as a hash
+ * table, and partitions are only written out to disk when the resident
+ * partitions no longer fit in the memory left over after reserving one output
+ * buffer per spilled partition. The probe input is then partitioned the same
+ * way: records belonging to a resident partition are joined on the fly, while
+ * records belonging to a spilled partition are written out to disk. Finally,
+ * each pair of spilled partitions is joined recursively.
+ *
+ * When the build input fits in memory nothing is spilled at all, and when it
+ * is much larger than memory every partition is spilled and the algorithm
+ * degrades gracefully into grace hash join. Joined records are yielded
+ * lazily and are never written out to disk.
+ *
+ * During the first pass a runtime filter over the build join values is pushed
+ * down into the probe input. If the probe input can't evaluate it, the join
+ * evaluates it itself so that probe records without a match are never
+ * spilled.
+ */
+public class HHJOperator extends JoinOperator {
+    private int numBuffers;
+
+    public HHJOperator(QueryOperator leftSource,
+                       QueryOperator rightSource,
+                       String leftColumnName,
+                       String rightColumnName,
+                       TransactionContext transaction) {
+        super(leftSource, rightSource, leftColumnName, rightColumnName, transaction, JoinType.HHJ);
+        this.numBuffers = transaction.getWorkMemSize();
+        this.stats = this.estimateStats();
+    }
+
+    @Override
+    public int estimateIOCost() {
+        int numLeftPages = getLeftSource().estimateStats().getNumPages();
+        int numRightPages = getRightSource().estimateStats().getNumPages();
+        int sourceCost = getLeftSource().estimateIOCost() + getRightSource().estimateIOCost();
+        int numBuildPages = Math.min(numLeftPages, numRightPages);
+        int numProbePages = Math.max(numLeftPages, numRightPages);
+        double spilledFraction = estimateSpilledFraction(numBuildPages, this.numBuffers);
+        // Spilled records of both inputs are written out once and read back once
+        return sourceCost + (int) Math.ceil(
+                2 * spilledFraction * (numBuildPages + numProbePages));
+    }
+
+    /**
+     * Estimates the fraction of the build input that a hybrid hash join has to
+     * write out to disk during its first partitioning pass.
+     *
+     * We pick the smallest number of spilled partitions k such that each
+     * spilled partition fits in B-2 pages after the first pass. Each spilled
+     * partition takes up an output buffer, so B-2-k pages remain for the
+     * resident partitions.
+     *
+     * @param numBuildPages the number of pages in the build input
+     * @param numBuffers the number of buffers available to the join
+     * @return a value between 0 (nothing spilled) and 1 (everything spilled)
+     */
+    static double estimateSpilledFraction(int numBuildPages, int numBuffers) {
+        int usableBuffers = numBuffers - 2;
+        if (numBuildPages <= usableBuffers) return 0.0;
+        int maxSpilled = numBuffers - 1;
+        int numSpilled = maxSpilled;
+        if (usableBuffers > 1) {
+            numSpilled = (int) Math.ceil(
+                    (numBuildPages - usableBuffers) / (double) (usableBuffers - 1));
+            numSpilled = Math.max(1, Math.min(numSpilled, maxSpilled));
+        }
+        int numResidentPages = Math.max(0, usableBuffers - numSpilled);
+        return (numBuildPages - numResidentPages) / (double) numBuildPages;
+    }
+
+    @Override
+    public Iterator<Record> iterator() {
+        // Build on the smaller of the two inputs
+        boolean buildLeft = getLeftSource().estimateStats().getNumPages() <=
+                            getRightSource().estimateStats().getNumPages();
+        RuntimeFilter filter = createRuntimeFilter(buildLeft);
+        if (buildLeft) return new HHJIterator(getLeftSource(), getRightSource(), true, 1, filter);
+        return new HHJIterator(getRightSource(), getLeftSource(), false, 1, filter);
+    }
+
+    /**
+     * A record iterator that runs a single pass of hybrid hash join over a
+     * build input and a probe input. Constructing the iterator consumes the
+     * build input. The probe input is consumed lazily, after which the pairs
+     * of spilled partitions are joined by nested iterators for the next pass.
+     */
+    private class HHJIterator implements Iterator<Record> {
+        // The pass this iterator is running (used to pick a hash function)
+        private int pass;
+        // true if the build records come from the left relation
+        private boolean buildLeft;
+        // The index of the join column in the build and probe records
+        private int buildColumnIndex;
+        private int probeColumnIndex;
+
+        // Hash tables for resident partitions, null if the partition spilled
+        private List<Map<DataBox, List<Record>>> hashTables;
+        // Spilled partitions of the build and probe records, null if resident
+        private Partition[] buildPartitions;
+        private Partition[] probePartitions;
+        // Number of build records held in memory by each resident partition
+        private int[] residentSizes;
+        // Total number of build records currently held in memory
+        private long numResidentRecords;
+        // Number of build records that fit in a page
+        private int buildRecordsPerPage;
+        // Number of partitions that have been spilled to disk
+        private int numSpilled;
+        // Runtime filter over the build join values, null after the first pass
+        private RuntimeFilter filter;
+        // Number of pages of the build input if it's a spilled partition of
+        // the previous pass, otherwise Integer.MAX_VALUE
+        private int numBuildInputPages;
+
+        // Iterator over the probe records
+        private Iterator<Record> probeIterator;
+        // The current probe record
+        private Record probeRecord;
+        // Iterator over the build records matching the current probe record
+        private Iterator<Record> matchIterator;
+        // Iterator joining the current pair of spilled partitions
+        private Iterator<Record> spilledIterator;
+        // The next spilled partition to join once the probe input is exhausted
+        private int nextSpilledPartition;
+        // The next record to return
+        private Record nextRecord;
+
+        private HHJIterator(Iterable<Record> buildRecords, Iterable<Record> probeRecords,
+                            boolean buildLeft, int pass, RuntimeFilter filter) {
+            assert pass >= 1 && pass <= GHJOperator.MAX_PASSES;
+            this.pass = pass;
+            this.buildLeft = buildLeft;
+            this.buildColumnIndex = buildLeft ? getLeftColumnIndex() : getRightColumnIndex();
+            this.probeColumnIndex = buildLeft ? getRightColumnIndex() : getLeftColumnIndex();
+
+            int numPartitions = numBuffers - 1;
+            this.hashTables = new ArrayList<>();
+            for (int i = 0; i < numPartitions; i++) this.hashTables.add(new HashMap<>());
+            this.buildPartitions = new Partition[numPartitions];
+            this.probePartitions = new Partition[numPartitions];
+            this.residentSizes = new int[numPartitions];
+            this.numResidentRecords = 0;
+            this.numSpilled = 0;
+            this.filter = filter;
+            this.numBuildInputPages = buildRecords instanceof Partition ?
+                    ((Partition) buildRecords).getNumPages() : Integer.MAX_VALUE;
+            this.buildRecordsPerPage = Table.computeNumRecordsPerPage(
+                    PageDirectory.EFFECTIVE_PAGE_SIZE, getSchema(true));
+
+            this.build(buildRecords);
+            if (this.filter != null) this.filter.finishBuild();
+
+            this.probeIterator = probeRecords.iterator();
+            this.matchIterator = Collections.emptyIterator();
+            this.spilledIterator = Collections.emptyIterator();
+            this.nextSpilledPartition = 0;
+            this.nextRecord = null;
+        }
+
+        /**
+         * @param build true for the schema of the build records, false for
+         *              the schema of the probe records
+         */
+        private Schema getSchema(boolean build) {
+            boolean left = build == this.buildLeft;
+            return left ? getLeftSource().getSchema() : getRightSource().getSchema();
+        }
+
+        /**
+         * @return which partition a record with the given join value belongs to
+         */
+        private int partitionOf(DataBox joinValue) {
+            int hash = HashFunc.hashDataBox(joinValue, this.pass);
+            // hash might be negative
+            return Math.floorMod(hash, this.buildPartitions.length);
+        }
+
+        /**
+         * Partitions the build records. Resident partitions are added to their
+         * in memory hash table, spilling the largest resident partition to disk
+         * whenever memory runs out.
+         */
+        private void build(Iterable<Record> buildRecords) {
+            for (Record buildRecord : buildRecords) {
+                DataBox buildJoinValue = buildRecord.getValue(this.buildColumnIndex);
+                if (this.filter != null) this.filter.add(buildJoinValue);
+                int i = partitionOf(buildJoinValue);
+                if (this.buildPartitions[i] != null) {
+                    this.buildPartitions[i].add(buildRecord);
+                    continue;
+                }
+                Map<DataBox, List<Record>> hashTable = this.hashTables.get(i);
+                if (!hashTable.containsKey(buildJoinValue)) {
+                    hashTable.put(buildJoinValue, new ArrayList<>());
+                }
+                hashTable.get(buildJoinValue).add(buildRecord);
+                this.residentSizes[i]++;
+                this.numResidentRecords++;
+                while (this.numResidentRecords > this.maxResidentRecords()) {
+                    this.spillLargestPartition();
+                }
+            }
+        }
+
+        /**
+         * @return the number of build records that can be held in memory. One
+         * buffer is reserved for input, one for output, and one for each
+         * spilled partition.
+         */
+        private long maxResidentRecords() {
+            int residentBuffers = Math.max(0, numBuffers - 2 - this.numSpilled);
+            return (long) this.buildRecordsPerPage * residentBuffers;
+        }
+
+        /**
+         * Writes the largest resident partition out to disk.
+         */
+        private void spillLargestPartition() {
+            int largest = -1;
+            for (int i = 0; i < this.residentSizes.length; i++) {
+                if (this.buildPartitions[i] != null) continue;
+                if (largest == -1 || this.residentSizes[i] > this.residentSizes[largest]) {
+                    largest = i;
+                }
+            }
+            Partition partition = new Partition(getTransaction(), getSchema(true));
+            for (List<Record> records : this.hashTables.get(largest).values()) {
+                partition.addAll(records);
+            }
+            this.buildPartitions[largest] = partition;
+            this.hashTables.set(largest, null);
+            this.numResidentRecords -= this.residentSizes[largest];
+            this.residentSizes[largest] = 0;
+            this.numSpilled++;
+        }
+
+        /**
+         * Returns the next record that should be yielded from this join,
+         * or null if there are no more records to join.
+         */
+        private Record fetchNextRecord() {
+            // Probe the resident partitions
+            while (!this.matchIterator.hasNext() && this.probeIterator.hasNext()) {
+                this.probeRecord = this.probeIterator.next();
+                DataBox probeJoinValue = this.probeRecord.getValue(this.probeColumnIndex);
+                if (this.filter != null && !this.filter.isPushedDown() &&
+                        !this.filter.test(probeJoinValue)) {
+                    // No build record can match, don't bother spilling it
+                    continue;
+                }
+                int i = partitionOf(probeJoinValue);
+                if (this.buildPartitions[i] != null) {
+                    if (this.probePartitions[i] == null) {
+                        this.probePartitions[i] = new Partition(getTransaction(), getSchema(false));
+                    }
+                    this.probePartitions[i].add(this.probeRecord);
+                    continue;
+                }
+                List<Record> matches = this.hashTables.get(i).get(probeJoinValue);
+                if (matches != null) this.matchIterator = matches.iterator();
+            }
+            if (this.matchIterator.hasNext()) {
+                Record buildRecord = this.matchIterator.next();
+                // Joined records always have the left record's values first
+                if (this.buildLeft) return buildRecord.concat(this.probeRecord);
+                return this.probeRecord.concat(buildRecord);
+            }
+
+            // Join the spilled partitions
+            while (!this.spilledIterator.hasNext()) {
+                int i = this.nextSpilledPartition;
+                if (i >= this.buildPartitions.length) return null;
+                this.nextSpilledPartition++;
+                if (this.buildPartitions[i] == null || this.probePartitions[i] == null) {
+                    // Nothing to join this partition with
+                    continue;
+                }
+                this.spilledIterator = joinSpilled(this.buildPartitions[i], this.probePartitions[i]);
+            }
+            return this.spilledIterator.next();
+        }
+
+        /**
+         * Joins a pair of spilled partitions with another pass of hybrid hash
+         * join, or with a block nested loop join if partitioning the build
+         * partition again can't make it fit in memory: after the last pass, or
+         * if it didn't shrink (e.g. if all of its records have the same join
+         * value).
+         */
+        private Iterator<Record> joinSpilled(Partition buildPartition, Partition probePartition) {
+            int numPages = buildPartition.getNumPages();
+            if (numPages <= numBuffers - 2 ||
+                    (this.pass < GHJOperator.MAX_PASSES && numPages < this.numBuildInputPages)) {
+                return new HHJIterator(buildPartition, probePartition, this.buildLeft, this.pass + 1, null);
+            }
+            Partition leftPartition = this.buildLeft ? buildPartition : probePartition;
+            Partition rightPartition = this.buildLeft ? probePartition : buildPartition;
+            return new BNLJOperator(leftPartition.getScanOperator(), rightPartition.getScanOperator(),
+                    getLeftColumnName(), getRightColumnName(), getTransaction()).iterator();
+        }
+
+        /**
+         * @return true if this iterator has another record to yield, otherwise
+         * false
+         */
+        @Override
+        public boolean hasNext() {
+            if (this.nextRecord == null) this.nextRecord = fetchNextRecord();
+            return this.nextRecord != null;
+        }
+
+        /**
+         * @return the next record from this iterator
+         * @throws NoSuchElementException if there are no more records to yield
+         */
+        @Override
+        public Record next() {
+            if (!this.hasNext()) throw new NoSuchElementException();
+            Record nextRecord = this.nextRecord;
+            this.nextRecord = null;
+            return nextRecord;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package edu.berkeley.cs186.database.query.join;
+
+import edu.berkeley.cs186.database.TransactionContext;
+import edu.berkeley.cs186.database.query.JoinOperator;
+import edu.berkeley.cs186.database.query.QueryOperator;
+import edu.berkeley.cs186.database.query.SequentialScanOperator;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.stats.TableStats;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Performs an equijoin between two relations on leftColumnName and
+ * rightColumnName respectively using the Index Nested Loop Join algorithm.
+ * For every record of the left relation we look up the matching records of
+ * the right table in the index on rightColumnName, so the right table is
+ * never scanned. The right relation must be a base table with an index on
+ * the join column, and any selections on it have to be applied above this
+ * operator.
+ */
+public class INLJOperator extends JoinOperator {
+    private String rightTableName;
+    // The join column of the right table without the table qualifier
+    private String rightIndexColumn;
+
+    public INLJOperator(QueryOperator leftSource,
+                        String rightTableName,
+                        String leftColumnName,
+                        String rightColumnName,
+                        TransactionContext transaction) {
+        super(leftSource, new SequentialScanOperator(transaction, rightTableName),
+              leftColumnName, rightColumnName, transaction, JoinType.INLJ);
+        this.rightTableName = rightTableName;
+        String column = getRightSource().getSchema().getFieldName(getRightColumnIndex());
+        this.rightIndexColumn = column.substring(column.indexOf('.') + 1);
+        this.stats = this.estimateStats();
+    }
+
+    @Override
+    public Iterator<Record> iterator() {
+        return new INLJIterator();
+    }
+
+    @Override
+    public List<String> sortedBy() {
+        // Matches are yielded in the order of the left records
+        return getLeftSource().sortedBy();
+    }
+
+    @Override
+    public int estimateIOCost() {
+        TransactionContext transaction = getTransaction();
+        int height = transaction.getTreeHeight(rightTableName, rightIndexColumn);
+        int order = transaction.getTreeOrder(rightTableName, rightIndexColumn);
+        int numLeftRecords = getLeftSource().estimateStats().getNumRecords();
+        TableStats rightStats = getRightSource().estimateStats();
+        int numDistinct = rightStats.getHistograms().get(getRightColumnIndex()).getNumDistinct();
+        double matches = rightStats.getNumRecords() / (double) Math.max(1, numDistinct);
+        // Each lookup walks down the tree, scans the leaves holding the
+        // matching keys and then fetches every matching record (see
+        // IndexScanOperator for the 75% fill factor)
+        double lookupCost = height + Math.ceil(matches / (1.5 * order)) + matches;
+        return (int) Math.min(Integer.MAX_VALUE,
+                getLeftSource().estimateIOCost() + numLeftRecords * lookupCost);
+    }
+
+    @Override
+    public String str() {
+        return String.format("%s on %s=%s using index on %s(%s) (cost=%d)",
+                this.joinType, getLeftColumnName(), getRightColumnName(),
+                this.rightTableName, this.rightIndexColumn, this.estimateIOCost());
+    }
+
+    @Override
+    public String toString() {
+        // The right table is only ever accessed through its index
+        return this.strWithMetrics() + ("\n-> " + getLeftSource().toString()).replaceAll("\n", "\n\t");
+    }
+
+    /**
+     * A record iterator that probes the index of the right table once for each
+     * left record.
+     */
+    private class INLJIterator implements Iterator<Record> {
+        // Iterator over all the records of the left relation
+        private Iterator<Record> leftSourceIterator;
+        // Iterator over the right records matching the current left record
+        private Iterator<Record> matchIterator;
+        // The current record from the left relation
+        private Record leftRecord;
+        // The next record to return
+        private Record nextRecord;
+
+        private INLJIterator() {
+            this.leftSourceIterator = getLeftSource().iterator();
+            this.matchIterator = Collections.emptyIterator();
+        }
+
+        /**
+         * Returns the next record that should be yielded from this join,
+         * or null if there are no more records to join.
+         */
+        private Record fetchNextRecord() {
+            while (!this.matchIterator.hasNext()) {
+                if (!this.leftSourceIterator.hasNext()) return null;
+                this.leftRecord = this.leftSourceIterator.next();
+                this.matchIterator = getTransaction().lookupKey(rightTableName, rightIndexColumn,
+                        this.leftRecord.getValue(getLeftColumnIndex()));
+            }
+            return this.leftRecord.concat(this.matchIterator.next());
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.nextRecord == null) this.nextRecord = fetchNextRecord();
+            return this.nextRecord != null;
+        }
+
+        @Override
+        public Record next() {
+            if (!this.hasNext()) throw new NoSuchElementException();
+            Record nextRecord = this.nextRecord;
+            this.nextRecord = null;
+            return nextRecord;
+        }
+    }
+}
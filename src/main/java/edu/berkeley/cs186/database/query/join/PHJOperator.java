@@ -0,0 +1,180 @@
+package edu.berkeley.cs186.database.query.join;
+
+import edu.berkeley.cs186.database.TransactionContext;
+import edu.berkeley.cs186.database.databox.DataBox;
+import edu.berkeley.cs186.database.query.JoinOperator;
+import edu.berkeley.cs186.database.query.QueryOperator;
+import edu.berkeley.cs186.database.query.RuntimeFilter;
+import edu.berkeley.cs186.database.table.PageDirectory;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.Table;
+
+import java.util.*;
+
+/**
+ * Performs an equijoin between two relations on leftColumnName and
+ * rightColumnName respectively using a pipelined hash join. An in memory hash
+ * table is built over the smaller of the two inputs, and the records of the
+ * other input are streamed through it lazily as the iterator is advanced.
+ * Unlike SHJ and GHJ, no joined records are ever written out to disk, so the
+ * first result is available as soon as the build phase has finished.
+ *
+ * While the hash table is built, a runtime filter over the build join values
+ * is pushed down into the probe input, so that probe records without a match
+ * can be dropped as early as possible.
+ *
+ * If the build input turns out not to fit in the B-2 pages of memory available
+ * to the hash table, the join falls back to hybrid hash join.
+ */
+public class PHJOperator extends JoinOperator {
+    private int numBuffers;
+
+    public PHJOperator(QueryOperator leftSource,
+                       QueryOperator rightSource,
+                       String leftColumnName,
+                       String rightColumnName,
+                       TransactionContext transaction) {
+        super(leftSource, rightSource, leftColumnName, rightColumnName, transaction, JoinType.PHJ);
+        this.numBuffers = transaction.getWorkMemSize();
+        this.stats = this.estimateStats();
+    }
+
+    @Override
+    public int estimateIOCost() {
+        int numLeftPages = getLeftSource().estimateStats().getNumPages();
+        int numRightPages = getRightSource().estimateStats().getNumPages();
+        int sourceCost = getLeftSource().estimateIOCost() + getRightSource().estimateIOCost();
+        if (Math.min(numLeftPages, numRightPages) <= this.numBuffers - 2) {
+            // Both inputs are read exactly once
+            return sourceCost;
+        }
+        // Otherwise we fall back to hybrid hash join
+        double spilledFraction = HHJOperator.estimateSpilledFraction(
+                Math.min(numLeftPages, numRightPages), this.numBuffers);
+        return sourceCost + (int) Math.ceil(
+                2 * spilledFraction * (numLeftPages + numRightPages));
+    }
+
+    @Override
+    public Iterator<Record> iterator() {
+        boolean buildLeft = getLeftSource().estimateStats().getNumPages() <=
+                            getRightSource().estimateStats().getNumPages();
+        Map<DataBox, List<Record>> hashTable = buildHashTable(buildLeft);
+        if (hashTable == null) {
+            // The build input doesn't fit in memory, partition it instead
+            return new HHJOperator(getLeftSource(), getRightSource(),
+                    getLeftColumnName(), getRightColumnName(),
+                    getTransaction()).iterator();
+        }
+        return new PHJIterator(hashTable, buildLeft);
+    }
+
+    /**
+     * Builds an in memory hash table over the records of one of the inputs,
+     * along with a runtime filter for the other input.
+     *
+     * @param buildLeft true if the table should be built over the left input,
+     *                  false if it should be built over the right input
+     * @return a map from join values to the build records with that value, or
+     * null if the build records don't fit in B-2 pages of memory
+     */
+    private Map<DataBox, List<Record>> buildHashTable(boolean buildLeft) {
+        QueryOperator buildSource = buildLeft ? getLeftSource() : getRightSource();
+        int buildColumnIndex = buildLeft ? getLeftColumnIndex() : getRightColumnIndex();
+        int recordsPerPage = Table.computeNumRecordsPerPage(
+                PageDirectory.EFFECTIVE_PAGE_SIZE, buildSource.getSchema());
+        long maxRecords = (long) recordsPerPage * (this.numBuffers - 2);
+
+        // The filter only starts dropping records once it is built, so it is
+        // harmless if we give up and fall back below
+        RuntimeFilter filter = createRuntimeFilter(buildLeft);
+        Map<DataBox, List<Record>> hashTable = new HashMap<>();
+        long numRecords = 0;
+        for (Record buildRecord : buildSource) {
+            if (++numRecords > maxRecords) return null;
+            DataBox buildJoinValue = buildRecord.getValue(buildColumnIndex);
+            filter.add(buildJoinValue);
+            if (!hashTable.containsKey(buildJoinValue)) {
+                hashTable.put(buildJoinValue, new ArrayList<>());
+            }
+            hashTable.get(buildJoinValue).add(buildRecord);
+        }
+        filter.finishBuild();
+        return hashTable;
+    }
+
+    /**
+     * A record iterator that streams the records of the probe input through
+     * the hash table, yielding joined records one at a time.
+     */
+    private class PHJIterator implements Iterator<Record> {
+        // The hash table built over the build input
+        private Map<DataBox, List<Record>> hashTable;
+        // true if the hash table was built over the left input
+        private boolean buildLeft;
+        // Iterator over all the records of the probe input
+        private Iterator<Record> probeIterator;
+        // The index of the join column in the probe records
+        private int probeColumnIndex;
+        // The current record from the probe input
+        private Record probeRecord;
+        // Iterator over the build records matching the current probe record
+        private Iterator<Record> matchIterator;
+        // The next record to return
+        private Record nextRecord;
+
+        private PHJIterator(Map<DataBox, List<Record>> hashTable, boolean buildLeft) {
+            this.hashTable = hashTable;
+            this.buildLeft = buildLeft;
+            if (buildLeft) {
+                this.probeIterator = getRightSource().iterator();
+                this.probeColumnIndex = getRightColumnIndex();
+            } else {
+                this.probeIterator = getLeftSource().iterator();
+                this.probeColumnIndex = getLeftColumnIndex();
+            }
+            this.matchIterator = Collections.emptyIterator();
+            this.nextRecord = null;
+        }
+
+        /**
+         * Returns the next record that should be yielded from this join,
+         * or null if there are no more records to join.
+         */
+        private Record fetchNextRecord() {
+            while (!this.matchIterator.hasNext()) {
+                if (!this.probeIterator.hasNext()) return null;
+                this.probeRecord = this.probeIterator.next();
+                DataBox probeJoinValue = this.probeRecord.getValue(this.probeColumnIndex);
+                List<Record> matches = this.hashTable.get(probeJoinValue);
+                if (matches != null) this.matchIterator = matches.iterator();
+            }
+            Record buildRecord = this.matchIterator.next();
+            // Joined records always have the left record's values first
+            if (this.buildLeft) return buildRecord.concat(this.probeRecord);
+            return this.probeRecord.concat(buildRecord);
+        }
+
+        /**
+         * @return true if this iterator has another record to yield, otherwise
+         * false
+         */
+        @Override
+        public boolean hasNext() {
+            if (this.nextRecord == null) this.nextRecord = fetchNextRecord();
+            return this.nextRecord != null;
+        }
+
+        /**
+         * @return the next record from this iterator
+         * @throws NoSuchElementException if there are no more records to yield
+         */
+        @Override
+        public Record next() {
+            if (!this.hasNext()) throw new NoSuchElementException();
+            Record nextRecord = this.nextRecord;
+            this.nextRecord = null;
+            return nextRecord;
+        }
+    }
+}
@@ -34,7 +34,7 @@ public class SortMergeOperator extends JoinOperator {
                                              QueryOperator leftSource,
                                              String leftColumn) {
         leftColumn = leftSource.getSchema().matchFieldName(leftColumn);
-        if (leftSource.sortedBy().contains(leftColumn)) return leftSource;
+        if (leftSource.isSortedBy(leftColumn)) return leftSource;
         return new SortOperator(transaction, leftSource, leftColumn);
     }
 
@@ -49,7 +49,7 @@ public class SortMergeOperator extends JoinOperator {
                                               QueryOperator rightSource,
                                               String rightColumn) {
         rightColumn = rightSource.getSchema().matchFieldName(rightColumn);
-        if (!rightSource.sortedBy().contains(rightColumn)) {
+        if (!rightSource.isSortedBy(rightColumn)) {
             return new SortOperator(transaction, rightSource, rightColumn);
         } else if (!rightSource.materialized()) {
             return new MaterializeOperator(rightSource, transaction);
@@ -69,8 +69,11 @@ public class SortMergeOperator extends JoinOperator {
 
     @Override
     public int estimateIOCost() {
-        //does nothing
-        return 0;
+        // The sources were already wrapped in sort or materialize operators if
+        // needed, so their costs include sorting. The merge itself reads each
+        // sorted input once, assuming the runs of equal right values we
+        // backtrack over stay in the buffer pool.
+        return getLeftSource().estimateIOCost() + getRightSource().estimateIOCost();
     }
 
     /**
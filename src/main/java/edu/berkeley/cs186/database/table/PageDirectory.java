@@ -6,6 +6,7 @@ import edu.berkeley.cs186.database.common.iterator.BacktrackingIterable;
 import edu.berkeley.cs186.database.common.iterator.BacktrackingIterator;
 import edu.berkeley.cs186.database.common.iterator.ConcatBacktrackingIterator;
 import edu.berkeley.cs186.database.common.iterator.IndexBacktrackingIterator;
+import edu.berkeley.cs186.database.concurrency.DummyLockContext;
 import edu.berkeley.cs186.database.concurrency.LockContext;
 import edu.berkeley.cs186.database.concurrency.LockType;
 import edu.berkeley.cs186.database.concurrency.LockUtil;
@@ -73,6 +74,9 @@ public class PageDirectory implements BacktrackingIterable<Page> {
     // page directory id
     private int pageDirectoryId;
 
+    // parent lock context of data pages fetched by getPageWithoutLocks
+    private final LockContext unlockedContext = new DummyLockContext("_unlockedPages");
+
     /**
      * Creates a new heap file, or loads existing file if one already
      * exists at partNum.
@@ -90,6 +94,7 @@ public class PageDirectory implements BacktrackingIterable<Page> {
         this.emptyPageMetadataSize = emptyPageMetadataSize;
         this.lockContext = lockContext;
         this.firstHeader = new HeaderPage(pageNum, 0, true);
+        this.lockContext.setCapacity(this.getNumDataPages());
     }
 
     public short getEffectivePageSize() {
@@ -104,6 +109,15 @@ public class PageDirectory implements BacktrackingIterable<Page> {
         return new DataPage(pageDirectoryId, this.bufferManager.fetchPage(lockContext, pageNum));
     }
 
+    /**
+     * Like getPage, but reads and writes of the page don't lock it. Only for
+     * callers that hold locks on the parts of the page they access instead
+     * (e.g. on records of a table with row locking).
+     */
+    public Page getPageWithoutLocks(long pageNum) {
+        return new DataPage(pageDirectoryId, this.bufferManager.fetchPage(unlockedContext, pageNum));
+    }
+
     public Page getPageWithSpace(short requiredSpace) {
         if (requiredSpace <= 0) {
             throw new IllegalArgumentException("cannot request nonpositive amount of space");
@@ -348,6 +362,7 @@ public class PageDirectory implements BacktrackingIterable<Page> {
                     page.getBuffer().putInt(pageDirectoryId).putInt(headerOffset).putShort(unusedSlot);
 
                     ++this.numDataPages;
+                    lockContext.setCapacity(lockContext.capacity() + 1);
                     return page;
                 }
 
@@ -418,15 +433,19 @@ public class PageDirectory implements BacktrackingIterable<Page> {
 
             @Override
             protected Page getValue(int index) {
+                DataPageEntry dpe;
                 HeaderPage.this.page.pin();
                 try {
                     Buffer b = HeaderPage.this.page.getBuffer();
                     b.position(HEADER_HEADER_SIZE + DataPageEntry.SIZE * index);
-                    DataPageEntry dpe = DataPageEntry.fromBytes(b);
-                    return new DataPage(pageDirectoryId, bufferManager.fetchPage(lockContext, dpe.pageNum));
+                    dpe = DataPageEntry.fromBytes(b);
                 } finally {
                     HeaderPage.this.page.unpin();
                 }
+                // Fetched with the header page unpinned: next pins the header
+                // page while the data page is pinned, and pinning them in the
+                // opposite order here deadlocks concurrent scans
+                return new DataPage(pageDirectoryId, bufferManager.fetchPage(lockContext, dpe.pageNum));
             }
         }
     }
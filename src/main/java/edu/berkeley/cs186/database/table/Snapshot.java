@@ -0,0 +1,154 @@
+package edu.berkeley.cs186.database.table;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The versioning state of a transaction: the timestamp of the snapshot of the
+ * database it reads, and the timestamp it committed at (see VersionStore).
+ *
+ * Every transaction has one, since the versions of records it writes must be
+ * ordered against the snapshots of other transactions. Only snapshot-isolated
+ * transactions read their snapshot; the others read the latest versions of
+ * records, under locks.
+ *
+ * Optimistic transactions also read their snapshot, and record what they
+ * read: the records they get, and the tables they scan. When they commit,
+ * validate checks that no transaction that committed since wrote any of it,
+ * which makes them serializable without taking locks to read.
+ */
+public class Snapshot {
+    // Commit timestamp of a transaction that hasn't committed (yet)
+    static final long UNCOMMITTED = Long.MAX_VALUE;
+
+    // Commit timestamp of a transaction that rolled back
+    static final long ABORTED = -1;
+
+    private final long transNum;
+
+    // Versions committed at or before this timestamp are visible
+    private final long timestamp;
+
+    private final boolean isolated;
+
+    private final boolean optimistic;
+
+    // The records read by an optimistic transaction, by the versions of
+    // their table, and the versions of the tables it scanned
+    private final Map<VersionStore, Set<RecordId>> readRecords = new ConcurrentHashMap<>();
+    private final Set<VersionStore> scannedTables = ConcurrentHashMap.newKeySet();
+
+    private volatile long commitTimestamp = UNCOMMITTED;
+
+    /**
+     * @param transNum the transaction number of the transaction
+     * @param timestamp the commit timestamp of the last transaction that
+     *                  committed before the transaction began
+     * @param isolated whether the transaction reads its snapshot instead of
+     *                 the latest versions of records
+     */
+    public Snapshot(long transNum, long timestamp, boolean isolated) {
+        this(transNum, timestamp, isolated, false);
+    }
+
+    /**
+     * @param optimistic whether the transaction records what it reads, to be
+     *                   validated when it commits (implies `isolated`)
+     */
+    public Snapshot(long transNum, long timestamp, boolean isolated, boolean optimistic) {
+        this.transNum = transNum;
+        this.timestamp = timestamp;
+        this.isolated = isolated || optimistic;
+        this.optimistic = optimistic;
+    }
+
+    public long getTransNum() {
+        return transNum;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public boolean isIsolated() {
+        return isolated;
+    }
+
+    public boolean isOptimistic() {
+        return optimistic;
+    }
+
+    /**
+     * Records that an optimistic transaction read the record `rid` of the
+     * table versioned in `versions`.
+     */
+    void recordRead(VersionStore versions, RecordId rid) {
+        readRecords.computeIfAbsent(versions, v -> ConcurrentHashMap.newKeySet()).add(rid);
+    }
+
+    /**
+     * Records that an optimistic transaction scanned the table versioned in
+     * `versions`. Any write to the table conflicts with a scan, since it may
+     * add or remove a record the scan would (not) have returned.
+     */
+    void recordScan(VersionStore versions) {
+        scannedTables.add(versions);
+    }
+
+    /**
+     * Throws a ValidationException if a transaction that committed after
+     * this snapshot was taken wrote anything the optimistic transaction read.
+     * Must be called in the same critical section as the commit, so that no
+     * transaction commits in between.
+     */
+    public void validate() {
+        for (VersionStore versions : scannedTables) {
+            versions.validateScan(this);
+        }
+        for (Map.Entry<VersionStore, Set<RecordId>> entry : readRecords.entrySet()) {
+            if (scannedTables.contains(entry.getKey())) continue;
+            for (RecordId rid : entry.getValue()) entry.getKey().validateRead(rid, this);
+        }
+    }
+
+    /**
+     * Marks the transaction committed, which makes the versions it wrote
+     * visible to snapshots taken at or after `commitTimestamp`.
+     */
+    public void commit(long commitTimestamp) {
+        this.commitTimestamp = commitTimestamp;
+    }
+
+    /**
+     * Marks the transaction rolled back. Must only be called once its changes
+     * are undone, since the versions it wrote are then ignored.
+     */
+    public void abort() {
+        this.commitTimestamp = ABORTED;
+    }
+
+    public boolean isCommitted() {
+        long committed = commitTimestamp;
+        return committed != UNCOMMITTED && committed != ABORTED;
+    }
+
+    long getCommitTimestamp() {
+        return commitTimestamp;
+    }
+
+    /**
+     * @return whether a version written by `writer` is visible in this
+     * snapshot: it's our own, or it committed before the snapshot was taken
+     */
+    boolean sees(Snapshot writer) {
+        if (writer == this) return true;
+        long committed = writer.commitTimestamp;
+        return committed != ABORTED && committed <= timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "Snapshot " + timestamp + " of transaction " + transNum;
+    }
+}
@@ -1,22 +1,34 @@
 package edu.berkeley.cs186.database.table;
 
 import edu.berkeley.cs186.database.DatabaseException;
+import edu.berkeley.cs186.database.TransactionContext;
 import edu.berkeley.cs186.database.common.Bits;
 import edu.berkeley.cs186.database.common.Buffer;
+import edu.berkeley.cs186.database.common.iterator.ArrayBacktrackingIterator;
 import edu.berkeley.cs186.database.common.iterator.BacktrackingIterable;
 import edu.berkeley.cs186.database.common.iterator.BacktrackingIterator;
 import edu.berkeley.cs186.database.common.iterator.ConcatBacktrackingIterator;
 import edu.berkeley.cs186.database.common.iterator.IndexBacktrackingIterator;
 import edu.berkeley.cs186.database.concurrency.LockContext;
+import edu.berkeley.cs186.database.concurrency.WriteConflictException;
 import edu.berkeley.cs186.database.concurrency.LockType;
 import edu.berkeley.cs186.database.concurrency.LockUtil;
+import edu.berkeley.cs186.database.databox.DataBox;
 import edu.berkeley.cs186.database.io.PageException;
 import edu.berkeley.cs186.database.memory.Page;
+import edu.berkeley.cs186.database.table.stats.StatisticsCollector;
 import edu.berkeley.cs186.database.table.stats.TableStats;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
 
 /**
  * # Overview
@@ -85,10 +97,26 @@ import java.util.Map;
  * Instead, each allocated page is a single record, and we indicate that a page does
  * not contain a record by simply freeing the page.
  *
- * In some cases, this behavior may be desirable even for small records (our database
- * only supports locking at the page level, so in cases where tuple-level locks are
- * necessary even at the cost of an I/O per tuple, a full page record may be desirable),
- * and may be explicitly toggled on with the setFullPageRecords method.
+ * In some cases, this behavior may be desirable even for small records (e.g. when
+ * tuple-level locks are necessary even at the cost of an I/O per tuple, and row
+ * locking isn't enabled), and may be explicitly toggled on with the
+ * setFullPageRecords method.
+ *
+ * # Row locking
+ * By default, records are locked through the pages they're on. With row locking
+ * (see setRowLocking), getRecord, updateRecord and recordIterator instead lock
+ * the records they access, under intent locks on their pages, so transactions
+ * that access different records of the same page don't wait for each other.
+ * Adding and deleting records changes the bitmap of a page, and still locks the
+ * whole page, as do scans (which lock the whole table).
+ *
+ * # Versions
+ * Tables of the database keep the old versions of the records written by
+ * transactions that some snapshot can't see in a VersionStore (see
+ * setVersionStore). Snapshot-isolated and optimistic transactions read records
+ * and scan the table as of the time they began, without locks. Optimistic
+ * transactions also record the records they read and the tables they scan in
+ * their Snapshot, to be validated when they commit.
  */
 public class Table implements BacktrackingIterable<Record> {
     // The name of the table.
@@ -106,12 +134,22 @@ public class Table implements BacktrackingIterable<Record> {
     // The number of records on each data page.
     private int numRecordsPerPage;
 
+    // The offset (in bytes) of each field within a record.
+    private int[] fieldOffsets;
+
     // The lock context of the table.
     private LockContext tableContext;
 
     // Statistics about the contents of the database.
     Map<String, TableStats> stats;
 
+    // The old versions of the records of the table, or null if records
+    // aren't versioned.
+    private VersionStore versions;
+
+    // Whether records are locked individually instead of through their pages.
+    private boolean rowLocking;
+
     // Constructors ////////////////////////////////////////////////////////////
     /**
      * Load a table named `name` with schema `schema` from `pageDirectory`. `lockContext`
@@ -126,6 +164,10 @@ public class Table implements BacktrackingIterable<Record> {
 
         this.bitmapSizeInBytes = computeBitmapSizeInBytes(pageDirectory.getEffectivePageSize(), schema);
         this.numRecordsPerPage = computeNumRecordsPerPage(pageDirectory.getEffectivePageSize(), schema);
+        this.fieldOffsets = new int[schema.size()];
+        for (int i = 1; i < schema.size(); i++) {
+            this.fieldOffsets[i] = this.fieldOffsets[i - 1] + schema.getFieldType(i - 1).getSizeInBytes();
+        }
         // mark everything that is not used for records as metadata
         this.pageDirectory.setEmptyPageMetadataSize((short) (pageDirectory.getEffectivePageSize() - numRecordsPerPage
                                                * schema.getSizeInBytes()));
@@ -168,6 +210,44 @@ public class Table implements BacktrackingIterable<Record> {
         return pageDirectory.getPartNum();
     }
 
+    /**
+     * Versions the records of this table in `versions`, which must be shared
+     * by every Table object of the table.
+     */
+    public void setVersionStore(VersionStore versions) {
+        this.versions = versions;
+    }
+
+    /**
+     * Locks the records of this table individually (see Row locking above).
+     */
+    public void setRowLocking(boolean rowLocking) {
+        this.rowLocking = rowLocking;
+    }
+
+    public boolean isRowLocking() {
+        return rowLocking;
+    }
+
+    /**
+     * @return the snapshot of the current transaction, or null if records
+     * aren't versioned
+     */
+    private Snapshot writerSnapshot() {
+        TransactionContext transaction = TransactionContext.getTransaction();
+        if (versions == null || transaction == null) return null;
+        return transaction.getSnapshot();
+    }
+
+    /**
+     * @return the snapshot of the current transaction if it's
+     * snapshot-isolated, or null if it reads the latest versions of records
+     */
+    private Snapshot isolatedSnapshot() {
+        Snapshot snapshot = writerSnapshot();
+        return snapshot != null && snapshot.isIsolated() ? snapshot : null;
+    }
+
     private byte[] getBitMap(Page page) {
         if (bitmapSizeInBytes > 0) {
             byte[] bytes = new byte[bitmapSizeInBytes];
@@ -231,6 +311,26 @@ public class Table implements BacktrackingIterable<Record> {
         this.stats.get(name).refreshHistograms(buckets, this);
     }
 
+    /**
+     * analyze collects fresh statistics (histograms, bounds and distinct counts)
+     * on every column of the table in a single scan, and replaces the statistics
+     * of the table with them once the scan is done. Queries that already
+     * fetched the old statistics keep using them.
+     *
+     * @param buckets the number of buckets of each histogram
+     * @param sampleSize the maximum number of records to build the histograms
+     *                   from, or StatisticsCollector.NO_SAMPLING for the
+     *                   default (see StatisticsCollector)
+     * @return the new statistics of the table
+     */
+    public TableStats analyze(int buckets, int sampleSize) {
+        StatisticsCollector collector = new StatisticsCollector(schema, buckets, sampleSize);
+        for (Record record : this) collector.add(record);
+        TableStats analyzed = collector.build(numRecordsPerPage);
+        this.stats.put(name, analyzed);
+        return analyzed;
+    }
+
     private synchronized void insertRecord(Page page, int entryNum, Record record) {
         int offset = bitmapSizeInBytes + (entryNum * schema.getSizeInBytes());
         page.getBuffer().position(offset).put(record.toBytes(schema));
@@ -243,6 +343,10 @@ public class Table implements BacktrackingIterable<Record> {
      * page (if one exists, otherwise one is allocated). For example, if the
      * first free page has bitmap 0b11101000, then the record is inserted into
      * the page with index 3 and the bitmap is updated to 0b11111000.
+     *
+     * A snapshot-isolated transaction skips the slots of records deleted
+     * since its snapshot was taken (which it still reads), and gets a
+     * WriteConflictException if the page has no other free slot.
      */
     public synchronized RecordId addRecord(Record record) {
         record = schema.verify(record);
@@ -252,16 +356,29 @@ public class Table implements BacktrackingIterable<Record> {
             // entry number of the first free slot and store it in entryNum; and (2) we
             // count the total number of entries on this page.
             byte[] bitmap = getBitMap(page);
+            Snapshot writer = writerSnapshot();
             int entryNum = 0;
             for (; entryNum < numRecordsPerPage; ++entryNum) {
-                if (Bits.getBit(bitmap, entryNum) == Bits.Bit.ZERO) {
+                if (Bits.getBit(bitmap, entryNum) == Bits.Bit.ZERO &&
+                        !deletedInSnapshot(page.getPageNum(), entryNum, writer)) {
                     break;
                 }
             }
-            if (numRecordsPerPage == 1) {
+            if (numRecordsPerPage == 1 && !deletedInSnapshot(page.getPageNum(), 0, writer)) {
                 entryNum = 0;
             }
-            assert (entryNum < numRecordsPerPage);
+            if (entryNum == numRecordsPerPage) {
+                // Every free slot of the page holds a record the writer's
+                // snapshot still sees, so give the space back
+                int numRecords = numRecordsPerPage == 1 ? 0 : numRecordsOnPage(page);
+                pageDirectory.updateFreeSpace(page,
+                        (short) ((numRecordsPerPage - numRecords) * schema.getSizeInBytes()));
+                throw new WriteConflictException(String.format(
+                        "the free space on page %d is held by records deleted after the snapshot of transaction %d",
+                        page.getPageNum(), writer.getTransNum()));
+            }
+            RecordId rid = new RecordId(page.getPageNum(), (short) entryNum);
+            if (writer != null) versions.recordWrite(rid, null, writer);
 
             // Insert the record and update the bitmap.
             insertRecord(page, entryNum, record);
@@ -270,17 +387,116 @@ public class Table implements BacktrackingIterable<Record> {
 
             // Update the metadata.
             stats.get(name).addRecord(record);
-            return new RecordId(page.getPageNum(), (short) entryNum);
+            return rid;
         } finally {
             page.unpin();
         }
     }
 
+    /**
+     * @return whether the free slot `entryNum` of page `pageNum` held a record
+     * that's deleted since `snapshot` was taken, and which a
+     * snapshot-isolated transaction can't replace since it still reads it
+     */
+    private boolean deletedInSnapshot(long pageNum, int entryNum, Snapshot snapshot) {
+        if (snapshot == null || !snapshot.isIsolated()) return false;
+        return versions.exists(new RecordId(pageNum, (short) entryNum), false, snapshot);
+    }
+
     /**
      * Retrieves a record from the table, throwing an exception if no such record
-     * exists.
+     * exists. Snapshot-isolated transactions get the version of the record in
+     * their snapshot.
      */
     public synchronized Record getRecord(RecordId rid) {
+        Snapshot snapshot = isolatedSnapshot();
+        if (snapshot == null) {
+            validateRecordId(rid);
+            lockRecord(rid, LockType.S);
+            return readRecord(rid);
+        }
+
+        validateRecordId(rid);
+        // The page must be read before the versions, since writers add a
+        // version before modifying the page
+        Record current;
+        try {
+            current = readRecordIfExists(rid);
+        } catch (DatabaseException e) {
+            // The page was freed
+            current = null;
+        }
+        Record record = versions.read(rid, current, snapshot);
+        if (snapshot.isOptimistic()) snapshot.recordRead(versions, rid);
+        if (record == null) {
+            String msg = String.format("Record %s does not exist.", rid);
+            throw new DatabaseException(msg);
+        }
+        return record;
+    }
+
+    /**
+     * @return the latest version of a record, or null if no such record
+     * exists
+     */
+    private Record readRecordIfExists(RecordId rid) {
+        Page page = fetchPage(rid.getPageNum());
+        try {
+            byte[] bitmap = getBitMap(page);
+            if (Bits.getBit(bitmap, rid.getEntryNum()) == Bits.Bit.ZERO) return null;
+
+            int offset = bitmapSizeInBytes + (rid.getEntryNum() * schema.getSizeInBytes());
+            Buffer buf = page.getBuffer();
+            buf.position(offset);
+            return Record.fromBytes(buf, schema);
+        } finally {
+            page.unpin();
+        }
+    }
+
+    /**
+     * Retrieves the latest version of a record from the table, throwing an
+     * exception if no such record exists. The current transaction must hold a
+     * lock on the record (see lockRecord).
+     */
+    private Record readRecord(RecordId rid) {
+        validateRecordId(rid);
+        Page page = fetchRecordPage(rid.getPageNum());
+        try {
+            byte[] bitmap = getBitMap(page);
+            if (Bits.getBit(bitmap, rid.getEntryNum()) == Bits.Bit.ZERO) {
+                String msg = String.format("Record %s does not exist.", rid);
+                throw new DatabaseException(msg);
+            }
+
+            int offset = bitmapSizeInBytes + (rid.getEntryNum() * schema.getSizeInBytes());
+            Buffer buf = page.getBuffer();
+            buf.position(offset);
+            return Record.fromBytes(buf, schema);
+        } finally {
+            page.unpin();
+        }
+    }
+
+    /**
+     * Retrieves a record from the table if its values pass a filter, throwing
+     * an exception if no such record exists. Only the values the filter looks
+     * at are decoded from the page until the record is known to pass, so that
+     * records that don't pass cost little more than reading their fields.
+     *
+     * @param columns the indices of the columns the filter looks at
+     * @param predicates the predicates that the values of the corresponding
+     *                   columns must satisfy for the record to pass
+     * @return the record, or null if it doesn't pass
+     */
+    public synchronized Record getRecordIf(RecordId rid, int[] columns, List<Predicate<DataBox>> predicates) {
+        if (isolatedSnapshot() != null) {
+            Record record = getRecord(rid);
+            for (int i = 0; i < columns.length; i++) {
+                if (!predicates.get(i).test(record.getValue(columns[i]))) return null;
+            }
+            return record;
+        }
         validateRecordId(rid);
         Page page = fetchPage(rid.getPageNum());
         try {
@@ -292,6 +508,11 @@ public class Table implements BacktrackingIterable<Record> {
 
             int offset = bitmapSizeInBytes + (rid.getEntryNum() * schema.getSizeInBytes());
             Buffer buf = page.getBuffer();
+            for (int i = 0; i < columns.length; i++) {
+                buf.position(offset + this.fieldOffsets[columns[i]]);
+                DataBox value = DataBox.fromBytes(buf, schema.getFieldType(columns[i]));
+                if (!predicates.get(i).test(value)) return null;
+            }
             buf.position(offset);
             return Record.fromBytes(buf, schema);
         } finally {
@@ -302,25 +523,28 @@ public class Table implements BacktrackingIterable<Record> {
     /**
      * Overwrites an existing record with new values and returns the existing
      * record. stats is updated accordingly. An exception is thrown if rid does
-     * not correspond to an existing record in the table.
+     * not correspond to an existing record in the table, and a
+     * WriteConflictException if the current transaction is snapshot-isolated
+     * and the record was written after its snapshot was taken.
      */
     public synchronized Record updateRecord(RecordId rid, Record updated) {
         validateRecordId(rid);
-        // If we're updating a record we'll need exclusive access to the page
-        // its on.
-        LockContext pageContext = tableContext.childContext(rid.getPageNum());
-        // TODO(proj4_part2): Update the following line
-        LockUtil.ensureSufficientLockHeld(pageContext, LockType.X);
+        // If we're updating a record we'll need exclusive access to it (or
+        // the page its on).
+        lockRecord(rid, LockType.X);
+
+        Snapshot writer = writerSnapshot();
+        if (writer != null && writer.isIsolated()) versions.checkWriteConflict(rid, writer);
 
         Record newRecord = schema.verify(updated);
-        Record oldRecord = getRecord(rid);
+        Record oldRecord = readRecord(rid);
+        if (writer != null) versions.recordWrite(rid, oldRecord, writer);
 
-        Page page = fetchPage(rid.getPageNum());
+        Page page = fetchRecordPage(rid.getPageNum());
         try {
             insertRecord(page, rid.getEntryNum(), newRecord);
 
-            this.stats.get(name).removeRecord(oldRecord);
-            this.stats.get(name).addRecord(newRecord);
+            this.stats.get(name).updateRecord(oldRecord, newRecord);
             return oldRecord;
         } finally {
             page.unpin();
@@ -330,7 +554,9 @@ public class Table implements BacktrackingIterable<Record> {
     /**
      * Deletes and returns the record specified by rid from the table and updates
      * stats, freePageNums, and numRecords as necessary. An exception is thrown
-     * if rid does not correspond to an existing record in the table.
+     * if rid does not correspond to an existing record in the table, and a
+     * WriteConflictException if the current transaction is snapshot-isolated
+     * and the record was written after its snapshot was taken.
      */
     public synchronized Record deleteRecord(RecordId rid) {
         validateRecordId(rid);
@@ -339,9 +565,13 @@ public class Table implements BacktrackingIterable<Record> {
         // TODO(proj4_part2): Update the following line
         LockUtil.ensureSufficientLockHeld(pageContext, LockType.X);
 
+        Snapshot writer = writerSnapshot();
+        if (writer != null && writer.isIsolated()) versions.checkWriteConflict(rid, writer);
+
         Page page = fetchPage(rid.getPageNum());
         try {
-            Record record = getRecord(rid);
+            Record record = readRecord(rid);
+            if (writer != null) versions.recordWrite(rid, record, writer);
 
             byte[] bitmap = getBitMap(page);
             Bits.setBit(bitmap, rid.getEntryNum(), Bits.Bit.ZERO);
@@ -371,6 +601,37 @@ public class Table implements BacktrackingIterable<Record> {
         }
     }
 
+    /**
+     * Fetches page `pageNum` to access records the current transaction holds
+     * locks on. With row locking, the page itself isn't locked (its records
+     * are, under an intent lock on it).
+     */
+    private Page fetchRecordPage(long pageNum) {
+        if (!rowLocking) return fetchPage(pageNum);
+        try {
+            return pageDirectory.getPageWithoutLocks(pageNum);
+        } catch (PageException e) {
+            throw new DatabaseException(e);
+        }
+    }
+
+    /**
+     * Ensures the current transaction holds a `lockType` (S or X) lock on the
+     * record `rid`: on the record itself with row locking, or on its page
+     * otherwise.
+     */
+    private void lockRecord(RecordId rid, LockType lockType) {
+        LockContext pageContext = tableContext.childContext(rid.getPageNum());
+        if (!rowLocking) {
+            LockUtil.ensureSufficientLockHeld(pageContext, lockType);
+            return;
+        }
+        // Lets LockUtil escalate to a lock on the page once a transaction
+        // holds locks on enough of its records
+        pageContext.setCapacity(numRecordsPerPage);
+        LockUtil.ensureSufficientLockHeld(pageContext.childContext(rid.getEntryNum()), lockType);
+    }
+
     private int numRecordsOnPage(Page page) {
         byte[] bitmap = getBitMap(page);
         int numRecords = 0;
@@ -402,9 +663,15 @@ public class Table implements BacktrackingIterable<Record> {
 
     /**
      * @return Performs a full scan on the table to return id's of all existing
-     * records
+     * records (in the snapshot of the current transaction, if it's
+     * snapshot-isolated)
      */
     public BacktrackingIterator<RecordId> ridIterator() {
+        Snapshot snapshot = isolatedSnapshot();
+        if (snapshot != null) {
+            if (snapshot.isOptimistic()) snapshot.recordScan(versions);
+            return new ConcatBacktrackingIterator<>(new SnapshotPageIterator(snapshot));
+        }
         // TODO(proj4_part2): Update the following line
         LockUtil.ensureSufficientLockHeld(tableContext, LockType.S);
 
@@ -420,10 +687,20 @@ public class Table implements BacktrackingIterable<Record> {
      */
     public BacktrackingIterator<Record> recordIterator(Iterator<RecordId> rids) {
         // TODO(proj4_part2): Update the following line
-        LockUtil.ensureSufficientLockHeld(tableContext, LockType.S);
+        // With row locking, getRecord locks each record instead
+        if (!rowLocking) LockUtil.ensureSufficientLockHeld(tableContext, LockType.S);
         return new RecordIterator(rids);
     }
 
+    /**
+     * @return an iterator over the records of this table that pass a filter
+     * (see getRecordIf)
+     */
+    public Iterator<Record> iterator(int[] columns, List<Predicate<DataBox>> predicates) {
+        LockUtil.ensureSufficientLockHeld(tableContext, LockType.S);
+        return new FilteredRecordIterator(ridIterator(), columns, predicates);
+    }
+
     public BacktrackingIterator<Page> pageIterator() {
         return pageDirectory.iterator();
     }
@@ -520,6 +797,105 @@ public class Table implements BacktrackingIterable<Record> {
         }
     }
 
+    /**
+     * @return the ids of the records on page `pageNum` that exist in
+     * `snapshot`, which are the records on the page now and those with
+     * versions, minus those that don't exist in the snapshot
+     */
+    private List<RecordId> getRecordIds(long pageNum, Snapshot snapshot) {
+        // The bitmap must be read before the versions, since writers add a
+        // version before modifying the page
+        byte[] bitmap = null;
+        try {
+            Page page = fetchPage(pageNum);
+            try {
+                bitmap = getBitMap(page);
+            } finally {
+                page.unpin();
+            }
+        } catch (DatabaseException e) {
+            // The page was freed
+        }
+        Set<Short> entryNums = new TreeSet<>();
+        for (int i = 0; bitmap != null && i < numRecordsPerPage; ++i) {
+            if (Bits.getBit(bitmap, i) == Bits.Bit.ONE) entryNums.add((short) i);
+        }
+        for (RecordId rid : versions.getRecordIds(pageNum)) entryNums.add(rid.getEntryNum());
+
+        List<RecordId> rids = new ArrayList<>();
+        for (short entryNum : entryNums) {
+            RecordId rid = new RecordId(pageNum, entryNum);
+            boolean existsNow = bitmap != null && Bits.getBit(bitmap, entryNum) == Bits.Bit.ONE;
+            if (versions.exists(rid, existsNow, snapshot)) rids.add(rid);
+        }
+        return rids;
+    }
+
+    /**
+     * Iterator over the record ids of the table in a snapshot, one page at a
+     * time. Pages are scanned along with the versions of their records, and
+     * once every page of the table has been scanned, the records with
+     * versions on pages that weren't (freed before the scan reached them)
+     * follow. The snapshot doesn't change, so the record ids of a page can be
+     * computed again when backtracking.
+     */
+    private class SnapshotPageIterator implements BacktrackingIterator<BacktrackingIterable<RecordId>> {
+        private Snapshot snapshot;
+        private BacktrackingIterator<Page> pages;
+        private Set<Long> scannedPageNums = new HashSet<>();
+        private boolean unscannedReturned = false;
+
+        private SnapshotPageIterator(Snapshot snapshot) {
+            this.snapshot = snapshot;
+            this.pages = pageDirectory.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pages.hasNext() || !unscannedReturned;
+        }
+
+        @Override
+        public BacktrackingIterable<RecordId> next() {
+            if (pages.hasNext()) {
+                Page page = pages.next();
+                long pageNum = page.getPageNum();
+                page.unpin();
+                scannedPageNums.add(pageNum);
+                return () -> new ArrayBacktrackingIterator<>(getRecordIds(pageNum, snapshot));
+            }
+            if (unscannedReturned) throw new NoSuchElementException();
+            unscannedReturned = true;
+            return () -> {
+                Set<Long> pageNums = new TreeSet<>();
+                for (RecordId rid : versions.getRecordIds()) {
+                    if (!scannedPageNums.contains(rid.getPageNum())) pageNums.add(rid.getPageNum());
+                }
+                List<RecordId> rids = new ArrayList<>();
+                for (long pageNum : pageNums) rids.addAll(getRecordIds(pageNum, snapshot));
+                return new ArrayBacktrackingIterator<>(rids);
+            };
+        }
+
+        // ConcatBacktrackingIterator keeps the iterables it has seen, and
+        // never backtracks this iterator
+
+        @Override
+        public void markPrev() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void markNext() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void reset() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
     /**
      * Wraps an iterator of record ids to form an iterator over records.
      */
@@ -571,5 +947,43 @@ public class Table implements BacktrackingIterable<Record> {
             }
         }
     }
+
+    /**
+     * Wraps an iterator of record ids to form an iterator over the records that
+     * pass a filter.
+     */
+    private class FilteredRecordIterator implements Iterator<Record> {
+        private Iterator<RecordId> ridIter;
+        private int[] columns;
+        private List<Predicate<DataBox>> predicates;
+        private Record nextRecord;
+
+        private FilteredRecordIterator(Iterator<RecordId> ridIter, int[] columns,
+                                       List<Predicate<DataBox>> predicates) {
+            this.ridIter = ridIter;
+            this.columns = columns;
+            this.predicates = predicates;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (this.nextRecord == null && this.ridIter.hasNext()) {
+                try {
+                    this.nextRecord = getRecordIf(this.ridIter.next(), this.columns, this.predicates);
+                } catch (DatabaseException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return this.nextRecord != null;
+        }
+
+        @Override
+        public Record next() {
+            if (!this.hasNext()) throw new NoSuchElementException();
+            Record record = this.nextRecord;
+            this.nextRecord = null;
+            return record;
+        }
+    }
 }
 
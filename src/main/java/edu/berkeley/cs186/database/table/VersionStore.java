@@ -0,0 +1,201 @@
+package edu.berkeley.cs186.database.table;
+
+import edu.berkeley.cs186.database.concurrency.ValidationException;
+import edu.berkeley.cs186.database.concurrency.WriteConflictException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The old versions of the records of a table, which let snapshot-isolated
+ * transactions read the table as of the time they began without locks.
+ *
+ * Records are updated in place, so the page always holds the latest version
+ * of a record. Before a transaction first writes a record (inserting,
+ * updating or deleting it), the table adds the record's before-image (null
+ * for an insert) to the head of the record's chain of versions, tagged with
+ * the Snapshot of the writer. A reader walks the chain from the newest
+ * version, undoing every write it can't see (by a transaction that hasn't
+ * committed, or committed after the reader's snapshot was taken), until it
+ * reaches one it can see:
+ *
+ *   page: (3, 'c')    chain: [before (2, 'b'), by T3 uncommitted]
+ *                        ->  [before (1, 'a'), by T2 committed at 5]
+ *                        ->  [before null, by T1 committed at 2]
+ *
+ * A snapshot taken at timestamp 4 reads (1, 'a'), one taken at 7 reads
+ * (2, 'b'), and one taken at 1 doesn't see the record at all.
+ *
+ * Writers still hold X locks until they commit, so the head of a chain is
+ * the only version that can be uncommitted. Versions are only needed as long
+ * as some snapshot can't see the write that replaced them, and are garbage
+ * collected (see collectGarbage) once every active snapshot sees it.
+ */
+public class VersionStore {
+    /**
+     * The before-image of one write of a record.
+     */
+    private static class Version {
+        private final Record before;
+        private final Snapshot writer;
+        private final Version older;
+
+        private Version(Record before, Snapshot writer, Version older) {
+            this.before = before;
+            this.writer = writer;
+            this.older = older;
+        }
+    }
+
+    // Chains of versions of the records written since the oldest active
+    // snapshot, ordered so that the records of a page are adjacent
+    private final ConcurrentSkipListMap<RecordId, Version> chains = new ConcurrentSkipListMap<>();
+
+    /**
+     * Records that the transaction of `writer` is about to write the record
+     * `rid`, whose current value is `before` (null if the record doesn't
+     * exist). Must be called before the page is modified, so that readers
+     * that see the new value also see its version. Only the first write of a
+     * record by a transaction adds a version.
+     */
+    public void recordWrite(RecordId rid, Record before, Snapshot writer) {
+        chains.compute(rid, (id, head) -> {
+            if (head != null && head.writer == writer) return head;
+            return new Version(before, writer, head);
+        });
+    }
+
+    /**
+     * Throws a WriteConflictException if the snapshot-isolated transaction
+     * of `snapshot` can't write the record `rid`, because a transaction it
+     * can't see already wrote it (first updater wins). Since writers hold X
+     * locks, that transaction has committed, after the snapshot was taken.
+     */
+    public void checkWriteConflict(RecordId rid, Snapshot snapshot) {
+        for (Version v = chains.get(rid); v != null; v = v.older) {
+            if (v.writer.getCommitTimestamp() == Snapshot.ABORTED) continue;
+            if (snapshot.sees(v.writer)) return;
+            throw new WriteConflictException(String.format(
+                    "record %s was written by transaction %d after the snapshot of transaction %d",
+                    rid, v.writer.getTransNum(), snapshot.getTransNum()));
+        }
+    }
+
+    /**
+     * Throws a ValidationException if a transaction that committed after
+     * `snapshot` was taken wrote the record `rid`, which the optimistic
+     * transaction of `snapshot` read. Writes of transactions that haven't
+     * committed yet don't conflict: they commit after the transaction
+     * validating, which didn't read them.
+     */
+    public void validateRead(RecordId rid, Snapshot snapshot) {
+        Version v = chains.get(rid);
+        for (; v != null; v = v.older) {
+            if (!v.writer.isCommitted()) continue;
+            if (snapshot.sees(v.writer)) return;
+            throw new ValidationException(String.format(
+                    "record %s read by transaction %d was written by transaction %d, which committed since",
+                    rid, snapshot.getTransNum(), v.writer.getTransNum()));
+        }
+    }
+
+    /**
+     * Throws a ValidationException if a transaction that committed after
+     * `snapshot` was taken wrote any record of the table, which the
+     * optimistic transaction of `snapshot` scanned.
+     */
+    public void validateScan(Snapshot snapshot) {
+        for (RecordId rid : chains.keySet()) validateRead(rid, snapshot);
+    }
+
+    /**
+     * @return the oldest of the versions written by transactions `snapshot`
+     * can't see, whose before-image is the value `snapshot` sees, or null if
+     * `snapshot` sees the current value of the record
+     */
+    private Version oldestInvisible(RecordId rid, Snapshot snapshot) {
+        Version invisible = null;
+        for (Version v = chains.get(rid); v != null; v = v.older) {
+            if (v.writer.getCommitTimestamp() == Snapshot.ABORTED) continue;
+            if (snapshot.sees(v.writer)) break;
+            invisible = v;
+        }
+        return invisible;
+    }
+
+    /**
+     * @param current the current value of the record, read from its page
+     *                before calling this method (null if the record doesn't
+     *                exist)
+     * @return the value of the record `rid` in `snapshot`, or null if the
+     * record doesn't exist in it
+     */
+    public Record read(RecordId rid, Record current, Snapshot snapshot) {
+        Version v = oldestInvisible(rid, snapshot);
+        return v == null ? current : v.before;
+    }
+
+    /**
+     * @param existsNow whether the record exists, read from its page before
+     *                  calling this method
+     * @return whether the record `rid` exists in `snapshot`
+     */
+    public boolean exists(RecordId rid, boolean existsNow, Snapshot snapshot) {
+        Version v = oldestInvisible(rid, snapshot);
+        return v == null ? existsNow : v.before != null;
+    }
+
+    /**
+     * @return the ids of the records on page `pageNum` that have versions
+     */
+    public List<RecordId> getRecordIds(long pageNum) {
+        ConcurrentNavigableMap<RecordId, Version> page = chains.subMap(
+                new RecordId(pageNum, Short.MIN_VALUE), true, new RecordId(pageNum, Short.MAX_VALUE), true);
+        return new ArrayList<>(page.keySet());
+    }
+
+    /**
+     * @return the ids of all the records that have versions
+     */
+    public List<RecordId> getRecordIds() {
+        return new ArrayList<>(chains.keySet());
+    }
+
+    /**
+     * Drops the versions that no snapshot needs anymore: every version
+     * replaced by a write committed at or before `oldestTimestamp` (the
+     * timestamp of the oldest active snapshot, or of the last commit if there
+     * is none), along with the versions of rolled back writes.
+     */
+    public void collectGarbage(long oldestTimestamp) {
+        for (RecordId rid : chains.keySet()) {
+            chains.computeIfPresent(rid, (id, head) -> truncate(head, oldestTimestamp));
+        }
+    }
+
+    private static Version truncate(Version v, long oldestTimestamp) {
+        if (v == null) return null;
+        long committed = v.writer.getCommitTimestamp();
+        if (committed == Snapshot.ABORTED) return truncate(v.older, oldestTimestamp);
+        if (committed <= oldestTimestamp) return null;
+        Version older = truncate(v.older, oldestTimestamp);
+        return older == v.older ? v : new Version(v.before, v.writer, older);
+    }
+
+    /**
+     * @return the number of versions kept
+     */
+    public int size() {
+        int size = 0;
+        for (Version head : chains.values()) {
+            for (Version v = head; v != null; v = v.older) size++;
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return chains.isEmpty();
+    }
+}
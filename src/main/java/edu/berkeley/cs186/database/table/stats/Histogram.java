@@ -1,12 +1,14 @@
 package edu.berkeley.cs186.database.table.stats;
 
+import edu.berkeley.cs186.database.common.Buffer;
 import edu.berkeley.cs186.database.common.PredicateOperator;
 import edu.berkeley.cs186.database.databox.DataBox;
 import edu.berkeley.cs186.database.databox.TypeId;
 import edu.berkeley.cs186.database.table.Record;
 import edu.berkeley.cs186.database.table.Table;
 
-import java.util.Iterator;
+import java.nio.ByteBuffer;
+import java.util.*;
 
 /**
  * A histogram maintains approximate statistics about a (potentially large) set
@@ -49,7 +51,12 @@ import java.util.Iterator;
  * b.getCount();//returns the number of items added to the bucket
  * b.getDistinctCount();//returns the approximate number of distinct items added to the bucket
  *
- *
+ * Histograms built by ANALYZE (see fromSample) are equi-depth instead: every bucket holds about the
+ * same number of values, so buckets are narrow where values are dense and wide where they are sparse.
+ * On top of the buckets, the most common values (MCVs) of the column are kept with their exact counts,
+ * and aren't counted in any bucket. A skewed column, such as a tenant ID where a few tenants own most
+ * of the rows, is then estimated from its MCVs for the heavy hitters, and from the buckets for the
+ * long tail, where the assumption that values within a bucket are uniform holds much better.
  */
 public class Histogram {
     private Bucket[] buckets; //An array of float buckets the basic data structure
@@ -58,6 +65,10 @@ public class Histogram {
     private float maxValue;
     private float width;    // The width of each bucket
 
+    // Most common values (quantized) and their counts, which aren't counted in any bucket
+    private float[] mcvValues = new float[0];
+    private int[] mcvCounts = new int[0];
+
     /*This constructor initialize an empty histogram object*/
     public Histogram() {
         this(1);
@@ -79,23 +90,40 @@ public class Histogram {
         this.maxValue = buckets[this.buckets.length - 1].getEnd();
     }
 
+    /*This is a copy constructor that generates a new histogram from a bucket list and MCV list*/
+    private Histogram(Bucket[] buckets, float[] mcvValues, int[] mcvCounts) {
+        this(buckets);
+        this.mcvValues = mcvValues;
+        this.mcvCounts = mcvCounts;
+    }
+
     /** We only consider float histograms, and these two methods turn every data type into a float.
      *  We call this mapping quantization. That means given any DataBox, we turn it into a float number.
      *  For Booleans, Integers, Floats, order is preserved in the mapping. But for strings, only equalities
-     *  are preserved.
+     *  are preserved: a string is mapped to a 24 bit hash of its hash code, which a float represents
+     *  exactly. Casting the hash code itself would round away its low bits, so that similar strings,
+     *  whose hash codes only differ in their low bits, would all collide.
      */
     private float quantization(Record record, int index) {
         DataBox d = record.getValue(index);
         return quantization(d);
     }
 
-    private float quantization(DataBox d) {
+    static float quantization(DataBox d) {
         switch (d.getTypeId()) {
         case BOOL:   { return (d.getBool()) ? 1.0f : 0.0f; }
         case INT:    { return (float) d.getInt(); }
         case FLOAT:  { return d.getFloat(); }
         case LONG:   { return (float) d.getLong(); }
-        case STRING: { return (float) (d.getString().hashCode()); }
+        case STRING: {
+            int h = d.getString().hashCode();
+            h ^= h >>> 16;
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            h *= 0xc2b2ae35;
+            h ^= h >>> 16;
+            return (float) (h & 0xffffff);
+        }
         }
         throw new IllegalStateException("Unreachable code.");
     }
@@ -148,11 +176,160 @@ public class Histogram {
             buckets[bucketIndex].increment(quantizedValue);
         }
     }
+    /** fromSample() builds an equi-depth histogram and a list of most common values from the
+     *  quantized values of a column that were collected in a single pass over a table (see
+     *  StatisticsCollector), with the following procedure.
+     *
+     *  1. Sort the values, and count how often each distinct value occurs.
+     *  2. Pick up to numMostCommonValues values that occur at least twice, and at least 25% more
+     *     often than the average value, as MCVs. If every value was kept and there are at most
+     *     numMostCommonValues distinct values, all of them are MCVs and the histogram is exact.
+     *  3. Split the remaining values into numBuckets buckets with about the same count each. A
+     *     bucket boundary never splits the occurrences of a single value.
+     *
+     *  The first bucket starts at minValue and the last bucket ends at maxValue, the exact bounds of
+     *  the column, even if those values weren't sampled.
+     *
+     *  If the values are only a sample of the totalCount values of the column, every count is
+     *  scaled up by totalCount / sampleSize. Distinct counts don't scale linearly with the sample size,
+     *  so unless numDistinct is negative, the distinct counts of the buckets are instead scaled so that
+     *  the histogram has numDistinct distinct values in total, an estimate of the number of distinct
+     *  values of the whole column. This also corrects for distinct values that were quantized to the
+     *  same float.
+     */
+    static Histogram fromSample(int numBuckets, int numMostCommonValues, float minValue, float maxValue,
+                                float[] values, int sampleSize, long totalCount, long numDistinct) {
+        float[] sorted = Arrays.copyOf(values, sampleSize);
+        Arrays.sort(sorted);
+        float countScale = sampleSize == 0 ? 0 : (float) totalCount / sampleSize;
+
+        // 1. run length encode the sorted values
+        float[] runValues = new float[sampleSize];
+        int[] runCounts = new int[sampleSize];
+        int numRuns = 0;
+        for (int i = 0; i < sampleSize; i++) {
+            if (numRuns == 0 || sorted[i] != runValues[numRuns - 1]) runValues[numRuns++] = sorted[i];
+            runCounts[numRuns - 1]++;
+        }
+
+        // 2. pick the most common values
+        boolean[] isMostCommon = new boolean[numRuns];
+        List<Integer> candidates = new ArrayList<>();
+        boolean exact = sampleSize == totalCount && numRuns <= numMostCommonValues;
+        for (int i = 0; i < numRuns; i++) {
+            if (exact || (runCounts[i] >= 2 && runCounts[i] > 1.25 * sampleSize / numRuns)) candidates.add(i);
+        }
+        candidates.sort((a, b) -> Integer.compare(runCounts[b], runCounts[a]));
+        candidates = candidates.subList(0, Math.min(numMostCommonValues, candidates.size()));
+        Collections.sort(candidates);
+        float[] mcvValues = new float[candidates.size()];
+        int[] mcvCounts = new int[candidates.size()];
+        for (int j = 0; j < candidates.size(); j++) {
+            int i = candidates.get(j);
+            isMostCommon[i] = true;
+            mcvValues[j] = runValues[i];
+            mcvCounts[j] = Math.round(runCounts[i] * countScale);
+        }
+
+        // 3. split the remaining values into buckets of about the same depth
+        int numRest = 0;
+        int numDistinctRest = 0;
+        for (int i = 0; i < numRuns; i++) {
+            if (isMostCommon[i]) continue;
+            numRest += runCounts[i];
+            numDistinctRest++;
+        }
+        List<Bucket> buckets = new ArrayList<>();
+        float bucketStart = minValue;
+        int bucketCount = 0;
+        int bucketDistinct = 0;
+        int seen = 0;
+        for (int i = 0; i < numRuns; i++) {
+            if (isMostCommon[i]) continue;
+            // Close the current bucket once it holds its share of the values
+            long depth = (long) (buckets.size() + 1) * numRest / numBuckets;
+            if (bucketCount > 0 && seen >= depth && buckets.size() < numBuckets - 1) {
+                Bucket bucket = new Bucket(bucketStart, runValues[i]);
+                bucket.setCount(bucketCount);
+                bucket.setDistinctCount(bucketDistinct);
+                buckets.add(bucket);
+                bucketStart = runValues[i];
+                bucketCount = 0;
+                bucketDistinct = 0;
+            }
+            bucketCount += runCounts[i];
+            bucketDistinct++;
+            seen += runCounts[i];
+        }
+        Bucket last = new Bucket(bucketStart, maxValue);
+        last.setCount(bucketCount);
+        last.setDistinctCount(bucketDistinct);
+        buckets.add(last);
+
+        Histogram h = new Histogram(buckets.toArray(new Bucket[0]), mcvValues, mcvCounts);
+        if (sampleSize == totalCount && numDistinct < 0) return h;
+
+        float distinctScale = 1;
+        if (numDistinct >= 0) {
+            distinctScale = (float) Math.max(0, numDistinct - mcvValues.length) / Math.max(1, numDistinctRest);
+        }
+        for (Bucket bucket : h.buckets) {
+            int count = Math.round(bucket.getCount() * countScale);
+            int distinctCount = Math.round(bucket.getDistinctCount() * distinctScale);
+            if (bucket.getCount() > 0) distinctCount = Math.max(1, Math.min(distinctCount, count));
+            bucket.setCount(count);
+            bucket.setDistinctCount(distinctCount);
+        }
+        return h;
+    }
+
+    /** A histogram is serialized as the number of buckets (4 bytes), followed by the start (4 bytes),
+     *  end (4 bytes), count (4 bytes) and distinct count (4 bytes) of each bucket, then the number of
+     *  most common values (4 bytes), followed by each value (4 bytes) and its count (4 bytes).
+     */
+    public byte[] toBytes() {
+        ByteBuffer buf = ByteBuffer.allocate(2 * Integer.BYTES + this.buckets.length * 4 * Integer.BYTES
+                                             + this.mcvValues.length * 2 * Integer.BYTES);
+        buf.putInt(this.buckets.length);
+        for (Bucket bucket : this.buckets) {
+            buf.putFloat(bucket.getStart());
+            buf.putFloat(bucket.getEnd());
+            buf.putInt(bucket.getCount());
+            buf.putInt(bucket.getDistinctCount());
+        }
+        buf.putInt(this.mcvValues.length);
+        for (int i = 0; i < this.mcvValues.length; i++) {
+            buf.putFloat(this.mcvValues[i]);
+            buf.putInt(this.mcvCounts[i]);
+        }
+        return buf.array();
+    }
+
+    /** Deserializes a histogram from buf. After this function exits the next call to get() on the
+     *  buffer will be the first byte that wasn't part of the histogram.
+     */
+    public static Histogram fromBytes(Buffer buf) {
+        Bucket[] buckets = new Bucket[buf.getInt()];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket(buf.getFloat(), buf.getFloat());
+            buckets[i].setCount(buf.getInt());
+            buckets[i].setDistinctCount(buf.getInt());
+        }
+        float[] mcvValues = new float[buf.getInt()];
+        int[] mcvCounts = new int[mcvValues.length];
+        for (int i = 0; i < mcvValues.length; i++) {
+            mcvValues[i] = buf.getFloat();
+            mcvCounts[i] = buf.getInt();
+        }
+        return new Histogram(buckets, mcvValues, mcvCounts);
+    }
+
     //Accessor Methods//////////////////////////////////////////////////////////////
     /** Return an estimate of the number of distinct values in the histogram. */
     public int getNumDistinct() {
         int sum = 0;
         for (Bucket bucket : this.buckets) sum += bucket.getDistinctCount();
+        for (int count : this.mcvCounts) if (count > 0) sum++;
         return sum;
     }
 
@@ -160,6 +337,7 @@ public class Histogram {
     public int getCount() {
         int sum = 0;
         for (Bucket bucket : this.buckets) sum += bucket.getCount();
+        for (int count : this.mcvCounts) sum += count;
         return sum;
     }
 
@@ -168,6 +346,29 @@ public class Histogram {
         return buckets[i];
     }
 
+    /* Returns the number of buckets */
+    public int getNumBuckets() {
+        return buckets.length;
+    }
+
+    /* Returns the number of most common values, which aren't part of any bucket */
+    public int getNumMostCommonValues() {
+        return mcvValues.length;
+    }
+
+    /** Return the number of occurrences of value if it is one of the most common values, or -1
+     *  if it isn't.
+     */
+    public int getMostCommonValueCount(DataBox value) {
+        int i = mostCommonValueIndex(quantization(value));
+        return i < 0 ? -1 : this.mcvCounts[i];
+    }
+
+    private int mostCommonValueIndex(float qvalue) {
+        int i = Arrays.binarySearch(this.mcvValues, qvalue);
+        return i < 0 ? -1 : i;
+    }
+
     //Operations//////////////////////////////////////////////////////////////
 
     /* Given a predicate, return a multiplicative mask for the histogram. That is,
@@ -215,8 +416,11 @@ public class Histogram {
                 predicate != PredicateOperator.NOT_EQUALS) {
             return stringNonEquality(quant);
         } else if (predicate == PredicateOperator.EQUALS) {
+            // A most common value never falls in a bucket
+            if (mostCommonValueIndex(quant) >= 0) return new float[this.buckets.length];
             return allEquality(quant);
         } else if (predicate == PredicateOperator.NOT_EQUALS) {
+            if (mostCommonValueIndex(quant) >= 0) return stringNonEquality(quant);
             return allNotEquality(quant);
         } else if (predicate == PredicateOperator.GREATER_THAN) {
             return allGreaterThan(quant);
@@ -229,6 +433,24 @@ public class Histogram {
         }
     }
 
+    /** Like filter(), but returns a mask over the most common values instead of the buckets. Every
+     *  entry is either 0 or 1 since we know the exact values.
+     */
+    private float[] filterMostCommonValues(PredicateOperator predicate, DataBox value) {
+        float quant = quantization(value);
+        float[] result = new float[this.mcvValues.length];
+        for (int i = 0; i < this.mcvValues.length; i++) {
+            if (value.getTypeId() == TypeId.STRING &&
+                    predicate != PredicateOperator.EQUALS &&
+                    predicate != PredicateOperator.NOT_EQUALS) {
+                result[i] = 1.0f;
+            } else {
+                result[i] = predicate.evaluate(this.mcvValues[i], quant) ? 1.0f : 0.0f;
+            }
+        }
+        return result;
+    }
+
     /** Given, we don't handle non equality comparisons of strings. Return 1*/
     private float[] stringNonEquality(float qvalue) {
         float[] result = new float[this.buckets.length];
@@ -323,7 +545,7 @@ public class Histogram {
     }
 
     /**
-     *  Given a quantized value, set the bucket that contains the value by (end - q)/width,
+     *  Given a quantized value, set the bucket that contains the value by (end - q)/width of the bucket,
      *  and set all other buckets to 1 if higher and 0 if lower.
      */
     private float[] allGreaterThan(float qvalue) {
@@ -331,7 +553,7 @@ public class Histogram {
 
         for (int i = 0; i < this.buckets.length; i++) {
             if (qvalue >= this.buckets[i].getStart() && qvalue < this.buckets[i].getEnd()) {
-                result[i] = (this.buckets[i].getEnd() - qvalue) / this.width;
+                result[i] = (this.buckets[i].getEnd() - qvalue) / bucketWidth(i);
             } else if (qvalue < this.buckets[i].getStart()) {
                 result[i] = 1.0f;
             } else {
@@ -343,7 +565,7 @@ public class Histogram {
     }
 
     /**
-      *  Given a quantized value, set the bucket that contains the value by (q-start)/width,
+      *  Given a quantized value, set the bucket that contains the value by (q-start)/width of the bucket,
       *  and set all other buckets to 1 if lower and 0 if higher.
       */
     private float[] allLessThan(float qvalue) {
@@ -351,7 +573,7 @@ public class Histogram {
 
         for (int i = 0; i < this.buckets.length; i++) {
             if (qvalue >= this.buckets[i].getStart() && qvalue < this.buckets[i].getEnd()) {
-                result[i] = (qvalue - this.buckets[i].getStart()) / this.width;
+                result[i] = (qvalue - this.buckets[i].getStart()) / bucketWidth(i);
             } else if (qvalue >= this.buckets[i].getEnd()) {
                 result[i] = 1.0f;
             } else {
@@ -362,6 +584,11 @@ public class Histogram {
         return result;
     }
 
+    // Buckets of equi-depth histograms don't all have the same width
+    private float bucketWidth(int i) {
+        return this.buckets[i].getEnd() - this.buckets[i].getStart();
+    }
+
     // Cost Estimation ///////////////////////////////////////////////////////////////////
 
     /**
@@ -369,17 +596,26 @@ public class Histogram {
      * example, consider again the example histogram from the top of the file.
      * The reduction factor for the predicate `>= 25` is 0.5 because roughly half
      * of the values are greater than or equal to 25.
+     *
+     * Every bucket and most common value is weighted by how many values it
+     * holds, so that a predicate on a heavy hitter of a skewed column selects
+     * as much of the column as the heavy hitter makes up.
      */
     public float computeReductionFactor(PredicateOperator predicate, DataBox value) {
         float[] reduction = filter(predicate, value);
+        float[] mcvReduction = filterMostCommonValues(predicate, value);
 
         float sum = 0.0f;
         int total = 0;
 
         for (int i = 0; i < this.buckets.length; i++) {
             //non empty buckets
-            sum += reduction[i] * this.buckets[i].getDistinctCount();
-            total += this.buckets[i].getDistinctCount();
+            sum += reduction[i] * this.buckets[i].getCount();
+            total += this.buckets[i].getCount();
+        }
+        for (int i = 0; i < this.mcvValues.length; i++) {
+            sum += mcvReduction[i] * this.mcvCounts[i];
+            total += this.mcvCounts[i];
         }
 
         return sum / total;
@@ -403,6 +639,7 @@ public class Histogram {
      */
     public Histogram copyWithPredicate(PredicateOperator predicate, DataBox value) {
         float[] reduction = filter(predicate, value);
+        float[] mcvReduction = filterMostCommonValues(predicate, value);
         Bucket[] newBuckets = new Bucket[this.buckets.length];
 
         for (int i = 0; i < this.buckets.length; i++) {
@@ -413,7 +650,12 @@ public class Histogram {
             newBuckets[i].setDistinctCount(newDistinctCount);
         }
 
-        Histogram h = new Histogram(newBuckets);
+        int[] newMcvCounts = new int[this.mcvCounts.length];
+        for (int i = 0; i < this.mcvCounts.length; i++) {
+            newMcvCounts[i] = Math.round(mcvReduction[i] * this.mcvCounts[i]);
+        }
+
+        Histogram h = new Histogram(newBuckets, this.mcvValues, newMcvCounts);
         return h;
     }
 
@@ -428,20 +670,64 @@ public class Histogram {
             newBuckets[i].setCount(newCount);
             newBuckets[i].setDistinctCount(newDistinctCount);
         }
-        return new Histogram(newBuckets);
+        int[] newMcvCounts = new int[this.mcvCounts.length];
+        for (int i = 0; i < this.mcvCounts.length; i++) {
+            newMcvCounts[i] = Math.round(reduction * this.mcvCounts[i]);
+        }
+        return new Histogram(newBuckets, this.mcvValues, newMcvCounts);
     }
 
     // Updates the count of each
     public Histogram copyWithJoin(int newTotal, float reduction) {
+        // Each bucket keeps its share of the records of the column
+        int oldTotal = Math.max(1, getCount());
         Bucket[] newBuckets = new Bucket[this.buckets.length];
         for (int i = 0; i < this.buckets.length; i++) {
             newBuckets[i] = new Bucket(this.buckets[i]);
             int oldCount = this.buckets[i].getCount();
-            int newCount = Math.round((float) oldCount * getCount() / newTotal);
+            int newCount = (int) Math.round((double) oldCount * newTotal / oldTotal);
             int newDistinctCount = Math.round(reduction * this.buckets[i].getDistinctCount());
             newBuckets[i].setCount(newCount);
             newBuckets[i].setDistinctCount(newDistinctCount);
         }
-        return new Histogram(newBuckets);
+        int[] newMcvCounts = new int[this.mcvCounts.length];
+        for (int i = 0; i < this.mcvCounts.length; i++) {
+            newMcvCounts[i] = (int) Math.round((double) this.mcvCounts[i] * newTotal / oldTotal);
+        }
+        return new Histogram(newBuckets, this.mcvValues, newMcvCounts);
+    }
+
+    /**
+     * Estimates the number of records in the equijoin of two columns with
+     * histograms left and right. Most common values that appear in both lists
+     * contribute the product of their exact counts. A most common value of one
+     * side that isn't one of the other side is assumed to match as many records
+     * as an average non-MCV value of the other side. The rest of both columns
+     * is estimated with the usual |L| * |R| / max(distinct(L), distinct(R)).
+     */
+    public static long estimateJoinSize(Histogram left, Histogram right) {
+        long leftRest = left.getCount();
+        long rightRest = right.getCount();
+        for (int count : left.mcvCounts) leftRest -= count;
+        for (int count : right.mcvCounts) rightRest -= count;
+        int leftDistinctRest = Math.max(1, left.getNumDistinct() - left.mcvValues.length);
+        int rightDistinctRest = Math.max(1, right.getNumDistinct() - right.mcvValues.length);
+
+        double size = 0;
+        for (int i = 0; i < left.mcvValues.length; i++) {
+            int j = right.mostCommonValueIndex(left.mcvValues[i]);
+            if (j >= 0) {
+                size += (double) left.mcvCounts[i] * right.mcvCounts[j];
+            } else {
+                size += (double) left.mcvCounts[i] * rightRest / rightDistinctRest;
+            }
+        }
+        for (int j = 0; j < right.mcvValues.length; j++) {
+            if (left.mostCommonValueIndex(right.mcvValues[j]) < 0) {
+                size += (double) right.mcvCounts[j] * leftRest / leftDistinctRest;
+            }
+        }
+        size += (double) leftRest * rightRest / Math.max(leftDistinctRest, rightDistinctRest);
+        return Math.round(size);
     }
 }
@@ -0,0 +1,116 @@
+package edu.berkeley.cs186.database.table.stats;
+
+import edu.berkeley.cs186.database.databox.DataBox;
+
+/**
+ * A HyperLogLog sketch estimates the number of distinct values in a multiset
+ * in a small, fixed amount of memory, no matter how many values are added.
+ *
+ * Every value is hashed to 64 bits. The top p bits select one of m = 2^p
+ * registers, and the register keeps the largest number of leading zeros (plus
+ * one) seen in the remaining bits of any hash routed to it. A long run of
+ * leading zeros is unlikely unless many distinct values have been seen, so the
+ * harmonic mean of 2^register over all registers estimates the cardinality.
+ * The standard error of the estimate is roughly 1.04 / sqrt(m).
+ *
+ * Small cardinalities are corrected with linear counting over the number of
+ * empty registers, as described by Flajolet et al.
+ *
+ * The estimate is only as good as the hash function is uniform over all 64
+ * bits, so values are hashed with 64-bit FNV-1a followed by the MurmurHash3
+ * finalizer rather than with HashFunc, whose 32-bit hashes are meant for
+ * partitioning.
+ */
+public class HyperLogLog {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    // Default precision: 4096 registers, for a standard error of about 1.6%
+    public static final int DEFAULT_PRECISION = 12;
+
+    private int precision;
+    private byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * @param precision the number of hash bits used to pick a register,
+     *                  between 4 and 16 (inclusive)
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("HyperLogLog precision must be between 4 and 16.");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Adds value to this sketch.
+     */
+    public void add(DataBox value) {
+        long hash = hash(value.hashBytes());
+        int index = (int) (hash >>> (64 - this.precision));
+        // Shift the register bits out, and set a sentinel bit so that the
+        // rank of an all zero remainder is bounded
+        long remainder = (hash << this.precision) | (1L << (this.precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remainder) + 1);
+        if (rank > this.registers[index]) this.registers[index] = rank;
+    }
+
+    /**
+     * Merges the registers of other into this sketch, after which this sketch
+     * estimates the number of distinct values added to either sketch.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != this.precision) {
+            throw new IllegalArgumentException("Cannot merge HyperLogLog sketches of different precisions.");
+        }
+        for (int i = 0; i < this.registers.length; i++) {
+            this.registers[i] = (byte) Math.max(this.registers[i], other.registers[i]);
+        }
+    }
+
+    /**
+     * @return the estimated number of distinct values added to this sketch
+     */
+    public long estimate() {
+        int m = this.registers.length;
+        double sum = 0;
+        int numZeroRegisters = 0;
+        for (byte register : this.registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) numZeroRegisters++;
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && numZeroRegisters > 0) {
+            // Linear counting is more accurate for small cardinalities
+            estimate = m * Math.log((double) m / numZeroRegisters);
+        }
+        return Math.round(estimate);
+    }
+
+    private static long hash(byte[] bytes) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : bytes) {
+            hash ^= b & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+        case 16: return 0.673;
+        case 32: return 0.697;
+        case 64: return 0.709;
+        default: return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+}
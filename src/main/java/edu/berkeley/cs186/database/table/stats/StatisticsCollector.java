@@ -0,0 +1,166 @@
+package edu.berkeley.cs186.database.table.stats;
+
+import edu.berkeley.cs186.database.databox.DataBox;
+import edu.berkeley.cs186.database.databox.TypeId;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Collects the statistics of every column of a table in a single pass over its
+ * records. For each column we track, over every record:
+ *
+ *   - the exact number of values,
+ *   - the exact minimum and maximum values, and
+ *   - a HyperLogLog sketch of the number of distinct values.
+ *
+ * The quantized values of the records are kept to build an equi-depth
+ * histogram and a list of most common values for each column once every record
+ * was added (see Histogram.fromSample). At most sampleSize records are kept,
+ * using reservoir sampling (Vitter's Algorithm R), so that the memory used to
+ * analyze a huge table is bounded. Each record of the table is then equally
+ * likely to be part of the sample, and the histograms are scaled up to the
+ * size of the table. By default, sampleSize is MAX_EXACT_RECORDS: the
+ * histograms of smaller tables are exact.
+ *
+ *   StatisticsCollector collector = new StatisticsCollector(schema, 10, 1000);
+ *   for (Record record : table) collector.add(record);
+ *   TableStats stats = collector.build(table.getNumRecordsPerPage());
+ */
+public class StatisticsCollector {
+    // Passing this as the sample size keeps every record of tables with at
+    // most MAX_EXACT_RECORDS records, and a sample of that many records of
+    // larger tables
+    public static final int NO_SAMPLING = 0;
+    // The most records kept by default (a float per column each)
+    public static final int MAX_EXACT_RECORDS = 100000;
+
+    private Schema schema;
+    private int numBuckets;
+    private int sampleSize;
+    private Random random;
+
+    // Number of records added so far
+    private long numRecords;
+    // Exact bounds and distinct value sketches of each column
+    private List<DataBox> minValues;
+    private List<DataBox> maxValues;
+    private List<HyperLogLog> sketches;
+    // Bounds of the quantized values of each column, which differ from the
+    // bounds above for strings since they're quantized to their hash code
+    private float[] minQuantized;
+    private float[] maxQuantized;
+    // sample[i][j] is the quantized value of column i of the jth kept record
+    private float[][] sample;
+    private int numSampled;
+
+    /**
+     * @param schema the schema of the records that will be added
+     * @param numBuckets the number of buckets of each column histogram
+     * @param sampleSize the maximum number of records to keep for the
+     *                   histograms, or NO_SAMPLING for MAX_EXACT_RECORDS
+     */
+    public StatisticsCollector(Schema schema, int numBuckets, int sampleSize) {
+        this(schema, numBuckets, sampleSize, new Random());
+    }
+
+    public StatisticsCollector(Schema schema, int numBuckets, int sampleSize, Random random) {
+        if (numBuckets <= 0) throw new IllegalArgumentException("Histograms need at least one bucket.");
+        if (sampleSize < 0) throw new IllegalArgumentException("Sample size may not be negative.");
+        this.schema = schema;
+        this.numBuckets = numBuckets;
+        this.sampleSize = sampleSize == NO_SAMPLING ? MAX_EXACT_RECORDS : sampleSize;
+        this.random = random;
+        this.numRecords = 0;
+        this.minValues = new ArrayList<>();
+        this.maxValues = new ArrayList<>();
+        this.sketches = new ArrayList<>();
+        for (int i = 0; i < schema.size(); i++) {
+            this.minValues.add(null);
+            this.maxValues.add(null);
+            this.sketches.add(new HyperLogLog());
+        }
+        this.minQuantized = new float[schema.size()];
+        this.maxQuantized = new float[schema.size()];
+        int initialCapacity = Math.min(this.sampleSize, 1024);
+        this.sample = new float[schema.size()][initialCapacity];
+        this.numSampled = 0;
+    }
+
+    /**
+     * Adds a record of the table to the statistics.
+     */
+    public void add(Record record) {
+        this.numRecords++;
+        for (int i = 0; i < this.schema.size(); i++) {
+            DataBox value = record.getValue(i);
+            if (this.minValues.get(i) == null || value.compareTo(this.minValues.get(i)) < 0) {
+                this.minValues.set(i, value);
+            }
+            if (this.maxValues.get(i) == null || value.compareTo(this.maxValues.get(i)) > 0) {
+                this.maxValues.set(i, value);
+            }
+            this.sketches.get(i).add(value);
+            float quantized = Histogram.quantization(value);
+            if (this.numRecords == 1 || quantized < this.minQuantized[i]) this.minQuantized[i] = quantized;
+            if (this.numRecords == 1 || quantized > this.maxQuantized[i]) this.maxQuantized[i] = quantized;
+        }
+
+        int slot;
+        if (this.numSampled < this.sampleSize) {
+            slot = this.numSampled++;
+        } else {
+            // Replace a random kept record with probability sampleSize / numRecords
+            long r = (long) (this.random.nextDouble() * this.numRecords);
+            if (r >= this.sampleSize) return;
+            slot = (int) r;
+        }
+        for (int i = 0; i < this.schema.size(); i++) {
+            if (slot == this.sample[i].length) {
+                float[] grown = new float[this.sample[i].length * 2];
+                System.arraycopy(this.sample[i], 0, grown, 0, this.sample[i].length);
+                this.sample[i] = grown;
+            }
+            this.sample[i][slot] = Histogram.quantization(record.getValue(i));
+        }
+    }
+
+    public long getNumRecords() {
+        return this.numRecords;
+    }
+
+    /**
+     * @return the number of records kept for the histograms
+     */
+    public int getNumSampled() {
+        return this.numSampled;
+    }
+
+    /**
+     * @return the statistics of the records added so far
+     */
+    public TableStats build(int numRecordsPerPage) {
+        List<Histogram> histograms = new ArrayList<>();
+        for (int i = 0; i < this.schema.size(); i++) {
+            long numDistinct = Math.min(this.sketches.get(i).estimate(), this.numRecords);
+            if (this.numSampled == this.numRecords &&
+                    this.schema.getFieldType(i).getTypeId() != TypeId.STRING) {
+                // Every value was kept, and only strings can collide when
+                // quantized, so the distinct counts of the buckets are exact
+                numDistinct = -1;
+            }
+            // Keep as many most common values as there are buckets
+            histograms.add(Histogram.fromSample(this.numBuckets, this.numBuckets,
+                    this.minQuantized[i], this.maxQuantized[i], this.sample[i],
+                    this.numSampled, this.numRecords, numDistinct));
+        }
+        int numRecords = (int) Math.min(Integer.MAX_VALUE, this.numRecords);
+        TableStats stats = new TableStats(this.schema, numRecordsPerPage, numRecords, histograms,
+                new ArrayList<>(this.minValues), new ArrayList<>(this.maxValues));
+        stats.markAnalyzed();
+        return stats;
+    }
+}
@@ -1,5 +1,6 @@
 package edu.berkeley.cs186.database.table.stats;
 
+import edu.berkeley.cs186.database.common.Buffer;
 import edu.berkeley.cs186.database.common.PredicateOperator;
 import edu.berkeley.cs186.database.databox.DataBox;
 import edu.berkeley.cs186.database.databox.Type;
@@ -8,6 +9,7 @@ import edu.berkeley.cs186.database.table.Record;
 import edu.berkeley.cs186.database.table.Schema;
 import edu.berkeley.cs186.database.table.Table;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -44,12 +46,28 @@ import java.util.List;
  *   stats.getNumRecords(); // Estimated number of records.
  *   stats.getNumPages();   // Estimated number of pages.
  *   stats.getHistograms(); // Histograms on each column.
+ *   stats.getMinValue(0);  // Smallest value of column x, if known.
+ *
+ * Histograms and column bounds are only known once the table has been
+ * analyzed (see StatisticsCollector). Since then, we count how many records
+ * were inserted, deleted or updated so that the statistics can be refreshed
+ * once too much of the table has changed (see isStale).
+ *
+ * The statistics of every column can be serialized (see columnToBytes) so
+ * that they can be persisted across restarts.
  */
 public class TableStats {
     private Schema schema;
     private int numRecordsPerPage;
     private int numRecords;
     private List<Histogram> histograms;
+    // Smallest and largest value of each column, or null if unknown
+    private List<DataBox> minValues;
+    private List<DataBox> maxValues;
+    // Number of records when the table was last analyzed, or -1 if never
+    private int numAnalyzedRecords;
+    // Number of records inserted, deleted or updated since then
+    private int numChanges;
 
     /** Construct a TableStats for an empty table with schema `schema`. */
     public TableStats(Schema schema, int numRecordsPerPage) {
@@ -57,40 +75,70 @@ public class TableStats {
         this.numRecordsPerPage = numRecordsPerPage;
         this.numRecords = 0;
         this.histograms = new ArrayList<>();
+        this.minValues = new ArrayList<>();
+        this.maxValues = new ArrayList<>();
+        this.numAnalyzedRecords = -1;
+        this.numChanges = 0;
         for (Type t : schema.getFieldTypes()) {
             Histogram h = new Histogram();
             this.histograms.add(h);
+            this.minValues.add(null);
+            this.maxValues.add(null);
         }
     }
 
-    private TableStats(Schema schema, int numRecordsPerPage, int numRecords,
-                       List<Histogram> histograms) {
+    TableStats(Schema schema, int numRecordsPerPage, int numRecords,
+               List<Histogram> histograms, List<DataBox> minValues,
+               List<DataBox> maxValues) {
         this.schema = schema;
         this.numRecordsPerPage = numRecordsPerPage;
         this.numRecords = numRecords;
         this.histograms = histograms;
+        this.minValues = minValues;
+        this.maxValues = maxValues;
+        this.numAnalyzedRecords = -1;
+        this.numChanges = 0;
+    }
+
+    /**
+     * Marks these statistics as freshly collected from every record of the
+     * table.
+     */
+    void markAnalyzed() {
+        this.numAnalyzedRecords = this.numRecords;
+        this.numChanges = 0;
     }
 
     // Modifiers /////////////////////////////////////////////////////////////////
     public void addRecord(Record record) {
         numRecords++;
+        numChanges++;
     }
 
     public void removeRecord(Record record) {
         numRecords = Math.max(numRecords - 1, 0);
+        numChanges++;
+    }
+
+    public void updateRecord(Record oldRecord, Record newRecord) {
+        numChanges++;
     }
 
+    /**
+     * Rebuilds the histograms of every column of `table` in a single pass over
+     * its records.
+     */
     public void refreshHistograms(int buckets, Table table) {
-        List<Histogram> newHistograms = new ArrayList<>();
-        int totalRecords = 0;
-        for (int i = 0; i < schema.size(); i++) {
-            Histogram h = new Histogram(buckets);
-            h.buildHistogram(table, i);
-            newHistograms.add(h);
-            totalRecords += h.getCount();
-        }
-        this.histograms = newHistograms;
-        this.numRecords = Math.round(((float) totalRecords) / schema.size());
+        StatisticsCollector collector = new StatisticsCollector(schema, buckets,
+                StatisticsCollector.NO_SAMPLING);
+        for (Record record : table) collector.add(record);
+        TableStats refreshed = collector.build(numRecordsPerPage);
+        this.histograms = refreshed.histograms;
+        this.minValues = refreshed.minValues;
+        this.maxValues = refreshed.maxValues;
+        this.numRecords = refreshed.numRecords;
+        this.numAnalyzedRecords = refreshed.numAnalyzedRecords;
+        this.numChanges = refreshed.numChanges;
     }
 
     // Accessors /////////////////////////////////////////////////////////////////
@@ -113,6 +161,99 @@ public class TableStats {
         return histograms;
     }
 
+    /**
+     * @return the smallest value of column `i`, or null if the table hasn't
+     * been analyzed yet
+     */
+    public DataBox getMinValue(int i) {
+        return minValues.get(i);
+    }
+
+    /**
+     * @return the largest value of column `i`, or null if the table hasn't
+     * been analyzed yet
+     */
+    public DataBox getMaxValue(int i) {
+        return maxValues.get(i);
+    }
+
+    /**
+     * @return the number of records when the table was last analyzed, or -1
+     * if it never was
+     */
+    public int getNumAnalyzedRecords() {
+        return numAnalyzedRecords;
+    }
+
+    /**
+     * @return the number of records inserted, deleted or updated since the
+     * table was last analyzed
+     */
+    public int getNumChanges() {
+        return numChanges;
+    }
+
+    /**
+     * Returns whether these statistics should be refreshed: a table is stale if
+     * it was analyzed before, and more than `threshold + fraction * n` records
+     * have changed since, where n is the number of records it had back then.
+     */
+    public boolean isStale(int threshold, double fraction) {
+        if (numAnalyzedRecords < 0 || fraction < 0) return false;
+        return numChanges > threshold + fraction * numAnalyzedRecords;
+    }
+
+    // Serialization /////////////////////////////////////////////////////////////
+    /**
+     * Serializes the statistics of column `i`. We first write whether the
+     * bounds of the column are known (1 byte), then the bounds if they are,
+     * and finally the histogram of the column.
+     */
+    public byte[] columnToBytes(int i) {
+        byte[] histogram = histograms.get(i).toBytes();
+        DataBox min = minValues.get(i);
+        DataBox max = maxValues.get(i);
+        if (min == null || max == null) {
+            return ByteBuffer.allocate(1 + histogram.length).put((byte) 0).put(histogram).array();
+        }
+        byte[] minBytes = min.toBytes();
+        byte[] maxBytes = max.toBytes();
+        return ByteBuffer.allocate(1 + minBytes.length + maxBytes.length + histogram.length)
+                .put((byte) 1).put(minBytes).put(maxBytes).put(histogram).array();
+    }
+
+    /**
+     * Deserializes the statistics of a table from the serialized statistics of
+     * each of its columns (see columnToBytes).
+     *
+     * @param schema schema of the table
+     * @param numRecordsPerPage the number of records per page of the table
+     * @param numRecords number of records in the table
+     * @param numAnalyzedRecords number of records when the table was last
+     *                           analyzed, or -1 if it never was
+     * @param numChanges number of records changed since it was analyzed
+     * @param columns buffers over the serialized statistics of each column
+     */
+    public static TableStats fromBytes(Schema schema, int numRecordsPerPage, int numRecords,
+                                       int numAnalyzedRecords, int numChanges,
+                                       List<Buffer> columns) {
+        List<Histogram> histograms = new ArrayList<>();
+        List<DataBox> minValues = new ArrayList<>();
+        List<DataBox> maxValues = new ArrayList<>();
+        for (int i = 0; i < schema.size(); i++) {
+            Buffer buf = columns.get(i);
+            boolean hasBounds = buf.get() == 1;
+            minValues.add(hasBounds ? DataBox.fromBytes(buf, schema.getFieldType(i)) : null);
+            maxValues.add(hasBounds ? DataBox.fromBytes(buf, schema.getFieldType(i)) : null);
+            histograms.add(Histogram.fromBytes(buf));
+        }
+        TableStats stats = new TableStats(schema, numRecordsPerPage, numRecords, histograms,
+                minValues, maxValues);
+        stats.numAnalyzedRecords = numAnalyzedRecords;
+        stats.numChanges = numChanges;
+        return stats;
+    }
+
     // Copiers ///////////////////////////////////////////////////////////////////
     /**
      * Estimates the table statistics for the table that would be produced after
@@ -168,7 +309,28 @@ public class TableStats {
             }
         }
         int numRecords = copyHistograms.get(column).getCount();
-        return new TableStats(this.schema, this.numRecordsPerPage, numRecords, copyHistograms);
+        // Filtering never widens the range of a column
+        return new TableStats(this.schema, this.numRecordsPerPage, numRecords, copyHistograms,
+                this.minValues, this.maxValues);
+    }
+
+    /**
+     * Creates a new TableStats which is the statistics for the first `limit`
+     * records of this table (e.g. the output of a top-N sort). Every column
+     * keeps its distribution, scaled down to `limit` records.
+     *
+     * @param limit the maximum number of records
+     * @return new TableStats with at most `limit` records
+     */
+    public TableStats copyWithLimit(long limit) {
+        if (limit >= this.numRecords) return this;
+        float reductionFactor = (float) limit / this.numRecords;
+        List<Histogram> copyHistograms = new ArrayList<>();
+        for (Histogram histogram : histograms) {
+            copyHistograms.add(histogram.copyWithReduction(reductionFactor));
+        }
+        return new TableStats(this.schema, this.numRecordsPerPage, (int) limit, copyHistograms,
+                this.minValues, this.maxValues);
     }
 
     /**
@@ -185,7 +347,7 @@ public class TableStats {
                                    int rightIndex) {
         // Compute the new schema.
         Schema joinedSchema = this.schema.concat(rightStats.schema);
-        int inputSize = this.numRecords * rightStats.numRecords;
+        long inputSize = (long) this.numRecords * rightStats.numRecords;
         int leftNumDistinct = 1;
         if (this.histograms.size() > 0) {
             leftNumDistinct = this.histograms.get(leftIndex).getNumDistinct() + 1;
@@ -201,7 +363,17 @@ public class TableStats {
 
         float leftReductionFactor = leftNumDistinct * reductionFactor;
         float rightReductionFactor = rightNumDistinct * reductionFactor;
-        int outputSize = (int)(reductionFactor * inputSize);
+        int outputSize = (int) Math.min(Integer.MAX_VALUE, reductionFactor * inputSize);
+        if (this.histograms.size() > 0 && rightStats.histograms.size() > 0) {
+            Histogram leftHistogram = this.histograms.get(leftIndex);
+            Histogram rightHistogram = rightStats.histograms.get(rightIndex);
+            if (leftHistogram.getNumMostCommonValues() > 0 || rightHistogram.getNumMostCommonValues() > 0) {
+                // Skewed join columns match far more records than the
+                // uniform estimate above, so use the most common values
+                long joinSize = Histogram.estimateJoinSize(leftHistogram, rightHistogram);
+                outputSize = (int) Math.min(Integer.MAX_VALUE, joinSize);
+            }
+        }
 
         for (Histogram leftHistogram : this.histograms) {
             copyHistograms.add(leftHistogram.copyWithJoin(outputSize, leftReductionFactor));
@@ -213,6 +385,11 @@ public class TableStats {
 
         int joinedRecordsPerPage = Table.computeNumRecordsPerPage(
                 PageDirectory.EFFECTIVE_PAGE_SIZE, joinedSchema);
-        return new TableStats(joinedSchema, joinedRecordsPerPage, outputSize, copyHistograms);
+        List<DataBox> joinedMinValues = new ArrayList<>(this.minValues);
+        joinedMinValues.addAll(rightStats.minValues);
+        List<DataBox> joinedMaxValues = new ArrayList<>(this.maxValues);
+        joinedMaxValues.addAll(rightStats.maxValues);
+        return new TableStats(joinedSchema, joinedRecordsPerPage, outputSize, copyHistograms,
+                joinedMinValues, joinedMaxValues);
     }
 }
@@ -11,6 +11,7 @@ import edu.berkeley.cs186.database.query.QueryPlan;
 import edu.berkeley.cs186.database.table.Record;
 import edu.berkeley.cs186.database.table.RecordId;
 import edu.berkeley.cs186.database.table.Schema;
+import edu.berkeley.cs186.database.table.stats.TableStats;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -20,9 +21,14 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 @Category({Proj99Tests.class, SystemTests.class})
 public class TestDatabase {
@@ -306,4 +312,103 @@ public class TestDatabase {
             assertFalse(iter.hasNext());
         }
     }
+
+    @Test
+    public void testAnalyze() throws Exception {
+        try (Transaction t1 = db.beginTransaction()) {
+            Schema s = new Schema()
+                    .add("id", Type.intType())
+                    .add("name", Type.stringType(10));
+            t1.createTable(s, "table1");
+            for (int i = 0; i < 100; i++) t1.insert("table1", i, "name" + i % 10);
+            t1.commit();
+        }
+
+        try (Transaction t2 = db.beginTransaction()) {
+            t2.execute("ANALYZE table1;");
+            TableStats stats = t2.getTransactionContext().getStats("table1");
+            assertEquals(100, stats.getNumRecords());
+            assertEquals(100, stats.getHistograms().get(0).getNumDistinct());
+            assertEquals(10, stats.getHistograms().get(1).getNumDistinct());
+            assertEquals(new IntDataBox(99), stats.getMaxValue(0));
+        }
+
+        TableStats stats;
+        try (Transaction t3 = db.beginTransaction()) {
+            stats = t3.analyzeInBackground("table1", 10).get();
+        }
+        assertEquals(100, stats.getNumRecords());
+        assertEquals(100, stats.getHistograms().get(0).getCount());
+        try (Transaction t4 = db.beginTransaction()) {
+            assertSame(stats, t4.getTransactionContext().getStats("table1"));
+        }
+    }
+
+    @Test
+    public void testAnalyzeInBackgroundFailure() throws Exception {
+        try (Transaction t1 = db.beginTransaction()) {
+            Schema s = new Schema().add("id", Type.intType());
+            t1.createTable(s, "table1");
+            t1.insert("table1", 1);
+            t1.commit();
+        }
+
+        try (Transaction t2 = db.beginTransaction()) {
+            Future<TableStats> future = t2.analyzeInBackground("table1", -1);
+            try {
+                future.get();
+                fail("analyzing with a negative sample size should fail");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalArgumentException);
+            }
+        }
+    }
+
+    @Test
+    public void testStatisticsDurability() {
+        try (Transaction t1 = db.beginTransaction()) {
+            Schema s = new Schema()
+                    .add("id", Type.intType())
+                    .add("name", Type.stringType(10));
+            t1.createTable(s, "table1");
+            for (int i = 0; i < 100; i++) t1.insert("table1", i, "name" + i % 10);
+            t1.execute("ANALYZE table1;");
+            t1.insert("table1", 100, "name0");
+        }
+
+        db.close();
+        db = new Database(this.filename, 32);
+
+        try (Transaction t2 = db.beginTransaction()) {
+            TableStats stats = t2.getTransactionContext().getStats("table1");
+            assertEquals(101, stats.getNumRecords());
+            assertEquals(100, stats.getNumAnalyzedRecords());
+            assertEquals(1, stats.getNumChanges());
+            assertEquals(new IntDataBox(99), stats.getMaxValue(0));
+            assertEquals(10, stats.getHistograms().get(1).getNumDistinct());
+        }
+    }
+
+    @Test
+    public void testAutoAnalyze() throws Exception {
+        db.setAutoAnalyzeFraction(0.5);
+        try (Transaction t1 = db.beginTransaction()) {
+            Schema s = new Schema().add("id", Type.intType());
+            t1.createTable(s, "table1");
+            for (int i = 0; i < 100; i++) t1.insert("table1", i);
+            // Tables are only analyzed automatically after a first ANALYZE
+            assertEquals(-1, t1.getTransactionContext().getStats("table1").getNumAnalyzedRecords());
+            t1.execute("ANALYZE table1;");
+            // 50 + 0.5 * 100 changes make the statistics stale
+            for (int i = 100; i < 201; i++) t1.insert("table1", i);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            try (Transaction t2 = db.beginTransaction()) {
+                if (t2.getTransactionContext().getStats("table1").getNumAnalyzedRecords() == 201) return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("table1 was never analyzed again");
+    }
 }
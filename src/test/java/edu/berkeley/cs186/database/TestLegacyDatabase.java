@@ -0,0 +1,83 @@
+package edu.berkeley.cs186.database;
+
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.common.PredicateOperator;
+import edu.berkeley.cs186.database.databox.IntDataBox;
+import edu.berkeley.cs186.database.query.QueryPlan;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.stats.TableStats;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Iterator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Opens a database written before the _metadata.statistics catalog existed:
+ * src/test/resources/legacy-database holds a table t(id int, name string(10))
+ * with the records (i, "name" + i) for i in [0, 100), and an index on t.id,
+ * whose entry in _metadata.indices is on page 1 of partition 2.
+ */
+@Category(Proj99Tests.class)
+public class TestLegacyDatabase {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Rule
+    public TestRule globalTimeout = new DisableOnDebug(Timeout.millis((long) (
+            10000 * TimeoutScaling.factor)));
+
+    /**
+     * @return the directory of a copy of the legacy database
+     */
+    private String copyLegacyDatabase() throws Exception {
+        File legacy = new File(getClass().getClassLoader().getResource("legacy-database").toURI());
+        File dir = tempFolder.newFolder("legacyDatabase");
+        for (File partition : legacy.listFiles()) {
+            Files.copy(partition.toPath(), new File(dir, partition.getName()).toPath());
+        }
+        return dir.getAbsolutePath();
+    }
+
+    @Test
+    public void testOpenLegacyDatabase() throws Exception {
+        String dir = copyLegacyDatabase();
+        for (int i = 0; i < 3; i++) {
+            Database db = new Database(dir, 128);
+            try (Transaction t = db.beginTransaction()) {
+                // Through the index
+                Iterator<Record> records = t.getTransactionContext().lookupKey("t", "id", new IntDataBox(42));
+                assertEquals("name42", records.next().getValue(1).getString());
+                assertFalse(records.hasNext());
+
+                QueryPlan query = t.query("t");
+                query.select("id", PredicateOperator.GREATER_THAN_EQUALS, 90);
+                records = query.execute();
+                int count = 0;
+                for (; records.hasNext(); records.next()) count++;
+                assertEquals(10 + i, count);
+
+                if (i == 0) {
+                    t.execute("ANALYZE t;");
+                    t.insert("t", 100, "name100");
+                } else {
+                    // Persisted in the catalog created when the database was
+                    // first opened
+                    TableStats stats = t.getTransactionContext().getStats("t");
+                    assertEquals(100 + i, stats.getNumRecords());
+                    assertEquals(100, stats.getNumAnalyzedRecords());
+                    t.insert("t", 100 + i, "name" + (100 + i));
+                }
+            }
+            db.close();
+        }
+    }
+}
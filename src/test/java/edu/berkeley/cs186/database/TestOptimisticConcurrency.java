@@ -0,0 +1,247 @@
+package edu.berkeley.cs186.database;
+
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.concurrency.LockManager;
+import edu.berkeley.cs186.database.concurrency.ValidationException;
+import edu.berkeley.cs186.database.databox.Type;
+import edu.berkeley.cs186.database.memory.ClockEvictionPolicy;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.RecordId;
+import edu.berkeley.cs186.database.table.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+@Category(Proj99Tests.class)
+public class TestOptimisticConcurrency {
+    private static final Transaction.IsolationLevel OPTIMISTIC = Transaction.IsolationLevel.OPTIMISTIC;
+    private static final Transaction.IsolationLevel SERIALIZABLE = Transaction.IsolationLevel.SERIALIZABLE;
+
+    private Database db;
+    private LockManager lockManager;
+    private List<RecordId> rids;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    // A transaction that waits for a lock held by another transaction on the
+    // same thread blocks the test forever
+    @Rule
+    public TestRule globalTimeout = new DisableOnDebug(Timeout.millis((long) (
+            10000 * TimeoutScaling.factor)));
+
+    @Before
+    public void beforeEach() throws Exception {
+        File testDir = tempFolder.newFolder("optimisticTest");
+        lockManager = new LockManager();
+        // Rolling back needs ARIES
+        db = new Database(testDir.getAbsolutePath(), 128, lockManager, new ClockEvictionPolicy(), true);
+        db.waitAllTransactions();
+        Schema schema = new Schema()
+                .add("id", Type.intType())
+                .add("val", Type.intType());
+        rids = new ArrayList<>();
+        try (Transaction t = db.beginTransaction()) {
+            t.createTable(schema, "t");
+            t.createTable(schema, "other");
+            for (int i = 0; i < 10; i++) {
+                rids.add(t.getTransactionContext().addRecord("t", new Record(i, i * 10)));
+            }
+        }
+    }
+
+    @After
+    public void afterEach() {
+        while (TransactionContext.getTransaction() != null) {
+            TransactionContext.unsetTransaction();
+        }
+        db.close();
+    }
+
+    /**
+     * Begins a transaction without making it the transaction of the thread,
+     * so that several transactions can take turns on one thread (see as).
+     */
+    private Transaction begin(Transaction.IsolationLevel isolationLevel) {
+        Transaction t = db.beginTransaction(isolationLevel);
+        TransactionContext.unsetTransaction();
+        return t;
+    }
+
+    /**
+     * Runs `action` as the transaction `t`.
+     */
+    private static <T> T as(Transaction t, Supplier<T> action) {
+        TransactionContext.setTransaction(t.getTransactionContext());
+        try {
+            return action.get();
+        } finally {
+            if (TransactionContext.getTransaction() != null) TransactionContext.unsetTransaction();
+        }
+    }
+
+    private static void as(Transaction t, Runnable action) {
+        as(t, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private int read(Transaction t, int i) {
+        return as(t, () -> t.getTransactionContext().getRecord("t", rids.get(i)).getValue(1).getInt());
+    }
+
+    private void write(Transaction t, int i, int value) {
+        as(t, () -> {
+            t.getTransactionContext().updateRecord("t", rids.get(i), new Record(i, value));
+        });
+    }
+
+    private void assertInvalid(Transaction t) {
+        try {
+            as(t, t::commit);
+            fail();
+        } catch (ValidationException e) {
+            // expected
+        }
+        assertEquals(Transaction.Status.RUNNING, t.getStatus());
+        as(t, t::rollback);
+    }
+
+    @Test
+    public void testReadsTakeNoLocks() {
+        Transaction t = begin(OPTIMISTIC);
+        assertEquals(OPTIMISTIC, t.getIsolationLevel());
+        assertEquals(10, read(t, 1));
+        as(t, () -> t.query("t").execute().forEachRemaining(record -> {}));
+        assertTrue(lockManager.getLocks(t.getTransactionContext()).isEmpty());
+        as(t, t::commit);
+    }
+
+    @Test
+    public void testReadWrittenSince() {
+        Transaction t = begin(OPTIMISTIC);
+        assertEquals(0, read(t, 0));
+        Transaction writer = begin(SERIALIZABLE);
+        write(writer, 0, 1);
+        as(writer, writer::commit);
+
+        // The record read was written by a transaction that committed since
+        assertEquals(0, read(t, 0));
+        assertInvalid(t);
+    }
+
+    @Test
+    public void testUnrelatedWrites() {
+        Transaction t = begin(OPTIMISTIC);
+        assertEquals(0, read(t, 0));
+        Transaction writer = begin(SERIALIZABLE);
+        write(writer, 1, 1);
+        as(writer, () -> writer.insert("other", 1, 1));
+        as(writer, writer::commit);
+        as(t, t::commit);
+    }
+
+    @Test
+    public void testScanWrittenSince() {
+        Transaction t = begin(OPTIMISTIC);
+        as(t, () -> t.query("t").execute().forEachRemaining(record -> {}));
+        // An insert into a scanned table may be a phantom
+        Transaction writer = begin(SERIALIZABLE);
+        as(writer, () -> writer.insert("t", 100, 1000));
+        as(writer, writer::commit);
+        assertInvalid(t);
+    }
+
+    @Test
+    public void testWriterCommitsLater() {
+        // A transaction that hasn't committed when the optimistic transaction
+        // validates is ordered after it
+        Transaction t = begin(OPTIMISTIC);
+        assertEquals(0, read(t, 0));
+        Transaction writer = begin(SERIALIZABLE);
+        write(writer, 0, 1);
+        as(t, t::commit);
+        as(writer, writer::commit);
+
+        Transaction after = begin(OPTIMISTIC);
+        assertEquals(1, read(after, 0));
+        as(after, after::commit);
+    }
+
+    @Test
+    public void testWriteSkew() {
+        // Each transaction reads the record the other writes: both can't be
+        // serialized. The records are on the same page, so lock them
+        // individually for both to write.
+        db.setRowLocking("t", true);
+        Transaction t1 = begin(OPTIMISTIC);
+        Transaction t2 = begin(OPTIMISTIC);
+        write(t1, 1, read(t1, 0) + 1);
+        write(t2, 0, read(t2, 1) + 1);
+        as(t1, t1::commit);
+        assertInvalid(t2);
+
+        Transaction after = begin(OPTIMISTIC);
+        assertEquals(0, read(after, 0));
+        assertEquals(1, read(after, 1));
+        as(after, after::commit);
+    }
+
+    @Test
+    public void testRunTransactionRetries() {
+        AtomicInteger attempts = new AtomicInteger();
+        int value = db.runTransaction(OPTIMISTIC, 3, t -> {
+            // The transaction is the transaction of the thread while `work` runs
+            int read = t.getTransactionContext().getRecord("t", rids.get(0)).getValue(1).getInt();
+            if (attempts.incrementAndGet() == 1) {
+                // Another session writes the record before the first attempt
+                // commits
+                Thread writer = new Thread(() -> {
+                    try (Transaction w = db.beginTransaction()) {
+                        w.getTransactionContext().updateRecord("t", rids.get(0), new Record(0, 5));
+                    }
+                });
+                writer.start();
+                try {
+                    writer.join();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return read;
+        });
+        assertEquals(2, attempts.get());
+        assertEquals(5, value);
+        assertNull(TransactionContext.getTransaction());
+    }
+
+    @Test
+    public void testRunTransactionGivesUp() {
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            db.runTransaction(OPTIMISTIC, 2, t -> {
+                attempts.incrementAndGet();
+                throw new ValidationException("conflict");
+            });
+            fail();
+        } catch (ValidationException e) {
+            // expected
+        }
+        assertEquals(2, attempts.get());
+    }
+}
@@ -0,0 +1,145 @@
+package edu.berkeley.cs186.database;
+
+import edu.berkeley.cs186.database.categories.BenchmarkTests;
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.concurrency.LockManager;
+import edu.berkeley.cs186.database.databox.Type;
+import edu.berkeley.cs186.database.memory.ClockEvictionPolicy;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.RecordId;
+import edu.berkeley.cs186.database.table.Schema;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures the throughput of short, read-mostly transactions on a small, hot
+ * table from 1 to 8 threads, comparing two-phase locking against optimistic
+ * transactions. Each transaction reads a few random records by record id,
+ * and one in ten increments one of them. Transactions that fail because of
+ * a conflict (deadlocks under two-phase locking, failed validation or write
+ * conflicts under optimistic concurrency control) are retried. The table
+ * uses row locking in both modes. Run with:
+ *
+ *   mvn test -Pbenchmark -Dtest=TestOptimisticConcurrencyBenchmark
+ */
+@Category({Proj99Tests.class, BenchmarkTests.class})
+public class TestOptimisticConcurrencyBenchmark {
+    private static final int[] NUM_THREADS = {1, 2, 4, 8};
+    private static final int TRANSACTIONS_PER_THREAD = 300;
+    private static final int NUM_RECORDS = 100;
+    private static final int READS_PER_TRANSACTION = 4;
+    private static final double WRITE_FRACTION = 0.1;
+    private static final int MAX_ATTEMPTS = 1000;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    /**
+     * The number of transactions committed per second, and the number of
+     * attempts that failed.
+     */
+    private static class Result {
+        double throughput;
+        int numRetries;
+    }
+
+    private Result run(Transaction.IsolationLevel isolationLevel, int numThreads) throws Exception {
+        File testDir = tempFolder.newFolder();
+        // Retrying needs ARIES to roll back
+        Database db = new Database(testDir.getAbsolutePath(), 128, new LockManager(),
+                new ClockEvictionPolicy(), true);
+        db.waitAllTransactions();
+        List<RecordId> rids = new ArrayList<>();
+        try (Transaction t = db.beginTransaction()) {
+            t.createTable(new Schema().add("id", Type.intType()).add("count", Type.intType()), "counters");
+            for (int i = 0; i < NUM_RECORDS; i++) {
+                rids.add(t.getTransactionContext().addRecord("counters", new Record(i, 0)));
+            }
+        }
+        db.setRowLocking("counters", true);
+
+        AtomicInteger numAttempts = new AtomicInteger();
+        AtomicInteger numIncrements = new AtomicInteger();
+        CyclicBarrier barrier = new CyclicBarrier(numThreads + 1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numThreads; i++) {
+            Random random = new Random(i);
+            threads.add(new Thread(() -> {
+                try {
+                    barrier.await();
+                    for (int j = 0; j < TRANSACTIONS_PER_THREAD; j++) {
+                        boolean write = random.nextDouble() < WRITE_FRACTION;
+                        int[] reads = new int[READS_PER_TRANSACTION];
+                        for (int k = 0; k < reads.length; k++) reads[k] = random.nextInt(NUM_RECORDS);
+                        db.runTransaction(isolationLevel, MAX_ATTEMPTS, t -> {
+                            numAttempts.incrementAndGet();
+                            TransactionContext context = t.getTransactionContext();
+                            Record last = null;
+                            for (int k : reads) last = context.getRecord("counters", rids.get(k));
+                            if (write) {
+                                RecordId rid = rids.get(reads[reads.length - 1]);
+                                context.updateRecord("counters", rid,
+                                        new Record(last.getValue(0), last.getValue(1).getInt() + 1));
+                            }
+                            return null;
+                        });
+                        if (write) numIncrements.incrementAndGet();
+                    }
+                    barrier.await();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.start();
+        barrier.await();
+        long start = System.nanoTime();
+        barrier.await();
+        long nanos = System.nanoTime() - start;
+        for (Thread thread : threads) thread.join();
+
+        // No increment was lost
+        int total = 0;
+        try (Transaction t = db.beginTransaction()) {
+            for (RecordId rid : rids) {
+                total += t.getTransactionContext().getRecord("counters", rid).getValue(1).getInt();
+            }
+        }
+        assertEquals(numIncrements.get(), total);
+        db.close();
+
+        Result result = new Result();
+        int numTransactions = TRANSACTIONS_PER_THREAD * numThreads;
+        result.throughput = numTransactions / (nanos / 1e9);
+        result.numRetries = numAttempts.get() - numTransactions;
+        return result;
+    }
+
+    @Test
+    public void benchmarkContention() throws Exception {
+        // Warm up
+        run(Transaction.IsolationLevel.SERIALIZABLE, 2);
+        run(Transaction.IsolationLevel.OPTIMISTIC, 2);
+
+        System.out.println(String.format("%-8s %12s %12s %12s %12s %8s",
+                "threads", "2PL txn/s", "2PL retries", "OCC txn/s", "OCC retries", "speedup"));
+        for (int numThreads : NUM_THREADS) {
+            Result locking = run(Transaction.IsolationLevel.SERIALIZABLE, numThreads);
+            Result optimistic = run(Transaction.IsolationLevel.OPTIMISTIC, numThreads);
+            System.out.println(String.format("%-8d %12.0f %12d %12.0f %12d %7.2fx",
+                    numThreads, locking.throughput, locking.numRetries, optimistic.throughput,
+                    optimistic.numRetries, optimistic.throughput / locking.throughput));
+        }
+    }
+}
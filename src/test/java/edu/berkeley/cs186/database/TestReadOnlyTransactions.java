@@ -0,0 +1,241 @@
+package edu.berkeley.cs186.database;
+
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.common.PredicateOperator;
+import edu.berkeley.cs186.database.concurrency.LockManager;
+import edu.berkeley.cs186.database.databox.DataBox;
+import edu.berkeley.cs186.database.databox.IntDataBox;
+import edu.berkeley.cs186.database.databox.Type;
+import edu.berkeley.cs186.database.memory.ClockEvictionPolicy;
+import edu.berkeley.cs186.database.query.QueryPlan;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+@Category(Proj99Tests.class)
+public class TestReadOnlyTransactions {
+    private static final int NUM_RECORDS = 1000;
+
+    private Database db;
+    private LockManager lockManager;
+    private File testDir;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    // A read that waits for a lock blocks the test forever, since the writer
+    // runs on the same thread
+    @Rule
+    public TestRule globalTimeout = new DisableOnDebug(Timeout.millis((long) (
+            10000 * TimeoutScaling.factor)));
+
+    @Before
+    public void beforeEach() throws Exception {
+        testDir = tempFolder.newFolder("readOnlyTest");
+        db = openDatabase();
+        db.waitAllTransactions();
+        try (Transaction t = db.beginTransaction()) {
+            t.createTable(new Schema().add("id", Type.intType()).add("val", Type.intType()), "t");
+            for (int i = 0; i < NUM_RECORDS; i++) t.insert("t", NUM_RECORDS - i, i);
+        }
+    }
+
+    private Database openDatabase() {
+        lockManager = new LockManager();
+        // With ARIES, logging anything for a transaction the recovery manager
+        // doesn't know about fails
+        return new Database(testDir.getAbsolutePath(), 128, lockManager, new ClockEvictionPolicy(), true);
+    }
+
+    @After
+    public void afterEach() {
+        while (TransactionContext.getTransaction() != null) {
+            TransactionContext.unsetTransaction();
+        }
+        db.close();
+    }
+
+    /**
+     * @return the number of records of table t read by `t`
+     */
+    private static int count(Transaction t) {
+        TransactionContext.setTransaction(t.getTransactionContext());
+        try {
+            int count = 0;
+            Iterator<Record> records = t.query("t").execute();
+            while (records.hasNext()) {
+                records.next();
+                count++;
+            }
+            return count;
+        } finally {
+            TransactionContext.unsetTransaction();
+        }
+    }
+
+    @Test
+    public void testReadsSnapshotWithoutLocks() {
+        Transaction writer = db.beginTransaction();
+        writer.insert("t", 0, 0);
+        TransactionContext.unsetTransaction();
+
+        // The writer holds an X lock on a page of t, which doesn't block the
+        // read-only transaction, which doesn't see the insert either
+        Transaction reader = db.beginTransaction(true);
+        TransactionContext.unsetTransaction();
+        assertTrue(reader.isReadOnly());
+        assertEquals(Transaction.IsolationLevel.SNAPSHOT, reader.getIsolationLevel());
+        assertEquals(NUM_RECORDS, count(reader));
+        assertTrue(lockManager.getLocks(reader.getTransactionContext()).isEmpty());
+
+        TransactionContext.setTransaction(writer.getTransactionContext());
+        writer.commit();
+        assertEquals(NUM_RECORDS, count(reader));
+        TransactionContext.setTransaction(reader.getTransactionContext());
+        reader.commit();
+        assertEquals(Transaction.Status.COMPLETE, reader.getStatus());
+        assertNull(TransactionContext.getTransaction());
+    }
+
+    @Test
+    public void testQueryWithTempTables() {
+        // The sort spills to temporary tables, whose pages aren't logged
+        db.setWorkMem(3);
+        try (Transaction t = db.beginTransaction(true)) {
+            QueryPlan query = t.query("t");
+            query.sort("id");
+            Iterator<Record> records = query.execute();
+            for (int i = 1; i <= NUM_RECORDS; i++) {
+                assertEquals(i, records.next().getValue(0).getInt());
+            }
+            assertFalse(records.hasNext());
+        }
+        try (Transaction t = db.beginTransaction(true)) {
+            QueryPlan query = t.query("t");
+            query.sort("id");
+            assertEquals(1, query.execute().next().getValue(0).getInt());
+            t.rollback();
+            assertEquals(Transaction.Status.COMPLETE, t.getStatus());
+        }
+    }
+
+    @Test
+    public void testTempTablesFreedAfterCrash() {
+        // Recovery needs the database to have been closed once
+        db.close();
+        db = openDatabase();
+        db.waitAllTransactions();
+        Set<String> partitions = new HashSet<>(Arrays.asList(testDir.list()));
+        db.setWorkMem(3);
+        Transaction t = db.beginTransaction(true);
+        QueryPlan query = t.query("t");
+        query.sort("id");
+        assertEquals(1, query.execute().next().getValue(0).getInt());
+        // The sort's temporary tables are in partitions of their own
+        assertTrue(testDir.list().length > partitions.size());
+        TransactionContext.unsetTransaction();
+
+        // Crash without ending the transaction. The allocations of its
+        // partitions are logged, so recovery rolls them back
+        db = openDatabase();
+        db.waitAllTransactions();
+        assertEquals(partitions, new HashSet<>(Arrays.asList(testDir.list())));
+        try (Transaction t2 = db.beginTransaction()) {
+            TransactionContext.unsetTransaction();
+            assertEquals(NUM_RECORDS, count(t2));
+            TransactionContext.setTransaction(t2.getTransactionContext());
+        }
+    }
+
+    @Test
+    public void testCleanRestartFreesNothing() {
+        db.close();
+        db = openDatabase();
+        db.waitAllTransactions();
+        int partNum;
+        try (Transaction t = db.beginTransaction()) {
+            // A partition that no table or index uses
+            partNum = db.getDiskSpaceManager().allocPart();
+        }
+        db.setWorkMem(3);
+        try (Transaction t = db.beginTransaction(true)) {
+            QueryPlan query = t.query("t");
+            query.sort("id");
+            assertEquals(1, query.execute().next().getValue(0).getInt());
+        }
+        Set<String> partitions = new HashSet<>(Arrays.asList(testDir.list()));
+        assertTrue(partitions.contains(String.valueOf(partNum)));
+
+        db.close();
+        db = openDatabase();
+        db.waitAllTransactions();
+        assertEquals(partitions, new HashSet<>(Arrays.asList(testDir.list())));
+        try (Transaction t = db.beginTransaction()) {
+            TransactionContext.unsetTransaction();
+            assertEquals(NUM_RECORDS, count(t));
+            TransactionContext.setTransaction(t.getTransactionContext());
+        }
+    }
+
+    @Test
+    public void testRejectsWrites() {
+        try (Transaction t = db.beginTransaction(true)) {
+            try {
+                t.insert("t", 0, 0);
+                fail();
+            } catch (DatabaseException e) {
+                assertTrue(e.getMessage().contains("read-only"));
+            }
+            try {
+                t.update("t", "val", (DataBox v) -> new IntDataBox(v.getInt() + 1));
+                fail();
+            } catch (DatabaseException e) { /* do nothing */ }
+            try {
+                t.delete("t", "id", PredicateOperator.EQUALS, new IntDataBox(1));
+                fail();
+            } catch (DatabaseException e) { /* do nothing */ }
+            try {
+                t.createTable(new Schema().add("id", Type.intType()), "t2");
+                fail();
+            } catch (DatabaseException e) { /* do nothing */ }
+            try {
+                t.createIndex("t", "id", false);
+                fail();
+            } catch (DatabaseException e) { /* do nothing */ }
+            try {
+                t.dropTable("t");
+                fail();
+            } catch (DatabaseException e) { /* do nothing */ }
+
+            // The statement reports the error
+            t.execute("DELETE FROM t WHERE id = 1;");
+
+            // Still usable
+            TransactionContext.unsetTransaction();
+            assertEquals(NUM_RECORDS, count(t));
+            TransactionContext.setTransaction(t.getTransactionContext());
+        }
+
+        Transaction t = db.beginTransaction();
+        TransactionContext.unsetTransaction();
+        assertEquals(NUM_RECORDS, count(t));
+        TransactionContext.setTransaction(t.getTransactionContext());
+        t.commit();
+    }
+}
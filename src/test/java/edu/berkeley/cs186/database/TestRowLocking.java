@@ -0,0 +1,264 @@
+package edu.berkeley.cs186.database;
+
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.concurrency.LockManager;
+import edu.berkeley.cs186.database.concurrency.LockTimeoutException;
+import edu.berkeley.cs186.database.concurrency.LockType;
+import edu.berkeley.cs186.database.concurrency.ResourceName;
+import edu.berkeley.cs186.database.databox.Type;
+import edu.berkeley.cs186.database.memory.ClockEvictionPolicy;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.RecordId;
+import edu.berkeley.cs186.database.table.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@Category(Proj99Tests.class)
+public class TestRowLocking {
+    private Database db;
+    private LockManager lockManager;
+    private List<RecordId> rids;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Rule
+    public TestRule globalTimeout = new DisableOnDebug(Timeout.millis((long) (
+            10000 * TimeoutScaling.factor)));
+
+    @Before
+    public void beforeEach() throws Exception {
+        File testDir = tempFolder.newFolder("rowLockingTest");
+        lockManager = new LockManager();
+        // Rolling back needs ARIES
+        db = new Database(testDir.getAbsolutePath(), 128, lockManager, new ClockEvictionPolicy(), true);
+        db.waitAllTransactions();
+        // A transaction that waits for a lock held by another transaction
+        // (on the same thread) fails instead of blocking the test
+        lockManager.setLockWaitTimeout(100);
+
+        Schema schema = new Schema()
+                .add("id", Type.intType())
+                .add("count", Type.intType());
+        rids = new ArrayList<>();
+        try (Transaction t = db.beginTransaction()) {
+            t.createTable(schema, "counters");
+            for (int i = 0; i < 10; i++) {
+                rids.add(t.getTransactionContext().addRecord("counters", new Record(i, 0)));
+            }
+        }
+        for (RecordId rid : rids) assertEquals(rids.get(0).getPageNum(), rid.getPageNum());
+    }
+
+    @After
+    public void afterEach() {
+        while (TransactionContext.getTransaction() != null) {
+            TransactionContext.unsetTransaction();
+        }
+        db.close();
+    }
+
+    /**
+     * Begins a transaction without making it the transaction of the thread,
+     * so that several transactions can take turns on one thread (see as).
+     */
+    private Transaction begin() {
+        Transaction t = db.beginTransaction();
+        TransactionContext.unsetTransaction();
+        return t;
+    }
+
+    /**
+     * Runs `action` as the transaction `t`.
+     */
+    private static void as(Transaction t, Runnable action) {
+        TransactionContext.setTransaction(t.getTransactionContext());
+        try {
+            action.run();
+        } finally {
+            if (TransactionContext.getTransaction() != null) TransactionContext.unsetTransaction();
+        }
+    }
+
+    /**
+     * Increments the counter of the record `rid` in transaction `t`.
+     */
+    private static void increment(Transaction t, RecordId rid) {
+        as(t, () -> {
+            TransactionContext context = t.getTransactionContext();
+            Record record = context.getRecord("counters", rid);
+            context.updateRecord("counters", rid,
+                    new Record(record.getValue(0), record.getValue(1).getInt() + 1));
+        });
+    }
+
+    private int count(RecordId rid) {
+        try (Transaction t = db.beginTransaction()) {
+            return t.getTransactionContext().getRecord("counters", rid).getValue(1).getInt();
+        }
+    }
+
+    private ResourceName pageName(RecordId rid) {
+        return lockManager.databaseContext().childContext("counters").childContext(rid.getPageNum())
+                .getResourceName();
+    }
+
+    private ResourceName rowName(RecordId rid) {
+        return lockManager.databaseContext().childContext("counters").childContext(rid.getPageNum())
+                .childContext(rid.getEntryNum()).getResourceName();
+    }
+
+    @Test
+    public void testDifferentRowsOfPage() {
+        db.setRowLocking("counters", true);
+        Transaction t1 = begin();
+        Transaction t2 = begin();
+        increment(t1, rids.get(0));
+        increment(t2, rids.get(1));
+
+        // Each transaction locks its record, under an intent lock on the page
+        TransactionContext c1 = t1.getTransactionContext();
+        assertEquals(LockType.X, lockManager.getLockType(c1, rowName(rids.get(0))));
+        assertEquals(LockType.IX, lockManager.getLockType(c1, pageName(rids.get(0))));
+        assertEquals(LockType.NL, lockManager.getLockType(c1, rowName(rids.get(1))));
+
+        as(t1, t1::commit);
+        as(t2, t2::commit);
+        assertEquals(1, count(rids.get(0)));
+        assertEquals(1, count(rids.get(1)));
+        assertEquals(0, count(rids.get(2)));
+    }
+
+    @Test
+    public void testSameRow() {
+        db.setRowLocking("counters", true);
+        Transaction t1 = begin();
+        Transaction t2 = begin();
+        increment(t1, rids.get(0));
+        try {
+            increment(t2, rids.get(0));
+            fail();
+        } catch (LockTimeoutException e) {
+            // expected
+        }
+        as(t2, t2::rollback);
+        as(t1, t1::commit);
+        assertEquals(1, count(rids.get(0)));
+    }
+
+    @Test
+    public void testPageLocking() {
+        // Without row locking, records of the same page can't be updated by
+        // different transactions at once
+        Transaction t1 = begin();
+        Transaction t2 = begin();
+        increment(t1, rids.get(0));
+        assertEquals(LockType.X, lockManager.getLockType(t1.getTransactionContext(), pageName(rids.get(0))));
+        try {
+            increment(t2, rids.get(1));
+            fail();
+        } catch (LockTimeoutException e) {
+            // expected
+        }
+        as(t2, t2::rollback);
+        as(t1, t1::commit);
+        assertEquals(1, count(rids.get(0)));
+        assertEquals(0, count(rids.get(1)));
+    }
+
+    @Test
+    public void testEscalationToPage() {
+        db.setRowLocking("counters", true);
+        lockManager.setEscalationPolicy(3, 0);
+        Transaction t1 = begin();
+        for (int i = 0; i < 4; i++) increment(t1, rids.get(i));
+
+        // The row locks were escalated to a lock on the page once there were
+        // three of them
+        TransactionContext c1 = t1.getTransactionContext();
+        assertEquals(LockType.X, lockManager.getLockType(c1, pageName(rids.get(0))));
+        assertEquals(LockType.NL, lockManager.getLockType(c1, rowName(rids.get(0))));
+        as(t1, t1::commit);
+        for (int i = 0; i < 4; i++) assertEquals(1, count(rids.get(i)));
+    }
+
+    @Test
+    public void testDeleteLocksPage() {
+        // Deletes change the bitmap of the page, so they still lock it
+        db.setRowLocking("counters", true);
+        Transaction t1 = begin();
+        Transaction t2 = begin();
+        increment(t1, rids.get(0));
+        try {
+            as(t2, () -> t2.getTransactionContext().deleteRecord("counters", rids.get(1)));
+            fail();
+        } catch (LockTimeoutException e) {
+            // expected
+        }
+        as(t2, t2::rollback);
+        as(t1, () -> t1.getTransactionContext().deleteRecord("counters", rids.get(1)));
+        assertEquals(LockType.X, lockManager.getLockType(t1.getTransactionContext(), pageName(rids.get(0))));
+        as(t1, t1::commit);
+    }
+
+    @Test
+    public void testAbortedLockWait() {
+        db.setRowLocking("counters", true);
+        Transaction t1 = begin();
+        Transaction t2 = begin();
+        Transaction t3 = begin();
+        increment(t1, rids.get(0));
+        increment(t2, rids.get(1));
+        increment(t3, rids.get(2));
+        for (Transaction t : new Transaction[] {t2, t3}) {
+            try {
+                increment(t, rids.get(0));
+                fail();
+            } catch (LockTimeoutException e) {
+                // expected
+            }
+        }
+
+        // The transaction keeps its locks, but can't do anything else
+        TransactionContext c2 = t2.getTransactionContext();
+        assertEquals(LockType.X, lockManager.getLockType(c2, rowName(rids.get(1))));
+        try {
+            as(t2, () -> t2.insert("counters", 10, 0));
+            fail();
+        } catch (DatabaseException e) {
+            assertTrue(e.getMessage().contains("rolled back"));
+        }
+        // Committing rolls it back instead
+        try {
+            as(t2, t2::commit);
+            fail();
+        } catch (LockTimeoutException e) {
+            // expected
+        }
+        assertEquals(Transaction.Status.COMPLETE, t2.getStatus());
+        assertTrue(lockManager.getLocks(c2).isEmpty());
+
+        // So does closing it
+        as(t3, t3::close);
+        assertEquals(Transaction.Status.COMPLETE, t3.getStatus());
+        assertTrue(lockManager.getLocks(t3.getTransactionContext()).isEmpty());
+
+        as(t1, t1::commit);
+        assertEquals(1, count(rids.get(0)));
+        assertEquals(0, count(rids.get(1)));
+        assertEquals(0, count(rids.get(2)));
+    }
+}
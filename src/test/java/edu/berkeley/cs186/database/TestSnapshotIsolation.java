@@ -0,0 +1,284 @@
+package edu.berkeley.cs186.database;
+
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.common.PredicateOperator;
+import edu.berkeley.cs186.database.concurrency.DummyLockManager;
+import edu.berkeley.cs186.database.concurrency.LockManager;
+import edu.berkeley.cs186.database.concurrency.WriteConflictException;
+import edu.berkeley.cs186.database.databox.DataBox;
+import edu.berkeley.cs186.database.databox.IntDataBox;
+import edu.berkeley.cs186.database.databox.Type;
+import edu.berkeley.cs186.database.memory.ClockEvictionPolicy;
+import edu.berkeley.cs186.database.query.QueryPlan;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+
+import java.io.File;
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+@Category(Proj99Tests.class)
+public class TestSnapshotIsolation {
+    private Database db;
+    private LockManager lockManager;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    // A snapshot read that waits for a lock blocks the test forever, since
+    // the writer runs on the same thread
+    @Rule
+    public TestRule globalTimeout = new DisableOnDebug(Timeout.millis((long) (
+            10000 * TimeoutScaling.factor)));
+
+    @Before
+    public void beforeEach() throws Exception {
+        File testDir = tempFolder.newFolder("snapshotIsolationTest");
+        lockManager = new LockManager();
+        // Rolling back needs ARIES
+        db = new Database(testDir.getAbsolutePath(), 128, lockManager, new ClockEvictionPolicy(), true);
+        db.waitAllTransactions();
+        Schema schema = new Schema()
+                .add("id", Type.intType())
+                .add("val", Type.intType());
+        try (Transaction t = db.beginTransaction()) {
+            t.createTable(schema, "t");
+            for (int i = 0; i < 10; i++) t.insert("t", i, i * 10);
+        }
+    }
+
+    @After
+    public void afterEach() {
+        while (TransactionContext.getTransaction() != null) {
+            TransactionContext.unsetTransaction();
+        }
+        db.close();
+    }
+
+    /**
+     * Begins a transaction without making it the transaction of the thread,
+     * so that several transactions can take turns on one thread (see as).
+     */
+    private Transaction begin(Transaction.IsolationLevel isolationLevel) {
+        Transaction t = db.beginTransaction(isolationLevel);
+        TransactionContext.unsetTransaction();
+        return t;
+    }
+
+    /**
+     * Runs `action` as the transaction `t`.
+     */
+    private static <T> T as(Transaction t, Supplier<T> action) {
+        TransactionContext.setTransaction(t.getTransactionContext());
+        try {
+            return action.get();
+        } finally {
+            if (TransactionContext.getTransaction() != null) TransactionContext.unsetTransaction();
+        }
+    }
+
+    private static void as(Transaction t, Runnable action) {
+        as(t, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return the values of `id` -> `val` in table t, as read by `t`
+     */
+    private static Map<Integer, Integer> scan(Transaction t) {
+        return as(t, () -> {
+            Map<Integer, Integer> values = new TreeMap<>();
+            Iterator<Record> records = t.query("t").execute();
+            while (records.hasNext()) {
+                Record record = records.next();
+                assertNull(values.put(record.getValue(0).getInt(), record.getValue(1).getInt()));
+            }
+            return values;
+        });
+    }
+
+    private static Map<Integer, Integer> initialValues() {
+        Map<Integer, Integer> values = new TreeMap<>();
+        for (int i = 0; i < 10; i++) values.put(i, i * 10);
+        return values;
+    }
+
+    private static DataBox plusOne(DataBox value) {
+        return new IntDataBox(value.getInt() + 1);
+    }
+
+    @Test
+    public void testSnapshotReadsDontBlockWriters() {
+        Transaction reader = begin(Transaction.IsolationLevel.SNAPSHOT);
+        assertEquals(Transaction.IsolationLevel.SNAPSHOT, reader.getIsolationLevel());
+        assertEquals(initialValues(), scan(reader));
+
+        // The writer isn't blocked by the reader, and the reader isn't
+        // blocked by the writer's X locks or its uncommitted changes
+        Transaction writer = begin(Transaction.IsolationLevel.SERIALIZABLE);
+        as(writer, () -> {
+            writer.update("t", "val", TestSnapshotIsolation::plusOne, "val", PredicateOperator.LESS_THAN, new IntDataBox(30));
+            writer.delete("t", "id", PredicateOperator.EQUALS, new IntDataBox(5));
+            writer.insert("t", 100, 1000);
+        });
+        assertEquals(initialValues(), scan(reader));
+        assertTrue(lockManager.getLocks(reader.getTransactionContext()).isEmpty());
+
+        as(writer, writer::commit);
+        assertEquals(initialValues(), scan(reader));
+        as(reader, reader::commit);
+
+        // Snapshots taken after the commit see the writes
+        Transaction after = begin(Transaction.IsolationLevel.SNAPSHOT);
+        Map<Integer, Integer> expected = initialValues();
+        expected.put(0, 1);
+        expected.put(1, 11);
+        expected.put(2, 21);
+        expected.remove(5);
+        expected.put(100, 1000);
+        assertEquals(expected, scan(after));
+        as(after, after::commit);
+    }
+
+    @Test
+    public void testOwnWritesVisible() {
+        Transaction t = begin(Transaction.IsolationLevel.SNAPSHOT);
+        Transaction other = begin(Transaction.IsolationLevel.SERIALIZABLE);
+        as(other, () -> {
+            other.delete("t", "id", PredicateOperator.GREATER_THAN, new IntDataBox(1));
+            other.commit();
+        });
+        as(t, () -> {
+            t.insert("t", 50, 500);
+            t.update("t", "val", TestSnapshotIsolation::plusOne, "id", PredicateOperator.EQUALS, new IntDataBox(0));
+        });
+        Map<Integer, Integer> expected = initialValues();
+        expected.put(0, 1);
+        expected.put(50, 500);
+        assertEquals(expected, scan(t));
+        as(t, t::commit);
+    }
+
+    @Test
+    public void testFirstUpdaterWins() {
+        Transaction t = begin(Transaction.IsolationLevel.SNAPSHOT);
+        Transaction other = begin(Transaction.IsolationLevel.SERIALIZABLE);
+        as(other, () -> {
+            other.update("t", "val", TestSnapshotIsolation::plusOne, "id", PredicateOperator.EQUALS, new IntDataBox(3));
+            other.commit();
+        });
+
+        // Records that weren't written since the snapshot can be written, but
+        // the one the other transaction wrote can't
+        as(t, () -> t.update("t", "val", TestSnapshotIsolation::plusOne, "id", PredicateOperator.EQUALS,
+                new IntDataBox(4)));
+        try {
+            as(t, () -> t.update("t", "val", TestSnapshotIsolation::plusOne, "id", PredicateOperator.EQUALS,
+                    new IntDataBox(3)));
+            fail();
+        } catch (WriteConflictException e) {
+            // expected
+        }
+        as(t, t::rollback);
+
+        Transaction after = begin(Transaction.IsolationLevel.SNAPSHOT);
+        assertEquals(Integer.valueOf(31), scan(after).get(3));
+        as(after, after::commit);
+    }
+
+    @Test
+    public void testIndexedReadsUseSnapshot() throws Exception {
+        // Writes to indexed tables aren't supported under a real lock manager
+        db.close();
+        File testDir = tempFolder.newFolder("snapshotIsolationIndexTest");
+        db = new Database(testDir.getAbsolutePath(), 128, new DummyLockManager(), new ClockEvictionPolicy(), true);
+        db.waitAllTransactions();
+        try (Transaction t = db.beginTransaction()) {
+            t.createTable(new Schema().add("id", Type.intType()).add("val", Type.intType()), "t");
+            for (int i = 0; i < 10; i++) t.insert("t", i, i * 10);
+            t.createIndex("t", "id", false);
+        }
+        Transaction reader = begin(Transaction.IsolationLevel.SNAPSHOT);
+        Transaction writer = begin(Transaction.IsolationLevel.SERIALIZABLE);
+        as(writer, () -> {
+            writer.delete("t", "id", PredicateOperator.EQUALS, new IntDataBox(7));
+            writer.insert("t", 70, 0);
+            writer.commit();
+        });
+        List<Record> found = as(reader, () -> {
+            QueryPlan query = reader.query("t");
+            query.select("id", PredicateOperator.EQUALS, 7);
+            List<Record> records = new ArrayList<>();
+            query.execute().forEachRemaining(records::add);
+            return records;
+        });
+        assertEquals(Collections.singletonList(new Record(7, 70)), found);
+        as(reader, reader::commit);
+    }
+
+    @Test
+    public void testFreedPagesStillRead() {
+        // Enough records for several pages, which are freed once all their
+        // records are deleted
+        try (Transaction t = db.beginTransaction()) {
+            for (int i = 10; i < 2000; i++) t.insert("t", i, i * 10);
+        }
+        Transaction reader = begin(Transaction.IsolationLevel.SNAPSHOT);
+        int numPages = as(reader, () -> reader.getTransactionContext().getNumDataPages("t"));
+        assertTrue(numPages > 2);
+
+        Transaction writer = begin(Transaction.IsolationLevel.SERIALIZABLE);
+        as(writer, () -> {
+            writer.delete("t", "id", PredicateOperator.GREATER_THAN_EQUALS, new IntDataBox(5));
+            writer.commit();
+        });
+        Transaction after = begin(Transaction.IsolationLevel.SNAPSHOT);
+        assertEquals(1, (int) as(after, () -> after.getTransactionContext().getNumDataPages("t")));
+        assertEquals(5, scan(after).size());
+        as(after, after::commit);
+
+        Map<Integer, Integer> values = scan(reader);
+        assertEquals(2000, values.size());
+        for (int i = 0; i < 2000; i++) assertEquals(Integer.valueOf(i * 10), values.get(i));
+        as(reader, reader::commit);
+    }
+
+    @Test
+    public void testGarbageCollection() {
+        Transaction reader = begin(Transaction.IsolationLevel.SNAPSHOT);
+        for (int i = 0; i < 3; i++) {
+            Transaction writer = begin(Transaction.IsolationLevel.SERIALIZABLE);
+            as(writer, () -> {
+                writer.update("t", "val", TestSnapshotIsolation::plusOne, "id", PredicateOperator.EQUALS,
+                        new IntDataBox(0));
+                writer.commit();
+            });
+        }
+        // Each of the three versions is needed by the reader
+        assertEquals(3, db.getNumRecordVersions());
+        assertEquals(Integer.valueOf(0), scan(reader).get(0));
+
+        as(reader, reader::commit);
+        assertEquals(0, db.getNumRecordVersions());
+
+        // Versions of transactions that roll back are dropped too
+        Transaction writer = begin(Transaction.IsolationLevel.SERIALIZABLE);
+        as(writer, () -> writer.insert("t", 10, 100));
+        assertEquals(1, db.getNumRecordVersions());
+        as(writer, writer::rollback);
+        assertEquals(0, db.getNumRecordVersions());
+    }
+}
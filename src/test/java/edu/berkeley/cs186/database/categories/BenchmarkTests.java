@@ -0,0 +1,3 @@
+package edu.berkeley.cs186.database.categories;
+
+public interface BenchmarkTests { /* category marker for benchmarks, run with -Pbenchmark */ }
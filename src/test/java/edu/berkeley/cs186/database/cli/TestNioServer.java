@@ -0,0 +1,160 @@
+package edu.berkeley.cs186.database.cli;
+
+import edu.berkeley.cs186.database.Database;
+import edu.berkeley.cs186.database.TimeoutScaling;
+import edu.berkeley.cs186.database.Transaction;
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.concurrency.LockManager;
+import edu.berkeley.cs186.database.databox.Type;
+import edu.berkeley.cs186.database.memory.ClockEvictionPolicy;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@Category(Proj99Tests.class)
+public class TestNioServer {
+    private static final int NUM_RECORDS = 500;
+
+    private Database db;
+    private NioServer server;
+    private Thread listener;
+    private int port;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Rule
+    public TestRule globalTimeout = new DisableOnDebug(Timeout.millis((long) (
+            10000 * TimeoutScaling.factor)));
+
+    @Before
+    public void beforeEach() throws Exception {
+        File testDir = tempFolder.newFolder("nioServerTest");
+        // Rolling back needs ARIES
+        db = new Database(testDir.getAbsolutePath(), 128, new LockManager(), new ClockEvictionPolicy(), true);
+        db.waitAllTransactions();
+        try (Transaction t = db.beginTransaction()) {
+            t.createTable(new Schema().add("id", Type.intType()).add("name", Type.stringType(10)), "t");
+            for (int i = 0; i < NUM_RECORDS; i++) t.insert("t", i, "name" + i);
+        }
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = new NioServer(port);
+        listener = new Thread(() -> server.listen(db));
+        listener.start();
+    }
+
+    @After
+    public void afterEach() throws Exception {
+        server.close();
+        listener.join();
+        db.close();
+    }
+
+    /**
+     * Connects to the server, retrying until it listens.
+     */
+    private FrameClient connect() throws IOException, InterruptedException {
+        while (true) {
+            try {
+                return new FrameClient("localhost", port);
+            } catch (ConnectException e) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @Test
+    public void testQuery() throws Exception {
+        try (FrameClient client = connect()) {
+            FrameClient.Result result = client.execute("SELECT * FROM t;");
+            assertTrue(result.getErrors().isEmpty());
+            assertEquals(Arrays.asList("id", "name"), result.getColumnNames());
+            // Sent in several batches
+            assertTrue(NUM_RECORDS > NioServer.ROWS_PER_BATCH);
+            List<Record> records = result.getRecords();
+            assertEquals(NUM_RECORDS, records.size());
+            for (int i = 0; i < NUM_RECORDS; i++) {
+                assertEquals(i, records.get(i).getValue(0).getInt());
+                assertEquals("name" + i, records.get(i).getValue(1).getString());
+            }
+        }
+    }
+
+    @Test
+    public void testPipelining() throws Exception {
+        try (FrameClient client = connect()) {
+            // All the requests are sent before any reply is read, and the
+            // replies come back in order
+            for (int i = 0; i < 20; i++) client.send("SELECT id FROM t WHERE id = " + i + ";");
+            client.flush();
+            for (int i = 0; i < 20; i++) {
+                List<Record> records = client.receive().getRecords();
+                assertEquals(1, records.size());
+                assertEquals(i, records.get(0).getValue(0).getInt());
+            }
+        }
+    }
+
+    @Test
+    public void testTransactionAcrossRequests() throws Exception {
+        try (FrameClient client = connect()) {
+            client.execute("BEGIN;");
+            client.execute("INSERT INTO t VALUES (1000, 'new');");
+            assertEquals(1, client.execute("SELECT * FROM t WHERE id = 1000;").getRecords().size());
+            assertTrue(client.execute("ROLLBACK;").getMessages().contains("ROLLBACK"));
+            assertEquals(0, client.execute("SELECT * FROM t WHERE id = 1000;").getRecords().size());
+        }
+    }
+
+    @Test
+    public void testDisconnectRollsBack() throws Exception {
+        try (FrameClient client = connect()) {
+            client.execute("BEGIN;");
+            client.execute("INSERT INTO t VALUES (1000, 'new');");
+        }
+        // The transaction released its locks once rolled back
+        try (FrameClient client = connect()) {
+            assertEquals(0, client.execute("SELECT * FROM t WHERE id = 1000;").getRecords().size());
+        }
+    }
+
+    @Test
+    public void testErrors() throws Exception {
+        try (FrameClient client = connect()) {
+            FrameClient.Result result = client.execute("SELEC oops;");
+            assertEquals(1, result.getErrors().size());
+            assertTrue(result.getErrors().get(0).startsWith("Parser exception"));
+            // The connection still works
+            assertEquals(1, client.execute("SELECT * FROM t WHERE id = 3;").getRecords().size());
+        }
+    }
+
+    @Test
+    public void testLoadGenerator() throws Exception {
+        connect().close();
+        LoadGenerator generator = new LoadGenerator("localhost", port, 2, 4);
+        LoadGenerator.Report report = generator.run("SELECT * FROM t WHERE id = 7;", 200);
+        assertTrue(report.getNumRequests() > 0);
+        assertEquals(0, report.getNumErrors());
+        assertTrue(report.getLatencyMillis(50) <= report.getLatencyMillis(99));
+    }
+}
@@ -0,0 +1,84 @@
+package edu.berkeley.cs186.database.cli;
+
+import edu.berkeley.cs186.database.Database;
+import edu.berkeley.cs186.database.Transaction;
+import edu.berkeley.cs186.database.categories.BenchmarkTests;
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.concurrency.LockManager;
+import edu.berkeley.cs186.database.databox.Type;
+import edu.berkeley.cs186.database.table.Schema;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures the throughput and latency of point queries against the NIO
+ * server with the load generator, from 1 to 16 connections and with 1 to 16
+ * requests in flight per connection. Run with:
+ *
+ *   mvn test -Pbenchmark -Dtest=TestNioServerBenchmark
+ */
+@Category({Proj99Tests.class, BenchmarkTests.class})
+public class TestNioServerBenchmark {
+    private static final int[] NUM_CONNECTIONS = {1, 4, 16};
+    private static final int[] PIPELINE_DEPTHS = {1, 4, 16};
+    private static final long MILLIS_PER_RUN = 2000;
+    private static final int NUM_RECORDS = 100;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void benchmarkPipelining() throws Exception {
+        File testDir = tempFolder.newFolder();
+        Database db = new Database(testDir.getAbsolutePath(), 128, new LockManager());
+        db.waitAllTransactions();
+        try (Transaction t = db.beginTransaction()) {
+            t.createTable(new Schema().add("id", Type.intType()).add("val", Type.intType()), "t");
+            for (int i = 0; i < NUM_RECORDS; i++) t.insert("t", i, i);
+        }
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        NioServer server = new NioServer(port);
+        Thread listener = new Thread(() -> server.listen(db));
+        listener.start();
+        while (true) {
+            try {
+                new Socket("localhost", port).close();
+                break;
+            } catch (ConnectException e) {
+                Thread.sleep(10);
+            }
+        }
+
+        String sql = "SELECT * FROM t WHERE id = 42;";
+        // Warm up
+        new LoadGenerator("localhost", port, 4, 4).run(sql, MILLIS_PER_RUN);
+
+        System.out.println(String.format("%-12s %-6s %10s %10s %10s",
+                "connections", "depth", "req/s", "p50 ms", "p99 ms"));
+        for (int numConnections : NUM_CONNECTIONS) {
+            for (int depth : PIPELINE_DEPTHS) {
+                LoadGenerator generator = new LoadGenerator("localhost", port, numConnections, depth);
+                LoadGenerator.Report report = generator.run(sql, MILLIS_PER_RUN);
+                assertEquals(0, report.getNumErrors());
+                System.out.println(String.format("%-12d %-6d %10.0f %10.2f %10.2f",
+                        numConnections, depth, report.getThroughput(), report.getLatencyMillis(50),
+                        report.getLatencyMillis(99)));
+            }
+        }
+        server.close();
+        listener.join();
+        db.close();
+    }
+}
@@ -0,0 +1,167 @@
+package edu.berkeley.cs186.database.cli;
+
+import edu.berkeley.cs186.database.Database;
+import edu.berkeley.cs186.database.Transaction;
+import edu.berkeley.cs186.database.categories.BenchmarkTests;
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.concurrency.LockManager;
+import edu.berkeley.cs186.database.databox.Type;
+import edu.berkeley.cs186.database.table.Schema;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures how the server copes with a burst of clients connecting at once,
+ * comparing a thread per client against a bounded pool of sessions. Each
+ * client runs a few point queries and disconnects; the benchmark reports the
+ * time until every client was served and the peak number of threads in the
+ * JVM (the client threads included, one per client in both modes). Run with:
+ *
+ *   mvn test -Pbenchmark -Dtest=TestServerBenchmark
+ */
+@Category({Proj99Tests.class, BenchmarkTests.class})
+public class TestServerBenchmark {
+    private static final int[] NUM_CLIENTS = {25, 100, 400};
+    private static final int MAX_SESSIONS = 16;
+    private static final int QUERIES_PER_CLIENT = 5;
+    private static final int NUM_RECORDS = 100;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    /**
+     * The time it took to serve all the clients, and the peak number of
+     * threads while doing so.
+     */
+    private static class Result {
+        double millis;
+        int peakThreads;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Connects to the server on `port`, retrying until it listens.
+     */
+    private static Socket connect(int port) throws IOException, InterruptedException {
+        while (true) {
+            try {
+                return new Socket("localhost", port);
+            } catch (ConnectException e) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    /**
+     * Sends the queries of a client and reads the replies of the server
+     * until it disconnects.
+     */
+    private static String session(int port, int client) throws IOException, InterruptedException {
+        try (Socket socket = connect(port)) {
+            StringBuilder input = new StringBuilder();
+            for (int i = 0; i < QUERIES_PER_CLIENT; i++) {
+                input.append("SELECT * FROM t WHERE id = ").append((client + i) % NUM_RECORDS).append(";\n");
+            }
+            input.append("exit\n");
+            OutputStream out = socket.getOutputStream();
+            out.write(input.toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1) output.write(buffer, 0, n);
+            return new String(output.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private Result run(int numClients, int maxSessions) throws Exception {
+        File testDir = tempFolder.newFolder();
+        Database db = new Database(testDir.getAbsolutePath(), 128, new LockManager());
+        db.waitAllTransactions();
+        try (Transaction t = db.beginTransaction()) {
+            t.createTable(new Schema().add("id", Type.intType()).add("val", Type.intType()), "t");
+            for (int i = 0; i < NUM_RECORDS; i++) t.insert("t", i, i);
+        }
+
+        int port = freePort();
+        Server server = new Server(port, maxSessions, numClients);
+        Thread listener = new Thread(() -> server.listen(db));
+        listener.start();
+        // Wait for the server to listen
+        connect(port).close();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        AtomicInteger numServed = new AtomicInteger();
+        CyclicBarrier barrier = new CyclicBarrier(numClients + 1);
+        List<Thread> clients = new ArrayList<>();
+        for (int i = 0; i < numClients; i++) {
+            int client = i;
+            clients.add(new Thread(() -> {
+                try {
+                    barrier.await();
+                    if (session(port, client).contains("Bye!")) numServed.incrementAndGet();
+                    barrier.await();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        for (Thread client : clients) client.start();
+        barrier.await();
+        threads.resetPeakThreadCount();
+        long start = System.nanoTime();
+        barrier.await();
+        long nanos = System.nanoTime() - start;
+        int peakThreads = threads.getPeakThreadCount();
+        for (Thread client : clients) client.join();
+
+        server.close();
+        listener.join();
+        db.close();
+        assertEquals(numClients, numServed.get());
+
+        Result result = new Result();
+        result.millis = nanos / 1e6;
+        result.peakThreads = peakThreads;
+        return result;
+    }
+
+    @Test
+    public void benchmarkConnectionBurst() throws Exception {
+        // Warm up
+        run(NUM_CLIENTS[0], Integer.MAX_VALUE);
+        run(NUM_CLIENTS[0], MAX_SESSIONS);
+
+        System.out.println(String.format("%-8s %14s %14s %14s %14s",
+                "clients", "per-client ms", "per-client thr", "pooled ms", "pooled thr"));
+        for (int numClients : NUM_CLIENTS) {
+            Result perClient = run(numClients, Integer.MAX_VALUE);
+            Result pooled = run(numClients, MAX_SESSIONS);
+            System.out.println(String.format("%-8d %14.0f %14d %14.0f %14d",
+                    numClients, perClient.millis, perClient.peakThreads, pooled.millis, pooled.peakThreads));
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package edu.berkeley.cs186.database.cli.visitor;
+
+import edu.berkeley.cs186.database.Database;
+import edu.berkeley.cs186.database.DatabaseException;
+import edu.berkeley.cs186.database.Transaction;
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.categories.SystemTests;
+import edu.berkeley.cs186.database.cli.parser.ASTSQLStatementList;
+import edu.berkeley.cs186.database.cli.parser.ParseException;
+import edu.berkeley.cs186.database.cli.parser.RookieParser;
+import edu.berkeley.cs186.database.databox.IntDataBox;
+import edu.berkeley.cs186.database.query.QueryPlan;
+import edu.berkeley.cs186.database.table.Record;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+
+import static org.junit.Assert.*;
+
+@Category({Proj99Tests.class, SystemTests.class})
+public class TestPreparedStatements {
+    private static final String TestDir = "testPreparedStatements";
+    private Database db;
+    private String filename;
+    private PreparedStatements preparedStatements;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Before
+    public void beforeEach() throws Exception {
+        File testDir = tempFolder.newFolder(TestDir);
+        this.filename = testDir.getAbsolutePath();
+        this.db = new Database(filename, 32);
+        this.db.setWorkMem(16);
+        try {
+            db.loadDemo();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.preparedStatements = new PreparedStatements();
+    }
+
+    @After
+    public void afterEach() {
+        try(Transaction t = this.db.beginTransaction()) {
+            t.dropAllTables();
+        }
+        this.db.close();
+    }
+
+    public StatementListVisitor parse(String input, PrintStream out) {
+        RookieParser p = new RookieParser(new ByteArrayInputStream(input.getBytes()));
+        ASTSQLStatementList node;
+        try {
+            node = p.sql_stmt_list();
+        } catch (ParseException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+        StatementListVisitor visitor = new StatementListVisitor(db, out, this.preparedStatements);
+        node.jjtAccept(visitor, null);
+        return visitor;
+    }
+
+    // Runs `input` outside of a transaction and returns what it printed
+    public String run(String input) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true);
+        parse(input, out).execute(null);
+        return bytes.toString();
+    }
+
+    @Test
+    public void testParse() {
+        StatementListVisitor visitor = parse(
+                "PREPARE q AS SELECT * FROM Students WHERE sid < $1 AND $2 < gpa;" +
+                "EXECUTE q(10, 1.5); DEALLOCATE PREPARE q;", System.out
+        );
+        assertEquals(3, visitor.statementVisitors.size());
+        assertEquals(StatementType.PREPARE, visitor.statementVisitors.get(0).getType());
+        assertEquals(StatementType.EXECUTE, visitor.statementVisitors.get(1).getType());
+        assertEquals(StatementType.DEALLOCATE, visitor.statementVisitors.get(2).getType());
+
+        PrepareStatementVisitor prepare = (PrepareStatementVisitor) visitor.statementVisitors.get(0);
+        assertEquals("q", prepare.name);
+        assertEquals(2, prepare.statement.getNumParameters());
+        ExecuteStatementVisitor execute = (ExecuteStatementVisitor) visitor.statementVisitors.get(1);
+        assertEquals(2, execute.arguments.size());
+        assertEquals(new IntDataBox(10), execute.arguments.get(0));
+    }
+
+    @Test
+    public void testPrepareExecute() {
+        assertEquals("PREPARE q\n", run("PREPARE q AS SELECT * FROM Students WHERE sid < $1 AND $2 < gpa;"));
+        assertEquals(1, this.preparedStatements.size());
+
+        // The statement stays prepared for the rest of the session, and each
+        // execution binds its own values
+        assertTrue(run("EXECUTE q(10, 0.0);").endsWith("(9 rows)\n"));
+        assertTrue(run("EXECUTE q(3, 0.0);").endsWith("(2 rows)\n"));
+        assertTrue(run("EXECUTE q(1, 0.0);").endsWith("(0 rows)\n"));
+
+        // Within a transaction
+        Transaction t = parse("BEGIN; EXECUTE Q(4, 0.0);", System.out).execute(null);
+        assertNotNull(t);
+        t.close();
+    }
+
+    @Test
+    public void testErrors() {
+        run("PREPARE q AS SELECT * FROM Students WHERE sid < $1 AND $2 < gpa;");
+        assertTrue(run("EXECUTE q(10);").contains("Failed to execute EXECUTE."));
+        assertTrue(run("EXECUTE r(10, 0.0);").contains("Failed to execute EXECUTE."));
+        // Names are case insensitive
+        assertTrue(run("PREPARE Q AS SELECT * FROM Students;").contains("Failed to execute PREPARE."));
+
+        assertEquals("DEALLOCATE Q\n", run("DEALLOCATE Q;"));
+        assertEquals(0, this.preparedStatements.size());
+        assertTrue(run("EXECUTE q(10, 0.0);").contains("Failed to execute EXECUTE."));
+        assertTrue(run("DEALLOCATE q;").contains("Failed to execute DEALLOCATE."));
+    }
+
+    @Test
+    public void testUnboundParameter() {
+        StatementListVisitor visitor = parse("SELECT * FROM Students WHERE sid < $1;", System.out);
+        SelectStatementVisitor select = (SelectStatementVisitor) visitor.statementVisitors.get(0);
+        try (Transaction t = db.beginTransaction()) {
+            select.getQueryPlan(t);
+            fail();
+        } catch (DatabaseException e) {
+            assertEquals("No value bound to parameter $1", e.getMessage());
+        }
+        // Executing the statement without a value reports the error
+        String output = run("SELECT * FROM Students WHERE sid < $1;");
+        assertTrue(output.contains("No value bound to parameter $1"));
+        assertTrue(output.contains("Operation failed."));
+        try (Transaction t = db.beginTransaction()) {
+            QueryPlan query = select.getQueryPlan(t, Collections.singletonList(new IntDataBox(3))).get();
+            Iterator<Record> records = query.execute();
+            int count = 0;
+            while (records.hasNext()) {
+                records.next();
+                count++;
+            }
+            assertEquals(2, count);
+        }
+    }
+
+    @Test
+    public void testExecuteUsesCachedPlan() {
+        run("PREPARE q AS SELECT * FROM Students AS s INNER JOIN Enrollments AS e ON s.sid = e.sid " +
+            "WHERE s.sid = $1;");
+        long numHits = this.db.getPlanCache().getNumHits();
+        run("EXECUTE q(1);");
+        run("EXECUTE q(2);");
+        run("EXECUTE q(3);");
+        // Only the first execution is planned
+        assertEquals(numHits + 2, this.db.getPlanCache().getNumHits());
+    }
+}
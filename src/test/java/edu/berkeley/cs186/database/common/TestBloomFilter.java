@@ -0,0 +1,49 @@
+package edu.berkeley.cs186.database.common;
+
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.databox.IntDataBox;
+import edu.berkeley.cs186.database.databox.StringDataBox;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Category(Proj99Tests.class)
+public class TestBloomFilter {
+    @Test
+    public void testNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) filter.add(new IntDataBox(i));
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain(new IntDataBox(i)));
+        }
+    }
+
+    @Test
+    public void testStrings() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        for (int i = 0; i < 100; i++) filter.add(new StringDataBox("value" + i, 20));
+        for (int i = 0; i < 100; i++) {
+            assertTrue(filter.mightContain(new StringDataBox("value" + i, 20)));
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) filter.add(new IntDataBox(i));
+        int numFalsePositives = 0;
+        for (int i = 1000; i < 11000; i++) {
+            if (filter.mightContain(new IntDataBox(i))) numFalsePositives++;
+        }
+        // Expect around 100 false positives out of 10000
+        assertTrue("too many false positives: " + numFalsePositives, numFalsePositives < 300);
+        assertEquals(0.01, filter.expectedFalsePositiveRate(), 0.005);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidFalsePositiveRate() {
+        new BloomFilter(10, 1.0);
+    }
+}
@@ -5,6 +5,8 @@ import edu.berkeley.cs186.database.common.PredicateOperator;
 import edu.berkeley.cs186.database.common.iterator.BacktrackingIterator;
 import edu.berkeley.cs186.database.databox.DataBox;
 import edu.berkeley.cs186.database.index.BPlusTreeMetadata;
+import edu.berkeley.cs186.database.memory.BufferManager;
+import edu.berkeley.cs186.database.query.PlanCache;
 import edu.berkeley.cs186.database.table.Record;
 import edu.berkeley.cs186.database.table.RecordId;
 import edu.berkeley.cs186.database.table.Schema;
@@ -92,6 +94,16 @@ public class DummyTransactionContext extends TransactionContext {
         throw new UnsupportedOperationException("dummy transaction cannot do this");
     }
 
+    @Override
+    public PlanCache getPlanCache() {
+        return null;
+    }
+
+    @Override
+    public BufferManager getBufferManager() {
+        return null;
+    }
+
     @Override
     public RecordId deleteRecord(String tableName, RecordId rid)  {
         throw new UnsupportedOperationException("dummy transaction cannot do this");
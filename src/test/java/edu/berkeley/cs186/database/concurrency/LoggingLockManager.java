@@ -13,6 +13,14 @@ public class LoggingLockManager extends LockManager {
     private Map<String, LockContext> contexts = new HashMap<>();
     private Map<Long, Boolean> loggingOverride = new ConcurrentHashMap<>();
 
+    public LoggingLockManager() {
+        super();
+    }
+
+    public LoggingLockManager(int numStripes) {
+        super(numStripes);
+    }
+
     @Override
     public synchronized LockContext context(String name) {
         if (!contexts.containsKey(name)) {
@@ -0,0 +1,234 @@
+package edu.berkeley.cs186.database.concurrency;
+
+import edu.berkeley.cs186.database.TimeoutScaling;
+import edu.berkeley.cs186.database.TransactionContext;
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+@Category(Proj99Tests.class)
+public class TestDeadlockDetection {
+    private LoggingLockManager lockman;
+    private TransactionContext[] transactions;
+    private ResourceName[] tables;
+
+    @Rule
+    public TestRule globalTimeout = new DisableOnDebug(Timeout.millis((long) (
+            5000 * TimeoutScaling.factor)));
+
+    @Before
+    public void setUp() {
+        lockman = new LoggingLockManager();
+        transactions = new TransactionContext[4];
+        tables = new ResourceName[transactions.length];
+        ResourceName db = new ResourceName("database");
+        for (int i = 0; i < transactions.length; i++) {
+            transactions[i] = new DummyTransactionContext(lockman, i);
+            tables[i] = new ResourceName(db, "table" + i);
+        }
+    }
+
+    /**
+     * Runs `task` on `thread` of `runner`, recording the exception it throws
+     * (when it's unblocked) in `failure`.
+     */
+    private static void run(DeterministicRunner runner, int thread, AtomicReference<Throwable> failure,
+                            Runnable task) {
+        runner.run(thread, () -> {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+    }
+
+    private static Throwable await(AtomicReference<Throwable> failure) {
+        while (failure.get() == null) {
+            Thread.yield();
+        }
+        return failure.get();
+    }
+
+    @Test
+    public void testLockOrderInversion() {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        DeterministicRunner runner = new DeterministicRunner(2);
+        runner.run(0, () -> lockman.acquire(transactions[0], tables[0], LockType.X));
+        runner.run(1, () -> lockman.acquire(transactions[1], tables[1], LockType.X));
+        run(runner, 0, failure, () -> lockman.acquire(transactions[0], tables[1], LockType.X));
+        run(runner, 1, failure, () -> lockman.acquire(transactions[1], tables[0], LockType.X));
+        assertTrue(transactions[0].getBlocked());
+        assertTrue(transactions[1].getBlocked());
+
+        // The younger transaction is aborted, and the older one keeps waiting
+        // until the victim rolls back
+        assertEquals(Collections.singletonList(1L), lockman.detectDeadlocks());
+        assertTrue(await(failure) instanceof DeadlockException);
+        assertTrue(transactions[1].isLockWaitAborted());
+        assertFalse(transactions[0].isLockWaitAborted());
+        assertEquals(LockType.NL, lockman.getLockType(transactions[1], tables[0]));
+        assertTrue(transactions[0].getBlocked());
+
+        runner.run(1, () -> lockman.release(transactions[1], tables[1]));
+        assertFalse(transactions[0].getBlocked());
+        assertEquals(LockType.X, lockman.getLockType(transactions[0], tables[1]));
+        assertEquals(Collections.emptyList(), lockman.detectDeadlocks());
+        runner.joinAll();
+    }
+
+    @Test
+    public void testFewestLocksVictim() {
+        lockman.setVictimPolicy(LockManager.VictimPolicy.FEWEST_LOCKS);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        DeterministicRunner runner = new DeterministicRunner(2);
+        runner.run(0, () -> lockman.acquire(transactions[0], tables[0], LockType.X));
+        runner.run(1, () -> lockman.acquire(transactions[1], tables[1], LockType.X));
+        runner.run(1, () -> lockman.acquire(transactions[1], tables[2], LockType.X));
+        run(runner, 0, failure, () -> lockman.acquire(transactions[0], tables[1], LockType.S));
+        run(runner, 1, failure, () -> lockman.acquire(transactions[1], tables[0], LockType.S));
+
+        // Transaction 0 holds fewer locks, even though it's older
+        assertEquals(Collections.singletonList(0L), lockman.detectDeadlocks());
+        assertTrue(await(failure) instanceof DeadlockException);
+        runner.run(0, () -> lockman.release(transactions[0], tables[0]));
+        assertFalse(transactions[1].getBlocked());
+        assertEquals(LockType.S, lockman.getLockType(transactions[1], tables[0]));
+        runner.joinAll();
+    }
+
+    @Test
+    public void testCycleThroughQueue() {
+        // Transaction 2 waits behind transaction 1 in the queue of table0,
+        // even though its lock is compatible with the lock held, and
+        // transaction 1 waits for transaction 2
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        DeterministicRunner runner = new DeterministicRunner(3);
+        runner.run(0, () -> lockman.acquire(transactions[0], tables[0], LockType.S));
+        runner.run(2, () -> lockman.acquire(transactions[2], tables[2], LockType.X));
+        run(runner, 1, failure, () -> lockman.acquire(transactions[1], tables[0], LockType.X));
+        run(runner, 2, failure, () -> lockman.acquire(transactions[2], tables[0], LockType.S));
+        assertEquals(Collections.emptyList(), lockman.detectDeadlocks());
+
+        run(runner, 0, failure, () -> lockman.acquire(transactions[0], tables[2], LockType.S));
+        assertEquals(Collections.singletonList(2L), lockman.detectDeadlocks());
+        assertTrue(await(failure) instanceof DeadlockException);
+        runner.run(2, () -> lockman.release(transactions[2], tables[2]));
+        assertFalse(transactions[0].getBlocked());
+        assertTrue(transactions[1].getBlocked());
+        runner.run(0, () -> lockman.release(transactions[0], tables[0]));
+        assertFalse(transactions[1].getBlocked());
+        runner.joinAll();
+    }
+
+    @Test
+    public void testLockWaitTimeout() throws InterruptedException {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        DeterministicRunner runner = new DeterministicRunner(2);
+        runner.run(0, () -> lockman.acquire(transactions[0], tables[0], LockType.X));
+        run(runner, 1, failure, () -> lockman.acquire(transactions[1], tables[0], LockType.S));
+
+        // No deadlock, and no timeout yet
+        lockman.setLockWaitTimeout(50);
+        assertEquals(Collections.emptyList(), lockman.detectDeadlocks());
+        assertTrue(transactions[1].getBlocked());
+
+        Thread.sleep(100);
+        assertEquals(Collections.singletonList(1L), lockman.detectDeadlocks());
+        assertTrue(await(failure) instanceof LockTimeoutException);
+        assertEquals(Collections.singletonList(new Lock(tables[0], LockType.X, 0L)),
+                lockman.getLocks(tables[0]));
+        runner.joinAll();
+    }
+
+    @Test
+    public void testBackgroundDetection() throws InterruptedException {
+        lockman.startDeadlockDetection(10);
+        try {
+            // Each thread locks one table and then the other, in opposite
+            // orders, and rolls back (releases its locks) when aborted
+            List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+            List<Thread> threads = new ArrayList<>();
+            Object barrier = new Object();
+            int[] numLocked = {0};
+            for (int i = 0; i < 2; i++) {
+                TransactionContext t = transactions[i];
+                ResourceName first = tables[i];
+                ResourceName second = tables[1 - i];
+                threads.add(new Thread(() -> {
+                    lockman.acquire(t, first, LockType.X);
+                    synchronized (barrier) {
+                        numLocked[0]++;
+                        barrier.notifyAll();
+                        while (numLocked[0] < 2) {
+                            try {
+                                barrier.wait();
+                            } catch (InterruptedException e) {
+                                return;
+                            }
+                        }
+                    }
+                    try {
+                        lockman.acquire(t, second, LockType.X);
+                        lockman.release(t, second);
+                    } catch (DeadlockException e) {
+                        failures.add(e);
+                    }
+                    lockman.release(t, first);
+                }));
+            }
+            for (Thread thread : threads) thread.start();
+            for (Thread thread : threads) thread.join();
+            assertEquals(1, failures.size());
+            assertEquals(Collections.emptyList(), lockman.getLocks(tables[0]));
+            assertEquals(Collections.emptyList(), lockman.getLocks(tables[1]));
+        } finally {
+            lockman.stopDeadlockDetection();
+        }
+    }
+
+    @Test
+    public void testNoFalseDeadlocks() throws InterruptedException {
+        // The transactions lock tables in the same order, so they can't
+        // deadlock, and detection running alongside them (one stripe at a
+        // time) must never abort any of them
+        lockman.startDeadlockDetection(1);
+        try {
+            List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < transactions.length; i++) {
+                TransactionContext t = transactions[i];
+                Random random = new Random(i);
+                threads.add(new Thread(() -> {
+                    try {
+                        for (int j = 0; j < 2000; j++) {
+                            int first = random.nextInt(tables.length - 1);
+                            int second = first + 1 + random.nextInt(tables.length - first - 1);
+                            lockman.acquire(t, tables[first], LockType.X);
+                            lockman.acquire(t, tables[second], LockType.X);
+                            lockman.release(t, tables[second]);
+                            lockman.release(t, tables[first]);
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }));
+            }
+            for (Thread thread : threads) thread.start();
+            for (Thread thread : threads) thread.join();
+            assertEquals(Collections.emptyList(), failures);
+        } finally {
+            lockman.stopDeadlockDetection();
+        }
+    }
+}
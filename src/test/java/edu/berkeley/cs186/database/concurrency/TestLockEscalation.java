@@ -0,0 +1,126 @@
+package edu.berkeley.cs186.database.concurrency;
+
+import edu.berkeley.cs186.database.TimeoutScaling;
+import edu.berkeley.cs186.database.TransactionContext;
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+@Category(Proj99Tests.class)
+public class TestLockEscalation {
+    private LoggingLockManager lockManager;
+    private TransactionContext transaction;
+    private LockContext tableContext;
+    private LockContext[] pageContexts;
+
+    @Rule
+    public TestRule globalTimeout = new DisableOnDebug(Timeout.millis((long) (
+            1000 * TimeoutScaling.factor)));
+
+    @Before
+    public void setUp() {
+        lockManager = new LoggingLockManager();
+        transaction = new DummyTransactionContext(lockManager, 0);
+        tableContext = lockManager.databaseContext().childContext("table1");
+        pageContexts = new LockContext[100];
+        for (int i = 0; i < pageContexts.length; ++i) {
+            pageContexts[i] = tableContext.childContext((long) i);
+        }
+        tableContext.setCapacity(pageContexts.length);
+        TransactionContext.setTransaction(transaction);
+    }
+
+    @After
+    public void cleanup() {
+        TransactionContext.unsetTransaction();
+    }
+
+    @Test
+    public void testEscalateByFraction() {
+        // 20 of 100 pages may be locked, the 21st lock escalates
+        for (int i = 0; i < 20; i++) {
+            LockUtil.ensureSufficientLockHeld(pageContexts[i], LockType.X);
+        }
+        assertEquals(LockType.IX, tableContext.getExplicitLockType(transaction));
+        assertEquals(20, tableContext.getNumChildren(transaction));
+
+        lockManager.startLog();
+        LockUtil.ensureSufficientLockHeld(pageContexts[20], LockType.X);
+        assertEquals(LockType.X, tableContext.getExplicitLockType(transaction));
+        assertEquals(0, tableContext.getNumChildren(transaction));
+        assertEquals(LockType.X, pageContexts[20].getEffectiveLockType(transaction));
+        assertEquals(LockType.NL, pageContexts[20].getExplicitLockType(transaction));
+        assertEquals(1, lockManager.log.size());
+        assertTrue(lockManager.log.get(0).startsWith("acquire-and-release 0 database/table1 X"));
+    }
+
+    @Test
+    public void testEscalateByThreshold() {
+        lockManager.setEscalationPolicy(5, 0);
+        for (int i = 0; i < 5; i++) {
+            LockUtil.ensureSufficientLockHeld(pageContexts[i], LockType.S);
+        }
+        assertEquals(LockType.IS, tableContext.getExplicitLockType(transaction));
+        LockUtil.ensureSufficientLockHeld(pageContexts[5], LockType.S);
+        assertEquals(LockType.S, tableContext.getExplicitLockType(transaction));
+        assertEquals(Collections.singletonList(new Lock(tableContext.getResourceName(), LockType.S, 0L)),
+                lockManager.getLocks(tableContext.getResourceName()));
+    }
+
+    @Test
+    public void testEscalateReadsForWrite() {
+        // Escalating read locks for a write locks the whole table for writing
+        lockManager.setEscalationPolicy(5, 0);
+        for (int i = 0; i < 5; i++) {
+            LockUtil.ensureSufficientLockHeld(pageContexts[i], LockType.S);
+        }
+        LockUtil.ensureSufficientLockHeld(pageContexts[5], LockType.X);
+        assertEquals(LockType.X, tableContext.getExplicitLockType(transaction));
+        assertEquals(LockType.IX, lockManager.databaseContext().getExplicitLockType(transaction));
+        assertEquals(Arrays.asList(
+                new Lock(lockManager.databaseContext().getResourceName(), LockType.IX, 0L),
+                new Lock(tableContext.getResourceName(), LockType.X, 0L)
+        ), lockManager.getLocks(transaction));
+    }
+
+    @Test
+    public void testNoEscalation() {
+        // Small tables aren't escalated by fraction, and disabling both rules
+        // disables escalation
+        tableContext.setCapacity(5);
+        for (int i = 0; i < 5; i++) {
+            LockUtil.ensureSufficientLockHeld(pageContexts[i], LockType.X);
+        }
+        assertEquals(LockType.IX, tableContext.getExplicitLockType(transaction));
+
+        lockManager.setEscalationPolicy(0, 0);
+        tableContext.setCapacity(pageContexts.length);
+        for (int i = 5; i < pageContexts.length; i++) {
+            LockUtil.ensureSufficientLockHeld(pageContexts[i], LockType.X);
+        }
+        assertEquals(LockType.IX, tableContext.getExplicitLockType(transaction));
+        assertEquals(pageContexts.length, tableContext.getNumChildren(transaction));
+    }
+
+    @Test
+    public void testDatabaseNotEscalated() {
+        lockManager.setEscalationPolicy(2, 0);
+        LockContext dbContext = lockManager.databaseContext();
+        for (int i = 0; i < 5; i++) {
+            LockUtil.ensureSufficientLockHeld(dbContext.childContext("t" + i), LockType.X);
+        }
+        assertEquals(LockType.IX, dbContext.getExplicitLockType(transaction));
+        assertEquals(5, dbContext.getNumChildren(transaction));
+    }
+}
@@ -0,0 +1,93 @@
+package edu.berkeley.cs186.database.concurrency;
+
+import edu.berkeley.cs186.database.TransactionContext;
+import edu.berkeley.cs186.database.categories.BenchmarkTests;
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures the throughput of acquiring and releasing locks from 1 to 32
+ * threads, comparing a lock table with a single stripe (so that every
+ * operation contends on one latch, as with a global monitor) against the
+ * default number of stripes. Each thread locks pages of its own table, with
+ * intent locks on a table shared by all threads. Run with:
+ *
+ *   mvn test -Pbenchmark -Dtest=TestLockManagerBenchmark
+ */
+@Category({Proj99Tests.class, BenchmarkTests.class})
+public class TestLockManagerBenchmark {
+    private static final int[] NUM_THREADS = {1, 2, 4, 8, 16, 32};
+    private static final int OPS_PER_THREAD = 200000;
+    private static final int PAGES_PER_TABLE = 1000;
+
+    /**
+     * @return the number of acquire/release pairs per second
+     */
+    private double run(int numStripes, int numThreads) throws Exception {
+        LockManager lockman = new LockManager(numStripes);
+        // Transactions never block here, so the logging lock manager they
+        // report blocking to is never used
+        LoggingLockManager unused = new LoggingLockManager();
+        ResourceName db = new ResourceName("database");
+        ResourceName sharedTable = new ResourceName(db, "shared");
+        CyclicBarrier barrier = new CyclicBarrier(numThreads + 1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numThreads; i++) {
+            TransactionContext t = new DummyTransactionContext(unused, i);
+            ResourceName table = new ResourceName(db, "table" + i);
+            ResourceName[] pages = new ResourceName[PAGES_PER_TABLE];
+            for (int j = 0; j < PAGES_PER_TABLE; j++) {
+                pages[j] = new ResourceName(table, Integer.toString(j));
+            }
+            Random random = new Random(i);
+            threads.add(new Thread(() -> {
+                try {
+                    barrier.await();
+                    lockman.acquire(t, sharedTable, LockType.IS);
+                    for (int j = 0; j < OPS_PER_THREAD; j++) {
+                        ResourceName page = pages[random.nextInt(PAGES_PER_TABLE)];
+                        lockman.acquire(t, page, j % 4 == 0 ? LockType.X : LockType.S);
+                        lockman.getLockType(t, sharedTable);
+                        lockman.release(t, page);
+                    }
+                    lockman.release(t, sharedTable);
+                    barrier.await();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.start();
+        barrier.await();
+        long start = System.nanoTime();
+        barrier.await();
+        long nanos = System.nanoTime() - start;
+        for (Thread thread : threads) thread.join();
+        assertEquals(0, lockman.getLocks(sharedTable).size());
+        return (double) OPS_PER_THREAD * numThreads / (nanos / 1e9);
+    }
+
+    @Test
+    public void benchmarkAcquireRelease() throws Exception {
+        // Warm up
+        run(1, 4);
+        run(LockManager.DEFAULT_NUM_STRIPES, 4);
+
+        System.out.println(String.format("%-8s %16s %16s %8s",
+                "threads", "1 stripe ops/s", "striped ops/s", "speedup"));
+        for (int numThreads : NUM_THREADS) {
+            double single = run(1, numThreads);
+            double striped = run(LockManager.DEFAULT_NUM_STRIPES, numThreads);
+            System.out.println(String.format("%-8d %16.0f %16.0f %7.2fx",
+                    numThreads, single, striped, striped / single));
+        }
+    }
+}
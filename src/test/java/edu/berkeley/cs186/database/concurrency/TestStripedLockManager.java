@@ -0,0 +1,143 @@
+package edu.berkeley.cs186.database.concurrency;
+
+import edu.berkeley.cs186.database.TimeoutScaling;
+import edu.berkeley.cs186.database.TransactionContext;
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+@Category(Proj99Tests.class)
+public class TestStripedLockManager {
+    @Rule
+    public TestRule globalTimeout = new DisableOnDebug(Timeout.millis((long) (
+            10000 * TimeoutScaling.factor)));
+
+    private static ResourceName[] tables(int n) {
+        ResourceName db = new ResourceName("database");
+        ResourceName[] tables = new ResourceName[n];
+        for (int i = 0; i < n; i++) {
+            tables[i] = new ResourceName(db, "table" + i);
+        }
+        return tables;
+    }
+
+    @Test
+    public void testQueuedAcquireAndRelease() {
+        // With one lock per stripe and with everything on one stripe, a
+        // queued acquire-and-release must release the other resource once
+        // granted
+        for (int numStripes : new int[] {1, LockManager.DEFAULT_NUM_STRIPES}) {
+            LoggingLockManager lockman = new LoggingLockManager(numStripes);
+            TransactionContext t0 = new DummyTransactionContext(lockman, 0);
+            TransactionContext t1 = new DummyTransactionContext(lockman, 1);
+            ResourceName[] tables = tables(2);
+
+            DeterministicRunner runner = new DeterministicRunner(2);
+            runner.run(0, () -> lockman.acquire(t0, tables[0], LockType.X));
+            runner.run(1, () -> lockman.acquire(t1, tables[1], LockType.X));
+            runner.run(0, () -> lockman.acquireAndRelease(t0, tables[1], LockType.X,
+                    Collections.singletonList(tables[0])));
+            assertTrue(t0.getBlocked());
+            assertEquals(LockType.X, lockman.getLockType(t0, tables[0]));
+
+            runner.run(1, () -> lockman.release(t1, tables[1]));
+            assertFalse(t0.getBlocked());
+            assertEquals(LockType.NL, lockman.getLockType(t0, tables[0]));
+            assertEquals(LockType.X, lockman.getLockType(t0, tables[1]));
+            assertEquals(Collections.singletonList(new Lock(tables[1], LockType.X, 0L)),
+                    lockman.getLocks(t0));
+            assertEquals(Collections.emptyList(), lockman.getLocks(tables[0]));
+            runner.joinAll();
+        }
+    }
+
+    @Test
+    public void testQueuedAcquireAndReleaseGrantsWaiters() {
+        // The lock a queued acquire-and-release gives up is released along
+        // with the grant, which grants the request waiting for it, whether
+        // or not both resources are on the same stripe
+        for (int numStripes : new int[] {1, LockManager.DEFAULT_NUM_STRIPES}) {
+            LoggingLockManager lockman = new LoggingLockManager(numStripes);
+            TransactionContext t0 = new DummyTransactionContext(lockman, 0);
+            TransactionContext t1 = new DummyTransactionContext(lockman, 1);
+            TransactionContext t2 = new DummyTransactionContext(lockman, 2);
+            ResourceName[] tables = tables(2);
+
+            DeterministicRunner runner = new DeterministicRunner(3);
+            runner.run(0, () -> lockman.acquire(t0, tables[0], LockType.S));
+            runner.run(1, () -> lockman.acquire(t1, tables[1], LockType.X));
+            runner.run(0, () -> lockman.acquireAndRelease(t0, tables[1], LockType.X,
+                    Collections.singletonList(tables[0])));
+            runner.run(2, () -> lockman.acquire(t2, tables[0], LockType.X));
+            assertTrue(t0.getBlocked());
+            assertTrue(t2.getBlocked());
+
+            runner.run(1, () -> lockman.release(t1, tables[1]));
+            assertFalse(t0.getBlocked());
+            assertFalse(t2.getBlocked());
+            assertEquals(Collections.singletonList(new Lock(tables[1], LockType.X, 0L)),
+                    lockman.getLocks(t0));
+            assertEquals(Collections.singletonList(new Lock(tables[0], LockType.X, 2L)),
+                    lockman.getLocks(tables[0]));
+            runner.joinAll();
+        }
+    }
+
+    @Test
+    public void testReadsOfUnknownResources() {
+        LoggingLockManager lockman = new LoggingLockManager();
+        TransactionContext t0 = new DummyTransactionContext(lockman, 0);
+        ResourceName table = tables(1)[0];
+        assertEquals(LockType.NL, lockman.getLockType(t0, table));
+        assertEquals(Collections.emptyList(), lockman.getLocks(table));
+        assertEquals(Collections.emptyList(), lockman.getLocks(t0));
+    }
+
+    @Test
+    public void testConcurrentAcquireRelease() throws InterruptedException {
+        // Each thread takes turns acquiring locks on shared resources (which
+        // only conflict with each other for X locks) and its own resources
+        LoggingLockManager lockman = new LoggingLockManager();
+        int numThreads = 8;
+        ResourceName[] shared = tables(16);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numThreads; i++) {
+            TransactionContext t = new DummyTransactionContext(lockman, i);
+            ResourceName own = new ResourceName(new ResourceName("database"), "own" + i);
+            Random random = new Random(i);
+            threads.add(new Thread(() -> {
+                try {
+                    for (int j = 0; j < 2000; j++) {
+                        ResourceName name = shared[random.nextInt(shared.length)];
+                        LockType type = j % 10 == 0 ? LockType.X : LockType.S;
+                        lockman.acquire(t, name, type);
+                        lockman.acquire(t, own, LockType.X);
+                        assertEquals(type, lockman.getLockType(t, name));
+                        assertEquals(2, lockman.getLocks(t).size());
+                        lockman.acquireAndRelease(t, own, LockType.S, Collections.singletonList(own));
+                        lockman.release(t, name);
+                        lockman.release(t, own);
+                    }
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+        if (error.get() != null) throw new AssertionError(error.get());
+        for (ResourceName name : shared) {
+            assertEquals(Collections.emptyList(), lockman.getLocks(name));
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package edu.berkeley.cs186.database.memory;
+
+import edu.berkeley.cs186.database.Database;
+import edu.berkeley.cs186.database.TimeoutScaling;
+import edu.berkeley.cs186.database.Transaction;
+import edu.berkeley.cs186.database.TransactionContext;
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.databox.Type;
+import edu.berkeley.cs186.database.query.QueryPlan;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.Schema;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@Category(Proj99Tests.class)
+public class TestWorkMemGovernor {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Rule
+    public TestRule globalTimeout = new DisableOnDebug(Timeout.millis((long) (
+            10000 * TimeoutScaling.factor)));
+
+    /**
+     * Waits until `governor` has `numWaiting` queries waiting.
+     */
+    private static void awaitWaiting(WorkMemGovernor governor, int numWaiting) throws InterruptedException {
+        while (governor.getNumWaiting() != numWaiting) Thread.sleep(1);
+    }
+
+    @Test
+    public void testShares() {
+        WorkMemGovernor governor = new WorkMemGovernor(100, 10000);
+        // Alone, a query gets what it asks for
+        assertEquals(60, governor.acquire(60));
+        // Later queries get at most an equal share of the pool, and at most
+        // what's left
+        assertEquals(40, governor.acquire(80));
+        governor.release(40);
+        assertEquals(30, governor.acquire(30));
+        assertEquals(10, governor.getFreePages());
+        assertEquals(10, governor.acquire(50));
+        assertEquals(0, governor.getFreePages());
+    }
+
+    @Test
+    public void testQueueWhenExhausted() throws Exception {
+        WorkMemGovernor governor = new WorkMemGovernor(10, 10000);
+        assertEquals(10, governor.acquire(10));
+        AtomicInteger granted = new AtomicInteger();
+        Thread waiter = new Thread(() -> granted.set(governor.acquire(10)));
+        waiter.start();
+        awaitWaiting(governor, 1);
+        assertEquals(0, granted.get());
+
+        governor.release(10);
+        waiter.join();
+        assertEquals(10, granted.get());
+        assertEquals(0, governor.getNumWaiting());
+    }
+
+    @Test
+    public void testFirstComeFirstServed() throws Exception {
+        WorkMemGovernor governor = new WorkMemGovernor(6, 10000);
+        assertEquals(6, governor.acquire(6));
+        StringBuffer order = new StringBuffer();
+        // The first waiter holds the whole pool until it has recorded its
+        // turn, so the second can't go before it does
+        Thread first = new Thread(() -> {
+            int granted = governor.acquire(6);
+            order.append("1");
+            governor.release(granted);
+        });
+        first.start();
+        awaitWaiting(governor, 1);
+        Thread second = new Thread(() -> {
+            governor.acquire(3);
+            order.append("2");
+        });
+        second.start();
+        awaitWaiting(governor, 2);
+
+        governor.release(6);
+        first.join();
+        second.join();
+        assertEquals("12", order.toString());
+    }
+
+    @Test
+    public void testWaitTimeout() {
+        // A query that waited too long runs with the least memory it can,
+        // overcommitting the pool
+        WorkMemGovernor governor = new WorkMemGovernor(10, 50);
+        assertEquals(10, governor.acquire(10));
+        assertEquals(WorkMemGovernor.MIN_GRANT, governor.acquire(10));
+        assertEquals(-WorkMemGovernor.MIN_GRANT, governor.getFreePages());
+    }
+
+    @Test
+    public void testConcurrentQueries() throws Exception {
+        File testDir = tempFolder.newFolder("workMemTest");
+        Database db = new Database(testDir.getAbsolutePath(), 128);
+        db.setWorkMem(40);
+        db.setWorkMemPool(60);
+        try (Transaction t = db.beginTransaction()) {
+            t.createTable(new Schema().add("id", Type.intType()), "t");
+            for (int i = 0; i < 100; i++) t.insert("t", i);
+        }
+
+        Transaction t1 = db.beginTransaction();
+        TransactionContext.unsetTransaction();
+        Transaction t2 = db.beginTransaction();
+        TransactionContext.unsetTransaction();
+
+        // The first query gets the work memory of a query; the second, which
+        // runs while the first one's records aren't consumed, what's left
+        TransactionContext.setTransaction(t1.getTransactionContext());
+        Iterator<Record> records1 = t1.query("t").execute();
+        assertEquals(40, t1.getTransactionContext().getWorkMemSize());
+        TransactionContext.unsetTransaction();
+
+        TransactionContext.setTransaction(t2.getTransactionContext());
+        Iterator<Record> records2 = t2.query("t").execute();
+        assertEquals(20, t2.getTransactionContext().getWorkMemSize());
+        while (records2.hasNext()) records2.next();
+        // Released once the records are consumed
+        assertEquals(40, t2.getTransactionContext().getWorkMemSize());
+        t2.commit();
+
+        TransactionContext.setTransaction(t1.getTransactionContext());
+        assertTrue(records1.hasNext());
+        assertEquals(20, db.getWorkMemGovernor().getFreePages());
+        // Released when the transaction ends, even if the records of the
+        // query weren't all consumed
+        t1.commit();
+        assertEquals(60, db.getWorkMemGovernor().getFreePages());
+        db.close();
+    }
+
+    @Test
+    public void testPartlyConsumedQueries() throws Exception {
+        File testDir = tempFolder.newFolder("workMemTest");
+        Database db = new Database(testDir.getAbsolutePath(), 128);
+        db.setWorkMem(40);
+        db.setWorkMemPool(60);
+        try (Transaction t = db.beginTransaction()) {
+            t.createTable(new Schema().add("id", Type.intType()), "t");
+            for (int i = 0; i < 100; i++) t.insert("t", i);
+        }
+
+        try (Transaction t = db.beginTransaction()) {
+            // Released when the query is closed, before the transaction ends
+            QueryPlan query = t.query("t");
+            Iterator<Record> records = query.execute();
+            assertEquals(0, records.next().getValue(0).getInt());
+            assertEquals(20, db.getWorkMemGovernor().getFreePages());
+            query.close();
+            assertEquals(60, db.getWorkMemGovernor().getFreePages());
+            assertFalse(records.hasNext());
+            query.close();
+            assertEquals(60, db.getWorkMemGovernor().getFreePages());
+
+            // EXPLAIN doesn't read the records of the query
+            t.execute("EXPLAIN SELECT * FROM t;");
+            assertEquals(60, db.getWorkMemGovernor().getFreePages());
+        }
+        db.close();
+    }
+}
@@ -0,0 +1,166 @@
+package edu.berkeley.cs186.database.query;
+
+import edu.berkeley.cs186.database.Database;
+import edu.berkeley.cs186.database.TimeoutScaling;
+import edu.berkeley.cs186.database.Transaction;
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.common.PredicateOperator;
+import edu.berkeley.cs186.database.databox.Type;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.Schema;
+import edu.berkeley.cs186.database.table.stats.StatisticsCollector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import static org.junit.Assert.*;
+
+@Category(Proj99Tests.class)
+public class TestAdaptiveExecution {
+    private Database db;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Rule
+    public TestRule globalTimeout = new DisableOnDebug(Timeout.millis((long) (
+            20000 * TimeoutScaling.factor)));
+
+    @Before
+    public void setup() throws IOException {
+        File tempDir = tempFolder.newFolder("adaptiveTest");
+        this.db = new Database(tempDir.getAbsolutePath(), 32);
+        this.db.setWorkMem(5);
+        // Wide records, so that a few hundred of them span dozens of pages
+        Schema schema = new Schema()
+                .add("int", Type.intType())
+                .add("float", Type.floatType())
+                .add("pad", Type.stringType(400));
+        try (Transaction t = this.db.beginTransaction()) {
+            t.createTable(schema, "table1");
+            t.createTable(schema, "table2");
+            t.createTable(schema, "table3");
+            for (int i = 0; i < 400; i++) {
+                // table1.float decreases as table1.int increases
+                t.insert("table1", new Record(i, (float) (399 - i), "!"));
+                // Most of table2 matches the first few values of table1.int,
+                // and only 10 records match values 300 to 309
+                int value = i < 390 ? i % 10 : 300 + i - 390;
+                t.insert("table2", new Record(value, (float) i, "!"));
+            }
+            // Every value of table2.float appears twice in table3.float
+            for (int i = 0; i < 800; i++) {
+                t.insert("table3", new Record(i, (float) (i % 400), "!"));
+            }
+            t.analyze("table1", StatisticsCollector.NO_SAMPLING);
+            t.analyze("table2", StatisticsCollector.NO_SAMPLING);
+            t.analyze("table3", StatisticsCollector.NO_SAMPLING);
+        }
+        this.db.waitAllTransactions();
+    }
+
+    @After
+    public void cleanup() {
+        this.db.close();
+    }
+
+    @Test
+    public void testReoptimizeOnMisestimate() {
+        try (Transaction t = this.db.beginTransaction()) {
+            // SELECT * FROM table1
+            //     INNER JOIN table2 ON table1.int = table2.int
+            //     INNER JOIN table3 ON table2.float = table3.float
+            // WHERE table1.float < 100
+            //
+            // The selection keeps table1.int 300 to 399, but the optimizer
+            // assumes it keeps a quarter of every value of table1.int, so it
+            // expects the join of table1 and table2 to yield 400 records and
+            // plans a grace hash join with table3 on top of it.
+            QueryPlan query = t.query("table1");
+            query.join("table2", "table1.int", "table2.int");
+            query.join("table3", "table2.float", "table3.float");
+            query.select("table1.float", PredicateOperator.LESS_THAN, 100f);
+            Iterator<Record> records = query.execute();
+
+            // The order of the columns depends on the join order
+            Schema schema = query.getFinalOperator().getSchema();
+            int count = 0;
+            while (records.hasNext()) {
+                Record record = records.next();
+                assertEquals(record.getValue(schema.findField("table1.int")),
+                        record.getValue(schema.findField("table2.int")));
+                assertEquals(record.getValue(schema.findField("table2.float")),
+                        record.getValue(schema.findField("table3.float")));
+                count++;
+            }
+            assertEquals(20, count);
+
+            // The first join was computed ahead of the join with table3, which
+            // was planned again knowing it only yields 10 records. Nothing was
+            // materialized that the plan wouldn't have written anyway.
+            QueryOperator finalOperator = query.getFinalOperator();
+            String plan = finalOperator.toString();
+            assertTrue(plan, plan.contains("actual rows: 10)"));
+            assertFalse(plan, plan.contains("estimated rows: 10,"));
+            assertFalse(plan, plan.contains("Materialize"));
+            assertTrue(plan, finalOperator.isJoin());
+            assertNotEquals(JoinOperator.JoinType.GHJ, ((JoinOperator) finalOperator).getJoinType());
+        }
+    }
+
+    @Test
+    public void testNoReplanWhenEstimatesHold() {
+        try (Transaction t = this.db.beginTransaction()) {
+            // Without the selection, the join of table1 and table2 yields the
+            // 400 records it's estimated to
+            QueryPlan query = t.query("table1");
+            query.join("table2", "table1.int", "table2.int");
+            query.join("table3", "table2.float", "table3.float");
+            Iterator<Record> records = query.execute();
+
+            // Nothing is computed before the records are read, so EXPLAIN
+            // doesn't compute anything
+            QueryOperator chosen = query.getFinalOperator();
+            assertFalse(chosen.toString().contains("actual rows"));
+
+            int count = 0;
+            while (records.hasNext()) {
+                records.next();
+                count++;
+            }
+            assertEquals(800, count);
+
+            // The checkpoint was computed, and the plan kept
+            String plan = query.getFinalOperator().toString();
+            assertTrue(plan, plan.contains("estimated rows: 400, actual rows: 400)"));
+            assertSame(chosen, query.getFinalOperator());
+        }
+    }
+
+    @Test
+    public void testNoCheckpointForTwoTables() {
+        try (Transaction t = this.db.beginTransaction()) {
+            QueryPlan query = t.query("table1");
+            query.join("table2", "table1.int", "table2.int");
+            query.select("table1.float", PredicateOperator.LESS_THAN, 100f);
+            Iterator<Record> records = query.execute();
+            int count = 0;
+            while (records.hasNext()) {
+                records.next();
+                count++;
+            }
+            assertEquals(10, count);
+            assertFalse(query.getFinalOperator().toString().contains("actual rows: 10)"));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package edu.berkeley.cs186.database.query;
+
+import edu.berkeley.cs186.database.Database;
+import edu.berkeley.cs186.database.TestUtils;
+import edu.berkeley.cs186.database.TimeoutScaling;
+import edu.berkeley.cs186.database.Transaction;
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.common.PredicateOperator;
+import edu.berkeley.cs186.database.table.Record;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import static org.junit.Assert.*;
+
+@Category(Proj99Tests.class)
+public class TestExplainAnalyze {
+    private Database db;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Rule
+    public TestRule globalTimeout = new DisableOnDebug(Timeout.millis((long) (
+            10000 * TimeoutScaling.factor)));
+
+    @Before
+    public void setup() throws IOException {
+        File tempDir = tempFolder.newFolder("explainAnalyzeTest");
+        this.db = new Database(tempDir.getAbsolutePath(), 32);
+        this.db.setWorkMem(3);
+        try (Transaction t = this.db.beginTransaction()) {
+            t.createTable(TestUtils.createSchemaWithAllTypes(), "table1");
+            t.createTable(TestUtils.createSchemaWithAllTypes(), "table2");
+            for (int i = 0; i < 1000; i++) {
+                t.insert("table1", new Record(false, i, "!", (float) (1000 - i)));
+            }
+            for (int i = 0; i < 100; i++) {
+                t.insert("table2", new Record(false, i, "!", (float) i));
+            }
+        }
+        this.db.waitAllTransactions();
+    }
+
+    @After
+    public void cleanup() {
+        this.db.close();
+    }
+
+    private static int consume(Iterator<Record> records) {
+        int count = 0;
+        while (records.hasNext()) {
+            records.next();
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testRowCounts() {
+        try (Transaction t = this.db.beginTransaction()) {
+            QueryPlan query = t.query("table1");
+            query.select("table1.int", PredicateOperator.LESS_THAN, 10);
+            assertEquals(10, consume(query.execute(true)));
+
+            QueryOperator select = query.getFinalOperator();
+            assertTrue(select.isSelect());
+            assertEquals(10, select.getMetrics().getNumRecords());
+            assertEquals(1, select.getMetrics().getNumLoops());
+
+            // The selection is evaluated by the scan, which only yields the
+            // records that pass it
+            String plan = select.toString();
+            assertTrue(plan, plan.contains("filtering on table1.int<10"));
+            assertEquals(3, plan.split("actual rows=10,").length);
+            assertTrue(select.getMetrics().getNumHits() + select.getMetrics().getNumMisses() > 0);
+        }
+    }
+
+    @Test
+    public void testJoinInputs() {
+        try (Transaction t = this.db.beginTransaction()) {
+            QueryPlan query = t.query("table1");
+            query.join("table2", "table1.int", "table2.int");
+            assertEquals(100, consume(query.execute(true)));
+
+            QueryOperator join = query.getFinalOperator();
+            assertTrue(join.isJoin());
+            OperatorMetrics metrics = join.getMetrics();
+            assertEquals(100, metrics.getNumRecords());
+            assertTrue(metrics.getTimeMillis() >= 0);
+            // Both inputs of the join are annotated, whatever plan was chosen
+            String plan = join.toString();
+            assertTrue(plan, plan.split("actual rows=").length > 3);
+        }
+    }
+
+    @Test
+    public void testSortSpills() {
+        try (Transaction t = this.db.beginTransaction()) {
+            QueryPlan query = t.query("table1");
+            query.sort("table1.float");
+            assertEquals(1000, consume(query.execute(true)));
+
+            // Sorting 1000 records with 3 buffer pages writes out sorted runs
+            QueryOperator sort = query.getFinalOperator();
+            assertEquals(QueryOperator.OperatorType.SORT, sort.getType());
+            assertTrue(sort.getMetrics().getNumPagesSpilled() > 0);
+        }
+    }
+
+    @Test
+    public void testNotInstrumented() {
+        try (Transaction t = this.db.beginTransaction()) {
+            QueryPlan query = t.query("table1");
+            query.select("table1.int", PredicateOperator.LESS_THAN, 10);
+            assertEquals(10, consume(query.execute()));
+            assertNull(query.getFinalOperator().getMetrics());
+            assertFalse(query.getFinalOperator().toString().contains("actual rows"));
+        }
+    }
+}
@@ -3,16 +3,22 @@ package edu.berkeley.cs186.database.query;
 import edu.berkeley.cs186.database.Database;
 import edu.berkeley.cs186.database.TestUtils;
 import edu.berkeley.cs186.database.Transaction;
+import edu.berkeley.cs186.database.TransactionContext;
 import edu.berkeley.cs186.database.categories.Proj3Part1Tests;
 import edu.berkeley.cs186.database.categories.Proj3Tests;
 import edu.berkeley.cs186.database.categories.PublicTests;
 import edu.berkeley.cs186.database.categories.SystemTests;
 import edu.berkeley.cs186.database.common.Pair;
+import edu.berkeley.cs186.database.common.PredicateOperator;
+import edu.berkeley.cs186.database.databox.IntDataBox;
 import edu.berkeley.cs186.database.databox.Type;
 import edu.berkeley.cs186.database.query.join.GHJOperator;
+import edu.berkeley.cs186.database.query.join.HHJOperator;
+import edu.berkeley.cs186.database.query.join.PHJOperator;
 import edu.berkeley.cs186.database.query.join.SHJOperator;
 import edu.berkeley.cs186.database.table.Record;
 import edu.berkeley.cs186.database.table.Schema;
+import edu.berkeley.cs186.database.table.stats.TableStats;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -231,7 +237,9 @@ public class TestGraceHashJoin {
     }
 
     /**
-     * Tests student input such that GHJ breaks when using regular partitions.
+     * Tests student input such that GHJ can't partition the inputs into
+     * partitions of at most B-2 pages, since a single join value fills more
+     * than B-2 pages. GHJ falls back to joining the partitions with BNLJ.
      */
     @Test
     @Category(PublicTests.class)
@@ -252,15 +260,446 @@ public class TestGraceHashJoin {
                 transaction.getTransactionContext()
             );
 
-            try {
-                Iterator<Record> records = ghj.iterator();
-                while(records.hasNext()) records.next();
-                fail("GHJ Worked! It shouldn't have...");
-            } catch (Exception e) {
-                assertEquals("GHJ Failed for the wrong reason...",
-                        "Reached the max number of passes", e.getMessage());
+            int numRecords = 0;
+            for (Record record : ghj) {
+                assertEquals(leftRecords.get(0).concat(rightRecords.get(0)), record);
+                numRecords++;
+            }
+            assertEquals(leftRecords.size() * rightRecords.size(), numRecords);
+        }
+    }
+
+    /**
+     * Sanity test on a simple set of inputs. PHJ should produce the same
+     * records as SHJ.
+     */
+    @Test
+    @Category(PublicTests.class)
+    public void testSimplePHJ() {
+        try(Transaction transaction = d.beginTransaction()) {
+            Schema schema = TestUtils.createSchemaWithAllTypes();
+
+            List<Record> leftRecords = new ArrayList<>();
+            List<Record> rightRecords = new ArrayList<>();
+            Set<Record> expectedOutput = new HashSet<>();
+
+            for (int i = 0; i < 10; i++) {
+                leftRecords.add(TestUtils.createRecordWithAllTypesWithValue(i));
+            }
+
+            for (int i = 5; i < 15; i++) {
+                rightRecords.add(TestUtils.createRecordWithAllTypesWithValue(i));
+            }
+
+            for (int i = 5; i < 10; i++) {
+                Record r = TestUtils.createRecordWithAllTypesWithValue(i);
+                expectedOutput.add(r.concat(r));
+            }
+
+            PHJOperator phj = new PHJOperator(
+                    new TestSourceOperator(leftRecords, schema),
+                    new TestSourceOperator(rightRecords, schema),
+                    "int", "int",
+                    transaction.getTransactionContext()
+            );
+            assertFalse(phj.materialized());
+
+            Set<Record> output = new HashSet<>();
+            for (Record record : phj) output.add(record);
+
+            assertEquals(5, output.size());
+            assertEquals(expectedOutput, output);
+        }
+    }
+
+    /**
+     * Tests that PHJ yields its first record without consuming the whole
+     * probe input.
+     */
+    @Test
+    @Category(PublicTests.class)
+    public void testPHJStreamsProbeInput() {
+        try(Transaction transaction = d.beginTransaction()) {
+            Schema schema = TestUtils.createSchemaWithAllTypes();
+
+            List<Record> leftRecords = new ArrayList<>();
+            List<Record> rightRecords = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                leftRecords.add(TestUtils.createRecordWithAllTypesWithValue(i));
+            }
+            for (int i = 0; i < 1000; i++) {
+                rightRecords.add(TestUtils.createRecordWithAllTypesWithValue(i % 10));
+            }
+
+            int[] numProbed = new int[1];
+            QueryOperator probeSource = new TestSourceOperator(rightRecords, schema) {
+                @Override
+                public Iterator<Record> iterator() {
+                    Iterator<Record> iter = super.iterator();
+                    return new Iterator<Record>() {
+                        public boolean hasNext() { return iter.hasNext(); }
+                        public Record next() { numProbed[0]++; return iter.next(); }
+                    };
+                }
+            };
+
+            PHJOperator phj = new PHJOperator(
+                    new TestSourceOperator(leftRecords, schema), probeSource,
+                    "int", "int",
+                    transaction.getTransactionContext()
+            );
+
+            Iterator<Record> iter = phj.iterator();
+            assertTrue(iter.hasNext());
+            Record first = TestUtils.createRecordWithAllTypesWithValue(0);
+            assertEquals(first.concat(first), iter.next());
+            assertEquals(1, numProbed[0]);
+
+            int count = 1;
+            while (iter.hasNext()) {
+                iter.next();
+                count++;
+            }
+            assertEquals(1000, count);
+            assertEquals(1000, numProbed[0]);
+        }
+    }
+
+    /**
+     * Tests that PHJ builds on the smaller input while still yielding joined
+     * records with the left record's values first.
+     */
+    @Test
+    @Category(PublicTests.class)
+    public void testPHJBuildsOnSmallerInput() {
+        try(Transaction transaction = d.beginTransaction()) {
+            Schema leftSchema = new Schema()
+                    .add("int", Type.intType())
+                    .add("string", Type.stringType(10));
+            Schema rightSchema = TestUtils.createSchemaWithAllTypes();
+
+            List<Record> leftRecords = new ArrayList<>();
+            List<Record> rightRecords = new ArrayList<>();
+            Set<Record> expectedOutput = new HashSet<>();
+
+            for (int i = 0; i < 2000; i++) {
+                leftRecords.add(new Record(i % 100, "I love 186"));
+            }
+            for (int i = 50; i < 60; i++) {
+                rightRecords.add(TestUtils.createRecordWithAllTypesWithValue(i));
+            }
+            for (int i = 0; i < 2000; i++) {
+                if (i % 100 < 50 || i % 100 >= 60) continue;
+                expectedOutput.add(new Record(i % 100, "I love 186")
+                        .concat(TestUtils.createRecordWithAllTypesWithValue(i % 100)));
+            }
+
+            PHJOperator phj = new PHJOperator(
+                    sourceWithStats(leftRecords, leftSchema),
+                    new TestSourceOperator(rightRecords, rightSchema),
+                    "int", "int",
+                    transaction.getTransactionContext()
+            );
+
+            List<Record> output = new ArrayList<>();
+            for (Record record : phj) output.add(record);
+
+            assertEquals(200, output.size());
+            assertEquals(expectedOutput, new HashSet<>(output));
+        }
+    }
+
+    /**
+     * Tests that PHJ falls back to partitioning when the build input doesn't
+     * fit in memory.
+     */
+    @Test
+    @Category(PublicTests.class)
+    public void testPHJFallsBackToHHJ() {
+        try(Transaction transaction = d.beginTransaction()) {
+            Schema schema = new Schema()
+                    .add("int", Type.intType())
+                    .add("string", Type.stringType(500));
+            Pair<List<Record>, List<Record>> inputs = GHJOperator.getBreakSHJInputs();
+
+            List<Record> leftRecords = inputs.getFirst();
+            List<Record> rightRecords = inputs.getSecond();
+
+            PHJOperator phj = new PHJOperator(
+                    new TestSourceOperator(leftRecords, schema),
+                    new TestSourceOperator(rightRecords, schema),
+                    "int", "int",
+                    transaction.getTransactionContext()
+            );
+
+            Set<Record> output = new HashSet<>();
+            for (Record record : phj) output.add(record);
+
+            assertEquals(leftRecords.size(), output.size());
+            for (Record r : leftRecords) {
+                assertTrue(output.contains(r.concat(r)));
+            }
+        }
+    }
+
+    /**
+     * Tests HHJ against GHJ with records of different schemas, where most of
+     * the build input has to be spilled.
+     */
+    @Test
+    @Category(PublicTests.class)
+    public void testHHJDifferentSchemas() {
+        try(Transaction transaction = d.beginTransaction()) {
+            d.setWorkMem(3); // B=3
+            Schema leftSchema = new Schema()
+                .add("int", Type.intType())
+                .add("string", Type.stringType(10));
+            Schema rightSchema = TestUtils.createSchemaWithAllTypes();
+
+            List<Record> leftRecords = new ArrayList<>();
+            List<Record> rightRecords = new ArrayList<>();
+            Set<Record> expectedOutput = new HashSet<>();
+
+            for (int i = 0; i < 1860; i++) {
+                leftRecords.add(new Record(i, "I love 186"));
+            }
+
+            for (int i = 186; i < 9300; i++) {
+                rightRecords.add(TestUtils.createRecordWithAllTypesWithValue(i));
+            }
+
+            for (int i = 186; i < 1860; i++) {
+                Record r1 = new Record(i, "I love 186");
+                Record r2 = TestUtils.createRecordWithAllTypesWithValue(i);
+                expectedOutput.add(r1.concat(r2));
+            }
+
+            HHJOperator hhj = new HHJOperator(
+                    new TestSourceOperator(leftRecords, leftSchema),
+                    new TestSourceOperator(rightRecords, rightSchema),
+                    "int", "int",
+                    transaction.getTransactionContext()
+            );
+            assertFalse(hhj.materialized());
+
+            List<Record> output = new ArrayList<>();
+            for (Record record: hhj) output.add(record);
+
+            assertEquals(1674, output.size());
+            assertEquals(expectedOutput, new HashSet<>(output));
+        }
+    }
+
+    /**
+     * Tests that HHJ succeeds on the inputs that break SHJ, and that it builds
+     * on the smaller input when its statistics say so.
+     */
+    @Test
+    @Category(PublicTests.class)
+    public void testHHJSpillsOverflowPartitions() {
+        try(Transaction transaction = d.beginTransaction()) {
+            Schema schema = new Schema()
+                    .add("int", Type.intType())
+                    .add("string", Type.stringType(500));
+            Pair<List<Record>, List<Record>> inputs = GHJOperator.getBreakSHJInputs();
+
+            List<Record> leftRecords = inputs.getFirst();
+            List<Record> rightRecords = new ArrayList<>(inputs.getSecond());
+            rightRecords.addAll(inputs.getSecond());
+
+            HHJOperator hhj = new HHJOperator(
+                    sourceWithStats(leftRecords, schema),
+                    new TestSourceOperator(rightRecords, schema),
+                    "int", "int",
+                    transaction.getTransactionContext()
+            );
+
+            Map<Record, Integer> output = new HashMap<>();
+            for (Record record : hhj) output.merge(record, 1, Integer::sum);
+
+            assertEquals(leftRecords.size(), output.size());
+            for (Record r : leftRecords) {
+                assertEquals(Integer.valueOf(2), output.get(r.concat(r)));
+            }
+        }
+    }
+
+    /**
+     * Tests that HHJ joins spilled partitions that partitioning can't split
+     * with BNLJ.
+     */
+    @Test
+    @Category(PublicTests.class)
+    public void testHHJBreak() {
+        try(Transaction transaction = d.beginTransaction()) {
+            Schema schema = new Schema()
+                    .add("int", Type.intType())
+                    .add("string", Type.stringType(500));
+            Pair<List<Record>, List<Record>> inputs = GHJOperator.getBreakGHJInputs();
+            List<Record> leftRecords = inputs.getFirst();
+            List<Record> rightRecords = inputs.getSecond();
+
+            HHJOperator hhj = new HHJOperator(
+                new TestSourceOperator(leftRecords, schema),
+                new TestSourceOperator(rightRecords, schema),
+                "int", "int",
+                transaction.getTransactionContext()
+            );
+
+            int numRecords = 0;
+            for (Record record : hhj) {
+                assertEquals(leftRecords.get(0).concat(rightRecords.get(0)), record);
+                numRecords++;
+            }
+            assertEquals(leftRecords.size() * rightRecords.size(), numRecords);
+        }
+    }
+
+    /**
+     * Tests that HHJ is estimated to be cheaper than GHJ when the build input
+     * is only slightly larger than memory, and no cheaper when it is far
+     * larger than memory.
+     */
+    @Test
+    @Category(PublicTests.class)
+    public void testHHJCost() {
+        try(Transaction transaction = d.beginTransaction()) {
+            Schema schema = new Schema()
+                    .add("int", Type.intType())
+                    .add("string", Type.stringType(500));
+            List<Record> smallRecords = new ArrayList<>();
+            List<Record> largeRecords = new ArrayList<>();
+            // B=6 and 8 records per page: 5 pages and 50 pages
+            for (int i = 0; i < 40; i++) smallRecords.add(new Record(i, "!"));
+            for (int i = 0; i < 400; i++) largeRecords.add(new Record(i, "!"));
+
+            QueryOperator small = sourceWithStats(smallRecords, schema);
+            QueryOperator large = sourceWithStats(largeRecords, schema);
+            TransactionContext context = transaction.getTransactionContext();
+
+            int ghjCost = new GHJOperator(small, large, "int", "int", context).estimateIOCost();
+            int hhjCost = new HHJOperator(small, large, "int", "int", context).estimateIOCost();
+            assertTrue(hhjCost < ghjCost);
+
+            ghjCost = new GHJOperator(large, large, "int", "int", context).estimateIOCost();
+            hhjCost = new HHJOperator(large, large, "int", "int", context).estimateIOCost();
+            assertEquals(ghjCost, hhjCost);
+        }
+    }
+
+    /**
+     * Creates leftTable with the values 0-9 and rightTable with the values
+     * 0-999 in its int column.
+     */
+    private void createRuntimeFilterTables(Transaction transaction) {
+        transaction.createTable(TestUtils.createSchemaWithAllTypes(), "leftTable");
+        transaction.createTable(TestUtils.createSchemaWithAllTypes(), "rightTable");
+        for (int i = 0; i < 1000; i++) {
+            Record r = TestUtils.createRecordWithAllTypesWithValue(i);
+            if (i < 10) transaction.insert("leftTable", r);
+            transaction.insert("rightTable", r);
+        }
+    }
+
+    @Test
+    @Category(PublicTests.class)
+    public void testHHJRuntimeFilterPushedIntoScan() {
+        try(Transaction transaction = d.beginTransaction()) {
+            createRuntimeFilterTables(transaction);
+            TransactionContext context = transaction.getTransactionContext();
+            SequentialScanOperator rightScan = new SequentialScanOperator(context, "rightTable");
+            JoinOperator join = new HHJOperator(
+                new SequentialScanOperator(context, "leftTable"), rightScan,
+                "int", "int", context
+            );
+
+            Set<Record> output = new HashSet<>();
+            for (Record r : join) output.add(r);
+            assertEquals(10, output.size());
+            for (int i = 0; i < 10; i++) {
+                Record r = TestUtils.createRecordWithAllTypesWithValue(i);
+                assertTrue(output.contains(r.concat(r)));
+            }
+
+            // Every right record was tested, and almost all were dropped
+            assertTrue(rightScan.str().contains("Bloom Filter on rightTable.int"));
+            assertTrue(rightScan.str().contains("/1000)"));
+            Iterator<Record> unfiltered = rightScan.backtrackingIterator();
+            int numUnfiltered = 0;
+            while (unfiltered.hasNext()) {
+                unfiltered.next();
+                numUnfiltered++;
             }
+            assertEquals(1000, numUnfiltered);
         }
     }
 
+    @Test
+    @Category(PublicTests.class)
+    public void testGHJRuntimeFilterPushedThroughSelect() {
+        try(Transaction transaction = d.beginTransaction()) {
+            createRuntimeFilterTables(transaction);
+            TransactionContext context = transaction.getTransactionContext();
+            SequentialScanOperator rightScan = new SequentialScanOperator(context, "rightTable");
+            QueryOperator rightSelect = new SelectOperator(rightScan, "int",
+                    PredicateOperator.GREATER_THAN_EQUALS, new IntDataBox(5));
+            JoinOperator join = new GHJOperator(
+                new SequentialScanOperator(context, "leftTable"), rightSelect,
+                "int", "int", context
+            );
+
+            Set<Record> output = new HashSet<>();
+            for (Record r : join) output.add(r);
+            assertEquals(5, output.size());
+            for (int i = 5; i < 10; i++) {
+                Record r = TestUtils.createRecordWithAllTypesWithValue(i);
+                assertTrue(output.contains(r.concat(r)));
+            }
+            // The filter was evaluated by the scan below the select
+            assertTrue(rightScan.str().contains("/1000)"));
+        }
+    }
+
+    @Test
+    @Category(PublicTests.class)
+    public void testRuntimeFilterNotPushedDown() {
+        try(Transaction transaction = d.beginTransaction()) {
+            Schema schema = TestUtils.createSchemaWithAllTypes();
+            List<Record> leftRecords = new ArrayList<>();
+            List<Record> rightRecords = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                Record r = TestUtils.createRecordWithAllTypesWithValue(i);
+                if (i % 100 == 0) leftRecords.add(r);
+                rightRecords.add(r);
+            }
+            // Test sources don't accept runtime filters, so HHJ has to
+            // evaluate the filter itself
+            JoinOperator join = new HHJOperator(
+                sourceWithStats(leftRecords, schema),
+                sourceWithStats(rightRecords, schema),
+                "int", "int", transaction.getTransactionContext()
+            );
+            int numRecords = 0;
+            for (Record r : join) {
+                assertEquals(r.getValue(1), r.getValue(5));
+                numRecords++;
+            }
+            assertEquals(10, numRecords);
+        }
+    }
+
+    /**
+     * @return a source operator over `records` whose statistics reflect the
+     * number of records it yields
+     */
+    private static QueryOperator sourceWithStats(List<Record> records, Schema schema) {
+        return new TestSourceOperator(records, schema) {
+            @Override
+            public TableStats estimateStats() {
+                TableStats stats = super.estimateStats();
+                for (Record r : records) stats.addRecord(r);
+                return stats;
+            }
+        };
+    }
 }
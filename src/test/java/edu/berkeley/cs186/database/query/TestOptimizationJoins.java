@@ -8,6 +8,7 @@ import edu.berkeley.cs186.database.categories.HiddenTests;
 import edu.berkeley.cs186.database.categories.Proj3Part2Tests;
 import edu.berkeley.cs186.database.categories.Proj3Tests;
 import edu.berkeley.cs186.database.categories.PublicTests;
+import edu.berkeley.cs186.database.categories.SystemTests;
 import edu.berkeley.cs186.database.common.PredicateOperator;
 import edu.berkeley.cs186.database.query.join.BNLJOperator;
 import edu.berkeley.cs186.database.table.Record;
@@ -229,7 +230,43 @@ public class TestOptimizationJoins {
             query.execute();
             QueryOperator finalOperator = query.getFinalOperator();
             assertTrue(finalOperator.toString().contains("Index Scan"));
-            assertTrue(finalOperator.toString().contains("SNLJ") || finalOperator.toString().contains("BNLJ"));
+            assertTrue(finalOperator.toString().contains("SNLJ") || finalOperator.toString().contains("BNLJ") ||
+                    finalOperator.toString().contains("INLJ"));
+        }
+    }
+
+    @Test
+    @Category(SystemTests.class)
+    public void testIndexNestedLoopJoin() {
+        try(Transaction transaction = db.beginTransaction()) {
+            for (int i = 0; i < 10; ++i) {
+                transaction.insert("table1", new Record(false, i, "!", 0.0f));
+            }
+            for (int i = 0; i < 2000; ++i) {
+                transaction.insert("indexed_table", new Record(false, i, "!", (float) i));
+            }
+
+            transaction.getTransactionContext().getTable("table1").buildStatistics(10);
+            transaction.getTransactionContext().getTable("indexed_table").buildStatistics(10);
+
+            // SELECT * FROM table1
+            //    INNER JOIN indexed_table ON table1.int = indexed_table.int
+            // WHERE table1.int = 7
+            QueryPlan query = transaction.query("table1");
+            query.join("indexed_table", "table1.int", "indexed_table.int");
+            query.select("table1.int", PredicateOperator.EQUALS, 7);
+
+            Iterator<Record> records = query.execute();
+            QueryOperator finalOperator = query.getFinalOperator();
+
+            // A single lookup in the index is cheaper than scanning
+            // indexed_table
+            assertTrue(finalOperator.toString().contains("INLJ"));
+            assertTrue(records.hasNext());
+            Record record = records.next();
+            assertEquals(7, record.getValue(1).getInt());
+            assertEquals(7, record.getValue(5).getInt());
+            assertFalse(records.hasNext());
         }
     }
 
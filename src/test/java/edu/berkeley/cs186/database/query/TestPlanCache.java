@@ -0,0 +1,215 @@
+package edu.berkeley.cs186.database.query;
+
+import edu.berkeley.cs186.database.Database;
+import edu.berkeley.cs186.database.TestUtils;
+import edu.berkeley.cs186.database.TimeoutScaling;
+import edu.berkeley.cs186.database.Transaction;
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.common.PredicateOperator;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.stats.StatisticsCollector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+
+import static org.junit.Assert.*;
+
+@Category(Proj99Tests.class)
+public class TestPlanCache {
+    private Database db;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Rule
+    public TestRule globalTimeout = new DisableOnDebug(Timeout.millis((long) (
+            10000 * TimeoutScaling.factor)));
+
+    @Before
+    public void setup() throws IOException {
+        File tempDir = tempFolder.newFolder("planCacheTest");
+        this.db = new Database(tempDir.getAbsolutePath(), 32);
+        this.db.setWorkMem(5);
+        try (Transaction t = this.db.beginTransaction()) {
+            t.createTable(TestUtils.createSchemaWithAllTypes(), "table1");
+            t.createTable(TestUtils.createSchemaWithAllTypes(), "table2");
+            for (int i = 0; i < 100; i++) {
+                t.insert("table1", new Record(false, i, "!", (float) i));
+                t.insert("table2", new Record(false, i % 10, "!", (float) i));
+            }
+        }
+        this.db.waitAllTransactions();
+    }
+
+    @After
+    public void cleanup() {
+        this.db.close();
+    }
+
+    // SELECT * FROM table1 INNER JOIN table2 ON table1.int = table2.int
+    // WHERE table1.int < `value`
+    private int countJoined(int value) {
+        try (Transaction t = this.db.beginTransaction()) {
+            QueryPlan query = t.query("table1");
+            query.join("table2", "table1.int", "table2.int");
+            query.select("table1.int", PredicateOperator.LESS_THAN, value);
+            Iterator<Record> records = query.execute();
+            int count = 0;
+            while (records.hasNext()) {
+                records.next();
+                count++;
+            }
+            return count;
+        }
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        PlanCache cache = new PlanCache(2);
+        QueryPlan.PlanRecipe recipe = plan -> null;
+        cache.put("a", recipe, Collections.singleton("table1"));
+        cache.put("b", recipe, Collections.singleton("table1"));
+        assertNotNull(cache.get("a"));
+        cache.put("c", recipe, Collections.singleton("table1"));
+
+        // b was used least recently
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertEquals(3, cache.getNumHits());
+        assertEquals(1, cache.getNumMisses());
+    }
+
+    @Test
+    public void testInvalidate() {
+        PlanCache cache = new PlanCache(10);
+        QueryPlan.PlanRecipe recipe = plan -> null;
+        cache.put("a", recipe, Arrays.asList("Table1", "table2"));
+        cache.put("b", recipe, Collections.singleton("table2"));
+        cache.put("c", recipe, Collections.singleton("table3"));
+        cache.invalidate("TABLE2");
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    public void testDisabled() {
+        PlanCache cache = new PlanCache(0);
+        cache.put("a", plan -> null, Collections.singleton("table1"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testQueriesShareCachedPlan() {
+        PlanCache cache = this.db.getPlanCache();
+        assertEquals(100, countJoined(10));
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.getNumHits());
+
+        // Only the constant differs, so the cached plan is used, and built
+        // with the new constant
+        assertEquals(50, countJoined(5));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getNumHits());
+        assertEquals(0, countJoined(0));
+        assertEquals(2, cache.getNumHits());
+    }
+
+    @Test
+    public void testKeyIgnoresConstants() {
+        try (Transaction t = this.db.beginTransaction()) {
+            QueryPlan a = t.query("table1");
+            a.select("int", PredicateOperator.EQUALS, 1);
+            QueryPlan b = t.query("table1");
+            b.select("int", PredicateOperator.EQUALS, 2);
+            QueryPlan c = t.query("table1");
+            c.select("int", PredicateOperator.LESS_THAN, 2);
+            QueryPlan d = t.query("table1", "t1");
+            d.select("int", PredicateOperator.EQUALS, 2);
+            assertEquals(a.planCacheKey(), b.planCacheKey());
+            assertNotEquals(a.planCacheKey(), c.planCacheKey());
+            assertNotEquals(a.planCacheKey(), d.planCacheKey());
+        }
+    }
+
+    // Runs SELECT * FROM table1 WHERE table1.int = `value` in a new
+    // transaction with the isolation level `level`
+    private QueryOperator planLookup(Transaction.IsolationLevel level, int value) {
+        try (Transaction t = this.db.beginTransaction(level)) {
+            QueryPlan query = t.query("table1");
+            query.select("table1.int", PredicateOperator.EQUALS, value);
+            Iterator<Record> records = query.execute();
+            assertTrue(records.hasNext());
+            assertEquals(value, records.next().getValue(1).getInt());
+            assertFalse(records.hasNext());
+            return query.getFinalOperator();
+        }
+    }
+
+    @Test
+    public void testSnapshotTransactionsHavePlansOfTheirOwn() {
+        PlanCache cache = this.db.getPlanCache();
+        try (Transaction t = this.db.beginTransaction()) {
+            t.createIndex("table1", "int", false);
+        }
+
+        // Snapshot-isolated transactions can't read through the index that
+        // the serializable transaction's plan scans
+        QueryOperator serializable = planLookup(Transaction.IsolationLevel.SERIALIZABLE, 5);
+        assertTrue(serializable.toString().contains("Index Scan"));
+        QueryOperator snapshot = planLookup(Transaction.IsolationLevel.SNAPSHOT, 6);
+        assertFalse(snapshot.toString().contains("Index Scan"));
+        assertEquals(2, cache.size());
+        assertEquals(0, cache.getNumHits());
+
+        // Each isolation level reuses its own plan
+        assertTrue(planLookup(Transaction.IsolationLevel.SERIALIZABLE, 7).toString().contains("Index Scan"));
+        assertFalse(planLookup(Transaction.IsolationLevel.SNAPSHOT, 8).toString().contains("Index Scan"));
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.getNumHits());
+    }
+
+    @Test
+    public void testInvalidatedOnDDL() {
+        PlanCache cache = this.db.getPlanCache();
+        countJoined(10);
+        assertEquals(1, cache.size());
+        try (Transaction t = this.db.beginTransaction()) {
+            t.createIndex("table1", "int", false);
+        }
+        assertEquals(0, cache.size());
+
+        // The new plan may use the index
+        assertEquals(100, countJoined(10));
+        assertEquals(1, cache.size());
+        try (Transaction t = this.db.beginTransaction()) {
+            t.dropIndex("table1", "int");
+        }
+        assertEquals(0, cache.size());
+        assertEquals(100, countJoined(10));
+    }
+
+    @Test
+    public void testInvalidatedOnAnalyze() {
+        PlanCache cache = this.db.getPlanCache();
+        countJoined(10);
+        assertEquals(1, cache.size());
+        try (Transaction t = this.db.beginTransaction()) {
+            t.analyze("table1", StatisticsCollector.NO_SAMPLING);
+        }
+        assertEquals(0, cache.size());
+    }
+}
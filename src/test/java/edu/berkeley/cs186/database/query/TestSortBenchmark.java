@@ -0,0 +1,109 @@
+package edu.berkeley.cs186.database.query;
+
+import edu.berkeley.cs186.database.Database;
+import edu.berkeley.cs186.database.Transaction;
+import edu.berkeley.cs186.database.categories.BenchmarkTests;
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.databox.Type;
+import edu.berkeley.cs186.database.query.disk.Run;
+import edu.berkeley.cs186.database.table.PageDirectory;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.Schema;
+import edu.berkeley.cs186.database.table.Table;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures external sort throughput on inputs of 1x, 10x and 100x the size of
+ * work memory, comparing run generation with replacement selection against
+ * sorting one block of B pages at a time. Run with:
+ *
+ *   mvn test -Pbenchmark -Dtest=TestSortBenchmark
+ */
+@Category({Proj99Tests.class, BenchmarkTests.class})
+public class TestSortBenchmark {
+    private static final int NUM_BUFFERS = 8;
+    private static final int[] MEMORY_MULTIPLES = {1, 10, 100};
+
+    private Database d;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Before
+    public void setup() throws IOException {
+        File tempDir = tempFolder.newFolder("sortBenchmark");
+        d = new Database(tempDir.getAbsolutePath(), 256);
+        d.setWorkMem(NUM_BUFFERS);
+        d.waitAllTransactions();
+    }
+
+    @After
+    public void cleanup() {
+        d.close();
+    }
+
+    @Test
+    public void benchmarkSort() {
+        // Wide records keep the number of records per page (and so the
+        // running time at 100x) manageable
+        Schema schema = new Schema().add("int", Type.intType()).add("payload", Type.stringType(200));
+        int recordsPerPage = Table.computeNumRecordsPerPage(
+                PageDirectory.EFFECTIVE_PAGE_SIZE, schema);
+        System.out.println(String.format("%-6s %10s %12s %12s %14s %14s",
+                "input", "records", "block runs", "rs runs", "block rec/s", "rs rec/s"));
+        for (int multiple : MEMORY_MULTIPLES) {
+            int numRecords = multiple * NUM_BUFFERS * recordsPerPage;
+            List<Record> records = new ArrayList<>(numRecords);
+            for (int i = 0; i < numRecords; i++) {
+                records.add(new Record(i, "payload" + i));
+            }
+            Collections.shuffle(records, new Random(186));
+
+            try (Transaction transaction = d.beginTransaction()) {
+                SortOperator sort = new SortOperator(transaction.getTransactionContext(),
+                        new TestSourceOperator(records, schema), "int");
+
+                // Baseline: sort B pages at a time
+                long start = System.nanoTime();
+                List<Run> blockRuns = new ArrayList<>();
+                Iterator<Record> iter = records.iterator();
+                while (iter.hasNext()) {
+                    blockRuns.add(sort.sortRun(
+                            QueryOperator.getBlockIterator(iter, schema, NUM_BUFFERS)));
+                }
+                int numBlockRuns = blockRuns.size();
+                while (blockRuns.size() > 1) blockRuns = sort.mergePass(blockRuns);
+                double blockSeconds = (System.nanoTime() - start) / 1e9;
+
+                // Replacement selection
+                start = System.nanoTime();
+                List<Run> runs = sort.generateRuns(records.iterator());
+                int numRuns = runs.size();
+                while (runs.size() > 1) runs = sort.mergePass(runs);
+                double rsSeconds = (System.nanoTime() - start) / 1e9;
+
+                int count = 0;
+                for (Record r : runs.get(0)) {
+                    assertEquals(count, r.getValue(0).getInt());
+                    count++;
+                }
+                assertEquals(numRecords, count);
+
+                System.out.println(String.format("%-6s %10d %12d %12d %14.0f %14.0f",
+                        multiple + "x", numRecords, numBlockRuns, numRuns,
+                        numRecords / blockSeconds, numRecords / rsSeconds));
+            }
+        }
+    }
+}
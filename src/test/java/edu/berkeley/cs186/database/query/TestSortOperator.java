@@ -379,4 +379,88 @@ public class TestSortOperator {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    @Category(PublicTests.class)
+    public void testGenerateRunsReplacementSelection() {
+        try (Transaction transaction = d.beginTransaction()) {
+            d.setWorkMem(3); // B=3
+            List<Record> records = new ArrayList<>();
+            for (int i = 0; i < 400 * 30; i++) {
+                records.add(TestUtils.createRecordWithAllTypesWithValue(i));
+            }
+            Collections.shuffle(records, new Random(42));
+
+            SortOperator s = new SortOperator(
+                    transaction.getTransactionContext(),
+                    new TestSourceOperator(records, TestUtils.createSchemaWithAllTypes()),
+                    "int"
+            );
+            // Sorting 3 pages at a time would give 10 runs, replacement
+            // selection should give runs around twice as long
+            List<Run> runs = s.generateRuns(records.iterator());
+            assertTrue("too many runs: " + runs.size(), runs.size() <= 7);
+
+            int total = 0;
+            for (Run run : runs) {
+                Record prev = null;
+                for (Record r : run) {
+                    if (prev != null) {
+                        assertTrue("run out of order",
+                                prev.getValue(1).compareTo(r.getValue(1)) <= 0);
+                    }
+                    prev = r;
+                    total++;
+                }
+            }
+            assertEquals(400 * 30, total);
+        }
+    }
+
+    @Test
+    @Category(PublicTests.class)
+    public void testGenerateRunsSortedInput() {
+        try (Transaction transaction = d.beginTransaction()) {
+            d.setWorkMem(3); // B=3
+            List<Record> records = new ArrayList<>();
+            for (int i = 0; i < 400 * 30; i++) {
+                records.add(TestUtils.createRecordWithAllTypesWithValue(i));
+            }
+            SortOperator s = new SortOperator(
+                    transaction.getTransactionContext(),
+                    new TestSourceOperator(records, TestUtils.createSchemaWithAllTypes()),
+                    "int"
+            );
+            // Already sorted input never has to start a new run
+            assertEquals(1, s.generateRuns(records.iterator()).size());
+        }
+    }
+
+    @Test
+    @Category(PublicTests.class)
+    public void testSortStringsWithSharedPrefixes() {
+        try (Transaction transaction = d.beginTransaction()) {
+            d.setWorkMem(3); // B=3, 8 records per page
+            Schema schema = new Schema().add("string", Type.stringType(400));
+            List<Record> records = new ArrayList<>();
+            for (int i = 0; i < 8 * 20; i++) {
+                // Only the characters after the common prefix differ
+                records.add(new Record(String.format("prefix%03d", i)));
+            }
+            List<Record> shuffled = new ArrayList<>(records);
+            Collections.shuffle(shuffled, new Random(42));
+
+            SortOperator s = new SortOperator(
+                    transaction.getTransactionContext(),
+                    new TestSourceOperator(shuffled, schema),
+                    "string"
+            );
+            Iterator<Record> iter = s.sort().iterator();
+            for (int i = 0; i < records.size(); i++) {
+                assertTrue("too few records", iter.hasNext());
+                assertEquals("mismatch at record " + i, records.get(i), iter.next());
+            }
+            assertFalse("too many records", iter.hasNext());
+        }
+    }
+
+}
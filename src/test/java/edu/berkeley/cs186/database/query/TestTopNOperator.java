@@ -0,0 +1,157 @@
+package edu.berkeley.cs186.database.query;
+
+import edu.berkeley.cs186.database.Database;
+import edu.berkeley.cs186.database.TestUtils;
+import edu.berkeley.cs186.database.TimeoutScaling;
+import edu.berkeley.cs186.database.Transaction;
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.databox.DataBox;
+import edu.berkeley.cs186.database.databox.IntDataBox;
+import edu.berkeley.cs186.database.databox.Type;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@Category(Proj99Tests.class)
+public class TestTopNOperator {
+    private Database d;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Rule
+    public TestRule globalTimeout = new DisableOnDebug(Timeout.millis((long) (
+            10000 * TimeoutScaling.factor)));
+
+    @Before
+    public void setup() throws IOException {
+        File tempDir = tempFolder.newFolder("topNTest");
+        d = new Database(tempDir.getAbsolutePath(), 256);
+        d.setWorkMem(3); // B = 3
+        d.waitAllTransactions();
+    }
+
+    @After
+    public void cleanup() {
+        d.close();
+    }
+
+    /**
+     * @return records with int values 0, 1, ..., n - 1 in a shuffled order
+     */
+    private static List<Record> shuffledRecords(int n) {
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            records.add(TestUtils.createRecordWithAllTypesWithValue(i));
+        }
+        Collections.shuffle(records, new Random(186));
+        return records;
+    }
+
+    @Test
+    public void testTopN() {
+        Schema schema = TestUtils.createSchemaWithAllTypes();
+        List<Record> records = shuffledRecords(1000);
+        TopNOperator topN = new TopNOperator(new TestSourceOperator(records, schema), "int", 10);
+        Iterator<Record> iter = topN.iterator();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(iter.hasNext());
+            assertEquals(TestUtils.createRecordWithAllTypesWithValue(i), iter.next());
+        }
+        assertFalse(iter.hasNext());
+    }
+
+    @Test
+    public void testTopNLargerThanInput() {
+        Schema schema = TestUtils.createSchemaWithAllTypes();
+        List<Record> records = shuffledRecords(5);
+        TopNOperator topN = new TopNOperator(new TestSourceOperator(records, schema), "int", 10);
+        int numRecords = 0;
+        for (Record r : topN) {
+            assertEquals(new IntDataBox(numRecords), r.getValue(1));
+            numRecords++;
+        }
+        assertEquals(5, numRecords);
+        assertFalse(new TopNOperator(new TestSourceOperator(records, schema), "int", 0)
+                .iterator().hasNext());
+    }
+
+    @Test
+    public void testTopNTiesKeepInputOrder() {
+        Schema schema = TestUtils.createSchemaWithAllTypes().add("seq", Type.intType());
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            List<DataBox> values = new ArrayList<>(
+                    TestUtils.createRecordWithAllTypesWithValue(i % 2).getValues());
+            values.add(new IntDataBox(i));
+            records.add(new Record(values));
+        }
+        TopNOperator topN = new TopNOperator(new TestSourceOperator(records, schema), "int", 20);
+        int numRecords = 0;
+        for (Record r : topN) {
+            // All the 0s come first, in the order they were read
+            assertEquals(new IntDataBox(0), r.getValue(1));
+            assertEquals(new IntDataBox(2 * numRecords), r.getValue(4));
+            numRecords++;
+        }
+        assertEquals(20, numRecords);
+    }
+
+    @Test
+    public void testPlannerUsesTopNForOrderByLimit() {
+        try(Transaction transaction = d.beginTransaction()) {
+            transaction.createTable(TestUtils.createSchemaWithAllTypes(), "t");
+            for (Record r : shuffledRecords(1000)) transaction.insert("t", r);
+
+            QueryPlan query = transaction.query("t");
+            query.sort("int");
+            query.limit(5, 10);
+            Iterator<Record> iter = query.execute();
+
+            QueryOperator finalOperator = query.getFinalOperator();
+            assertEquals(QueryOperator.OperatorType.LIMIT, finalOperator.getType());
+            assertEquals(QueryOperator.OperatorType.TOP_N, finalOperator.getSource().getType());
+            for (int i = 10; i < 15; i++) {
+                assertTrue(iter.hasNext());
+                assertEquals(new IntDataBox(i), iter.next().getValue(1));
+            }
+            assertFalse(iter.hasNext());
+
+            // Estimated to yield n records, not the whole table
+            QueryOperator topN = finalOperator.getSource();
+            assertEquals(1000, topN.getSource().estimateStats().getNumRecords());
+            assertEquals(15, topN.estimateStats().getNumRecords());
+            assertEquals(1, topN.estimateStats().getNumPages());
+        }
+    }
+
+    @Test
+    public void testPlannerUsesSortForLargeLimit() {
+        try(Transaction transaction = d.beginTransaction()) {
+            transaction.createTable(TestUtils.createSchemaWithAllTypes(), "t");
+            for (Record r : shuffledRecords(1000)) transaction.insert("t", r);
+
+            // 5000 records don't fit in 3 pages of memory
+            QueryPlan query = transaction.query("t");
+            query.sort("int");
+            query.limit(1000, 4000);
+            query.execute();
+            assertEquals(QueryOperator.OperatorType.SORT,
+                    query.getFinalOperator().getSource().getType());
+        }
+    }
+}
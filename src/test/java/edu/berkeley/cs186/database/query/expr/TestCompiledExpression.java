@@ -0,0 +1,135 @@
+package edu.berkeley.cs186.database.query.expr;
+
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.databox.DataBox;
+import edu.berkeley.cs186.database.databox.StringDataBox;
+import edu.berkeley.cs186.database.databox.Type;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.Schema;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@Category(Proj99Tests.class)
+public class TestCompiledExpression {
+    private static final Schema SCHEMA = new Schema()
+            .add("i", Type.intType())
+            .add("l", Type.longType())
+            .add("f", Type.floatType())
+            .add("b", Type.boolType())
+            .add("s", Type.stringType(10));
+
+    private static List<Record> records() {
+        List<Record> records = new ArrayList<>();
+        int[] ints = {-7, -1, 0, 1, 3, 100};
+        for (int i = 0; i < ints.length; i++) {
+            for (int j = 0; j < ints.length; j++) {
+                records.add(new Record(ints[i], (long) ints[j] * 1000000000L,
+                        ints[j] / 2.0f, (i + j) % 2 == 0, new StringDataBox(i % 3 == 0 ? "" : "s" + j, 10)));
+            }
+        }
+        return records;
+    }
+
+    private static CompiledExpression compile(String s) {
+        Expression e = Expression.fromString(s);
+        e.setSchema(SCHEMA);
+        return CompiledExpression.compile(e);
+    }
+
+    /**
+     * Checks that compiling `s` yields the same values as interpreting it for
+     * every record, and returns the compiled expression.
+     */
+    private static CompiledExpression checkEquivalent(String s) {
+        Expression e = Expression.fromString(s);
+        e.setSchema(SCHEMA);
+        CompiledExpression compiled = CompiledExpression.compile(e);
+        assertEquals(e.getType(), compiled.getType());
+        for (Record record : records()) {
+            DataBox expected = e.evaluate(record);
+            DataBox actual = compiled.evaluate(record);
+            String message = s + " on " + record;
+            assertEquals(message, expected.type(), actual.type());
+            assertEquals(message, expected, actual);
+            assertEquals(message, Expression.toBool(expected), compiled.test(record));
+        }
+        return compiled;
+    }
+
+    @Test
+    public void testArithmetic() {
+        assertTrue(checkEquivalent("i + 2 * i - 3").isFullyCompiled());
+        assertTrue(checkEquivalent("i * l + 1").isFullyCompiled());
+        assertTrue(checkEquivalent("f * 2 - i / 4 + l").isFullyCompiled());
+        assertTrue(checkEquivalent("-i % 3 + -f").isFullyCompiled());
+        assertTrue(checkEquivalent("b + i").isFullyCompiled());
+        assertTrue(checkEquivalent("l / 7 * -2").isFullyCompiled());
+    }
+
+    @Test
+    public void testComparisons() {
+        for (String op : new String[] {"<", "<=", ">", ">=", "=", "!="}) {
+            assertTrue(checkEquivalent("i " + op + " 1").isFullyCompiled());
+            assertTrue(checkEquivalent("i " + op + " l").isFullyCompiled());
+            assertTrue(checkEquivalent("l " + op + " f").isFullyCompiled());
+            assertTrue(checkEquivalent("i * 2 " + op + " f").isFullyCompiled());
+            assertTrue(checkEquivalent("b " + op + " (i > 0)").isFullyCompiled());
+            assertTrue(checkEquivalent("s " + op + " 's1'").isFullyCompiled());
+        }
+    }
+
+    @Test
+    public void testLogic() {
+        assertTrue(checkEquivalent("i > 0 AND NOT b OR f = 0").isFullyCompiled());
+        assertTrue(checkEquivalent("NOT (i < 3 AND l > 0) AND b").isFullyCompiled());
+        // Truthiness of values of other types
+        assertTrue(checkEquivalent("i AND l OR f").isFullyCompiled());
+        assertTrue(checkEquivalent("NOT i").isFullyCompiled());
+        checkEquivalent("s OR b");
+    }
+
+    @Test
+    public void testShortCircuit() {
+        // The division is never evaluated for records where i = 0
+        CompiledExpression c = compile("i != 0 AND 100 / i > 1");
+        CompiledExpression d = compile("i = 0 OR 100 / i > 1");
+        for (Record record : records()) {
+            int i = record.getValue(0).getInt();
+            assertEquals(i != 0 && 100 / i > 1, c.test(record));
+            assertEquals(i == 0 || 100 / i > 1, d.test(record));
+        }
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testDivisionByZero() {
+        compile("i / (i - i)").evaluate(records().get(0));
+    }
+
+    @Test
+    public void testInterpretedSubexpressions() {
+        // Functions are left to the interpreter, the rest is compiled
+        CompiledExpression c = checkEquivalent("CEIL(f) > i AND b");
+        assertFalse(c.isFullyCompiled());
+        assertFalse(checkEquivalent("FLOOR(f) + i").isFullyCompiled());
+        checkEquivalent("s");
+    }
+
+    @Test
+    public void testAggregatesInterpreted() {
+        Expression e = Expression.fromString("SUM(i) + 1");
+        e.setSchema(SCHEMA);
+        CompiledExpression compiled = CompiledExpression.compile(e);
+        assertFalse(compiled.isFullyCompiled());
+        int sum = 0;
+        for (Record record : records()) {
+            e.update(record);
+            sum += record.getValue(0).getInt();
+        }
+        assertEquals(sum + 1, compiled.evaluate(records().get(0)).getInt());
+    }
+}
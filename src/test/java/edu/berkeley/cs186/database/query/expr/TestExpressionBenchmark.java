@@ -0,0 +1,87 @@
+package edu.berkeley.cs186.database.query.expr;
+
+import edu.berkeley.cs186.database.categories.BenchmarkTests;
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.databox.Type;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.Schema;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures the throughput of evaluating expressions over records in memory,
+ * comparing the interpreter (Expression.evaluate) against compiled
+ * expressions (CompiledExpression). Run with:
+ *
+ *   mvn test -Pbenchmark -Dtest=TestExpressionBenchmark
+ */
+@Category({Proj99Tests.class, BenchmarkTests.class})
+public class TestExpressionBenchmark {
+    private static final int NUM_RECORDS = 100000;
+    private static final int NUM_ROUNDS = 20;
+    private static final String[] EXPRESSIONS = {
+            "a < 500",
+            "a * 2 + b < 1000 AND NOT c",
+            "(a + b) * f - a / 3 >= 10",
+            "a % 7 = 0 OR b % 11 = 0 OR f > 900",
+    };
+
+    @Test
+    public void benchmarkExpressions() {
+        Schema schema = new Schema()
+                .add("a", Type.intType())
+                .add("b", Type.longType())
+                .add("f", Type.floatType())
+                .add("c", Type.boolType());
+        Random random = new Random(186);
+        List<Record> records = new ArrayList<>(NUM_RECORDS);
+        for (int i = 0; i < NUM_RECORDS; i++) {
+            records.add(new Record(random.nextInt(1000), (long) random.nextInt(1000),
+                    random.nextFloat() * 1000, random.nextBoolean()));
+        }
+
+        System.out.println(String.format("%-40s %16s %16s %8s",
+                "expression", "interpreted/s", "compiled/s", "speedup"));
+        for (String s : EXPRESSIONS) {
+            Expression expression = Expression.fromString(s);
+            expression.setSchema(schema);
+            CompiledExpression compiled = CompiledExpression.compile(expression);
+
+            // The first round warms up both paths
+            long interpretedNanos = 0;
+            long compiledNanos = 0;
+            for (int round = 0; round <= NUM_ROUNDS; round++) {
+                long start = System.nanoTime();
+                int count = 0;
+                for (Record record : records) {
+                    if (Expression.toBool(expression.evaluate(record))) count++;
+                }
+                long interpreted = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                int compiledMatches = 0;
+                for (Record record : records) {
+                    if (compiled.test(record)) compiledMatches++;
+                }
+                long compiledTime = System.nanoTime() - start;
+                assertEquals(count, compiledMatches);
+
+                if (round == 0) continue;
+                interpretedNanos += interpreted;
+                compiledNanos += compiledTime;
+            }
+
+            double totalRecords = (double) NUM_RECORDS * NUM_ROUNDS;
+            double interpretedRate = totalRecords / (interpretedNanos / 1e9);
+            double compiledRate = totalRecords / (compiledNanos / 1e9);
+            System.out.println(String.format("%-40s %16.0f %16.0f %7.2fx",
+                    s, interpretedRate, compiledRate, compiledRate / interpretedRate));
+        }
+    }
+}
@@ -6,6 +6,8 @@ import edu.berkeley.cs186.database.common.PredicateOperator;
 import edu.berkeley.cs186.database.common.iterator.BacktrackingIterator;
 import edu.berkeley.cs186.database.databox.DataBox;
 import edu.berkeley.cs186.database.index.BPlusTreeMetadata;
+import edu.berkeley.cs186.database.memory.BufferManager;
+import edu.berkeley.cs186.database.query.PlanCache;
 import edu.berkeley.cs186.database.query.QueryPlan;
 import edu.berkeley.cs186.database.table.Record;
 import edu.berkeley.cs186.database.table.RecordId;
@@ -17,6 +19,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.function.UnaryOperator;
 
@@ -134,6 +137,14 @@ class DummyTransaction extends Transaction {
     @Override
     public void releaseSavepoint(String savepointName) {}
 
+    @Override
+    public void analyze(String tableName, int sampleSize) {}
+
+    @Override
+    public Future<TableStats> analyzeInBackground(String tableName, int sampleSize) {
+        return null;
+    }
+
     @Override
     public Schema getSchema(String tableName) {
         return null;
@@ -155,6 +166,16 @@ class DummyTransaction extends Transaction {
             return 0;
         }
 
+        @Override
+        public PlanCache getPlanCache() {
+            return null;
+        }
+
+        @Override
+        public BufferManager getBufferManager() {
+            return null;
+        }
+
         @Override
         public void close() {}
 
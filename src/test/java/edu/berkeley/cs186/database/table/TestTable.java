@@ -6,6 +6,7 @@ import edu.berkeley.cs186.database.categories.Proj99Tests;
 import edu.berkeley.cs186.database.categories.SystemTests;
 import edu.berkeley.cs186.database.common.iterator.BacktrackingIterator;
 import edu.berkeley.cs186.database.concurrency.DummyLockContext;
+import edu.berkeley.cs186.database.databox.DataBox;
 import edu.berkeley.cs186.database.io.DiskSpaceManager;
 import edu.berkeley.cs186.database.io.MemoryDiskSpaceManager;
 import edu.berkeley.cs186.database.memory.BufferManager;
@@ -20,8 +21,10 @@ import org.junit.experimental.categories.Category;
 import org.junit.rules.TemporaryFolder;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Predicate;
 
 import static org.junit.Assert.*;
 
@@ -220,7 +223,7 @@ public class TestTable {
      * i increments by incr.
      */
     private void checkSequentialRecords(int start, int end, int incr,
-                                        BacktrackingIterator<Record> iter) {
+                                        Iterator<Record> iter) {
         for (int i = start; i < end; i += incr) {
             assertTrue(iter.hasNext());
             assertEquals(createRecordWithAllTypes(i), iter.next());
@@ -457,4 +460,34 @@ public class TestTable {
         checkSequentialRecords(1, numRecords, 2, iter);
         assertFalse(iter.hasNext());
     }
+
+    @Test
+    public void testGetRecordIf() {
+        Record r = new Record(false, 7, "a", 1.2f);
+        RecordId rid = table.addRecord(r);
+        List<Predicate<DataBox>> predicates = new ArrayList<>();
+        predicates.add(value -> value.getFloat() > 1.0f);
+        predicates.add(value -> value.getInt() == 7);
+        assertEquals(r, table.getRecordIf(rid, new int[] {3, 1}, predicates));
+
+        predicates.set(1, value -> value.getInt() == 8);
+        assertNull(table.getRecordIf(rid, new int[] {3, 1}, predicates));
+    }
+
+    /**
+     * Test of the filtered TableIterator over three pages of records, with the
+     * filter on a column in the middle of the record.
+     */
+    @Test
+    public void testFilteredTableIterator() {
+        int numRecords = table.getNumRecordsPerPage() * 3;
+        for (int i = 0; i < numRecords; ++i) {
+            table.addRecord(createRecordWithAllTypes(i));
+        }
+
+        Iterator<Record> iter = table.iterator(new int[] {1},
+                Collections.singletonList(value -> value.getInt() % 2 == 1));
+        checkSequentialRecords(1, numRecords, 2, iter);
+        assertFalse(iter.hasNext());
+    }
 }
@@ -0,0 +1,180 @@
+package edu.berkeley.cs186.database.table.stats;
+
+import edu.berkeley.cs186.database.categories.BenchmarkTests;
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.common.PredicateOperator;
+import edu.berkeley.cs186.database.concurrency.DummyLockContext;
+import edu.berkeley.cs186.database.databox.DataBox;
+import edu.berkeley.cs186.database.databox.IntDataBox;
+import edu.berkeley.cs186.database.databox.StringDataBox;
+import edu.berkeley.cs186.database.databox.Type;
+import edu.berkeley.cs186.database.io.DiskSpaceManager;
+import edu.berkeley.cs186.database.io.MemoryDiskSpaceManager;
+import edu.berkeley.cs186.database.memory.BufferManager;
+import edu.berkeley.cs186.database.memory.ClockEvictionPolicy;
+import edu.berkeley.cs186.database.recovery.DummyRecoveryManager;
+import edu.berkeley.cs186.database.table.PageDirectory;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.Schema;
+import edu.berkeley.cs186.database.table.Table;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.*;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures the estimation error of fixed width histograms against equi-depth
+ * histograms with most common values (as built by ANALYZE) on Zipfian columns,
+ * for equality and range predicates and for an equijoin. Errors are reported as
+ * q-errors, max(estimate / actual, actual / estimate). Run with:
+ *
+ *   mvn test -Pbenchmark -Dtest=TestHistogramBenchmark
+ */
+@Category({Proj99Tests.class, BenchmarkTests.class})
+public class TestHistogramBenchmark {
+    private static final int NUM_RECORDS = 50000;
+    private static final int NUM_VALUES = 1000;
+    private static final double ZIPF_EXPONENT = 1.1;
+    private static final int NUM_BUCKETS = 10;
+    private static final int SAMPLE_SIZE = 5000;
+    private static final int[] RANKS = {0, 1, 2, 5, 10, 50, 100, 500, 999};
+
+    private static final Schema SCHEMA = new Schema()
+            .add("tenant", Type.intType())
+            .add("key", Type.stringType(20));
+
+    private BufferManager bufferManager;
+    private Table table;
+    // ids[r] is the tenant id of the value with Zipfian rank r
+    private int[] ids;
+    private Map<Integer, Integer> tenantCounts = new HashMap<>();
+
+    @Before
+    public void setup() {
+        DiskSpaceManager diskSpaceManager = new MemoryDiskSpaceManager();
+        diskSpaceManager.allocPart(1);
+        this.bufferManager = new BufferManager(diskSpaceManager, new DummyRecoveryManager(), 1024,
+                new ClockEvictionPolicy());
+        long page0 = DiskSpaceManager.getVirtualPageNum(1, 0);
+        diskSpaceManager.allocPage(page0);
+        PageDirectory pageDirectory = new PageDirectory(bufferManager, 1, page0, (short) 0,
+                new DummyLockContext());
+        this.table = new Table("skewed", SCHEMA, pageDirectory, new DummyLockContext());
+
+        Random random = new Random(186);
+        List<Integer> permutation = new ArrayList<>();
+        for (int i = 0; i < NUM_VALUES; i++) permutation.add(i * 7);
+        Collections.shuffle(permutation, random);
+        this.ids = new int[NUM_VALUES];
+        for (int i = 0; i < NUM_VALUES; i++) this.ids[i] = permutation.get(i);
+
+        double[] cdf = new double[NUM_VALUES];
+        double sum = 0;
+        for (int i = 0; i < NUM_VALUES; i++) {
+            sum += 1 / Math.pow(i + 1, ZIPF_EXPONENT);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < NUM_RECORDS; i++) {
+            int rank = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            if (rank < 0) rank = -rank - 1;
+            int tenant = this.ids[Math.min(rank, NUM_VALUES - 1)];
+            this.tenantCounts.merge(tenant, 1, Integer::sum);
+            this.table.addRecord(new Record(tenant, "key" + tenant));
+        }
+    }
+
+    @After
+    public void cleanup() {
+        this.bufferManager.close();
+    }
+
+    @Test
+    public void benchmarkEstimationError() {
+        Histogram[] fixed = new Histogram[SCHEMA.size()];
+        for (int i = 0; i < SCHEMA.size(); i++) {
+            fixed[i] = new Histogram(NUM_BUCKETS);
+            fixed[i].buildHistogram(this.table, i);
+        }
+        TableStats analyzed = collect(StatisticsCollector.NO_SAMPLING);
+        TableStats sampled = collect(SAMPLE_SIZE);
+
+        System.out.println(String.format("%-22s %8s %10s %10s %10s",
+                "predicate", "actual", "fixed", "analyze", "sampled"));
+        double[] totalError = new double[3];
+        double[] maxError = new double[3];
+        int numQueries = 0;
+        for (int rank : RANKS) {
+            int tenant = this.ids[rank];
+            int actualEquals = this.tenantCounts.getOrDefault(tenant, 0);
+            int actualLess = 0;
+            for (Map.Entry<Integer, Integer> e : this.tenantCounts.entrySet()) {
+                if (e.getKey() < tenant) actualLess += e.getValue();
+            }
+            Object[][] queries = {
+                {0, PredicateOperator.EQUALS, new IntDataBox(tenant), actualEquals, "tenant = " + tenant},
+                {0, PredicateOperator.LESS_THAN, new IntDataBox(tenant), actualLess, "tenant < " + tenant},
+                {1, PredicateOperator.EQUALS, new StringDataBox("key" + tenant, 20), actualEquals,
+                    "key = 'key" + tenant + "'"},
+            };
+            for (Object[] query : queries) {
+                int column = (Integer) query[0];
+                PredicateOperator predicate = (PredicateOperator) query[1];
+                DataBox value = (DataBox) query[2];
+                int actual = (Integer) query[3];
+                float[] estimates = {
+                    fixed[column].computeReductionFactor(predicate, value) * NUM_RECORDS,
+                    analyzed.getHistograms().get(column).computeReductionFactor(predicate, value) * NUM_RECORDS,
+                    sampled.getHistograms().get(column).computeReductionFactor(predicate, value) * NUM_RECORDS,
+                };
+                System.out.println(String.format("%-22s %8d %10.0f %10.0f %10.0f",
+                        query[4], actual, estimates[0], estimates[1], estimates[2]));
+                for (int i = 0; i < estimates.length; i++) {
+                    double error = qError(estimates[i], actual);
+                    totalError[i] += error;
+                    maxError[i] = Math.max(maxError[i], error);
+                }
+                numQueries++;
+            }
+        }
+
+        long actualJoin = 0;
+        for (int count : this.tenantCounts.values()) actualJoin += (long) count * count;
+        TableStats fixedStats = new TableStats(SCHEMA, 1, NUM_RECORDS, Arrays.asList(fixed),
+                Arrays.asList(null, null), Arrays.asList(null, null));
+        long[] joinEstimates = {
+            fixedStats.copyWithJoin(0, fixedStats, 0).getNumRecords(),
+            Histogram.estimateJoinSize(analyzed.getHistograms().get(0), analyzed.getHistograms().get(0)),
+            Histogram.estimateJoinSize(sampled.getHistograms().get(0), sampled.getHistograms().get(0)),
+        };
+        System.out.println(String.format("%-22s %8d %10d %10d %10d", "self join on tenant",
+                actualJoin, joinEstimates[0], joinEstimates[1], joinEstimates[2]));
+
+        System.out.println(String.format("%-22s %8s %10.2f %10.2f %10.2f", "mean q-error", "",
+                totalError[0] / numQueries, totalError[1] / numQueries, totalError[2] / numQueries));
+        System.out.println(String.format("%-22s %8s %10.2f %10.2f %10.2f", "max q-error", "",
+                maxError[0], maxError[1], maxError[2]));
+        System.out.println(String.format("%-22s %8s %10.2f %10.2f %10.2f", "join q-error", "",
+                qError(joinEstimates[0], actualJoin), qError(joinEstimates[1], actualJoin),
+                qError(joinEstimates[2], actualJoin)));
+
+        assertTrue(totalError[1] < totalError[0]);
+        assertTrue(qError(joinEstimates[1], actualJoin) < qError(joinEstimates[0], actualJoin));
+    }
+
+    private TableStats collect(int sampleSize) {
+        StatisticsCollector collector = new StatisticsCollector(SCHEMA, NUM_BUCKETS, sampleSize,
+                new Random(186));
+        for (Record record : this.table) collector.add(record);
+        return collector.build(this.table.getNumRecordsPerPage());
+    }
+
+    private static double qError(double estimate, double actual) {
+        estimate = Math.max(estimate, 1);
+        actual = Math.max(actual, 1);
+        return Math.max(estimate / actual, actual / estimate);
+    }
+}
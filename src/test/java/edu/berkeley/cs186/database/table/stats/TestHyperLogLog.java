@@ -0,0 +1,60 @@
+package edu.berkeley.cs186.database.table.stats;
+
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.databox.IntDataBox;
+import edu.berkeley.cs186.database.databox.StringDataBox;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.assertEquals;
+
+@Category(Proj99Tests.class)
+public class TestHyperLogLog {
+    @Test
+    public void testEmpty() {
+        assertEquals(0, new HyperLogLog().estimate());
+    }
+
+    @Test
+    public void testSmallCardinality() {
+        HyperLogLog hll = new HyperLogLog();
+        for (int i = 0; i < 100; i++) {
+            // Duplicates shouldn't affect the estimate
+            hll.add(new IntDataBox(i));
+            hll.add(new IntDataBox(i));
+        }
+        assertEquals(100, hll.estimate(), 2);
+    }
+
+    @Test
+    public void testLargeCardinality() {
+        HyperLogLog hll = new HyperLogLog();
+        for (int i = 0; i < 200000; i++) hll.add(new IntDataBox(i % 100000));
+        // Standard error is about 1.6% with the default precision
+        assertEquals(100000, hll.estimate(), 5000);
+    }
+
+    @Test
+    public void testStrings() {
+        HyperLogLog hll = new HyperLogLog();
+        for (int i = 0; i < 20000; i++) hll.add(new StringDataBox("value" + i, 20));
+        assertEquals(20000, hll.estimate(), 1000);
+    }
+
+    @Test
+    public void testMerge() {
+        HyperLogLog evens = new HyperLogLog();
+        HyperLogLog odds = new HyperLogLog();
+        for (int i = 0; i < 20000; i++) {
+            if (i % 2 == 0) evens.add(new IntDataBox(i));
+            else odds.add(new IntDataBox(i));
+        }
+        evens.merge(odds);
+        assertEquals(20000, evens.estimate(), 1000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeDifferentPrecisions() {
+        new HyperLogLog(10).merge(new HyperLogLog(12));
+    }
+}
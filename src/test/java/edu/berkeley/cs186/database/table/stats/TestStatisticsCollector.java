@@ -0,0 +1,208 @@
+package edu.berkeley.cs186.database.table.stats;
+
+import edu.berkeley.cs186.database.categories.Proj99Tests;
+import edu.berkeley.cs186.database.common.Buffer;
+import edu.berkeley.cs186.database.common.ByteBuffer;
+import edu.berkeley.cs186.database.common.PredicateOperator;
+import edu.berkeley.cs186.database.databox.IntDataBox;
+import edu.berkeley.cs186.database.databox.StringDataBox;
+import edu.berkeley.cs186.database.databox.Type;
+import edu.berkeley.cs186.database.table.Record;
+import edu.berkeley.cs186.database.table.Schema;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+@Category(Proj99Tests.class)
+public class TestStatisticsCollector {
+    private static final Schema SCHEMA = new Schema()
+            .add("id", Type.intType())
+            .add("bucket", Type.intType())
+            .add("name", Type.stringType(10));
+
+    // Records (i, i % 50 - 25, "name" + i % 200) for i in [0, n)
+    private static StatisticsCollector collect(int n, int sampleSize) {
+        StatisticsCollector collector = new StatisticsCollector(SCHEMA, 10, sampleSize, new Random(186));
+        for (int i = 0; i < n; i++) {
+            collector.add(SCHEMA.verify(new Record(i, i % 50 - 25, "name" + i % 200)));
+        }
+        return collector;
+    }
+
+    @Test
+    public void testEmptyTable() {
+        TableStats stats = collect(0, StatisticsCollector.NO_SAMPLING).build(10);
+        assertEquals(0, stats.getNumRecords());
+        assertNull(stats.getMinValue(0));
+        assertEquals(0, stats.getHistograms().get(0).getCount());
+    }
+
+    @Test
+    public void testFullScan() {
+        StatisticsCollector collector = collect(1000, StatisticsCollector.NO_SAMPLING);
+        assertEquals(1000, collector.getNumSampled());
+        TableStats stats = collector.build(10);
+        assertEquals(1000, stats.getNumRecords());
+
+        assertEquals(new IntDataBox(0), stats.getMinValue(0));
+        assertEquals(new IntDataBox(999), stats.getMaxValue(0));
+        // Negative bounds are kept as well
+        assertEquals(new IntDataBox(-25), stats.getMinValue(1));
+        assertEquals(new IntDataBox(24), stats.getMaxValue(1));
+
+        Histogram id = stats.getHistograms().get(0);
+        assertEquals(1000, id.getCount());
+        assertEquals(1000, id.getNumDistinct());
+        for (int i = 0; i < 10; i++) assertEquals(100, id.get(i).getCount());
+
+        Histogram bucket = stats.getHistograms().get(1);
+        assertEquals(1000, bucket.getCount());
+        assertEquals(50, bucket.getNumDistinct());
+        assertEquals(-25, bucket.get(0).getStart(), 0.0001);
+
+        Histogram name = stats.getHistograms().get(2);
+        assertEquals(1000, name.getCount());
+        // Strings may collide when quantized, so their distinct counts are estimated
+        assertEquals(200, name.getNumDistinct(), 5);
+    }
+
+    @Test
+    public void testSampled() {
+        StatisticsCollector collector = collect(20000, 1000);
+        assertEquals(20000, collector.getNumRecords());
+        assertEquals(1000, collector.getNumSampled());
+        TableStats stats = collector.build(10);
+
+        // Counts and bounds are exact regardless of the sample
+        assertEquals(20000, stats.getNumRecords());
+        assertEquals(new IntDataBox(0), stats.getMinValue(0));
+        assertEquals(new IntDataBox(19999), stats.getMaxValue(0));
+
+        // Bucket counts are scaled up from the sample
+        Histogram id = stats.getHistograms().get(0);
+        assertEquals(20000, id.getCount(), 100);
+        for (int i = 0; i < 10; i++) assertEquals(2000, id.get(i).getCount(), 400);
+
+        // Distinct counts come from the sketches, not from the sample
+        assertEquals(20000, id.getNumDistinct(), 1000);
+        assertEquals(50, stats.getHistograms().get(1).getNumDistinct(), 3);
+        assertEquals(200, stats.getHistograms().get(2).getNumDistinct(), 10);
+
+        // The sampled histograms should give about the same estimates as the
+        // exact ones
+        float reductionFactor = stats.getHistograms().get(0).computeReductionFactor(
+                PredicateOperator.LESS_THAN, new IntDataBox(5000));
+        assertEquals(0.25, reductionFactor, 0.05);
+    }
+
+    @Test
+    public void testSampleSizeLargerThanTable() {
+        StatisticsCollector collector = collect(100, 1000);
+        assertEquals(100, collector.getNumSampled());
+        TableStats stats = collector.build(10);
+        assertEquals(100, stats.getHistograms().get(0).getNumDistinct());
+    }
+
+    @Test
+    public void testDefaultSampleSize() {
+        // Without a sample size, tables larger than MAX_EXACT_RECORDS are sampled
+        int n = StatisticsCollector.MAX_EXACT_RECORDS * 2;
+        StatisticsCollector collector = collect(n, StatisticsCollector.NO_SAMPLING);
+        assertEquals(n, collector.getNumRecords());
+        assertEquals(StatisticsCollector.MAX_EXACT_RECORDS, collector.getNumSampled());
+        TableStats stats = collector.build(10);
+        assertEquals(n, stats.getNumRecords());
+        Histogram id = stats.getHistograms().get(0);
+        assertEquals(n, id.getCount());
+        assertEquals(new IntDataBox(n - 1), stats.getMaxValue(0));
+        for (int i = 0; i < 10; i++) assertEquals(n / 10, id.get(i).getCount(), n / 100);
+    }
+
+    @Test
+    public void testBoundsSurviveCopies() {
+        TableStats stats = collect(1000, StatisticsCollector.NO_SAMPLING).build(10);
+        TableStats filtered = stats.copyWithPredicate(0, PredicateOperator.LESS_THAN, new IntDataBox(500));
+        assertEquals(new IntDataBox(999), filtered.getMaxValue(0));
+
+        TableStats joined = stats.copyWithJoin(0, stats, 0);
+        assertEquals(new IntDataBox(-25), joined.getMinValue(4));
+        assertEquals(new StringDataBox("name99", 10), joined.getMaxValue(5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSampleSize() {
+        new StatisticsCollector(SCHEMA, 10, -1);
+    }
+
+    @Test
+    public void testSerialization() {
+        TableStats stats = collect(1000, 100).build(10);
+        List<Buffer> columns = new ArrayList<>();
+        for (int i = 0; i < SCHEMA.size(); i++) columns.add(ByteBuffer.wrap(stats.columnToBytes(i)));
+        TableStats copy = TableStats.fromBytes(SCHEMA, 10, stats.getNumRecords(),
+                stats.getNumAnalyzedRecords(), stats.getNumChanges(), columns);
+
+        assertEquals(1000, copy.getNumRecords());
+        assertEquals(1000, copy.getNumAnalyzedRecords());
+        for (int i = 0; i < SCHEMA.size(); i++) {
+            assertEquals(stats.getMinValue(i), copy.getMinValue(i));
+            assertEquals(stats.getMaxValue(i), copy.getMaxValue(i));
+            Histogram expected = stats.getHistograms().get(i);
+            Histogram actual = copy.getHistograms().get(i);
+            assertEquals(expected.getCount(), actual.getCount());
+            assertEquals(expected.getNumDistinct(), actual.getNumDistinct());
+            assertEquals(expected.getNumBuckets(), actual.getNumBuckets());
+            for (int j = 0; j < expected.getNumBuckets(); j++) assertEquals(expected.get(j), actual.get(j));
+        }
+    }
+
+    @Test
+    public void testStaleness() {
+        TableStats stats = collect(100, StatisticsCollector.NO_SAMPLING).build(10);
+        for (int i = 0; i < 60; i++) stats.addRecord(new Record(i, 0, "name"));
+        assertFalse(stats.isStale(50, 0.1));
+        stats.removeRecord(new Record(0, 0, "name"));
+        assertTrue(stats.isStale(50, 0.1));
+        assertFalse(stats.isStale(50, -1));
+
+        // Statistics that were never analyzed are never stale
+        TableStats unanalyzed = new TableStats(SCHEMA, 10);
+        for (int i = 0; i < 100; i++) unanalyzed.addRecord(new Record(i, 0, "name"));
+        assertFalse(unanalyzed.isStale(0, 0));
+    }
+
+    @Test
+    public void testSkewedColumn() {
+        // Half of the records have bucket 0, the rest are spread over 1 to 500
+        StatisticsCollector collector = new StatisticsCollector(SCHEMA, 10, StatisticsCollector.NO_SAMPLING);
+        for (int i = 0; i < 2000; i++) {
+            int bucket = i % 2 == 0 ? 0 : i % 1000 / 2 + 1;
+            collector.add(SCHEMA.verify(new Record(i, bucket, "name")));
+        }
+        TableStats stats = collector.build(10);
+        Histogram bucket = stats.getHistograms().get(1);
+        assertEquals(2000, bucket.getCount());
+        assertEquals(501, bucket.getNumDistinct());
+        assertEquals(1000, bucket.getMostCommonValueCount(new IntDataBox(0)));
+        assertEquals(-1, bucket.getMostCommonValueCount(new IntDataBox(7)));
+
+        // The heavy hitter is estimated exactly, and the long tail from the
+        // buckets, each of which holds about the same number of records
+        assertEquals(0.5, bucket.computeReductionFactor(PredicateOperator.EQUALS, new IntDataBox(0)), 0.001);
+        assertEquals(0.001, bucket.computeReductionFactor(PredicateOperator.EQUALS, new IntDataBox(7)), 0.0005);
+        assertEquals(0.75, bucket.computeReductionFactor(PredicateOperator.LESS_THAN, new IntDataBox(251)), 0.02);
+        for (int i = 0; i < bucket.getNumBuckets(); i++) assertEquals(100, bucket.get(i).getCount(), 10);
+
+        TableStats filtered = stats.copyWithPredicate(1, PredicateOperator.NOT_EQUALS, new IntDataBox(0));
+        assertEquals(1000, filtered.getNumRecords());
+
+        // 1000 * 1000 pairs match on the heavy hitter, and 4 * 500 on the rest
+        TableStats joined = stats.copyWithJoin(1, stats, 1);
+        assertEquals(1002000, joined.getNumRecords(), 1000);
+    }
+}